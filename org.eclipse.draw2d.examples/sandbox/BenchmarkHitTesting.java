@@ -0,0 +1,72 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+import java.util.Random;
+
+import org.eclipse.draw2d.Figure;
+import org.eclipse.draw2d.FreeformLayer;
+import org.eclipse.draw2d.IFigure;
+import org.eclipse.draw2d.MouseListener;
+import org.eclipse.draw2d.geometry.Rectangle;
+
+/**
+ * Compares hit-testing on a FreeformLayer scanning all of its children with
+ * hit-testing through the layer's child index.
+ */
+public class BenchmarkHitTesting {
+
+static final int QUERIES = 20000;
+
+static FreeformLayer createLayer(int count) {
+	FreeformLayer layer = new FreeformLayer();
+	int columns = (int)Math.sqrt(count);
+	for (int i = 0; i < count; i++) {
+		IFigure node = new Figure();
+		node.setBounds(new Rectangle(i % columns * 60, i / columns * 40, 50, 30));
+		node.addMouseListener(new MouseListener.Stub());
+		layer.add(node);
+	}
+	layer.setBounds(layer.getFreeformExtent());
+	return layer;
+}
+
+static long run(FreeformLayer layer, int[] points) {
+	long start = System.nanoTime();
+	for (int i = 0; i < points.length; i += 2) {
+		layer.findFigureAt(points[i], points[i + 1]);
+		layer.findMouseEventTargetAt(points[i], points[i + 1]);
+	}
+	return System.nanoTime() - start;
+}
+
+public static void main(String[] args) {
+	int[] sizes = new int[] {1000, 5000, 20000};
+	Random random = new Random(0);
+	for (int s = 0; s < sizes.length; s++) {
+		FreeformLayer layer = createLayer(sizes[s]);
+		Rectangle extent = layer.getBounds();
+		int[] points = new int[QUERIES * 2];
+		for (int i = 0; i < points.length; i += 2) {
+			points[i] = extent.x + random.nextInt(extent.width);
+			points[i + 1] = extent.y + random.nextInt(extent.height);
+		}
+
+		run(layer, points);
+		long scan = run(layer, points);
+		layer.setIndexingChildren(true);
+		run(layer, points);
+		long indexed = run(layer, points);
+
+		System.out.println(sizes[s] + " children: scan " + (scan / QUERIES)
+				+ " ns/query, indexed " + (indexed / QUERIES) + " ns/query");
+	}
+}
+
+}
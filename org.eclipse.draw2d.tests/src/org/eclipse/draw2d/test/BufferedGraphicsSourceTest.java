@@ -0,0 +1,117 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.draw2d.test;
+
+import junit.framework.TestCase;
+
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.widgets.Canvas;
+import org.eclipse.swt.widgets.Display;
+import org.eclipse.swt.widgets.Shell;
+
+import org.eclipse.draw2d.BufferedGraphicsSource;
+import org.eclipse.draw2d.DeferredUpdateManager;
+import org.eclipse.draw2d.Graphics;
+import org.eclipse.draw2d.LightweightSystem;
+import org.eclipse.draw2d.geometry.Rectangle;
+
+public class BufferedGraphicsSourceTest extends TestCase {
+
+	private Shell shell;
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		shell = new Shell(Display.getDefault());
+	}
+
+	protected void tearDown() throws Exception {
+		shell.dispose();
+		super.tearDown();
+	}
+
+	private Canvas createCanvas(int style, int width, int height) {
+		Canvas canvas = new Canvas(shell, style);
+		canvas.setSize(width, height);
+		return canvas;
+	}
+
+	private static void paint(BufferedGraphicsSource source, Rectangle region) {
+		Graphics graphics = source.getGraphics(region);
+		assertNotNull(graphics);
+		graphics.fillRectangle(region);
+		graphics.dispose();
+		source.flushGraphics(region);
+	}
+
+	public void testSourceIsReachableFromLightweightSystem() {
+		LightweightSystem lws = new LightweightSystem(createCanvas(SWT.NONE,
+				100, 100));
+		DeferredUpdateManager manager = (DeferredUpdateManager) lws
+				.getUpdateManager();
+		assertTrue(
+				manager.getGraphicsSource() instanceof BufferedGraphicsSource);
+	}
+
+	public void testBufferIsGrownAndReused() {
+		BufferedGraphicsSource source = new BufferedGraphicsSource(
+				createCanvas(SWT.NONE, 1000, 800));
+		paint(source, new Rectangle(0, 0, 100, 100));
+		assertEquals(1, source.getAllocationCount());
+		assertEquals(100 * 100, source.getAllocatedPixelCount());
+
+		// fits in the image
+		paint(source, new Rectangle(500, 500, 80, 100));
+		assertEquals(1, source.getAllocationCount());
+
+		// grown by half, or to the region if it is larger
+		paint(source, new Rectangle(0, 0, 200, 120));
+		assertEquals(2, source.getAllocationCount());
+		assertEquals(100 * 100 + 200 * 150, source.getAllocatedPixelCount());
+
+		// never beyond the size of the control
+		paint(source, new Rectangle(0, 0, 1000, 160));
+		paint(source, new Rectangle(0, 0, 1000, 800));
+		assertEquals(4, source.getAllocationCount());
+		assertEquals(100 * 100 + 200 * 150 + 1000 * 225 + 1000 * 800,
+				source.getAllocatedPixelCount());
+		assertEquals(0, source.getFailedAllocationCount());
+	}
+
+	public void testMirroredBufferKeepsTheWidthOfTheRegion() {
+		BufferedGraphicsSource source = new BufferedGraphicsSource(
+				createCanvas(SWT.RIGHT_TO_LEFT, 1000, 800));
+		paint(source, new Rectangle(0, 0, 100, 100));
+		paint(source, new Rectangle(0, 0, 100, 50));
+		assertEquals(1, source.getAllocationCount());
+
+		paint(source, new Rectangle(0, 0, 80, 100));
+		assertEquals(2, source.getAllocationCount());
+		assertEquals(100 * 100 + 80 * 150, source.getAllocatedPixelCount());
+		paint(source, new Rectangle(0, 0, 80, 150));
+		assertEquals(2, source.getAllocationCount());
+	}
+
+	public void testFailedAllocationPaintsOnControl() {
+		// larger than any image the platform can allocate
+		Canvas canvas = createCanvas(SWT.NONE, 1 << 16, 1 << 16);
+		BufferedGraphicsSource source = new BufferedGraphicsSource(canvas);
+		Rectangle region = new Rectangle(0, 0, canvas.getSize().x,
+				canvas.getSize().y);
+		paint(source, region);
+		assertEquals(0, source.getAllocationCount());
+		assertEquals(1, source.getFailedAllocationCount());
+
+		paint(source, new Rectangle(0, 0, 100, 100));
+		assertEquals(1, source.getAllocationCount());
+		assertEquals(1, source.getFailedAllocationCount());
+	}
+
+}
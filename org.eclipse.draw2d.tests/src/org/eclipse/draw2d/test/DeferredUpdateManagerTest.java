@@ -0,0 +1,199 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.draw2d.test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.eclipse.draw2d.DeferredUpdateManager;
+import org.eclipse.draw2d.Figure;
+import org.eclipse.draw2d.Graphics;
+import org.eclipse.draw2d.IFigure;
+import org.eclipse.draw2d.geometry.Rectangle;
+
+public class DeferredUpdateManagerTest extends TestCase {
+
+	/**
+	 * Records the regions repainted instead of painting them.
+	 */
+	private static class RecordingUpdateManager extends DeferredUpdateManager {
+		final List repainted = new ArrayList();
+		int requests;
+
+		protected Graphics getGraphics(Rectangle region) {
+			repainted.add(region.getCopy());
+			return null;
+		}
+
+		protected void sendUpdateRequest() {
+			requests++;
+		}
+	}
+
+	/**
+	 * Records the order in which figures are laid out.
+	 */
+	private static class RecordingFigure extends Figure {
+		private final List layouts;
+
+		RecordingFigure(List layouts) {
+			this.layouts = layouts;
+		}
+
+		protected void layout() {
+			layouts.add(this);
+		}
+	}
+
+	private RecordingUpdateManager manager;
+	private IFigure root;
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		root = new Figure();
+		root.setBounds(new Rectangle(0, 0, 3840, 2160));
+		manager = new RecordingUpdateManager();
+		manager.setRoot(root);
+	}
+
+	public void testUnionOfDamageIsRepaintedByDefault() {
+		manager.addDirtyRegion(root, 10, 10, 20, 20);
+		manager.addDirtyRegion(root, 3800, 2100, 20, 20);
+		manager.performUpdate();
+
+		assertEquals(1, manager.repainted.size());
+		assertEquals(new Rectangle(10, 10, 3810, 2110),
+				manager.repainted.get(0));
+		assertEquals(3810L * 2110, manager.getRepaintedPixelCount());
+		assertEquals(1, manager.getRepaintCount());
+	}
+
+	public void testDistantDamageIsRepaintedSeparately() {
+		manager.setMaxDamageRegions(4);
+		IFigure child = new Figure();
+		child.setBounds(new Rectangle(3800, 2100, 40, 40));
+		root.add(child);
+		manager.addDirtyRegion(root, 10, 10, 20, 20);
+		manager.addDirtyRegion(child, 3800, 2100, 20, 20);
+		manager.performUpdate();
+
+		assertEquals(2, manager.repainted.size());
+		assertTrue(manager.repainted.contains(new Rectangle(10, 10, 20, 20)));
+		assertTrue(manager.repainted.contains(new Rectangle(3800, 2100, 20,
+				20)));
+		assertEquals(800, manager.getRepaintedPixelCount());
+
+		manager.addDirtyRegion(root, 500, 500, 10, 10);
+		manager.performUpdate();
+		assertEquals(100, manager.getRepaintedPixelCount());
+		assertEquals(900, manager.getTotalRepaintedPixelCount());
+		assertEquals(2, manager.getRepaintCount());
+		manager.resetRepaintCounts();
+		assertEquals(0, manager.getTotalRepaintedPixelCount());
+	}
+
+	public void testDamageRegionsAreMergedAndLimited() {
+		manager.setMaxDamageRegions(2);
+		IFigure[] figures = new IFigure[5];
+		for (int i = 0; i < figures.length; i++) {
+			figures[i] = new Figure();
+			figures[i].setBounds(new Rectangle(i * 700, i * 400, 100, 100));
+			root.add(figures[i]);
+			manager.addDirtyRegion(figures[i], figures[i].getBounds());
+		}
+		// overlaps the first figure's damage
+		manager.addDirtyRegion(root, 50, 50, 100, 100);
+		manager.performUpdate();
+
+		assertEquals(2, manager.repainted.size());
+		Rectangle first = (Rectangle) manager.repainted.get(0);
+		Rectangle second = (Rectangle) manager.repainted.get(1);
+		assertFalse(first.intersects(second));
+		for (int i = 0; i < figures.length; i++)
+			assertTrue(first.contains(figures[i].getBounds())
+					|| second.contains(figures[i].getBounds()));
+		assertTrue(first.contains(50, 50) || second.contains(50, 50));
+	}
+
+	public void testInvalidFiguresAreQueuedOnce() {
+		List layouts = new ArrayList();
+		IFigure[] figures = new IFigure[5000];
+		for (int i = 0; i < figures.length; i++) {
+			figures[i] = new RecordingFigure(layouts);
+			manager.addInvalidFigure(figures[i]);
+		}
+		for (int i = figures.length - 1; i >= 0; i--)
+			manager.addInvalidFigure(figures[i]);
+		manager.performValidation();
+
+		assertEquals(figures.length, layouts.size());
+		for (int i = 0; i < figures.length; i++)
+			assertSame(figures[i], layouts.get(i));
+
+		// validated figures can be queued again
+		figures[0].invalidate();
+		manager.addInvalidFigure(figures[0]);
+		manager.performValidation();
+		assertEquals(figures.length + 1, layouts.size());
+	}
+
+	public void testQueuedDescendantsCanBeSkipped() {
+		List layouts = new ArrayList();
+		IFigure parent = new RecordingFigure(layouts);
+		IFigure child = new RecordingFigure(layouts);
+		parent.add(child);
+
+		manager.addInvalidFigure(child);
+		manager.addInvalidFigure(parent);
+		manager.performValidation();
+		assertEquals(2, layouts.size());
+		assertSame(child, layouts.get(0));
+
+		layouts.clear();
+		manager.setSkipQueuedDescendants(true);
+		parent.invalidate();
+		child.invalidate();
+		manager.addInvalidFigure(child);
+		manager.addInvalidFigure(parent);
+		manager.performValidation();
+		assertEquals(2, layouts.size());
+		assertSame(parent, layouts.get(0));
+	}
+
+	public void testUpdatesCanBeSuspended() {
+		List layouts = new ArrayList();
+		IFigure figure = new RecordingFigure(layouts);
+		figure.setBounds(new Rectangle(10, 10, 20, 20));
+		root.add(figure);
+
+		manager.suspendUpdates();
+		manager.suspendUpdates();
+		manager.addInvalidFigure(figure);
+		manager.addDirtyRegion(figure, 10, 10, 20, 20);
+		manager.performUpdate();
+		assertEquals(0, manager.requests);
+		assertTrue(layouts.isEmpty());
+		assertTrue(manager.repainted.isEmpty());
+
+		manager.resumeUpdates();
+		assertEquals(0, manager.requests);
+		manager.resumeUpdates();
+		assertEquals(1, manager.requests);
+		manager.performUpdate();
+		assertEquals(1, layouts.size());
+		// the damage is still collected while suspended
+		assertEquals(1, manager.repainted.size());
+		assertEquals(new Rectangle(10, 10, 20, 20), manager.repainted.get(0));
+	}
+
+}
@@ -0,0 +1,244 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.draw2d.test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import org.eclipse.draw2d.graph.CompoundDirectedGraphLayout;
+import org.eclipse.draw2d.graph.DirectedGraph;
+import org.eclipse.draw2d.graph.DirectedGraphLayout;
+import org.eclipse.draw2d.graph.Edge;
+import org.eclipse.draw2d.graph.GraphVisitor;
+import org.eclipse.draw2d.graph.LayoutStepListener;
+import org.eclipse.draw2d.graph.MinCross;
+import org.eclipse.draw2d.graph.Node;
+
+public class DirectedGraphLayoutTest extends TestCase {
+
+	private static final int NODES = 60;
+
+	private int[][] edges;
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		Random random = new Random(1);
+		edges = new int[NODES * 3 / 2][];
+		for (int i = 0; i < edges.length; i++) {
+			int target = i < NODES - 1 ? i + 1 : 1 + random.nextInt(NODES - 1);
+			edges[i] = new int[] { random.nextInt(target), target };
+		}
+	}
+
+	private DirectedGraph createGraph(int extraNodes) {
+		DirectedGraph graph = new DirectedGraph();
+		Map nodes = new HashMap();
+		for (int i = 0; i < NODES + extraNodes; i++) {
+			Node node = new Node(Integer.valueOf(i));
+			node.width = 40;
+			node.height = 20;
+			graph.nodes.add(node);
+			nodes.put(Integer.valueOf(i), node);
+		}
+		for (int i = 0; i < edges.length; i++)
+			graph.edges.add(new Edge((Node) nodes.get(Integer.valueOf(edges[i][0])),
+					(Node) nodes.get(Integer.valueOf(edges[i][1]))));
+		for (int i = 0; i < extraNodes; i++)
+			graph.edges.add(new Edge(graph.nodes.getNode(i * 7),
+					graph.nodes.getNode(NODES + i)));
+		return graph;
+	}
+
+	/**
+	 * All nodes have the same height, so every edge must point to a lower row.
+	 */
+	private void assertRanksFeasible(DirectedGraph graph) {
+		for (int i = 0; i < graph.edges.size(); i++) {
+			Edge edge = graph.edges.getEdge(i);
+			// feedback edges have been inverted back
+			if (edge.isFeedback())
+				assertTrue(edge.source.y > edge.target.y);
+			else
+				assertTrue(edge.target.y > edge.source.y);
+		}
+	}
+
+	private static MinCross getMinCross(DirectedGraphLayout layout) {
+		int index = layout.indexOfStep(DirectedGraphLayout.STEP_MIN_CROSS);
+		assertTrue(index >= 0);
+		return (MinCross) layout.getSteps().get(index);
+	}
+
+	public void testIncrementalLayoutKeepsRanksAndOrder() {
+		DirectedGraphLayout layout = new DirectedGraphLayout();
+		layout.setIncremental(true);
+		DirectedGraph first = createGraph(0);
+		layout.visit(first);
+		assertRanksFeasible(first);
+
+		DirectedGraph second = createGraph(2);
+		layout.visit(second);
+		assertRanksFeasible(second);
+		for (int i = 0; i < NODES; i++) {
+			Node before = first.nodes.getNode(i);
+			Node after = second.nodes.getNode(i);
+			assertEquals(before.y, after.y);
+			for (int j = 0; j < NODES; j++) {
+				Node other = first.nodes.getNode(j);
+				if (other.y == before.y && other.x < before.x)
+					assertTrue(second.nodes.getNode(j).x < after.x);
+			}
+		}
+	}
+
+	public void testIncrementalLayoutRepairsRanks() {
+		DirectedGraphLayout layout = new DirectedGraphLayout();
+		layout.setIncremental(true);
+		layout.visit(createGraph(0));
+
+		// an edge from the last node back to the first one inverts the
+		// ranks of some edges
+		edges[0] = new int[] { NODES - 1, edges[0][1] };
+		DirectedGraph graph = createGraph(0);
+		layout.visit(graph);
+		assertRanksFeasible(graph);
+	}
+
+	public void testStepsCanBeCustomizedAndTimed() {
+		DirectedGraphLayout layout = new DirectedGraphLayout();
+		final List visited = new ArrayList();
+		final List revisited = new ArrayList();
+		GraphVisitor custom = new GraphVisitor() {
+			public void visit(DirectedGraph g) {
+				setIterationCount(3);
+			}
+		};
+		layout.getSteps().add(0, custom);
+		layout.addLayoutStepListener(new LayoutStepListener.Stub() {
+			public void stepVisited(GraphVisitor step, DirectedGraph graph,
+					long nanos) {
+				assertTrue(nanos >= 0);
+				visited.add(step);
+			}
+
+			public void stepRevisited(GraphVisitor step, DirectedGraph graph,
+					long nanos) {
+				revisited.add(0, step);
+			}
+		});
+		layout.visit(createGraph(0));
+
+		assertEquals(layout.getSteps(), visited);
+		assertEquals(layout.getSteps(), revisited);
+		assertEquals(3, custom.getIterationCount());
+		for (int i = 0; i < visited.size(); i++) {
+			GraphVisitor step = (GraphVisitor) visited.get(i);
+			if (DirectedGraphLayout.STEP_MIN_CROSS.equals(step.getName()))
+				assertTrue(step.getIterationCount() > 0);
+		}
+	}
+
+	public void testStepsCanBeFoundByName() {
+		DirectedGraphLayout layout = new DirectedGraphLayout();
+		String[] names = { DirectedGraphLayout.STEP_TRANSPOSE_METRICS,
+				DirectedGraphLayout.STEP_BREAK_CYCLES,
+				DirectedGraphLayout.STEP_ROUTE_EDGES,
+				DirectedGraphLayout.STEP_INITIAL_RANK,
+				DirectedGraphLayout.STEP_TIGHT_SPANNING_TREE,
+				DirectedGraphLayout.STEP_RANK_ASSIGNMENT,
+				DirectedGraphLayout.STEP_POPULATE_RANKS,
+				DirectedGraphLayout.STEP_VERTICAL_PLACEMENT,
+				DirectedGraphLayout.STEP_MIN_CROSS,
+				DirectedGraphLayout.STEP_LOCAL_OPTIMIZER,
+				DirectedGraphLayout.STEP_HORIZONTAL_PLACEMENT };
+		assertEquals(names.length, layout.getSteps().size());
+		for (int i = 0; i < names.length; i++)
+			assertEquals(i, layout.indexOfStep(names[i]));
+		assertEquals(-1, layout.indexOfStep("unknown")); //$NON-NLS-1$
+
+		CompoundDirectedGraphLayout compound = new CompoundDirectedGraphLayout();
+		assertTrue(compound
+				.indexOfStep(DirectedGraphLayout.STEP_BREAK_CYCLES) >= 0);
+		assertTrue(compound
+				.indexOfStep(CompoundDirectedGraphLayout.STEP_SORT_SUBGRAPHS) >= 0);
+
+		// the local optimizer is skipped, and a custom step replaces it
+		final List visited = new ArrayList();
+		GraphVisitor custom = new GraphVisitor() {
+			public void visit(DirectedGraph g) {
+				visited.add(this);
+			}
+		};
+		int index = layout
+				.indexOfStep(DirectedGraphLayout.STEP_LOCAL_OPTIMIZER);
+		layout.getSteps().set(index, custom);
+		assertEquals(-1,
+				layout.indexOfStep(DirectedGraphLayout.STEP_LOCAL_OPTIMIZER));
+		assertEquals(index, layout.indexOfStep(custom.getName()));
+		DirectedGraph graph = createGraph(0);
+		layout.visit(graph);
+		assertEquals(1, visited.size());
+		assertRanksFeasible(graph);
+	}
+
+	public void testMinCrossKeepsFewestCrossings() {
+		DirectedGraphLayout layout = new DirectedGraphLayout();
+		layout.visit(createGraph(0));
+		MinCross minCross = getMinCross(layout);
+		int crossings = minCross.getCrossingCount();
+		assertTrue(crossings >= 0);
+
+		layout = new DirectedGraphLayout();
+		minCross = getMinCross(layout);
+		minCross.setMaxPassesWithoutImprovement(minCross.getMaxPasses());
+		DirectedGraph graph = createGraph(0);
+		layout.visit(graph);
+		assertRanksFeasible(graph);
+		assertTrue(minCross.getCrossingCount() <= crossings);
+
+		minCross.setMaxPassesWithoutImprovement(1);
+		layout.visit(createGraph(0));
+		assertTrue(minCross.getIterationCount() < minCross.getMaxPasses());
+	}
+
+	public void testMinCrossOrdersComponentsInParallel() {
+		DirectedGraph graph = createGraph(0);
+		// a second copy of the graph, and some isolated nodes
+		DirectedGraph copy = createGraph(5);
+		for (int i = 0; i < copy.nodes.size(); i++)
+			graph.nodes.add(copy.nodes.get(i));
+		for (int i = 0; i < copy.edges.size(); i++)
+			graph.edges.add(copy.edges.get(i));
+
+		DirectedGraphLayout layout = new DirectedGraphLayout();
+		MinCross minCross = getMinCross(layout);
+		minCross.setParallel(true);
+		minCross.setTimeLimit(10000);
+		layout.visit(graph);
+		assertRanksFeasible(graph);
+		assertTrue(minCross.getCrossingCount() >= 0);
+		for (int i = 0; i < graph.nodes.size(); i++) {
+			Node node = graph.nodes.getNode(i);
+			for (int j = i + 1; j < graph.nodes.size(); j++) {
+				Node other = graph.nodes.getNode(j);
+				if (node.y == other.y)
+					assertTrue(node.x + node.width <= other.x
+							|| other.x + other.width <= node.x);
+			}
+		}
+	}
+
+}
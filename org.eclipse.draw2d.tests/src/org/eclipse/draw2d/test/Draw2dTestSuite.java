@@ -33,6 +33,8 @@ public class Draw2dTestSuite extends TestSuite {
 		addTest(new TestSuite(XYLayoutTest.class));
 		addTest(new TestSuite(TextFlowWrapTest.class));
 		addTest(new TestSuite(LocalOptimizerTest.class));
+		addTest(new TestSuite(DirectedGraphLayoutTest.class));
+		addTest(new TestSuite(DeferredUpdateManagerTest.class));
 		addTest(new TestSuite(AdvancedGraphicsTests.class));
 		addTest(new TestSuite(FlowBorderTests.class));
 		addTest(new TestSuite(GraphicsClipping.class));
@@ -60,5 +62,8 @@ public class Draw2dTestSuite extends TestSuite {
 		addTest(new TestSuite(ScalablePolygonShapeTest.class));
 		addTest(new TestSuite(LayerTest.class));
 		addTest(new TestSuite(ShapeTest.class));
+		addTest(new TestSuite(BufferedGraphicsSourceTest.class));
+		addTest(new TestSuite(LayerTileCacheTest.class));
+		addTest(new TestSuite(ScaledFontCacheTest.class));
 	}
 }
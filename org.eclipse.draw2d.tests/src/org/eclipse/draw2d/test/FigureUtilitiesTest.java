@@ -11,11 +11,22 @@
 
 package org.eclipse.draw2d.test;
 
+import java.util.Arrays;
+
 import junit.framework.TestCase;
 
+import org.eclipse.swt.graphics.Font;
+
 import org.eclipse.draw2d.Figure;
 import org.eclipse.draw2d.FigureUtilities;
+import org.eclipse.draw2d.Graphics;
 import org.eclipse.draw2d.IFigure;
+import org.eclipse.draw2d.TextExtentCache;
+import org.eclipse.draw2d.TextUtilities;
+import org.eclipse.draw2d.geometry.Dimension;
+import org.eclipse.draw2d.geometry.Point;
+import org.eclipse.draw2d.geometry.PointList;
+import org.eclipse.draw2d.geometry.Rectangle;
 
 public class FigureUtilitiesTest extends TestCase {
 
@@ -94,4 +105,107 @@ public class FigureUtilitiesTest extends TestCase {
 				orphanFigure);
 		assertNull(result);
 	}
+
+	public void test_textExtentCache() {
+		TextExtentCache cache = FigureUtilities.getTextExtentCache();
+		Font font = new Font(null, "Helvetica", 10, 0); //$NON-NLS-1$
+		try {
+			cache.resetCounts();
+			Dimension extent = TextUtilities.INSTANCE.getTextExtents(
+					"cached", font); //$NON-NLS-1$
+			assertEquals(1, cache.getMissCount());
+			extent.width = -1;
+			assertEquals(FigureUtilities.getTextExtents("cached", font), //$NON-NLS-1$
+					TextUtilities.INSTANCE.getTextExtents("cached", font)); //$NON-NLS-1$
+			assertEquals(1, cache.getMissCount());
+			assertEquals(2, cache.getHitCount());
+		} finally {
+			font.dispose();
+		}
+		int size = cache.size();
+		Font other = new Font(null, "Helvetica", 12, 0); //$NON-NLS-1$
+		try {
+			FigureUtilities.getTextExtents("cached", other); //$NON-NLS-1$
+			// the entries of the disposed font have been discarded
+			assertEquals(size, cache.size());
+		} finally {
+			other.dispose();
+		}
+	}
+
+	private static int[] paintGrid(RecordingGraphics g, Point origin,
+			int distance, int minSpacing) {
+		FigureUtilities.paintGrid(g, new Figure(), origin, distance,
+				distance, minSpacing);
+		assertEquals(2, g.polylines.size());
+		return ((PointList) g.polylines.get(0)).toIntArray();
+	}
+
+	public void test_paintGrid_firstLineWithNegativeOriginAndClip() {
+		RecordingGraphics g = new RecordingGraphics(new Rectangle(-95, -45,
+				100, 50));
+		Point origin = new Point(-1003, 13);
+		int[] vertical = paintGrid(g, origin, 10, 0);
+		// the first lines inside the clip, on the grid through the origin
+		assertEquals(new Point(-93, -37), origin);
+
+		// ten lines from -93 to -3, joined 3 pixels outside of the clip
+		assertEquals(40, vertical.length);
+		assertTrue(Arrays.equals(new int[] { -93, -48, -93, 8, -83, 8, -83,
+				-48 }, Arrays.copyOf(vertical, 8)));
+		assertEquals(-3, vertical[36]);
+		int[] horizontal = ((PointList) g.polylines.get(1)).toIntArray();
+		assertTrue(Arrays.equals(new int[] { -98, -37, 8, -37 }, Arrays
+				.copyOf(horizontal, 4)));
+		assertEquals(5 * 4, horizontal.length);
+		assertEquals(3, horizontal[horizontal.length - 1]);
+	}
+
+	public void test_paintGrid_lineOnClipEdge() {
+		// a line on the right edge of the clip is outside of it
+		RecordingGraphics g = new RecordingGraphics(new Rectangle(0, 0, 100,
+				100));
+		assertEquals(10 * 4, paintGrid(g, new Point(0, 0), 10, 0).length);
+		g = new RecordingGraphics(new Rectangle(0, 0, 101, 101));
+		assertEquals(11 * 4, paintGrid(g, new Point(0, 0), 10, 0).length);
+		g = new RecordingGraphics(new Rectangle(0, 0, 100, 100));
+		assertEquals(1 * 4, paintGrid(g, new Point(0, 0), 100, 0).length);
+		g = new RecordingGraphics(new Rectangle(1, 1, 99, 99));
+		assertEquals(0, paintGrid(g, new Point(0, 0), 100, 0).length);
+	}
+
+	public void test_paintGrid_coarsenedWhenZoomedOut() {
+		RecordingGraphics g = new RecordingGraphics(new Rectangle(0, 0, 400,
+				400)) {
+			public double getAbsoluteScale() {
+				return 0.25;
+			}
+		};
+		Point origin = new Point(30, 30);
+		int[] vertical = paintGrid(g, origin, 10, 8);
+		// 10 is doubled twice, to 40, which is 10 pixels apart at 0.25
+		assertEquals(new Point(30, 30), origin);
+		assertEquals(10 * 4, vertical.length);
+		for (int i = 0; i < vertical.length; i += 4)
+			assertEquals(30 + i / 4 * 40, vertical[i]);
+		// the joins are 3 pixels outside of the clip
+		assertEquals(-12, vertical[1]);
+
+		g = new RecordingGraphics(new Rectangle(0, 0, 400, 400));
+		assertEquals(40 * 4, paintGrid(g, new Point(30, 30), 10, 8).length);
+	}
+
+	public void test_paintGrid_dashedLines() {
+		RecordingGraphics g = new RecordingGraphics(new Rectangle(5, 5, 50,
+				30));
+		g.setLineStyle(Graphics.LINE_DASH);
+		FigureUtilities.paintGrid(g, new Figure(), new Point(0, 0), 10, 10);
+		assertTrue(g.polylines.isEmpty());
+		// 10 to 50, and 10 to 30
+		assertEquals(5 + 3, g.lines.size());
+		assertTrue(Arrays.equals(new int[] { 10, 5, 10, 35 }, (int[]) g.lines
+				.get(0)));
+		assertTrue(Arrays.equals(new int[] { 5, 10, 55, 10 }, (int[]) g.lines
+				.get(5)));
+	}
 }
@@ -46,6 +46,34 @@ public class GraphicsClipping extends TestCase {
 		return graphics.getClip(new Rectangle());
 	}
 
+	public void testNestedClipsAreRestored() {
+		Rectangle outer = new Rectangle(10, 10, 200, 200);
+		Rectangle inner = new Rectangle(20, 20, 50, 50);
+		Rectangle innermost = new Rectangle(0, 0, 5, 5);
+		graphics.setClip(outer);
+		graphics.pushState();
+		// the second pass reuses the clipping rectangles of the first one
+		for (int i = 0; i < 2; i++) {
+			graphics.clipRect(inner);
+			graphics.drawPoint(0, 0);
+			assertEquals(inner, gcClipping());
+
+			graphics.pushState();
+			graphics.setClip(innermost);
+			graphics.drawPoint(0, 0);
+			assertEquals(innermost, gcClipping());
+			graphics.popState();
+			graphics.drawPoint(0, 0);
+			assertEquals(inner, gcClipping());
+
+			graphics.restoreState();
+			graphics.drawPoint(0, 0);
+			assertEquals(outer, gcClipping());
+		}
+		graphics.popState();
+		assertEquals(outer, graphicsClip());
+	}
+
 	public void testTranslatedClip() {
 		Rectangle rect = new Rectangle(14, 21, 300, 400);
 		graphics.setClip(rect);
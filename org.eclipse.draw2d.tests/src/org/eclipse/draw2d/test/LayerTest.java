@@ -10,10 +10,21 @@
  *******************************************************************************/
 package org.eclipse.draw2d.test;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import junit.framework.TestCase;
 
+import org.eclipse.draw2d.ConnectionLayer;
 import org.eclipse.draw2d.Figure;
+import org.eclipse.draw2d.FreeformLayer;
+import org.eclipse.draw2d.Graphics;
+import org.eclipse.draw2d.IClippingStrategy;
+import org.eclipse.draw2d.IFigure;
 import org.eclipse.draw2d.Layer;
+import org.eclipse.draw2d.MouseListener;
+import org.eclipse.draw2d.PolylineConnection;
+import org.eclipse.draw2d.geometry.PointList;
 import org.eclipse.draw2d.geometry.Rectangle;
 
 public class LayerTest extends TestCase {
@@ -43,6 +54,105 @@ public class LayerTest extends TestCase {
 		assertEquals(true, layer.containsPoint(60, 60));
 	}
 
+	public void testIndexedHitTestingRespectsZOrder() {
+		FreeformLayer layer = new FreeformLayer();
+		layer.setBounds(new Rectangle(0, 0, 2000, 2000));
+		layer.setIndexingChildren(true);
+		IFigure bottom = new Figure();
+		bottom.setBounds(new Rectangle(0, 0, 100, 100));
+		layer.add(bottom);
+		IFigure top = new Figure();
+		top.setBounds(new Rectangle(50, 50, 100, 100));
+		top.addMouseListener(new MouseListener.Stub());
+		layer.add(top);
+		IFigure middle = new Figure();
+		middle.setBounds(new Rectangle(60, 60, 10, 10));
+		layer.add(middle, 1);
+
+		assertSame(top, layer.findFigureAt(65, 65));
+		assertSame(bottom, layer.findFigureAt(10, 10));
+		assertSame(top, layer.findMouseEventTargetAt(140, 140));
+		assertNull(layer.findFigureAt(500, 500));
+
+		layer.remove(top);
+		assertSame(middle, layer.findFigureAt(65, 65));
+	}
+
+	public void testIndexFollowsMovedChildren() {
+		FreeformLayer layer = new FreeformLayer();
+		layer.setBounds(new Rectangle(0, 0, 2000, 2000));
+		IFigure child = new Figure();
+		child.setBounds(new Rectangle(0, 0, 20, 20));
+		layer.add(child);
+		layer.setIndexingChildren(true);
+
+		child.setBounds(new Rectangle(1000, 1000, 20, 20));
+		assertNull(layer.findFigureAt(10, 10));
+		assertSame(child, layer.findFigureAt(1010, 1010));
+		assertTrue(layer.containsPoint(1010, 1010));
+
+		layer.setIndexingChildren(false);
+		assertSame(child, layer.findFigureAt(1010, 1010));
+	}
+
+	public void testIndexedHitTestingWithinConnectionTolerance() {
+		ConnectionLayer layer = new ConnectionLayer();
+		layer.setBounds(new Rectangle(0, 0, 2000, 2000));
+		layer.setIndexingChildren(true);
+		PolylineConnection connection = new PolylineConnection();
+		connection.setPoints(new PointList(new int[] { 100, 100, 300, 100 }));
+		connection.addMouseListener(new MouseListener.Stub());
+		layer.add(connection);
+
+		// the bounds are a single pixel high, the tolerance is 2
+		assertSame(connection, layer.findFigureAt(200, 102));
+		assertSame(connection, layer.findMouseEventTargetAt(200, 98));
+		assertTrue(layer.containsPoint(200, 102));
+		assertNull(layer.findFigureAt(200, 110));
+
+		PolylineConnection tolerant = new PolylineConnection();
+		tolerant.setTolerance(10);
+		tolerant.setPoints(new PointList(new int[] { 500, 100, 500, 300 }));
+		layer.add(tolerant);
+		assertSame(tolerant, layer.findFigureAt(508, 200));
+		assertNull(layer.findFigureAt(512, 200));
+	}
+
+	public void testIndexedPaintingUsesClippingStrategy() {
+		final List painted = new ArrayList();
+		Layer layer = new Layer();
+		layer.setBounds(new Rectangle(0, 0, 2000, 2000));
+		layer.setIndexingChildren(true);
+		IFigure child = new Figure() {
+			public void paint(Graphics graphics) {
+				painted.add(graphics.getClip(new Rectangle()));
+			}
+		};
+		child.setBounds(new Rectangle(100, 100, 10, 10));
+		layer.add(child);
+		IFigure distant = new Figure() {
+			public void paint(Graphics graphics) {
+				painted.add(this);
+			}
+		};
+		distant.setBounds(new Rectangle(1000, 1000, 10, 10));
+		layer.add(distant);
+
+		layer.paint(new RecordingGraphics(new Rectangle(0, 0, 50, 50)));
+		assertTrue(painted.isEmpty());
+
+		// the shadow of the child extends past its bounds
+		layer.setClippingStrategy(new IClippingStrategy() {
+			public Rectangle[] getClip(IFigure figure) {
+				return new Rectangle[] { figure.getBounds().getExpanded(60,
+						60) };
+			}
+		});
+		layer.paint(new RecordingGraphics(new Rectangle(0, 0, 50, 50)));
+		assertEquals(1, painted.size());
+		assertEquals(new Rectangle(40, 40, 10, 10), painted.get(0));
+	}
+
 	public class MyLayer extends Layer {
 
 		protected boolean useLocalCoordinates() {
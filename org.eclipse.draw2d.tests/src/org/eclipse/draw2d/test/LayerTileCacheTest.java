@@ -0,0 +1,175 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.draw2d.test;
+
+import junit.framework.TestCase;
+
+import org.eclipse.swt.graphics.GC;
+import org.eclipse.swt.graphics.Image;
+import org.eclipse.swt.graphics.ImageData;
+import org.eclipse.swt.graphics.RGB;
+import org.eclipse.swt.widgets.Display;
+
+import org.eclipse.draw2d.ColorConstants;
+import org.eclipse.draw2d.DeferredUpdateManager;
+import org.eclipse.draw2d.Figure;
+import org.eclipse.draw2d.Graphics;
+import org.eclipse.draw2d.IFigure;
+import org.eclipse.draw2d.Layer;
+import org.eclipse.draw2d.SWTGraphics;
+import org.eclipse.draw2d.ScaledGraphics;
+import org.eclipse.draw2d.geometry.Rectangle;
+
+/**
+ * Tests the tile cache of {@link Layer}. The children change their color
+ * without reporting damage, so that a stale tile still shows the old color.
+ */
+public class LayerTileCacheTest extends TestCase {
+
+	/**
+	 * Repairs damage without painting.
+	 */
+	private static class RepairingUpdateManager extends DeferredUpdateManager {
+		protected Graphics getGraphics(Rectangle region) {
+			return null;
+		}
+
+		protected void sendUpdateRequest() {
+		}
+	}
+
+	private static final RGB RED = ColorConstants.red.getRGB();
+	private static final RGB BLUE = ColorConstants.blue.getRGB();
+
+	private Layer layer;
+	private IFigure[] children;
+	private Image image;
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		int tile = 256;
+		layer = new Layer();
+		layer.setBounds(new Rectangle(0, 0, 3 * tile, tile));
+		layer.setCachingTiles(true);
+		children = new IFigure[3];
+		for (int i = 0; i < children.length; i++) {
+			children[i] = new Figure();
+			children[i].setOpaque(true);
+			children[i].setBackgroundColor(ColorConstants.red);
+			children[i].setBounds(new Rectangle(i * tile + 10, 10, 20, 20));
+			layer.add(children[i]);
+		}
+		image = new Image(Display.getDefault(), 3 * tile, tile);
+	}
+
+	protected void tearDown() throws Exception {
+		layer.setCachingTiles(false);
+		image.dispose();
+		super.tearDown();
+	}
+
+	private void setChildColors() {
+		for (int i = 0; i < children.length; i++)
+			children[i].setBackgroundColor(ColorConstants.blue);
+	}
+
+	/**
+	 * Paints the layer inside the given clip at the given scale.
+	 */
+	private void paint(Rectangle clip, double scale) {
+		GC gc = new GC(image);
+		SWTGraphics swtGraphics = new SWTGraphics(gc);
+		Graphics graphics = swtGraphics;
+		if (scale != 1) {
+			graphics = new ScaledGraphics(swtGraphics);
+			graphics.scale(scale);
+		}
+		graphics.setClip(clip);
+		layer.paint(graphics);
+		graphics.dispose();
+		if (graphics != swtGraphics)
+			swtGraphics.dispose();
+		gc.dispose();
+	}
+
+	private void paint() {
+		paint(layer.getBounds(), 1);
+	}
+
+	private RGB getColor(IFigure child) {
+		ImageData data = image.getImageData();
+		Rectangle bounds = child.getBounds();
+		return data.palette.getRGB(data.getPixel(bounds.x + 5, bounds.y + 5));
+	}
+
+	public void testTilesAreReusedUntilDamaged() {
+		paint();
+		assertEquals(RED, getColor(children[0]));
+		setChildColors();
+		paint();
+		assertEquals(RED, getColor(children[0]));
+
+		DeferredUpdateManager manager = new RepairingUpdateManager();
+		manager.setRoot(layer);
+		manager.addDirtyRegion(children[0], children[0].getBounds());
+		manager.performUpdate();
+		paint();
+		assertEquals(BLUE, getColor(children[0]));
+		assertEquals(RED, getColor(children[1]));
+	}
+
+	public void testTilesAreDamagedWhenUpdatesResume() {
+		paint();
+		setChildColors();
+		DeferredUpdateManager manager = new RepairingUpdateManager();
+		manager.setRoot(layer);
+		manager.suspendUpdates();
+		manager.addDirtyRegion(children[0], children[0].getBounds());
+		manager.performUpdate();
+		paint();
+		assertEquals(RED, getColor(children[0]));
+
+		manager.resumeUpdates();
+		manager.performUpdate();
+		paint();
+		assertEquals(BLUE, getColor(children[0]));
+		assertEquals(RED, getColor(children[1]));
+	}
+
+	public void testTilesAreKeptPerScale() {
+		paint();
+		setChildColors();
+		// as a thumbnail of the layer does
+		paint(layer.getBounds(), 0.5);
+		paint();
+		assertEquals(RED, getColor(children[0]));
+		assertEquals(RED, getColor(children[2]));
+	}
+
+	public void testLeastRecentlyPaintedTilesAreDisposed() {
+		int tileBytes = 4 * 256 * 256;
+		layer.setTileCacheBudget(2 * tileBytes);
+		for (int i = 0; i < children.length; i++)
+			paint(new Rectangle(i * 256, 0, 256, 256), 1);
+		setChildColors();
+		paint();
+		// the first tile was disposed when the third one was painted
+		assertEquals(BLUE, getColor(children[0]));
+		assertEquals(RED, getColor(children[1]));
+		assertEquals(RED, getColor(children[2]));
+
+		layer.setTileCacheBudget(0);
+		paint();
+		assertEquals(BLUE, getColor(children[1]));
+		assertEquals(BLUE, getColor(children[2]));
+	}
+
+}
@@ -0,0 +1,235 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.draw2d.test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.swt.graphics.Color;
+import org.eclipse.swt.graphics.Font;
+import org.eclipse.swt.graphics.FontMetrics;
+import org.eclipse.swt.graphics.Image;
+
+import org.eclipse.draw2d.Graphics;
+import org.eclipse.draw2d.geometry.PointList;
+import org.eclipse.draw2d.geometry.Rectangle;
+
+/**
+ * A Graphics which records the lines drawn on it, in absolute coordinates,
+ * instead of painting them. It keeps track of the clip and translation, so
+ * that figures can be painted on it without a display.
+ */
+public class RecordingGraphics extends Graphics {
+
+	private static class State {
+		final Rectangle clip;
+		final int dx, dy;
+
+		State(Rectangle clip, int dx, int dy) {
+			this.clip = clip.getCopy();
+			this.dx = dx;
+			this.dy = dy;
+		}
+	}
+
+	/**
+	 * The lines drawn, as arrays of x1, y1, x2, y2.
+	 */
+	public final List lines = new ArrayList();
+
+	/**
+	 * The polylines drawn, as point lists.
+	 */
+	public final List polylines = new ArrayList();
+
+	private final List stack = new ArrayList();
+	private Rectangle clip;
+	private int dx, dy;
+	private int lineStyle = LINE_SOLID;
+	private float lineWidth = 1;
+
+	/**
+	 * Constructs a graphics clipped to the given rectangle.
+	 *
+	 * @param clip
+	 *            the initial clip
+	 */
+	public RecordingGraphics(Rectangle clip) {
+		this.clip = clip.getCopy();
+	}
+
+	public void clipRect(Rectangle r) {
+		clip.intersect(r.getTranslated(dx, dy));
+	}
+
+	public void dispose() {
+	}
+
+	public void drawArc(int x, int y, int w, int h, int offset, int length) {
+	}
+
+	public void drawFocus(int x, int y, int w, int h) {
+	}
+
+	public void drawImage(Image srcImage, int x, int y) {
+	}
+
+	public void drawImage(Image srcImage, int x1, int y1, int w1, int h1,
+			int x2, int y2, int w2, int h2) {
+	}
+
+	public void drawLine(int x1, int y1, int x2, int y2) {
+		lines.add(new int[] { x1 + dx, y1 + dy, x2 + dx, y2 + dy });
+	}
+
+	public void drawOval(int x, int y, int w, int h) {
+	}
+
+	public void drawPolygon(PointList points) {
+	}
+
+	public void drawPolyline(PointList points) {
+		PointList copy = points.getCopy();
+		copy.translate(dx, dy);
+		polylines.add(copy);
+	}
+
+	public void drawRectangle(int x, int y, int width, int height) {
+	}
+
+	public void drawRoundRectangle(Rectangle r, int arcWidth, int arcHeight) {
+	}
+
+	public void drawString(String s, int x, int y) {
+	}
+
+	public void drawText(String s, int x, int y) {
+	}
+
+	public void fillArc(int x, int y, int w, int h, int offset, int length) {
+	}
+
+	public void fillGradient(int x, int y, int w, int h, boolean vertical) {
+	}
+
+	public void fillOval(int x, int y, int w, int h) {
+	}
+
+	public void fillPolygon(PointList points) {
+	}
+
+	public void fillRectangle(int x, int y, int width, int height) {
+	}
+
+	public void fillRoundRectangle(Rectangle r, int arcWidth, int arcHeight) {
+	}
+
+	public void fillString(String s, int x, int y) {
+	}
+
+	public void fillText(String s, int x, int y) {
+	}
+
+	public Color getBackgroundColor() {
+		return null;
+	}
+
+	public Rectangle getClip(Rectangle rect) {
+		rect.setBounds(clip);
+		rect.translate(-dx, -dy);
+		return rect;
+	}
+
+	public Font getFont() {
+		return null;
+	}
+
+	public FontMetrics getFontMetrics() {
+		return null;
+	}
+
+	public Color getForegroundColor() {
+		return null;
+	}
+
+	public int getLineStyle() {
+		return lineStyle;
+	}
+
+	public int getLineWidth() {
+		return (int) lineWidth;
+	}
+
+	public float getLineWidthFloat() {
+		return lineWidth;
+	}
+
+	public boolean getXORMode() {
+		return false;
+	}
+
+	public void popState() {
+		restoreState();
+		stack.remove(stack.size() - 1);
+	}
+
+	public void pushState() {
+		stack.add(new State(clip, dx, dy));
+	}
+
+	public void restoreState() {
+		State state = (State) stack.get(stack.size() - 1);
+		clip = state.clip.getCopy();
+		dx = state.dx;
+		dy = state.dy;
+	}
+
+	public void scale(double amount) {
+		throw new UnsupportedOperationException();
+	}
+
+	public void setBackgroundColor(Color rgb) {
+	}
+
+	public void setClip(Rectangle r) {
+		clip = r.getTranslated(dx, dy);
+	}
+
+	public void setFont(Font f) {
+	}
+
+	public void setForegroundColor(Color rgb) {
+	}
+
+	public void setLineMiterLimit(float miterLimit) {
+	}
+
+	public void setLineStyle(int style) {
+		lineStyle = style;
+	}
+
+	public void setLineWidth(int width) {
+		lineWidth = width;
+	}
+
+	public void setLineWidthFloat(float width) {
+		lineWidth = width;
+	}
+
+	public void setXORMode(boolean b) {
+	}
+
+	public void translate(int dx, int dy) {
+		this.dx += dx;
+		this.dy += dy;
+	}
+
+}
@@ -0,0 +1,142 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.draw2d.test;
+
+import junit.framework.TestCase;
+
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.graphics.Font;
+import org.eclipse.swt.graphics.FontData;
+import org.eclipse.swt.graphics.GC;
+import org.eclipse.swt.graphics.Image;
+import org.eclipse.swt.widgets.Display;
+
+import org.eclipse.draw2d.SWTGraphics;
+import org.eclipse.draw2d.ScaledFontCache;
+import org.eclipse.draw2d.ScaledGraphics;
+
+/**
+ * The cache of the display is shared with everything else painting on it, so
+ * the counts are checked relative to their initial values, with font heights
+ * no other test uses.
+ */
+public class ScaledFontCacheTest extends TestCase {
+
+	private ScaledFontCache cache;
+	private int maxUnusedFonts;
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		cache = ScaledFontCache.getInstance(Display.getDefault());
+		maxUnusedFonts = cache.getMaxUnusedFonts();
+	}
+
+	protected void tearDown() throws Exception {
+		cache.setMaxUnusedFonts(maxUnusedFonts);
+		super.tearDown();
+	}
+
+	private static FontData getFontData(int height) {
+		return new FontData("Helvetica", height, SWT.NORMAL); //$NON-NLS-1$
+	}
+
+	public void testFontsAreReferenceCounted() {
+		int live = cache.getLiveFontCount();
+		int unused = cache.getUnusedFontCount();
+		Font font = cache.acquire(getFontData(37));
+		assertSame(font, cache.acquire(getFontData(37)));
+		assertEquals(live + 1, cache.getLiveFontCount());
+
+		cache.release(font);
+		assertEquals(unused, cache.getUnusedFontCount());
+		cache.release(font);
+		// kept for the next zoom
+		assertFalse(font.isDisposed());
+		assertEquals(unused + 1, cache.getUnusedFontCount());
+		assertEquals(live + 1, cache.getLiveFontCount());
+
+		assertSame(font, cache.acquire(getFontData(37)));
+		assertEquals(unused, cache.getUnusedFontCount());
+		cache.release(font);
+
+		// releasing an unknown or unreferenced font does nothing
+		cache.release(font);
+		Font other = new Font(null, getFontData(37));
+		cache.release(other);
+		other.dispose();
+		assertEquals(unused + 1, cache.getUnusedFontCount());
+	}
+
+	public void testLeastRecentlyReleasedFontsAreDisposed() {
+		cache.setMaxUnusedFonts(0);
+		assertEquals(0, cache.getUnusedFontCount());
+		int live = cache.getLiveFontCount();
+		Font[] fonts = new Font[3];
+		for (int i = 0; i < fonts.length; i++)
+			fonts[i] = cache.acquire(getFontData(41 + i));
+		assertEquals(live + 3, cache.getLiveFontCount());
+
+		cache.setMaxUnusedFonts(2);
+		for (int i = 0; i < fonts.length; i++)
+			cache.release(fonts[i]);
+		assertTrue(fonts[0].isDisposed());
+		assertFalse(fonts[1].isDisposed());
+		assertFalse(fonts[2].isDisposed());
+		assertEquals(2, cache.getUnusedFontCount());
+		assertEquals(live + 2, cache.getLiveFontCount());
+
+		// acquiring an unused font makes it used again
+		assertSame(fonts[1], cache.acquire(getFontData(42)));
+		assertEquals(1, cache.getUnusedFontCount());
+		cache.release(fonts[1]);
+
+		cache.setMaxUnusedFonts(0);
+		assertTrue(fonts[1].isDisposed());
+		assertTrue(fonts[2].isDisposed());
+		assertEquals(live, cache.getLiveFontCount());
+	}
+
+	public void testScaledGraphicsShareFonts() {
+		Display display = Display.getDefault();
+		Font font = new Font(display, getFontData(10));
+		Image image = new Image(display, 10, 10);
+		GC gc1 = new GC(image);
+		GC gc2 = new GC(image);
+		SWTGraphics swt1 = new SWTGraphics(gc1);
+		SWTGraphics swt2 = new SWTGraphics(gc2);
+		ScaledGraphics scaled1 = new ScaledGraphics(swt1);
+		ScaledGraphics scaled2 = new ScaledGraphics(swt2);
+		cache.setMaxUnusedFonts(Integer.MAX_VALUE);
+		try {
+			scaled1.setFont(font);
+			scaled2.setFont(font);
+			int live = cache.getLiveFontCount();
+			scaled1.scale(5.3);
+			scaled2.scale(5.3);
+			assertEquals(live + 1, cache.getLiveFontCount());
+
+			int unused = cache.getUnusedFontCount();
+			scaled1.dispose();
+			assertEquals(unused, cache.getUnusedFontCount());
+			scaled2.dispose();
+			assertEquals(live + 1, cache.getLiveFontCount());
+			assertTrue(cache.getUnusedFontCount() > unused);
+		} finally {
+			swt1.dispose();
+			swt2.dispose();
+			gc1.dispose();
+			gc2.dispose();
+			image.dispose();
+			font.dispose();
+		}
+	}
+
+}
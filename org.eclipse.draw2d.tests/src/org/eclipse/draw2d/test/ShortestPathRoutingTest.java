@@ -561,6 +561,24 @@ public class ShortestPathRoutingTest extends TestCase {
 				.size() > 0);
 	}
 
+	public void testDeltasMoveObstacleAmongManyObstacles() {
+		routing = new ShortestPathRouter();
+		for (int i = 0; i < 20; i++)
+			for (int j = 0; j < 20; j++)
+				routing.addObstacle(new Rectangle(i * 100, j * 100, 40, 40));
+		Path path = new Path(new Point(1020, 960), new Point(1020, 1080));
+		routing.addPath(path);
+		routing.solve();
+		assertTrue("The path should bend around the obstacle.", path
+				.getPoints().size() > 2);
+
+		assertTrue(routing.updateObstacle(new Rectangle(1000, 1000, 40, 40),
+				new Rectangle(1050, 1250, 20, 20)));
+		routing.solve();
+		assertEquals("The path should be straight.", 2, path.getPoints()
+				.size());
+	}
+
 	public void testDeltasMoveObstacleNoIntersection() {
 		doSetUp(deltaAStart, deltaAEnd, deltaBStart, deltaBEnd, deltaRect);
 
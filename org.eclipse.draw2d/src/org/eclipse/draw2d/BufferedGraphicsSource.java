@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2010 IBM Corporation and others.
+ * Copyright (c) 2000, 2026 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -12,6 +12,8 @@ package org.eclipse.draw2d;
 
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.SWTError;
+import org.eclipse.swt.events.DisposeEvent;
+import org.eclipse.swt.events.DisposeListener;
 import org.eclipse.swt.graphics.GC;
 import org.eclipse.swt.graphics.Image;
 import org.eclipse.swt.widgets.Canvas;
@@ -20,13 +22,34 @@ import org.eclipse.swt.widgets.Control;
 
 import org.eclipse.draw2d.geometry.Rectangle;
 
-class BufferedGraphicsSource implements GraphicsSource {
+/**
+ * A graphics source which paints into an image, and then copies the painted
+ * region onto the control. The image is kept from one update to the next, so
+ * that it is only allocated again when the region to paint no longer fits in
+ * it. It is then grown to at least half again its size, but never beyond the
+ * size of the control, so that a control which is being resized does not
+ * allocate an image for every update. Each update paints the region at the
+ * top-left of the image, and copies only that part of it.
+ * <P>
+ * A GC on the image of a mirrored control mirrors around the width of the
+ * whole image, so the image of a {@link SWT#RIGHT_TO_LEFT} control is always
+ * exactly as wide as the region, and only its height is kept.
+ * <P>
+ * When the image cannot be allocated, the region is painted directly onto the
+ * control. The image is disposed with the control, or by {@link #dispose()}.
+ * 
+ * @since 3.12
+ */
+public class BufferedGraphicsSource implements GraphicsSource {
 
 	private Image imageBuffer;
 	private GC imageGC;
 	private GC controlGC;
 	private Control control;
 	private Rectangle inUse;
+	private int allocationCount;
+	private int failedAllocationCount;
+	private long allocatedPixels;
 
 	/**
 	 * Constructs a new buffered graphics source using the given control.
@@ -37,6 +60,73 @@ class BufferedGraphicsSource implements GraphicsSource {
 	 */
 	public BufferedGraphicsSource(Control c) {
 		control = c;
+		if (control != null)
+			control.addDisposeListener(new DisposeListener() {
+				public void widgetDisposed(DisposeEvent e) {
+					dispose();
+				}
+			});
+	}
+
+	/**
+	 * Ensures that the image buffer is at least as large as the given size,
+	 * allocating a new one if needed. Returns <code>false</code> if no image
+	 * could be allocated, in which case there is no image buffer.
+	 */
+	private boolean allocateBuffer(int width, int height) {
+		boolean mirrored = (control.getStyle() & SWT.RIGHT_TO_LEFT) != 0;
+		if (imageBuffer != null) {
+			org.eclipse.swt.graphics.Rectangle bounds = imageBuffer
+					.getBounds();
+			if ((mirrored ? bounds.width == width : bounds.width >= width)
+					&& bounds.height >= height)
+				return true;
+			// grow geometrically, within the size of the control
+			org.eclipse.swt.graphics.Point size = control.getSize();
+			if (!mirrored)
+				width = Math.max(width, Math.min(size.x,
+						Math.max(bounds.width, bounds.width * 3 / 2)));
+			height = Math.max(height, Math.min(size.y,
+					Math.max(bounds.height, bounds.height * 3 / 2)));
+			disposeBuffer();
+		}
+		/*
+		 * Bugzilla 53632 - Attempts to create large images on some platforms
+		 * will fail. When this happens, do not use double-buffering for
+		 * painting.
+		 */
+		try {
+			imageBuffer = new Image(null, width, height);
+		} catch (SWTError noMoreHandles) {
+			imageBuffer = null;
+		} catch (IllegalArgumentException tooBig) {
+			imageBuffer = null;
+		}
+		if (imageBuffer == null) {
+			failedAllocationCount++;
+			return false;
+		}
+		allocationCount++;
+		allocatedPixels += (long) width * height;
+		return true;
+	}
+
+	/**
+	 * Disposes the image buffer, if any. A new one is allocated by the next
+	 * call to {@link #getGraphics(Rectangle)}. This must not be called between
+	 * {@link #getGraphics(Rectangle)} and {@link #flushGraphics(Rectangle)}.
+	 * 
+	 * @since 3.12
+	 */
+	public void dispose() {
+		disposeBuffer();
+	}
+
+	private void disposeBuffer() {
+		if (imageBuffer != null) {
+			imageBuffer.dispose();
+			imageBuffer = null;
+		}
 	}
 
 	/**
@@ -57,15 +147,13 @@ class BufferedGraphicsSource implements GraphicsSource {
 				caret.setVisible(false);
 		}
 		/*
-		 * The imageBuffer may be null if double-buffering was not successful.
+		 * The imageGC is null if double-buffering was not successful.
 		 */
-		if (imageBuffer != null) {
+		if (imageGC != null) {
 			imageGC.dispose();
+			imageGC = null;
 			controlGC.drawImage(getImage(), 0, 0, inUse.width, inUse.height,
 					inUse.x, inUse.y, inUse.width, inUse.height);
-			imageBuffer.dispose();
-			imageBuffer = null;
-			imageGC = null;
 		}
 		controlGC.dispose();
 		controlGC = null;
@@ -74,6 +162,39 @@ class BufferedGraphicsSource implements GraphicsSource {
 			canvas.getCaret().setVisible(true);
 	}
 
+	/**
+	 * Returns the number of image buffers allocated by this graphics source.
+	 * Every allocation after the first one is a reallocation to a larger size.
+	 * 
+	 * @return the number of allocations
+	 * @since 3.12
+	 */
+	public int getAllocationCount() {
+		return allocationCount;
+	}
+
+	/**
+	 * Returns the total number of pixels of all of the image buffers
+	 * allocated by this graphics source.
+	 * 
+	 * @return the number of pixels allocated
+	 * @since 3.12
+	 */
+	public long getAllocatedPixelCount() {
+		return allocatedPixels;
+	}
+
+	/**
+	 * Returns the number of times an image buffer could not be allocated, and
+	 * the region was painted directly onto the control instead.
+	 * 
+	 * @return the number of failed allocations
+	 * @since 3.12
+	 */
+	public int getFailedAllocationCount() {
+		return failedAllocationCount;
+	}
+
 	/**
 	 * @see org.eclipse.draw2d.GraphicsSource#getGraphics(org.eclipse.draw2d.geometry.Rectangle)
 	 */
@@ -87,23 +208,11 @@ class BufferedGraphicsSource implements GraphicsSource {
 		if (inUse.isEmpty())
 			return null;
 
-		/*
-		 * Bugzilla 53632 - Attempts to create large images on some platforms
-		 * will fail. When this happens, do not use double-buffering for
-		 * painting.
-		 */
-		try {
-			imageBuffer = new Image(null, inUse.width, inUse.height);
-		} catch (SWTError noMoreHandles) {
-			imageBuffer = null;
-		} catch (IllegalArgumentException tooBig) {
-			imageBuffer = null;
-		}
-
 		controlGC = new GC(control, control.getStyle()
 				& (SWT.RIGHT_TO_LEFT | SWT.LEFT_TO_RIGHT));
 		Graphics graphics;
-		if (imageBuffer != null) {
+		if (allocateBuffer(inUse.width, inUse.height)) {
+			// a new GC each time, so that no state leaks between updates
 			imageGC = new GC(imageBuffer, control.getStyle()
 					& (SWT.RIGHT_TO_LEFT | SWT.LEFT_TO_RIGHT));
 			imageGC.setBackground(controlGC.getBackground());
@@ -111,6 +220,8 @@ class BufferedGraphicsSource implements GraphicsSource {
 			imageGC.setFont(controlGC.getFont());
 			imageGC.setLineStyle(controlGC.getLineStyle());
 			imageGC.setLineWidth(controlGC.getLineWidth());
+			// clear what the previous update left in the region
+			imageGC.fillRectangle(0, 0, inUse.width, inUse.height);
 			imageGC.setXORMode(controlGC.getXORMode());
 			graphics = new SWTGraphics(imageGC);
 			graphics.translate(inUse.getLocation().negate());
@@ -123,7 +234,8 @@ class BufferedGraphicsSource implements GraphicsSource {
 	}
 
 	/**
-	 * Returns the current image buffer or <code>null</code>.
+	 * Returns the current image buffer or <code>null</code>. The image may be
+	 * larger than the region being painted.
 	 * 
 	 * @since 2.1
 	 * @return the current image buffer
@@ -12,9 +12,11 @@ package org.eclipse.draw2d;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.SWTException;
@@ -25,6 +27,16 @@ import org.eclipse.draw2d.geometry.Rectangle;
 
 /**
  * An UpdateManager that asynchronously updates the affected figures.
+ * <P>
+ * By default all of the damage of an update is repainted at once, over the
+ * union of the dirty regions. When {@link #setMaxDamageRegions(int)} allows
+ * more than one region, the damage is kept as a few disjoint rectangles
+ * instead, and each is repainted with its own clip. Rectangles which overlap,
+ * or which are close enough that their union is not much larger than they
+ * are, are merged. The number of pixels repainted is counted in both modes.
+ * <P>
+ * Invalid figures are validated in the order in which they were queued.
+ * Queueing a figure takes constant time, however many figures are queued.
  */
 public class DeferredUpdateManager extends UpdateManager {
 
@@ -45,13 +57,35 @@ public class DeferredUpdateManager extends UpdateManager {
 		}
 	}
 
+	/**
+	 * Two damage regions are merged when the area of their union is at most
+	 * this many times the sum of their areas.
+	 */
+	private static final double MERGE_RATIO = 1.25;
+
+	/**
+	 * Damage regions with a union smaller than this many pixels are always
+	 * merged, as painting them separately costs more than it saves.
+	 */
+	private static final int MERGE_AREA = 64 * 64;
+
 	private Rectangle damage;
 	private Map dirtyRegions = new HashMap();
+	private int maxDamageRegions = 1;
+	private long repaintedPixels;
+	private long totalRepaintedPixels;
+	private int repaintCount;
 
 	private GraphicsSource graphicsSource;
 	private List invalidFigures = new ArrayList();
+	/**
+	 * The figures of {@link #invalidFigures} which have not been validated yet.
+	 */
+	private Set queuedFigures = new HashSet();
+	private boolean skipQueuedDescendants;
 	private IFigure root;
 	private boolean updateQueued;
+	private int suspendCount;
 
 	private boolean updating;
 	private boolean validating;
@@ -107,7 +141,9 @@ public class DeferredUpdateManager extends UpdateManager {
 	 */
 	public synchronized void addDirtyRegion(IFigure figure, int x, int y,
 			int w, int h) {
-		if (w == 0 || h == 0 || !figure.isShowing())
+		if (w == 0 || h == 0)
+			return;
+		if (!figure.isShowing())
 			return;
 
 		Rectangle rect = (Rectangle) dirtyRegions.get(figure);
@@ -128,12 +164,91 @@ public class DeferredUpdateManager extends UpdateManager {
 	 *            the invalid figure
 	 */
 	public synchronized void addInvalidFigure(IFigure f) {
-		if (invalidFigures.contains(f))
+		if (!queuedFigures.add(f))
 			return;
 		queueWork();
 		invalidFigures.add(f);
 	}
 
+	/**
+	 * Adds the given rectangle to the given disjoint damage regions, merging
+	 * it with the regions it overlaps or is close to, and then merging the
+	 * closest regions until there are no more than allowed.
+	 */
+	private void addDamageRegion(List regions, Rectangle rect) {
+		Rectangle merged = new Rectangle(rect);
+		boolean changed;
+		do {
+			changed = false;
+			for (int i = regions.size() - 1; i >= 0; i--) {
+				Rectangle region = (Rectangle) regions.get(i);
+				if (region.intersects(merged)
+						|| getMergeCost(region, merged) <= 0) {
+					merged.union(region);
+					regions.remove(i);
+					changed = true;
+				}
+			}
+		} while (changed);
+		regions.add(merged);
+
+		while (regions.size() > maxDamageRegions) {
+			int first = 0, second = 1;
+			double cheapest = Double.MAX_VALUE;
+			for (int i = 0; i < regions.size(); i++)
+				for (int j = i + 1; j < regions.size(); j++) {
+					double cost = getMergeCost((Rectangle) regions.get(i),
+							(Rectangle) regions.get(j));
+					if (cost < cheapest) {
+						cheapest = cost;
+						first = i;
+						second = j;
+					}
+				}
+			Rectangle region = (Rectangle) regions.remove(second);
+			((Rectangle) regions.get(first)).union(region);
+			// the union may now overlap other regions
+			addDamageRegion(regions, (Rectangle) regions.remove(first));
+		}
+	}
+
+	/**
+	 * Returns how many more pixels than allowed would be painted if the given
+	 * regions were merged. Regions are worth merging when this is not
+	 * positive.
+	 */
+	private static double getMergeCost(Rectangle r1, Rectangle r2) {
+		double union = (double) (Math.max(r1.right(), r2.right()) - Math.min(
+				r1.x, r2.x))
+				* (Math.max(r1.bottom(), r2.bottom()) - Math.min(r1.y, r2.y));
+		if (union <= MERGE_AREA)
+			return 0;
+		return union - MERGE_RATIO
+				* ((double) r1.width * r1.height + (double) r2.width
+						* r2.height);
+	}
+
+	/**
+	 * Returns <code>true</code> if the given queued figure will be validated
+	 * by the validation of one of its queued ancestors. This is the case when
+	 * the figure and all of its ancestors up to the queued one are invalid, as
+	 * {@link IFigure#validate()} then descends to the figure. Only the
+	 * validity of {@link Figure Figures} is known.
+	 */
+	private boolean isValidatedByAncestor(IFigure figure) {
+		if (!isInvalid(figure))
+			return false;
+		for (IFigure parent = figure.getParent(); isInvalid(parent); parent = parent
+				.getParent())
+			if (queuedFigures.contains(parent))
+				return true;
+		return false;
+	}
+
+	private static boolean isInvalid(IFigure figure) {
+		return figure instanceof Figure && !((Figure) figure).isValid();
+	}
+
 	/**
 	 * Returns a Graphics object for the given region.
 	 * 
@@ -147,6 +262,65 @@ public class DeferredUpdateManager extends UpdateManager {
 		return graphicsSource.getGraphics(region);
 	}
 
+	/**
+	 * Returns the graphics source, or <code>null</code> if none has been set.
+	 * The {@link LightweightSystem} sets a {@link BufferedGraphicsSource} on
+	 * controls which are not double buffered by the platform, whose
+	 * allocation counts can be read through this method.
+	 * 
+	 * @return the graphics source or <code>null</code>
+	 * @since 3.12
+	 */
+	public GraphicsSource getGraphicsSource() {
+		return graphicsSource;
+	}
+
+	/**
+	 * Returns the maximum number of damage regions repainted separately by an
+	 * update.
+	 * 
+	 * @return the maximum number of damage regions
+	 * @see #setMaxDamageRegions(int)
+	 * @since 3.12
+	 */
+	public int getMaxDamageRegions() {
+		return maxDamageRegions;
+	}
+
+	/**
+	 * Returns the number of updates which have repainted some damage since the
+	 * counts were last reset.
+	 * 
+	 * @return the number of repainting updates
+	 * @since 3.12
+	 */
+	public int getRepaintCount() {
+		return repaintCount;
+	}
+
+	/**
+	 * Returns the number of pixels repainted by the last update which
+	 * repainted some damage. Pixels covered by more than one damage region
+	 * are counted once per region.
+	 * 
+	 * @return the number of pixels repainted by the last update
+	 * @since 3.12
+	 */
+	public long getRepaintedPixelCount() {
+		return repaintedPixels;
+	}
+
+	/**
+	 * Returns the number of pixels repainted by all of the updates since the
+	 * counts were last reset.
+	 * 
+	 * @return the total number of pixels repainted
+	 * @since 3.12
+	 */
+	public long getTotalRepaintedPixelCount() {
+		return totalRepaintedPixels;
+	}
+
 	/**
 	 * @since 3.10
 	 */
@@ -188,6 +362,11 @@ public class DeferredUpdateManager extends UpdateManager {
 	public synchronized void performUpdate() {
 		if (isDisposed() || updating)
 			return;
+		if (suspendCount > 0) {
+			// queued again when updates resume
+			updateQueued = false;
+			return;
+		}
 		updating = true;
 		try {
 			performValidation();
@@ -209,19 +388,41 @@ public class DeferredUpdateManager extends UpdateManager {
 	 * @see UpdateManager#performValidation()
 	 */
 	public synchronized void performValidation() {
-		if (invalidFigures.isEmpty() || validating)
+		if (invalidFigures.isEmpty() || validating || suspendCount > 0)
 			return;
 		try {
 			IFigure fig;
 			validating = true;
 			fireValidating();
-			for (int i = 0; i < invalidFigures.size(); i++) {
-				fig = (IFigure) invalidFigures.get(i);
-				invalidFigures.set(i, null);
-				fig.validate();
+			List skipped = null;
+			int i = 0;
+			while (true) {
+				for (; i < invalidFigures.size(); i++) {
+					fig = (IFigure) invalidFigures.get(i);
+					invalidFigures.set(i, null);
+					if (skipQueuedDescendants && isValidatedByAncestor(fig)) {
+						// stays queued until the ancestor has validated it
+						if (skipped == null)
+							skipped = new ArrayList();
+						skipped.add(fig);
+						continue;
+					}
+					queuedFigures.remove(fig);
+					fig.validate();
+				}
+				if (skipped == null)
+					break;
+				// normally already validated by their ancestors
+				for (int j = 0; j < skipped.size(); j++) {
+					fig = (IFigure) skipped.get(j);
+					queuedFigures.remove(fig);
+					fig.validate();
+				}
+				skipped = null;
 			}
 		} finally {
 			invalidFigures.clear();
+			queuedFigures.clear();
 			validating = false;
 		}
 	}
@@ -243,7 +444,7 @@ public class DeferredUpdateManager extends UpdateManager {
 	 * If work has already been queued, a new request is not needed.
 	 */
 	protected void queueWork() {
-		if (!updateQueued) {
+		if (!updateQueued && suspendCount == 0) {
 			sendUpdateRequest();
 			updateQueued = true;
 		}
@@ -263,6 +464,22 @@ public class DeferredUpdateManager extends UpdateManager {
 		display.asyncExec(new UpdateRequest());
 	}
 
+	/**
+	 * Resumes the updates suspended by {@link #suspendUpdates()}. When every
+	 * call to <code>suspendUpdates()</code> has been matched, an update is
+	 * queued which validates the figures invalidated in the meantime, and
+	 * repaints the regions damaged in the meantime.
+	 * 
+	 * @since 3.12
+	 */
+	public synchronized void resumeUpdates() {
+		if (suspendCount == 0 || --suspendCount > 0)
+			return;
+		if (!invalidFigures.isEmpty() || !dirtyRegions.isEmpty()
+				|| afterUpdate != null)
+			queueWork();
+	}
+
 	/**
 	 * Releases the graphics object, which causes the GraphicsSource to flush.
 	 * 
@@ -277,13 +494,15 @@ public class DeferredUpdateManager extends UpdateManager {
 	/**
 	 * Repaints the dirty regions on the update queue and calls
 	 * {@link UpdateManager#firePainting(Rectangle, Map)}, unless there are no
-	 * dirty regions.
+	 * dirty regions. The listeners are notified of the union of the dirty
+	 * regions, even if they are repainted separately.
 	 */
 	protected void repairDamage() {
 		Iterator keys = dirtyRegions.keySet().iterator();
 		Rectangle contribution;
 		IFigure figure;
 		IFigure walker;
+		List regions = maxDamageRegions > 1 ? new ArrayList() : null;
 
 		while (keys.hasNext()) {
 			figure = (IFigure) keys.next();
@@ -291,15 +510,21 @@ public class DeferredUpdateManager extends UpdateManager {
 			contribution = (Rectangle) dirtyRegions.get(figure);
 			// A figure can't paint beyond its own bounds
 			contribution.intersect(figure.getBounds());
+			if (figure instanceof Layer)
+				((Layer) figure).tilesDamaged(contribution);
 			while (!contribution.isEmpty() && walker != null) {
 				walker.translateToParent(contribution);
 				contribution.intersect(walker.getBounds());
+				if (walker instanceof Layer)
+					((Layer) walker).tilesDamaged(contribution);
 				walker = walker.getParent();
 			}
 			if (damage == null)
 				damage = new Rectangle(contribution);
 			else
 				damage.union(contribution);
+			if (regions != null && !contribution.isEmpty())
+				addDamageRegion(regions, contribution);
 		}
 
 		if (!dirtyRegions.isEmpty()) {
@@ -310,15 +535,41 @@ public class DeferredUpdateManager extends UpdateManager {
 
 		if (damage != null && !damage.isEmpty()) {
 			// ystem.out.println(damage);
-			Graphics graphics = getGraphics(damage);
-			if (graphics != null) {
-				root.paint(graphics);
-				releaseGraphics(graphics);
-			}
+			repaintedPixels = 0;
+			repaintCount++;
+			if (regions == null)
+				repaintDamage();
+			else
+				for (int i = 0; i < regions.size(); i++) {
+					// releaseGraphics(Graphics) flushes the current damage
+					damage = (Rectangle) regions.get(i);
+					repaintDamage();
+				}
+			totalRepaintedPixels += repaintedPixels;
 		}
 		damage = null;
 	}
 
+	private void repaintDamage() {
+		repaintedPixels += (long) damage.width * damage.height;
+		Graphics graphics = getGraphics(damage);
+		if (graphics != null) {
+			root.paint(graphics);
+			releaseGraphics(graphics);
+		}
+	}
+
+	/**
+	 * Resets the counts of updates and pixels repainted.
+	 * 
+	 * @since 3.12
+	 */
+	public void resetRepaintCounts() {
+		repaintedPixels = 0;
+		totalRepaintedPixels = 0;
+		repaintCount = 0;
+	}
+
 	/**
 	 * Adds the given runnable and queues an update if an update is not under
 	 * progress.
@@ -342,6 +593,40 @@ public class DeferredUpdateManager extends UpdateManager {
 		graphicsSource = gs;
 	}
 
+	/**
+	 * Sets the maximum number of damage regions repainted separately by an
+	 * update. The default is 1, which repaints the union of all damage at
+	 * once. With more regions, distant damage does not cause the area between
+	 * it to be repainted, at the cost of painting the root figure once per
+	 * region.
+	 * 
+	 * @param max
+	 *            the maximum number of damage regions, at least 1
+	 * @since 3.12
+	 */
+	public void setMaxDamageRegions(int max) {
+		if (max < 1)
+			throw new IllegalArgumentException(
+					"At least one damage region is needed"); //$NON-NLS-1$
+		maxDamageRegions = max;
+	}
+
+	/**
+	 * Sets whether the validation skips the queued figures which will be
+	 * validated by a queued ancestor anyway. Such a figure would otherwise be
+	 * laid out once on its own, and again when the layout of its ancestor
+	 * changes its size. The default is <code>false</code>, which validates
+	 * every queued figure in the order in which it was queued.
+	 * 
+	 * @param skip
+	 *            <code>true</code> to skip figures validated by their
+	 *            ancestors
+	 * @since 3.12
+	 */
+	public void setSkipQueuedDescendants(boolean skip) {
+		skipQueuedDescendants = skip;
+	}
+
 	/**
 	 * Sets the root figure.
 	 * 
@@ -352,6 +637,25 @@ public class DeferredUpdateManager extends UpdateManager {
 		root = figure;
 	}
 
+	/**
+	 * Suspends the validation of invalid figures and the repair of damage
+	 * until {@link #resumeUpdates()} is called, so that a large number of
+	 * changes cause a single layout and repaint. Invalid figures and damaged
+	 * regions are still collected per figure, so that the repaint covers only
+	 * the damaged regions, and figures caching their painting, such as
+	 * {@link Layer}, learn which regions became stale. Calls may be nested;
+	 * each one must be matched by a call to <code>resumeUpdates()</code>.
+	 * <P>
+	 * While updates are suspended, explicit calls to {@link #performUpdate()}
+	 * and {@link #performValidation()} do nothing, and paint requests from the
+	 * control paint the figures as they were last laid out.
+	 * 
+	 * @since 3.12
+	 */
+	public synchronized void suspendUpdates() {
+		suspendCount++;
+	}
+
 	/**
 	 * Validates all invalid figures on the update queue and calls
 	 * {@link UpdateManager#fireValidating()} unless there are no invalid
@@ -1097,13 +1097,16 @@ public class Figure implements IFigure {
 	}
 
 	/**
-	 * Paints this Figure and its children.
+	 * Paints this Figure and its children. When the graphics is
+	 * {@link Graphics#isSimplifying() simplifying}, a simplified representation
+	 * is painted instead.
 	 * 
 	 * @param graphics
 	 *            The Graphics object used for painting
 	 * @see #paintFigure(Graphics)
 	 * @see #paintClientArea(Graphics)
 	 * @see #paintBorder(Graphics)
+	 * @see #paintSimplified(Graphics)
 	 */
 	public void paint(Graphics graphics) {
 		if (getLocalBackgroundColor() != null)
@@ -1115,10 +1118,14 @@ public class Figure implements IFigure {
 
 		graphics.pushState();
 		try {
-			paintFigure(graphics);
-			graphics.restoreState();
-			paintClientArea(graphics);
-			paintBorder(graphics);
+			if (graphics.isSimplifying())
+				paintSimplified(graphics);
+			else {
+				paintFigure(graphics);
+				graphics.restoreState();
+				paintClientArea(graphics);
+				paintBorder(graphics);
+			}
 		} finally {
 			graphics.popState();
 		}
@@ -1151,26 +1158,47 @@ public class Figure implements IFigure {
 	 * @since 2.0
 	 */
 	protected void paintChildren(Graphics graphics) {
+		// The clip is restored after each child, so it only needs to be read
+		// once
+		Rectangle clip = graphics.getClip(new Rectangle());
 		for (int i = 0; i < children.size(); i++) {
 			IFigure child = (IFigure) children.get(i);
-			if (child.isVisible()) {
-				// determine clipping areas for child
-				Rectangle[] clipping = null;
-				if (clippingStrategy != null) {
-					clipping = clippingStrategy.getClip(child);
-				} else {
-					// default clipping behaviour is to clip at bounds
-					clipping = new Rectangle[] { child.getBounds() };
-				}
-				// child may now paint inside the clipping areas
-				for (int j = 0; j < clipping.length; j++) {
-					if (clipping[j].intersects(graphics
-							.getClip(Rectangle.SINGLETON))) {
-						graphics.clipRect(clipping[j]);
-						child.paint(graphics);
-						graphics.restoreState();
-					}
-				}
+			if (child.isVisible())
+				paintChild(graphics, child, clip);
+		}
+	}
+
+	/**
+	 * Paints the given child inside its clipping areas, as far as they
+	 * intersect the current clip of the graphics. The graphics is restored
+	 * after each area.
+	 * 
+	 * @param graphics
+	 *            the graphics used to paint
+	 * @param child
+	 *            the visible child to paint
+	 * @param clip
+	 *            the current clip of the graphics
+	 */
+	final void paintChild(Graphics graphics, IFigure child, Rectangle clip) {
+		if (clippingStrategy == null) {
+			// default clipping behaviour is to clip at bounds
+			Rectangle bounds = child.getBounds();
+			if (bounds.intersects(clip)) {
+				graphics.clipRect(bounds);
+				child.paint(graphics);
+				graphics.restoreState();
+			}
+			return;
+		}
+		// determine clipping areas for child
+		Rectangle[] clipping = clippingStrategy.getClip(child);
+		// child may now paint inside the clipping areas
+		for (int j = 0; j < clipping.length; j++) {
+			if (clipping[j].intersects(clip)) {
+				graphics.clipRect(clipping[j]);
+				child.paint(graphics);
+				graphics.restoreState();
 			}
 		}
 	}
@@ -1233,6 +1261,27 @@ public class Figure implements IFigure {
 					NO_INSETS);
 	}
 
+	/**
+	 * Paints a cheap representation of this Figure, used instead of
+	 * {@link #paintFigure(Graphics)}, {@link #paintClientArea(Graphics)} and
+	 * {@link #paintBorder(Graphics)} when the graphics is
+	 * {@link Graphics#isSimplifying() simplifying}, typically because the
+	 * figure is painted at a small scale. The state of the graphics is
+	 * restored by the caller. By default, the figure is painted as usual, so
+	 * that its children can simplify themselves. Subclasses may paint
+	 * something cheaper, such as a filled rectangle, and skip their children.
+	 * 
+	 * @param graphics
+	 *            the graphics used to paint
+	 * @since 3.12
+	 */
+	protected void paintSimplified(Graphics graphics) {
+		paintFigure(graphics);
+		graphics.restoreState();
+		paintClientArea(graphics);
+		paintBorder(graphics);
+	}
+
 	/**
 	 * Translates this Figure's bounds, without firing a move.
 	 * 
@@ -0,0 +1,424 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.draw2d;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.draw2d.geometry.Rectangle;
+
+/**
+ * A uniform grid over the bounds of a set of figures. The index answers point
+ * and area queries by visiting only the grid cells involved, rather than every
+ * figure. Figures are kept in the order in which they are added, which is
+ * normally their z-order inside their parent. Point queries answer topmost
+ * first, area queries answer in painting order.
+ * <P>
+ * The index does not observe the figures itself. Its owner must call
+ * {@link #update(IFigure)} whenever the bounds of an indexed figure change.
+ * Bounds are only re-read lazily, on the next query. Figures whose bounds may
+ * change without notification (see {@link #isIndexable(IFigure)}) are never
+ * put in the grid, but are checked on every query instead.
+ * <P>
+ * Figures are indexed under their bounds expanded by their
+ * {@link #getHitTolerance(IFigure) hit tolerance}, so that polylines are found
+ * by points just beside them, as {@link Polyline#containsPoint(int, int)}
+ * accepts those.
+ *
+ * @since 3.12
+ */
+public class FigureIndex {
+
+	/**
+	 * The default width and height of a grid cell.
+	 */
+	public static final int DEFAULT_CELL_SIZE = 256;
+
+	/**
+	 * Figures covering more cells than this are not put into the grid, but are
+	 * checked on every query.
+	 */
+	private static final int MAX_CELLS_PER_FIGURE = 64;
+
+	private static final Comparator Z_ORDER = new Comparator() {
+		public int compare(Object o1, Object o2) {
+			return ((Entry) o1).order - ((Entry) o2).order;
+		}
+	};
+
+	private static class Entry {
+		final IFigure figure;
+		final Rectangle bounds = new Rectangle();
+		int order;
+		int stamp;
+		boolean stale = true;
+		boolean gridded;
+		boolean indexable;
+		int minCol, minRow, maxCol, maxRow;
+
+		Entry(IFigure figure) {
+			this.figure = figure;
+		}
+	}
+
+	private final int cellSize;
+	private final Map cells = new HashMap();
+	private final Map entries = new HashMap();
+	private final List zOrder = new ArrayList();
+	private final List unbucketed = new ArrayList();
+	private final List stale = new ArrayList();
+	private final Rectangle scratch = new Rectangle();
+	private boolean ordersValid = true;
+	private int queryStamp;
+
+	/**
+	 * Constructs an index using the {@link #DEFAULT_CELL_SIZE default} cell
+	 * size.
+	 */
+	public FigureIndex() {
+		this(DEFAULT_CELL_SIZE);
+	}
+
+	/**
+	 * Constructs an index whose grid cells have the given width and height.
+	 * The cell size should be in the order of the size of the indexed figures.
+	 *
+	 * @param cellSize
+	 *            the size of a grid cell, must be positive
+	 */
+	public FigureIndex(int cellSize) {
+		if (cellSize <= 0)
+			throw new IllegalArgumentException("Cell size must be positive"); //$NON-NLS-1$
+		this.cellSize = cellSize;
+	}
+
+	/**
+	 * Adds the given figure at the given z-order position.
+	 *
+	 * @param figure
+	 *            the figure to add
+	 * @param index
+	 *            the z-order position, or -1 to add the figure on top
+	 */
+	public void add(IFigure figure, int index) {
+		if (entries.containsKey(figure))
+			remove(figure);
+		Entry entry = new Entry(figure);
+		entry.indexable = isIndexable(figure);
+		entries.put(figure, entry);
+		if (index == -1 || index >= zOrder.size()) {
+			entry.order = zOrder.isEmpty() ? 0 : ((Entry) zOrder.get(zOrder
+					.size() - 1)).order + 1;
+			zOrder.add(entry);
+		} else {
+			zOrder.add(index, entry);
+			ordersValid = false;
+		}
+		if (entry.indexable)
+			stale.add(entry);
+		else
+			unbucketed.add(entry);
+	}
+
+	/**
+	 * Removes all figures from this index.
+	 */
+	public void clear() {
+		cells.clear();
+		entries.clear();
+		zOrder.clear();
+		unbucketed.clear();
+		stale.clear();
+		ordersValid = true;
+	}
+
+	/**
+	 * Returns <code>true</code> if the given figure is indexed.
+	 *
+	 * @param figure
+	 *            the figure
+	 * @return <code>true</code> if the figure has been added to this index
+	 */
+	public boolean contains(IFigure figure) {
+		return entries.containsKey(figure);
+	}
+
+	/**
+	 * Returns the indexed figures whose bounds, expanded by their hit
+	 * tolerance, contain the point (x, y), the topmost figure first.
+	 * Visibility is not taken into account.
+	 *
+	 * @param x
+	 *            the X coordinate
+	 * @param y
+	 *            the Y coordinate
+	 * @return a new list of figures, topmost first
+	 */
+	public List findAt(int x, int y) {
+		prepareQuery();
+		List hits = new ArrayList();
+		List bucket = (List) cells.get(Long.valueOf(key(cell(x), cell(y))));
+		if (bucket != null)
+			for (int i = 0; i < bucket.size(); i++) {
+				Entry entry = (Entry) bucket.get(i);
+				if (entry.bounds.contains(x, y))
+					hits.add(entry);
+			}
+		for (int i = 0; i < unbucketed.size(); i++) {
+			Entry entry = (Entry) unbucketed.get(i);
+			if (getHitBounds(entry).contains(x, y))
+				hits.add(entry);
+		}
+		Collections.sort(hits, Z_ORDER);
+		Collections.reverse(hits);
+		return toFigures(hits);
+	}
+
+	/**
+	 * Returns the indexed figures whose bounds, expanded by their hit
+	 * tolerance, intersect the given rectangle, in z-order, bottommost figure
+	 * first. Visibility is not taken into account.
+	 *
+	 * @param rect
+	 *            the area to query
+	 * @return a new list of figures, in painting order
+	 */
+	public List findIntersecting(Rectangle rect) {
+		prepareQuery();
+		if (rect.isEmpty())
+			return new ArrayList(0);
+		int minCol = cell(rect.x), minRow = cell(rect.y);
+		int maxCol = cell(rect.x + rect.width - 1), maxRow = cell(rect.y
+				+ rect.height - 1);
+		long area = ((long) maxCol - minCol + 1) * ((long) maxRow - minRow + 1);
+		List hits = new ArrayList();
+		if (area >= zOrder.size()) {
+			// Visiting the cells would cost more than a plain scan
+			for (int i = 0; i < zOrder.size(); i++) {
+				Entry entry = (Entry) zOrder.get(i);
+				if (getHitBounds(entry).intersects(rect))
+					hits.add(entry.figure);
+			}
+			return hits;
+		}
+		int stamp = ++queryStamp;
+		for (int col = minCol; col <= maxCol; col++)
+			for (int row = minRow; row <= maxRow; row++) {
+				List bucket = (List) cells.get(Long.valueOf(key(col, row)));
+				if (bucket == null)
+					continue;
+				for (int i = 0; i < bucket.size(); i++) {
+					Entry entry = (Entry) bucket.get(i);
+					if (entry.stamp != stamp && entry.bounds.intersects(rect)) {
+						entry.stamp = stamp;
+						hits.add(entry);
+					}
+				}
+			}
+		for (int i = 0; i < unbucketed.size(); i++) {
+			Entry entry = (Entry) unbucketed.get(i);
+			if (getHitBounds(entry).intersects(rect))
+				hits.add(entry);
+		}
+		Collections.sort(hits, Z_ORDER);
+		return toFigures(hits);
+	}
+
+	/**
+	 * Returns the bounds under which the given figure is indexed. By default
+	 * this is the figure's {@link IFigure#getBounds() bounds}, i.e. the
+	 * coordinate system of its parent. Subclasses may override to index
+	 * figures in a different coordinate system.
+	 *
+	 * @param figure
+	 *            the indexed figure
+	 * @return the figure's bounds, which must not be modified
+	 */
+	protected Rectangle getBounds(IFigure figure) {
+		return figure.getBounds();
+	}
+
+	/**
+	 * Returns the indexed bounds of the given entry, which are re-read on
+	 * every query for figures which are not indexable.
+	 */
+	private Rectangle getHitBounds(Entry entry) {
+		if (entry.indexable)
+			return entry.bounds;
+		int tolerance = getHitTolerance(entry.figure);
+		return scratch.setBounds(getBounds(entry.figure)).expand(tolerance,
+				tolerance);
+	}
+
+	/**
+	 * Returns the distance from its bounds within which the given figure may
+	 * still {@link IFigure#containsPoint(int, int) contain} a point. By default
+	 * this is the tolerance of {@link Polyline polylines} or half their line
+	 * width, whichever is larger, and 0 for other figures. The tolerance is
+	 * re-read along with the bounds.
+	 *
+	 * @param figure
+	 *            the indexed figure
+	 * @return the hit tolerance, 0 or more
+	 */
+	protected int getHitTolerance(IFigure figure) {
+		if (figure instanceof Polyline) {
+			Polyline polyline = (Polyline) figure;
+			return (int) Math.max(polyline.getLineWidthFloat() / 2.0f,
+					polyline.getTolerance());
+		}
+		return 0;
+	}
+
+	/**
+	 * Returns <code>true</code> if the given figure may be put into the grid.
+	 * A figure is only indexable if every change to its bounds is followed by
+	 * a call to {@link #update(IFigure)}. By default this excludes
+	 * {@link Layer layers}, whose hit area is defined by their children, and
+	 * point list shapes which are not connections, as they compute their
+	 * bounds lazily without notifying {@link FigureListener}s.
+	 *
+	 * @param figure
+	 *            the figure
+	 * @return <code>true</code> if the figure can be put into the grid
+	 */
+	protected boolean isIndexable(IFigure figure) {
+		if (figure instanceof Layer)
+			return false;
+		return !(figure instanceof AbstractPointListShape)
+				|| figure instanceof Connection;
+	}
+
+	/**
+	 * Removes the given figure from this index.
+	 *
+	 * @param figure
+	 *            the figure to remove
+	 */
+	public void remove(IFigure figure) {
+		Entry entry = (Entry) entries.remove(figure);
+		if (entry == null)
+			return;
+		unbucket(entry);
+		if (!entry.indexable)
+			unbucketed.remove(entry);
+		if (ordersValid) {
+			int i = Collections.binarySearch(zOrder, entry, Z_ORDER);
+			zOrder.remove(i >= 0 ? i : zOrder.indexOf(entry));
+		} else
+			zOrder.remove(entry);
+	}
+
+	/**
+	 * Returns the number of indexed figures.
+	 *
+	 * @return the number of figures
+	 */
+	public int size() {
+		return zOrder.size();
+	}
+
+	/**
+	 * Notifies this index that the bounds of the given figure have changed.
+	 * The figure is re-indexed on the next query.
+	 *
+	 * @param figure
+	 *            the figure whose bounds changed
+	 */
+	public void update(IFigure figure) {
+		Entry entry = (Entry) entries.get(figure);
+		if (entry == null || entry.stale || !entry.indexable)
+			return;
+		entry.stale = true;
+		stale.add(entry);
+	}
+
+	private int cell(int coordinate) {
+		return Math.floorDiv(coordinate, cellSize);
+	}
+
+	private static long key(int col, int row) {
+		return ((long) col << 32) | (row & 0xFFFFFFFFL);
+	}
+
+	private void prepareQuery() {
+		if (!ordersValid) {
+			for (int i = 0; i < zOrder.size(); i++)
+				((Entry) zOrder.get(i)).order = i;
+			ordersValid = true;
+		}
+		for (int i = 0; i < stale.size(); i++) {
+			Entry entry = (Entry) stale.get(i);
+			if (entries.get(entry.figure) != entry)
+				continue; // removed since it became stale
+			unbucket(entry);
+			int tolerance = getHitTolerance(entry.figure);
+			entry.bounds.setBounds(getBounds(entry.figure)).expand(tolerance,
+					tolerance);
+			entry.stale = false;
+			bucket(entry);
+		}
+		stale.clear();
+	}
+
+	private void bucket(Entry entry) {
+		Rectangle bounds = entry.bounds;
+		if (bounds.isEmpty())
+			return;
+		entry.minCol = cell(bounds.x);
+		entry.minRow = cell(bounds.y);
+		entry.maxCol = cell(bounds.x + bounds.width - 1);
+		entry.maxRow = cell(bounds.y + bounds.height - 1);
+		long area = ((long) entry.maxCol - entry.minCol + 1)
+				* ((long) entry.maxRow - entry.minRow + 1);
+		if (area > MAX_CELLS_PER_FIGURE) {
+			unbucketed.add(entry);
+			return;
+		}
+		for (int col = entry.minCol; col <= entry.maxCol; col++)
+			for (int row = entry.minRow; row <= entry.maxRow; row++) {
+				Long key = Long.valueOf(key(col, row));
+				List bucket = (List) cells.get(key);
+				if (bucket == null)
+					cells.put(key, bucket = new ArrayList(4));
+				bucket.add(entry);
+			}
+		entry.gridded = true;
+	}
+
+	private void unbucket(Entry entry) {
+		if (!entry.gridded) {
+			if (entry.indexable)
+				unbucketed.remove(entry);
+			return;
+		}
+		for (int col = entry.minCol; col <= entry.maxCol; col++)
+			for (int row = entry.minRow; row <= entry.maxRow; row++) {
+				Long key = Long.valueOf(key(col, row));
+				List bucket = (List) cells.get(key);
+				if (bucket != null && bucket.remove(entry) && bucket.isEmpty())
+					cells.remove(key);
+			}
+		entry.gridded = false;
+	}
+
+	private static List toFigures(List hits) {
+		for (int i = 0; i < hits.size(); i++)
+			if (hits.get(i) instanceof Entry)
+				hits.set(i, ((Entry) hits.get(i)).figure);
+		return hits;
+	}
+
+}
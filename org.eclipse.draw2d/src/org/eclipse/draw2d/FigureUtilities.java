@@ -12,6 +12,7 @@ package org.eclipse.draw2d;
 
 import java.util.ArrayList;
 
+import org.eclipse.swt.SWT;
 import org.eclipse.swt.graphics.Color;
 import org.eclipse.swt.graphics.Font;
 import org.eclipse.swt.graphics.FontMetrics;
@@ -31,6 +32,7 @@ public class FigureUtilities {
 	private static Font appliedFont;
 	private static FontMetrics metrics;
 	private static Color ghostFillColor = new Color(null, 31, 31, 31);
+	private static TextExtentCache textExtentCache = new TextExtentCache();
 
 	/**
 	 * Returns a new Color the same as the passed color in a darker hue.
@@ -56,9 +58,13 @@ public class FigureUtilities {
 	 * @since 2.0
 	 */
 	public static FontMetrics getFontMetrics(Font f) {
+		FontMetrics cached = textExtentCache.getFontMetrics(f);
+		if (cached != null)
+			return cached;
 		setFont(f);
 		if (metrics == null)
 			metrics = getGC().getFontMetrics();
+		textExtentCache.putFontMetrics(f, metrics);
 		return metrics;
 	}
 
@@ -90,8 +96,26 @@ public class FigureUtilities {
 	 */
 	protected static org.eclipse.swt.graphics.Point getTextDimension(String s,
 			Font f) {
-		setFont(f);
-		return getGC().textExtent(s);
+		org.eclipse.swt.graphics.Point extent = textExtentCache.getExtent(f,
+				s, true);
+		if (extent == null) {
+			setFont(f);
+			extent = getGC().textExtent(s);
+			textExtentCache.putExtent(f, s, true, extent);
+		}
+		return extent;
+	}
+
+	/**
+	 * Returns the cache of the text extents and font metrics measured by this
+	 * class. Text measured through {@link TextUtilities#INSTANCE} is cached as
+	 * well.
+	 * 
+	 * @return the text extent cache
+	 * @since 3.12
+	 */
+	public static TextExtentCache getTextExtentCache() {
+		return textExtentCache;
 	}
 
 	/**
@@ -121,8 +145,14 @@ public class FigureUtilities {
 	 */
 	protected static org.eclipse.swt.graphics.Point getStringDimension(
 			String s, Font f) {
-		setFont(f);
-		return getGC().stringExtent(s);
+		org.eclipse.swt.graphics.Point extent = textExtentCache.getExtent(f,
+				s, false);
+		if (extent == null) {
+			setFont(f);
+			extent = getGC().stringExtent(s);
+			textExtentCache.putExtent(f, s, false, extent);
+		}
+		return extent;
 	}
 
 	/**
@@ -296,7 +326,10 @@ public class FigureUtilities {
 	 * @param f
 	 *            The figure in which the grid is to be painted
 	 * @param origin
-	 *            Any point where the grid lines are expected to intersect
+	 *            Any point where the grid lines are expected to intersect. It
+	 *            is modified: on return, it is the point where the first
+	 *            painted vertical and horizontal lines inside the clip
+	 *            intersect
 	 * @param distanceX
 	 *            Distance between vertical grid lines; if 0 or less, vertical
 	 *            grid lines will not be drawn
@@ -309,31 +342,110 @@ public class FigureUtilities {
 	public static void paintGrid(Graphics g, IFigure f,
 			org.eclipse.draw2d.geometry.Point origin, int distanceX,
 			int distanceY) {
+		paintGrid(g, f, origin, distanceX, distanceY, 0);
+	}
+
+	/**
+	 * Helper method to paint a grid. Painting is optimized as it is restricted
+	 * to the Graphics' clip. The first line inside the clip is computed
+	 * directly, and solid lines are drawn as a single polyline, whose
+	 * connecting segments lie outside of the clip.
+	 * <P>
+	 * When the lines in one direction would be closer than the given minimum
+	 * spacing once painted, only every second line is drawn, or every fourth,
+	 * and so on, so that zoomed out grids stay sparse. The lines drawn always
+	 * lie on the grid.
+	 * 
+	 * @param g
+	 *            The Graphics object to be used for painting
+	 * @param f
+	 *            The figure in which the grid is to be painted
+	 * @param origin
+	 *            Any point where the grid lines are expected to intersect. It
+	 *            is modified: on return, it is the point where the first
+	 *            painted vertical and horizontal lines inside the clip
+	 *            intersect
+	 * @param distanceX
+	 *            Distance between vertical grid lines; if 0 or less, vertical
+	 *            grid lines will not be drawn
+	 * @param distanceY
+	 *            Distance between horizontal grid lines; if 0 or less,
+	 *            horizontal grid lines will not be drawn
+	 * @param minSpacing
+	 *            The minimum distance between painted lines, in device
+	 *            pixels; if 0 or less, all lines are drawn
+	 * 
+	 * @since 3.12
+	 */
+	public static void paintGrid(Graphics g, IFigure f,
+			org.eclipse.draw2d.geometry.Point origin, int distanceX,
+			int distanceY, int minSpacing) {
 		Rectangle clip = g.getClip(Rectangle.SINGLETON);
+		int left = clip.x, top = clip.y;
+		int right = clip.right(), bottom = clip.bottom();
+		double scale = g.getAbsoluteScale();
+		boolean solid = g.getLineStyle() == SWT.LINE_SOLID;
+		// far enough outside of the clip for the joins not to show
+		int margin = (int) Math.ceil((g.getLineWidthFloat() + 2) / scale);
 
 		if (distanceX > 0) {
-			if (origin.x >= clip.x)
-				while (origin.x - distanceX >= clip.x)
-					origin.x -= distanceX;
+			distanceX = getGridSpacing(distanceX, scale, minSpacing);
+			origin.x = left + Math.floorMod(origin.x - left, distanceX);
+			if (solid)
+				g.drawPolyline(getGridLines(origin.x, right, distanceX, top
+						- margin, bottom + margin, true));
 			else
-				while (origin.x < clip.x)
-					origin.x += distanceX;
-			for (int i = origin.x; i < clip.x + clip.width; i += distanceX)
-				g.drawLine(i, clip.y, i, clip.y + clip.height);
+				for (int i = origin.x; i < right; i += distanceX)
+					g.drawLine(i, top, i, bottom);
 		}
 
 		if (distanceY > 0) {
-			if (origin.y >= clip.y)
-				while (origin.y - distanceY >= clip.y)
-					origin.y -= distanceY;
+			distanceY = getGridSpacing(distanceY, scale, minSpacing);
+			origin.y = top + Math.floorMod(origin.y - top, distanceY);
+			if (solid)
+				g.drawPolyline(getGridLines(origin.y, bottom, distanceY, left
+						- margin, right + margin, false));
 			else
-				while (origin.y < clip.y)
-					origin.y += distanceY;
-			for (int i = origin.y; i < clip.y + clip.height; i += distanceY)
-				g.drawLine(clip.x, i, clip.x + clip.width, i);
+				for (int i = origin.y; i < bottom; i += distanceY)
+					g.drawLine(left, i, right, i);
 		}
 	}
 
+	/**
+	 * Returns the points of a polyline running back and forth between the
+	 * given ends along each of the grid lines from the first one up to the
+	 * given limit.
+	 */
+	private static int[] getGridLines(int first, int limit, int distance,
+			int from, int to, boolean vertical) {
+		int count = first < limit ? (limit - 1 - first) / distance + 1 : 0;
+		int[] points = new int[count * 4];
+		int p = 0;
+		for (int i = 0, line = first; i < count; i++, line += distance) {
+			int start = i % 2 == 0 ? from : to;
+			int end = i % 2 == 0 ? to : from;
+			if (vertical) {
+				points[p++] = line;
+				points[p++] = start;
+				points[p++] = line;
+				points[p++] = end;
+			} else {
+				points[p++] = start;
+				points[p++] = line;
+				points[p++] = end;
+				points[p++] = line;
+			}
+		}
+		return points;
+	}
+
+	private static int getGridSpacing(int distance, double scale,
+			int minSpacing) {
+		while (distance * scale < minSpacing && distance < Integer.MAX_VALUE / 2)
+			distance *= 2;
+		return distance;
+	}
+
 	/**
 	 * Paints a border with an etching effect, having a shadow of a darker
 	 * version of g's background color, and a highlight a lighter version of g's
@@ -894,6 +894,20 @@ public abstract class Graphics {
 	 */
 	public abstract boolean getXORMode();
 
+	/**
+	 * Returns <code>true</code> if figures should paint a cheap, simplified
+	 * representation of themselves, because the painting is too small for
+	 * their details to be seen. The default value is <code>false</code>.
+	 * 
+	 * @return whether figures should paint simplified
+	 * @see ScaledGraphics#setSimplifying(boolean)
+	 * @see Figure#paintSimplified(Graphics)
+	 * @since 3.12
+	 */
+	public boolean isSimplifying() {
+		return false;
+	}
+
 	/**
 	 * Pops the previous state of this graphics object off the stack (if
 	 * {@link #pushState()} has previously been called) and restores the current
@@ -516,6 +516,26 @@ public class Label extends Figure implements PositionConstants {
 		graphics.translate(-bounds.x, -bounds.y);
 	}
 
+	/**
+	 * Overridden to paint the text as a bar in the foreground color, without
+	 * the icon.
+	 * 
+	 * @see Figure#paintSimplified(Graphics)
+	 * @since 3.12
+	 */
+	protected void paintSimplified(Graphics graphics) {
+		if (isOpaque())
+			super.paintFigure(graphics);
+		if (getText().length() == 0)
+			return;
+		Rectangle bounds = getBounds();
+		Point location = getTextLocation();
+		Dimension size = getSubStringTextSize();
+		graphics.setBackgroundColor(graphics.getForegroundColor());
+		graphics.fillRectangle(bounds.x + location.x, bounds.y + location.y
+				+ size.height / 4, size.width, size.height / 2);
+	}
+
 	/**
 	 * Sets the label's icon to the passed image.
 	 * 
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2010 IBM Corporation and others.
+ * Copyright (c) 2000, 2026 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,14 +10,46 @@
  *******************************************************************************/
 package org.eclipse.draw2d;
 
+import java.util.List;
+
 import org.eclipse.draw2d.geometry.Point;
+import org.eclipse.draw2d.geometry.Rectangle;
 
 /**
  * A transparent figure intended to be added exclusively to a
  * {@link LayeredPane}, who has the responsibilty of managing its layers.
+ * <P>
+ * Layers holding many children may {@link #setIndexingChildren(boolean) index}
+ * them, so that hit-testing and painting only visit the children near the
+ * searched location or inside the clip. Layers whose contents rarely change
+ * may {@link #setCachingTiles(boolean) cache} them in images, so that scrolling
+ * over them mostly draws images.
  */
 public class Layer extends Figure {
 
+	/**
+	 * The default memory budget of the tile cache, in bytes.
+	 * 
+	 * @since 3.12
+	 */
+	public static final long DEFAULT_TILE_CACHE_BUDGET = 32L * 1024 * 1024;
+
+	private FigureIndex index;
+	private FigureListener indexUpdater;
+	private TileCache tileCache;
+	private long tileCacheBudget = DEFAULT_TILE_CACHE_BUDGET;
+
+	/**
+	 * @see IFigure#add(IFigure, Object, int)
+	 */
+	public void add(IFigure child, Object constraint, int index) {
+		super.add(child, constraint, index);
+		if (this.index != null) {
+			this.index.add(child, index);
+			child.addFigureListener(indexUpdater);
+		}
+	}
+
 	/**
 	 * Overridden to implement transparent behavior.
 	 * 
@@ -32,6 +64,13 @@ public class Layer extends Figure {
 		translateFromParent(pt);
 		x = pt.x;
 		y = pt.y;
+		if (index != null) {
+			List candidates = index.findAt(x, y);
+			for (int i = 0; i < candidates.size(); i++)
+				if (((IFigure) candidates.get(i)).containsPoint(x, y))
+					return true;
+			return false;
+		}
 		for (int i = 0; i < getChildren().size(); i++) {
 			IFigure child = (IFigure) getChildren().get(i);
 			if (child.containsPoint(x, y))
@@ -57,4 +96,272 @@ public class Layer extends Figure {
 		return f;
 	}
 
+	/**
+	 * Overridden to only visit the children whose bounds contain the point
+	 * when the children are {@link #isIndexingChildren() indexed}.
+	 * 
+	 * @see Figure#findDescendantAtExcluding(int, int, TreeSearch)
+	 */
+	protected IFigure findDescendantAtExcluding(int x, int y, TreeSearch search) {
+		if (index == null)
+			return super.findDescendantAtExcluding(x, y, search);
+		Point pt = Point.SINGLETON;
+		pt.setLocation(x, y);
+		translateFromParent(pt);
+		if (!getClientArea(Rectangle.SINGLETON).contains(pt))
+			return null;
+
+		x = pt.x;
+		y = pt.y;
+		List candidates = index.findAt(x, y);
+		for (int i = 0; i < candidates.size(); i++) {
+			IFigure fig = (IFigure) candidates.get(i);
+			if (fig.isVisible()) {
+				fig = fig.findFigureAt(x, y, search);
+				if (fig != null)
+					return fig;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Overridden to only visit the children whose bounds contain the point
+	 * when the children are {@link #isIndexingChildren() indexed}.
+	 * 
+	 * @see Figure#findMouseEventTargetInDescendantsAt(int, int)
+	 */
+	protected IFigure findMouseEventTargetInDescendantsAt(int x, int y) {
+		if (index == null)
+			return super.findMouseEventTargetInDescendantsAt(x, y);
+		Point pt = Point.SINGLETON;
+		pt.setLocation(x, y);
+		translateFromParent(pt);
+		if (!getClientArea(Rectangle.SINGLETON).contains(pt))
+			return null;
+
+		x = pt.x;
+		y = pt.y;
+		List candidates = index.findAt(x, y);
+		for (int i = 0; i < candidates.size(); i++) {
+			IFigure fig = (IFigure) candidates.get(i);
+			if (fig.isVisible() && fig.isEnabled()
+					&& fig.containsPoint(x, y)) {
+				fig = fig.findMouseEventTargetAt(x, y);
+				if (fig != null)
+					return fig;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Returns the index over this layer's children, or <code>null</code> if
+	 * the children are not indexed.
+	 * 
+	 * @return the index or <code>null</code>
+	 * @since 3.12
+	 */
+	protected FigureIndex getChildIndex() {
+		return index;
+	}
+
+	/**
+	 * Returns the memory budget of the tile cache, in bytes.
+	 * 
+	 * @return the memory budget
+	 * @see #setTileCacheBudget(long)
+	 * @since 3.12
+	 */
+	public long getTileCacheBudget() {
+		return tileCacheBudget;
+	}
+
+	/**
+	 * Returns <code>true</code> if this layer caches its contents in tiles.
+	 * 
+	 * @return <code>true</code> if the tiles are cached
+	 * @see #setCachingTiles(boolean)
+	 * @since 3.12
+	 */
+	public boolean isCachingTiles() {
+		return tileCache != null;
+	}
+
+	/**
+	 * Returns <code>true</code> if this layer maintains an index over its
+	 * children.
+	 * 
+	 * @return <code>true</code> if the children are indexed
+	 * @since 3.12
+	 */
+	public boolean isIndexingChildren() {
+		return index != null;
+	}
+
+	/**
+	 * Overridden to draw the cached tiles when {@link #isCachingTiles() caching
+	 * tiles}. The tiles are only used on graphics which paint on the screen.
+	 * 
+	 * @see Figure#paintClientArea(Graphics)
+	 */
+	protected void paintClientArea(Graphics graphics) {
+		if (tileCache != null && !getChildren().isEmpty()
+				&& (graphics.getClass() == SWTGraphics.class
+						|| graphics.getClass() == ScaledGraphics.class))
+			tileCache.paint(graphics, getBounds().getCropped(getInsets()));
+		else
+			super.paintClientArea(graphics);
+	}
+
+	/**
+	 * Paints the client area without the tile cache.
+	 */
+	void paintUncached(Graphics graphics) {
+		super.paintClientArea(graphics);
+	}
+
+	/**
+	 * Overridden to only paint the children whose bounds intersect the clip of
+	 * the graphics when the children are {@link #isIndexingChildren()
+	 * indexed}. Layers with an {@link IClippingStrategy} paint all of their
+	 * children, as the clipping areas of a child may extend past its bounds.
+	 * 
+	 * @see Figure#paintChildren(Graphics)
+	 */
+	protected void paintChildren(Graphics graphics) {
+		if (index == null || getClippingStrategy() != null) {
+			super.paintChildren(graphics);
+			return;
+		}
+		Rectangle clip = graphics.getClip(new Rectangle());
+		List visible = index.findIntersecting(clip);
+		for (int i = 0; i < visible.size(); i++) {
+			IFigure child = (IFigure) visible.get(i);
+			if (child.isVisible())
+				paintChild(graphics, child, clip);
+		}
+	}
+
+	/**
+	 * Overridden to dispose the cached tiles.
+	 * 
+	 * @see IFigure#removeNotify()
+	 */
+	public void removeNotify() {
+		if (tileCache != null)
+			tileCache.clear();
+		super.removeNotify();
+	}
+
+	/**
+	 * @see IFigure#remove(IFigure)
+	 */
+	public void remove(IFigure child) {
+		if (index != null && child.getParent() == this) {
+			child.removeFigureListener(indexUpdater);
+			index.remove(child);
+		}
+		super.remove(child);
+	}
+
+	/**
+	 * Sets whether this layer maintains a {@link FigureIndex spatial index}
+	 * over its children. The index is kept up to date as children are added,
+	 * removed or moved. It speeds up {@link #findFigureAt(int, int, TreeSearch)
+	 * hit-testing} and {@link #paintChildren(Graphics) painting} on layers with
+	 * many children, at the cost of some memory and bookkeeping. Indexing is
+	 * off by default.
+	 * <P>
+	 * Indexed children must not report points outside of their bounds as
+	 * {@link IFigure#containsPoint(int, int) contained}, except for
+	 * {@link Polyline polylines} within their tolerance, see
+	 * {@link FigureIndex#getHitTolerance(IFigure)}.
+	 * 
+	 * @param value
+	 *            <code>true</code> to index the children
+	 * @since 3.12
+	 */
+	public void setIndexingChildren(boolean value) {
+		if (value == (index != null))
+			return;
+		List children = getChildren();
+		if (value) {
+			index = new FigureIndex();
+			indexUpdater = new FigureListener() {
+				public void figureMoved(IFigure source) {
+					index.update(source);
+				}
+			};
+			for (int i = 0; i < children.size(); i++) {
+				IFigure child = (IFigure) children.get(i);
+				index.add(child, -1);
+				child.addFigureListener(indexUpdater);
+			}
+		} else {
+			for (int i = 0; i < children.size(); i++)
+				((IFigure) children.get(i)).removeFigureListener(indexUpdater);
+			index = null;
+			indexUpdater = null;
+		}
+	}
+
+	/**
+	 * Sets whether this layer caches its contents in images. The client area
+	 * is rasterized in tiles of a fixed size in device pixels, at the scale at
+	 * which the layer is painted, and painting draws the tiles intersecting
+	 * the clip. A tile is discarded when the {@link DeferredUpdateManager}
+	 * repairs damage in it. The tiles of each scale and level of detail are
+	 * kept apart, so that a {@link org.eclipse.draw2d.parts.Thumbnail} of the
+	 * layer does not discard the tiles painted at the scale of the view. The
+	 * least recently painted tiles are disposed when the
+	 * {@link #setTileCacheBudget(long) budget} is exceeded. Caching is off by
+	 * default.
+	 * <P>
+	 * Caching pays off for layers whose contents change rarely compared to
+	 * how often they are scrolled over, such as the primary layer of a large
+	 * diagram. The tiles are transparent where nothing is painted, but
+	 * antialiased or translucent pixels are blended with the background
+	 * color of the layer rather than with what lies below it.
+	 * 
+	 * @param value
+	 *            <code>true</code> to cache the tiles
+	 * @since 3.12
+	 */
+	public void setCachingTiles(boolean value) {
+		if (value == (tileCache != null))
+			return;
+		if (value)
+			tileCache = new TileCache(this, tileCacheBudget);
+		else {
+			tileCache.clear();
+			tileCache = null;
+		}
+	}
+
+	/**
+	 * Sets the memory budget of the tile cache, in bytes. Each tile is counted
+	 * as four bytes per pixel. The default is
+	 * {@link #DEFAULT_TILE_CACHE_BUDGET}.
+	 * 
+	 * @param budget
+	 *            the memory budget
+	 * @see #setCachingTiles(boolean)
+	 * @since 3.12
+	 */
+	public void setTileCacheBudget(long budget) {
+		tileCacheBudget = budget;
+		if (tileCache != null)
+			tileCache.setBudget(budget);
+	}
+
+	/**
+	 * Discards the cached tiles intersecting the given damage, in the
+	 * coordinates in which this layer paints.
+	 */
+	void tilesDamaged(Rectangle damage) {
+		if (tileCache != null)
+			tileCache.invalidate(damage);
+	}
+
 }
@@ -53,6 +53,17 @@ public class Polygon extends Polyline {
 		g.fillPolygon(getPoints());
 	}
 
+	/**
+	 * Overridden to fill or draw the bounds of the polygon, as other
+	 * {@link Shape shapes} do.
+	 * 
+	 * @see Figure#paintSimplified(Graphics)
+	 * @since 3.12
+	 */
+	protected void paintSimplified(Graphics graphics) {
+		paintSimplifiedBounds(graphics);
+	}
+
 	/**
 	 * Draw the outline of the Polygon.
 	 * 
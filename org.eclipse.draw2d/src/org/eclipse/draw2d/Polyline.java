@@ -86,6 +86,17 @@ public class Polyline extends AbstractPointListShape {
 		g.drawPolyline(points);
 	}
 
+	/**
+	 * Overridden to draw a straight line between the first and the last point.
+	 * 
+	 * @see Figure#paintSimplified(Graphics)
+	 * @since 3.12
+	 */
+	protected void paintSimplified(Graphics graphics) {
+		if (points.size() > 1)
+			graphics.drawLine(getStart(), getEnd());
+	}
+
 	/**
 	 * @see Figure#primTranslate(int, int)
 	 */
@@ -131,6 +142,17 @@ public class Polyline extends AbstractPointListShape {
 		firePropertyChange(Connection.PROPERTY_POINTS, null, points);
 	}
 
+	/**
+	 * Returns the distance, beyond the line width, within which points are
+	 * still considered to be on this Polyline.
+	 * 
+	 * @return the tolerance
+	 * @since 3.12
+	 */
+	public int getTolerance() {
+		return tolerance;
+	}
+
 	/**
 	 * Sets the tolerance
 	 * 
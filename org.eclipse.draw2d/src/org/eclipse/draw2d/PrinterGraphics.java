@@ -50,6 +50,10 @@ public class PrinterGraphics extends ScaledGraphics {
 		return new Font(printer, data);
 	}
 
+	void disposeFont(Font font) {
+		font.dispose();
+	}
+
 	private Image printerImage(Image image) {
 		Image result = (Image) imageCache.get(image);
 		if (result != null)
@@ -10,9 +10,6 @@
  *******************************************************************************/
 package org.eclipse.draw2d;
 
-import java.util.ArrayList;
-import java.util.List;
-
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.graphics.Color;
 import org.eclipse.swt.graphics.Font;
@@ -38,6 +35,10 @@ import org.eclipse.draw2d.geometry.Rectangle;
  * is the current state of this graphics object. Certain properties can be
  * changed multiple times and the GC won't be updated until it's actually used.
  * <P>
+ * Pushing and restoring the state does not allocate once the stack has grown
+ * to its deepest level. The saved states, and the clipping rectangles the
+ * current state writes to, are kept and overwritten in place.
+ * <P>
  * WARNING: This class is not intended to be subclassed.
  */
 public class SWTGraphics extends Graphics {
@@ -104,10 +105,14 @@ public class SWTGraphics extends Graphics {
 		}
 
 		RectangleClipping(Rectangle rect) {
-			left = rect.x;
-			top = rect.y;
-			right = rect.right();
-			bottom = rect.bottom();
+			setBounds(rect);
+		}
+
+		void copyFrom(RectangleClipping clip) {
+			left = clip.left;
+			top = clip.top;
+			right = clip.right;
+			bottom = clip.bottom;
 		}
 
 		public Rectangle getBoundingBox(Rectangle rect) {
@@ -135,6 +140,13 @@ public class SWTGraphics extends Graphics {
 			}
 		}
 
+		void setBounds(Rectangle rect) {
+			left = rect.x;
+			top = rect.y;
+			right = rect.right();
+			bottom = rect.bottom();
+		}
+
 		public void scale(float horz, float vert) {
 			left /= horz;
 			right /= horz;
@@ -184,7 +196,10 @@ public class SWTGraphics extends Graphics {
 		public void copyFrom(State state) {
 			bgColor = state.bgColor;
 			fgColor = state.fgColor;
-			lineAttributes = SWTGraphics.clone(state.lineAttributes);
+			if (lineAttributes == null)
+				lineAttributes = SWTGraphics.clone(state.lineAttributes);
+			else
+				copyLineAttributes(lineAttributes, state.lineAttributes);
 			dx = state.dx;
 			dy = state.dy;
 			bgPattern = state.bgPattern;
@@ -244,8 +259,13 @@ public class SWTGraphics extends Graphics {
 	private boolean elementsNeedUpdate;
 	private GC gc;
 
+	/**
+	 * The clipping rectangles the current state writes to, one per depth of
+	 * the stack, so that they are never referenced by a saved state.
+	 */
+	private RectangleClipping[] clippings = new RectangleClipping[8];
 	private boolean sharedClipping;
-	private List stack = new ArrayList();
+	private State[] stack = new State[8];
 
 	private int stackPointer = 0;
 	Transform transform;
@@ -318,7 +338,7 @@ public class SWTGraphics extends Graphics {
 					gc.setLineDash(convertFloatArrayToInt(lineAttributes.dash));
 				}
 			}
-			appliedState.lineAttributes = clone(lineAttributes);
+			copyLineAttributes(appliedState.lineAttributes, lineAttributes);
 		}
 
 		if (!currentState.bgColor.equals(appliedState.bgColor)
@@ -333,12 +353,20 @@ public class SWTGraphics extends Graphics {
 	private void checkSharedClipping() {
 		if (sharedClipping) {
 			sharedClipping = false;
-
-			boolean previouslyApplied = (appliedState == currentState.relativeClip);
-			currentState.relativeClip = currentState.relativeClip.getCopy();
-			if (previouslyApplied) {
-				appliedState.relativeClip = currentState.relativeClip;
-			}
+			if (currentState.relativeClip == null)
+				return;
+
+			RectangleClipping clip = getCurrentClipping();
+			if (clip == currentState.relativeClip)
+				return;
+			boolean previouslyApplied = (appliedState.relativeClip == currentState.relativeClip);
+			clip.copyFrom((RectangleClipping) currentState.relativeClip);
+			currentState.relativeClip = clip;
+			if (previouslyApplied)
+				appliedState.relativeClip = clip;
+			else if (appliedState.relativeClip == clip)
+				// the GC may have been set to older bounds of the clipping
+				appliedState.relativeClip = null;
 		}
 	}
 
@@ -661,6 +689,22 @@ public class SWTGraphics extends Graphics {
 		return currentState.bgColor;
 	}
 
+	/**
+	 * Returns the clipping rectangle the current state may write to at the
+	 * current depth of the stack.
+	 */
+	private RectangleClipping getCurrentClipping() {
+		if (stackPointer >= clippings.length) {
+			RectangleClipping[] newClippings = new RectangleClipping[stackPointer * 2];
+			System.arraycopy(clippings, 0, newClippings, 0, clippings.length);
+			clippings = newClippings;
+		}
+		RectangleClipping clip = clippings[stackPointer];
+		if (clip == null)
+			clippings[stackPointer] = clip = new RectangleClipping(0, 0, 0, 0);
+		return clip;
+	}
+
 	/**
 	 * @see Graphics#getClip(Rectangle)
 	 */
@@ -825,7 +869,7 @@ public class SWTGraphics extends Graphics {
 	 */
 	public void popState() {
 		stackPointer--;
-		restoreState((State) stack.get(stackPointer));
+		restoreState(stack[stackPointer]);
 	}
 
 	/**
@@ -847,11 +891,16 @@ public class SWTGraphics extends Graphics {
 				elementsNeedUpdate = false;
 				transform.getElements(currentState.affineMatrix = new float[6]);
 			}
-			if (stack.size() > stackPointer) {
-				s = (State) stack.get(stackPointer);
+			if (stackPointer == stack.length) {
+				State[] newStack = new State[stack.length * 2];
+				System.arraycopy(stack, 0, newStack, 0, stack.length);
+				stack = newStack;
+			}
+			s = stack[stackPointer];
+			if (s != null) {
 				s.copyFrom(currentState);
 			} else {
-				stack.add(currentState.clone());
+				stack[stackPointer] = (State) currentState.clone();
 			}
 			sharedClipping = true;
 			stackPointer++;
@@ -905,7 +954,7 @@ public class SWTGraphics extends Graphics {
 	 * @see Graphics#restoreState()
 	 */
 	public void restoreState() {
-		restoreState((State) stack.get(stackPointer - 1));
+		restoreState(stack[stackPointer - 1]);
 	}
 
 	/**
@@ -1133,7 +1182,12 @@ public class SWTGraphics extends Graphics {
 	 * @see Graphics#setClip(Rectangle)
 	 */
 	public void setClip(Rectangle rect) {
-		currentState.relativeClip = new RectangleClipping(rect);
+		RectangleClipping clip = getCurrentClipping();
+		clip.setBounds(rect);
+		if (appliedState.relativeClip == clip)
+			appliedState.relativeClip = null;
+		currentState.relativeClip = clip;
+		sharedClipping = false;
 	}
 
 	/**
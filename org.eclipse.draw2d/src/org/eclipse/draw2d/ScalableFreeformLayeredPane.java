@@ -21,6 +21,7 @@ public class ScalableFreeformLayeredPane extends FreeformLayeredPane implements
 		ScalableFigure {
 
 	private double scale = 1.0;
+	private double detailThreshold;
 
 	/**
 	 * @see org.eclipse.draw2d.Figure#getClientArea()
@@ -34,6 +35,18 @@ public class ScalableFreeformLayeredPane extends FreeformLayeredPane implements
 		return rect;
 	}
 
+	/**
+	 * Returns the scale below which the figures in this pane paint a
+	 * simplified representation of themselves.
+	 * 
+	 * @return the detail threshold
+	 * @see #setDetailThreshold(double)
+	 * @since 3.12
+	 */
+	public double getDetailThreshold() {
+		return detailThreshold;
+	}
+
 	/**
 	 * Returns the current zoom scale level.
 	 * 
@@ -56,7 +69,7 @@ public class ScalableFreeformLayeredPane extends FreeformLayeredPane implements
 	protected void paintClientArea(Graphics graphics) {
 		if (getChildren().isEmpty())
 			return;
-		if (scale == 1.0) {
+		if (scale == 1.0 && detailThreshold <= 1.0) {
 			super.paintClientArea(graphics);
 		} else {
 			ScaledGraphics g = new ScaledGraphics(graphics);
@@ -65,6 +78,7 @@ public class ScalableFreeformLayeredPane extends FreeformLayeredPane implements
 			if (!optimizeClip)
 				g.clipRect(getBounds().getCropped(getInsets()));
 			g.scale(scale);
+			g.setSimplifying(scale < detailThreshold);
 			g.pushState();
 			paintChildren(g);
 			g.dispose();
@@ -72,6 +86,25 @@ public class ScalableFreeformLayeredPane extends FreeformLayeredPane implements
 		}
 	}
 
+	/**
+	 * Sets the scale below which the figures in this pane paint a simplified
+	 * representation of themselves, by setting the graphics they paint on to
+	 * {@link ScaledGraphics#setSimplifying(boolean) simplify}. This makes
+	 * zoomed out overviews of large diagrams cheap to paint. The default is
+	 * <code>0</code>, which never simplifies.
+	 * 
+	 * @param threshold
+	 *            the detail threshold
+	 * @see Figure#paintSimplified(Graphics)
+	 * @since 3.12
+	 */
+	public void setDetailThreshold(double threshold) {
+		if (detailThreshold == threshold)
+			return;
+		detailThreshold = threshold;
+		repaint();
+	}
+
 	/**
 	 * Sets the zoom level
 	 * 
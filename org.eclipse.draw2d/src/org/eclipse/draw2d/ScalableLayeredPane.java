@@ -25,6 +25,7 @@ import org.eclipse.draw2d.geometry.Translatable;
 public class ScalableLayeredPane extends LayeredPane implements ScalableFigure {
 
 	private double scale = 1.0;
+	private double detailThreshold;
 
 	/**
 	 * @see IFigure#getClientArea(Rectangle)
@@ -68,6 +69,18 @@ public class ScalableLayeredPane extends LayeredPane implements ScalableFigure {
 		return d.getExpanded(-w, -h).scale(scale).expand(w, h);
 	}
 
+	/**
+	 * Returns the scale below which the figures in this pane paint a
+	 * simplified representation of themselves.
+	 * 
+	 * @return the detail threshold
+	 * @see #setDetailThreshold(double)
+	 * @since 3.12
+	 */
+	public double getDetailThreshold() {
+		return detailThreshold;
+	}
+
 	/**
 	 * Returns the scale level, default is 1.0.
 	 * 
@@ -90,7 +103,7 @@ public class ScalableLayeredPane extends LayeredPane implements ScalableFigure {
 	protected void paintClientArea(Graphics graphics) {
 		if (getChildren().isEmpty())
 			return;
-		if (scale == 1.0) {
+		if (scale == 1.0 && detailThreshold <= 1.0) {
 			super.paintClientArea(graphics);
 		} else {
 			ScaledGraphics g = new ScaledGraphics(graphics);
@@ -99,6 +112,7 @@ public class ScalableLayeredPane extends LayeredPane implements ScalableFigure {
 			if (!optimizeClip)
 				g.clipRect(getBounds().getCropped(getInsets()));
 			g.scale(scale);
+			g.setSimplifying(scale < detailThreshold);
 			g.pushState();
 			paintChildren(g);
 			g.dispose();
@@ -106,6 +120,25 @@ public class ScalableLayeredPane extends LayeredPane implements ScalableFigure {
 		}
 	}
 
+	/**
+	 * Sets the scale below which the figures in this pane paint a simplified
+	 * representation of themselves, by setting the graphics they paint on to
+	 * {@link ScaledGraphics#setSimplifying(boolean) simplify}. This makes
+	 * zoomed out overviews of large diagrams cheap to paint. The default is
+	 * <code>0</code>, which never simplifies.
+	 * 
+	 * @param threshold
+	 *            the detail threshold
+	 * @see Figure#paintSimplified(Graphics)
+	 * @since 3.12
+	 */
+	public void setDetailThreshold(double threshold) {
+		if (detailThreshold == threshold)
+			return;
+		detailThreshold = threshold;
+		repaint();
+	}
+
 	/**
 	 * Sets the zoom level
 	 * 
@@ -0,0 +1,206 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.draw2d;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.eclipse.swt.graphics.Font;
+import org.eclipse.swt.graphics.FontData;
+import org.eclipse.swt.widgets.Display;
+
+/**
+ * The scaled fonts of a display, shared by all of the {@link ScaledGraphics}
+ * painting on it. Fonts are looked up by their font data, so that every
+ * graphics asking for the same font at the same height gets the same native
+ * font.
+ * <P>
+ * Fonts are reference counted. A font which is no longer referenced is not
+ * disposed right away, as zooming back and forth would recreate it, but is
+ * kept among the {@link #getMaxUnusedFonts() unused fonts}. When there are too
+ * many unused fonts, the least recently released ones are disposed. All of the
+ * fonts are disposed with the display.
+ * <P>
+ * A cache must only be used from the thread of its display.
+ *
+ * @since 3.12
+ */
+public class ScaledFontCache {
+
+	/**
+	 * The default maximum number of unused fonts.
+	 */
+	public static final int DEFAULT_MAX_UNUSED_FONTS = 32;
+
+	private static final Map CACHES = new HashMap();
+
+	private static class Entry {
+		final FontData data;
+		final Font font;
+		int references;
+
+		Entry(FontData data, Font font) {
+			this.data = data;
+			this.font = font;
+		}
+	}
+
+	/**
+	 * Returns the cache of the current display, or of the default display if
+	 * the current thread has none, creating it if needed. The fallback is the
+	 * one SWT uses for resources created without a device.
+	 *
+	 * @return the cache of the current display
+	 */
+	public static ScaledFontCache getInstance() {
+		Display display = Display.getCurrent();
+		return getInstance(display != null ? display : Display.getDefault());
+	}
+
+	/**
+	 * Returns the cache of the given display, creating it if needed.
+	 *
+	 * @param display
+	 *            the display
+	 * @return the cache of the display
+	 */
+	public static ScaledFontCache getInstance(final Display display) {
+		synchronized (CACHES) {
+			ScaledFontCache cache = (ScaledFontCache) CACHES.get(display);
+			if (cache == null) {
+				final ScaledFontCache newCache = new ScaledFontCache(display);
+				display.disposeExec(new Runnable() {
+					public void run() {
+						synchronized (CACHES) {
+							CACHES.remove(display);
+						}
+						newCache.disposeAll();
+					}
+				});
+				CACHES.put(display, cache = newCache);
+			}
+			return cache;
+		}
+	}
+
+	private final Display display;
+	private final Map entries = new HashMap();
+	private final Map fonts = new HashMap();
+	private final LinkedHashMap unused = new LinkedHashMap();
+	private int maxUnusedFonts = DEFAULT_MAX_UNUSED_FONTS;
+
+	private ScaledFontCache(Display display) {
+		this.display = display;
+	}
+
+	/**
+	 * Returns the font for the given font data, creating it if needed, and
+	 * adds a reference to it. Every call must be matched by a call to
+	 * {@link #release(Font)}. The font data must not be modified afterwards.
+	 *
+	 * @param data
+	 *            the font data, including the scaled height
+	 * @return the font
+	 */
+	public Font acquire(FontData data) {
+		Entry entry = (Entry) entries.get(data);
+		if (entry == null) {
+			entry = new Entry(data, new Font(display, data));
+			entries.put(data, entry);
+			fonts.put(entry.font, entry);
+		} else if (entry.references == 0)
+			unused.remove(data);
+		entry.references++;
+		return entry.font;
+	}
+
+	private void disposeAll() {
+		for (Iterator iter = entries.values().iterator(); iter.hasNext();)
+			((Entry) iter.next()).font.dispose();
+		entries.clear();
+		fonts.clear();
+		unused.clear();
+	}
+
+	/**
+	 * Returns the number of native fonts created by this cache which have not
+	 * been disposed yet, whether they are referenced or not.
+	 *
+	 * @return the number of live fonts
+	 */
+	public int getLiveFontCount() {
+		return entries.size();
+	}
+
+	/**
+	 * Returns the maximum number of fonts which are kept after their last
+	 * reference has been released.
+	 *
+	 * @return the maximum number of unused fonts
+	 */
+	public int getMaxUnusedFonts() {
+		return maxUnusedFonts;
+	}
+
+	/**
+	 * Returns the number of fonts which are no longer referenced, but have not
+	 * been disposed yet.
+	 *
+	 * @return the number of unused fonts
+	 */
+	public int getUnusedFontCount() {
+		return unused.size();
+	}
+
+	/**
+	 * Removes a reference to the given font, which must have been returned by
+	 * {@link #acquire(FontData)}.
+	 *
+	 * @param font
+	 *            the font
+	 */
+	public void release(Font font) {
+		Entry entry = (Entry) fonts.get(font);
+		if (entry == null || entry.references == 0)
+			return;
+		if (--entry.references == 0) {
+			unused.put(entry.data, entry);
+			trim();
+		}
+	}
+
+	/**
+	 * Sets the maximum number of fonts which are kept after their last
+	 * reference has been released, disposing the least recently released ones
+	 * if there are more.
+	 *
+	 * @param max
+	 *            the maximum number of unused fonts
+	 */
+	public void setMaxUnusedFonts(int max) {
+		maxUnusedFonts = max;
+		trim();
+	}
+
+	private void trim() {
+		for (Iterator iter = unused.values().iterator(); unused.size() > maxUnusedFonts
+				&& iter.hasNext();) {
+			Entry entry = (Entry) iter.next();
+			iter.remove();
+			entries.remove(entry.data);
+			fonts.remove(entry.font);
+			entry.font.dispose();
+		}
+	}
+
+}
@@ -10,10 +10,8 @@
  *******************************************************************************/
 package org.eclipse.draw2d;
 
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
-import java.util.List;
 import java.util.Map;
 
 import org.eclipse.swt.SWT;
@@ -198,7 +196,8 @@ public class ScaledGraphics extends Graphics {
 	private FontHeightCache localCache = new FontHeightCache();
 	private Font localFont;
 	private float localLineWidth;
-	private List stack = new ArrayList();
+	private boolean simplifying;
+	private State[] stack = new State[8];
 	private int stackPointer = 0;
 	private FontHeightCache targetCache = new FontHeightCache();
 
@@ -222,7 +221,11 @@ public class ScaledGraphics extends Graphics {
 	}
 
 	Font createFont(FontData data) {
-		return new Font(Display.getCurrent(), data);
+		return ScaledFontCache.getInstance().acquire(data);
+	}
+
+	void disposeFont(Font font) {
+		ScaledFontCache.getInstance().release(font);
 	}
 
 	/**
@@ -277,12 +280,13 @@ public class ScaledGraphics extends Graphics {
 			popState();
 		}
 
-		// Dispose fonts
+		// Release fonts
 		Iterator iter = fontCache.values().iterator();
 		while (iter.hasNext()) {
 			Font font = ((Font) iter.next());
-			font.dispose();
+			disposeFont(font);
 		}
+		fontCache.clear();
 
 	}
 
@@ -652,23 +656,38 @@ public class ScaledGraphics extends Graphics {
 		return graphics.getXORMode();
 	}
 
+	/**
+	 * Returns <code>true</code> if this graphics has been set to simplify, or
+	 * if the graphics it wraps simplifies.
+	 * 
+	 * @see Graphics#isSimplifying()
+	 * @since 3.12
+	 */
+	public boolean isSimplifying() {
+		return simplifying || graphics.isSimplifying();
+	}
+
 	/** @see Graphics#popState() */
 	public void popState() {
 		graphics.popState();
 		stackPointer--;
-		restoreLocalState((State) stack.get(stackPointer));
+		restoreLocalState(stack[stackPointer]);
 	}
 
 	/** @see Graphics#pushState() */
 	public void pushState() {
-		State s;
-		if (stack.size() > stackPointer) {
-			s = (State) stack.get(stackPointer);
+		if (stackPointer == stack.length) {
+			State[] newStack = new State[stack.length * 2];
+			System.arraycopy(stack, 0, newStack, 0, stack.length);
+			stack = newStack;
+		}
+		State s = stack[stackPointer];
+		if (s != null) {
 			s.setValues(zoom, fractionalX, fractionalY, getLocalFont(),
 					localLineWidth);
 		} else {
-			stack.add(new State(zoom, fractionalX, fractionalY, getLocalFont(),
-					localLineWidth));
+			stack[stackPointer] = new State(zoom, fractionalX, fractionalY,
+					getLocalFont(), localLineWidth);
 		}
 		stackPointer++;
 
@@ -686,7 +705,7 @@ public class ScaledGraphics extends Graphics {
 	/** @see Graphics#restoreState() */
 	public void restoreState() {
 		graphics.restoreState();
-		restoreLocalState((State) stack.get(stackPointer - 1));
+		restoreLocalState(stack[stackPointer - 1]);
 	}
 
 	/** @see Graphics#rotate(float) */
@@ -861,6 +880,20 @@ public class ScaledGraphics extends Graphics {
 		}
 	}
 
+	/**
+	 * Sets whether figures painted on this graphics should paint a simplified
+	 * representation of themselves. Scalable figures set this when their scale
+	 * falls below their detail threshold.
+	 * 
+	 * @param value
+	 *            <code>true</code> to simplify
+	 * @see #isSimplifying()
+	 * @since 3.12
+	 */
+	public void setSimplifying(boolean value) {
+		simplifying = value;
+	}
+
 	/**
 	 * @see Graphics#setTextAntialias(int)
 	 */
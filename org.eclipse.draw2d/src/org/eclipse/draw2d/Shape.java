@@ -12,6 +12,8 @@ package org.eclipse.draw2d;
 
 import org.eclipse.swt.graphics.LineAttributes;
 
+import org.eclipse.draw2d.geometry.Rectangle;
+
 /**
  * Provides abstract support for a variety of shapes.
  * <p>
@@ -148,6 +150,29 @@ public abstract class Shape extends Figure {
 		}
 	}
 
+	/**
+	 * Overridden to fill the bounds of the shape if it is filled, or to draw
+	 * them otherwise. The children are not painted.
+	 * 
+	 * @see Figure#paintSimplified(Graphics)
+	 * @since 3.12
+	 */
+	protected void paintSimplified(Graphics graphics) {
+		paintSimplifiedBounds(graphics);
+	}
+
+	/**
+	 * Fills the bounds of this shape if it is filled, or draws them if it is
+	 * outlined.
+	 */
+	final void paintSimplifiedBounds(Graphics graphics) {
+		Rectangle r = getBounds();
+		if (fill)
+			graphics.fillRectangle(r);
+		else if (outline)
+			graphics.drawRectangle(r.x, r.y, r.width - 1, r.height - 1);
+	}
+
 	private void paintOutline(Graphics graphics) {
 		// synchronize the line width and style attributes to the
 		// public fields which may have been assigned
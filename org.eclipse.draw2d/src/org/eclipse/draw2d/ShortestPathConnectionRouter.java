@@ -27,6 +27,10 @@ import org.eclipse.draw2d.graph.ShortestPathRouter;
 
 /**
  * Routes multiple connections around the children of a given container figure.
+ * <P>
+ * The children moved while the container is laid out are collected, and the
+ * obstacles are updated together once the layout is done, so that all of the
+ * connections affected are routed in a single solve.
  * 
  * @author Whitney Sorenson
  * @author Randy Hudson
@@ -35,7 +39,14 @@ import org.eclipse.draw2d.graph.ShortestPathRouter;
 public final class ShortestPathConnectionRouter extends AbstractRouter {
 
 	private class LayoutTracker extends LayoutListener.Stub {
+		public boolean layout(IFigure container) {
+			inLayout = true;
+			return false;
+		}
+
 		public void postLayout(IFigure container) {
+			inLayout = false;
+			processMovedChildren();
 			processLayout();
 		}
 
@@ -55,18 +66,16 @@ public final class ShortestPathConnectionRouter extends AbstractRouter {
 	private ShortestPathRouter algorithm = new ShortestPathRouter();
 	private IFigure container;
 	private Set staleConnections = new HashSet();
+	private Set movedChildren = new HashSet();
+	private boolean inLayout;
 	private LayoutListener listener = new LayoutTracker();
 
 	private FigureListener figureListener = new FigureListener() {
 		public void figureMoved(IFigure source) {
-			Rectangle newBounds = source.getBounds().getCopy();
-			if (algorithm.updateObstacle(
-					(Rectangle) figuresToBounds.get(source), newBounds)) {
+			if (inLayout)
+				movedChildren.add(source);
+			else if (updateObstacle(source))
 				queueSomeRouting();
-				isDirty = true;
-			}
-
-			figuresToBounds.put(source, newBounds);
 		}
 	};
 	private boolean ignoreInvalidate;
@@ -109,6 +118,8 @@ public final class ShortestPathConnectionRouter extends AbstractRouter {
 
 	private void unhookAll() {
 		container.removeLayoutListener(listener);
+		movedChildren.clear();
+		inLayout = false;
 		if (figuresToBounds != null) {
 			Iterator figureItr = figuresToBounds.keySet().iterator();
 			while (figureItr.hasNext()) {
@@ -154,6 +165,21 @@ public final class ShortestPathConnectionRouter extends AbstractRouter {
 		isDirty = true;
 	}
 
+	/**
+	 * Updates the obstacles of the children moved during the layout of the
+	 * container.
+	 */
+	private void processMovedChildren() {
+		if (movedChildren.isEmpty())
+			return;
+		boolean change = false;
+		for (Iterator iter = movedChildren.iterator(); iter.hasNext();)
+			change |= updateObstacle((IFigure) iter.next());
+		movedChildren.clear();
+		if (change)
+			queueSomeRouting();
+	}
+
 	private void processLayout() {
 		if (staleConnections.isEmpty())
 			return;
@@ -241,6 +267,8 @@ public final class ShortestPathConnectionRouter extends AbstractRouter {
 	void removeChild(IFigure child) {
 		if (connectionToPaths == null)
 			return;
+		if (movedChildren.remove(child))
+			updateObstacle(child);
 		Rectangle bounds = child.getBounds().getCopy();
 		boolean change = algorithm.removeObstacle(bounds);
 		figuresToBounds.remove(child);
@@ -255,6 +283,7 @@ public final class ShortestPathConnectionRouter extends AbstractRouter {
 	 * @see ConnectionRouter#route(Connection)
 	 */
 	public void route(Connection conn) {
+		processMovedChildren();
 		if (isDirty) {
 			ignoreInvalidate = true;
 			processStaleConnections();
@@ -294,6 +323,7 @@ public final class ShortestPathConnectionRouter extends AbstractRouter {
 	 * @since 3.5
 	 */
 	public List getPathsAfterRouting() {
+		processMovedChildren();
 		if (isDirty) {
 			processStaleConnections();
 			isDirty = false;
@@ -304,6 +334,21 @@ public final class ShortestPathConnectionRouter extends AbstractRouter {
 		return null;
 	}
 
+	/**
+	 * Moves the obstacle of the given child to the child's current bounds.
+	 * 
+	 * @return <code>true</code> if the move has dirtied one or more paths
+	 */
+	private boolean updateObstacle(IFigure child) {
+		Rectangle newBounds = child.getBounds().getCopy();
+		boolean change = algorithm.updateObstacle(
+				(Rectangle) figuresToBounds.get(child), newBounds);
+		figuresToBounds.put(child, newBounds);
+		if (change)
+			isDirty = true;
+		return change;
+	}
+
 	/**
 	 * @see ConnectionRouter#setConstraint(Connection, Object)
 	 */
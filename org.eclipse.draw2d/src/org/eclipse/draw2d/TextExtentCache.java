@@ -0,0 +1,243 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.draw2d;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.swt.graphics.Font;
+import org.eclipse.swt.graphics.FontMetrics;
+
+/**
+ * A bounded cache of the extents of strings measured by
+ * {@link FigureUtilities}, and of the metrics of their fonts. When the cache
+ * is full, the least recently used extent is discarded. Since
+ * {@link TextUtilities#INSTANCE} and the flow utilities measure text through
+ * FigureUtilities, they use this cache as well.
+ * <P>
+ * Fonts are told apart by identity. SWT does not notify the disposal of a
+ * font, so the entries of a disposed font are discarded on the next lookup
+ * of that font, and all of them whenever a font is measured for the first
+ * time.
+ * <P>
+ * Like FigureUtilities, the cache must only be used from the UI thread.
+ *
+ * @see FigureUtilities#getTextExtentCache()
+ * @since 3.12
+ */
+public final class TextExtentCache {
+
+	/**
+	 * The default maximum number of cached extents.
+	 */
+	public static final int DEFAULT_MAXIMUM_SIZE = 2048;
+
+	private static final class Key {
+		final Font font;
+		final String string;
+		final boolean expand;
+
+		Key(Font font, String string, boolean expand) {
+			this.font = font;
+			this.string = string;
+			this.expand = expand;
+		}
+
+		public boolean equals(Object o) {
+			if (!(o instanceof Key))
+				return false;
+			Key key = (Key) o;
+			return key.font == font && key.expand == expand
+					&& key.string.equals(string);
+		}
+
+		public int hashCode() {
+			return System.identityHashCode(font) * 31 + string.hashCode()
+					+ (expand ? 1 : 0);
+		}
+	}
+
+	private int maximumSize = DEFAULT_MAXIMUM_SIZE;
+	private long hits;
+	private long misses;
+
+	private final LinkedHashMap extents = new LinkedHashMap(64, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		protected boolean removeEldestEntry(Map.Entry eldest) {
+			return size() > maximumSize;
+		}
+	};
+
+	/**
+	 * The fonts having entries in the cache, mapped to their metrics, or to
+	 * <code>null</code> if they have not been requested.
+	 */
+	private final Map fonts = new IdentityHashMap();
+
+	TextExtentCache() {
+	}
+
+	/**
+	 * Discards all cached extents and font metrics. The hit and miss counts
+	 * are kept.
+	 */
+	public void clear() {
+		extents.clear();
+		fonts.clear();
+	}
+
+	/**
+	 * Returns the number of lookups answered from the cache.
+	 *
+	 * @return the number of hits
+	 */
+	public long getHitCount() {
+		return hits;
+	}
+
+	/**
+	 * Returns the maximum number of cached extents.
+	 *
+	 * @return the maximum size
+	 */
+	public int getMaximumSize() {
+		return maximumSize;
+	}
+
+	/**
+	 * Returns the number of lookups which had to measure the text.
+	 *
+	 * @return the number of misses
+	 */
+	public long getMissCount() {
+		return misses;
+	}
+
+	/**
+	 * Resets the hit and miss counts to zero.
+	 */
+	public void resetCounts() {
+		hits = 0;
+		misses = 0;
+	}
+
+	/**
+	 * Sets the maximum number of cached extents. 0 disables the cache.
+	 *
+	 * @param maximumSize
+	 *            the maximum size, not negative
+	 */
+	public void setMaximumSize(int maximumSize) {
+		if (maximumSize < 0)
+			throw new IllegalArgumentException("Size must not be negative"); //$NON-NLS-1$
+		this.maximumSize = maximumSize;
+		if (maximumSize == 0) {
+			clear();
+			return;
+		}
+		Iterator iter = extents.values().iterator();
+		while (extents.size() > maximumSize) {
+			iter.next();
+			iter.remove();
+		}
+	}
+
+	/**
+	 * Returns the number of cached extents.
+	 *
+	 * @return the size
+	 */
+	public int size() {
+		return extents.size();
+	}
+
+	/**
+	 * Returns the cached extent of the given string as a point, or
+	 * <code>null</code>, counting a miss.
+	 */
+	org.eclipse.swt.graphics.Point getExtent(Font font, String string,
+			boolean expand) {
+		if (maximumSize == 0 || string == null) {
+			misses++;
+			return null;
+		}
+		checkFont(font);
+		org.eclipse.swt.graphics.Point extent = (org.eclipse.swt.graphics.Point) extents
+				.get(new Key(font, string, expand));
+		if (extent == null) {
+			misses++;
+			return null;
+		}
+		hits++;
+		return new org.eclipse.swt.graphics.Point(extent.x, extent.y);
+	}
+
+	/**
+	 * Returns the cached metrics of the given font, or <code>null</code>.
+	 */
+	FontMetrics getFontMetrics(Font font) {
+		if (maximumSize == 0)
+			return null;
+		checkFont(font);
+		return (FontMetrics) fonts.get(font);
+	}
+
+	void putExtent(Font font, String string, boolean expand,
+			org.eclipse.swt.graphics.Point extent) {
+		if (maximumSize == 0 || string == null)
+			return;
+		if (!fonts.containsKey(font))
+			fonts.put(font, null);
+		extents.put(new Key(font, string, expand),
+				new org.eclipse.swt.graphics.Point(extent.x, extent.y));
+	}
+
+	void putFontMetrics(Font font, FontMetrics metrics) {
+		if (maximumSize != 0)
+			fonts.put(font, metrics);
+	}
+
+	/**
+	 * Discards the entries of the given font if it has been disposed, and of
+	 * all disposed fonts if the font is new to the cache.
+	 */
+	private void checkFont(Font font) {
+		if (font == null)
+			return;
+		if (fonts.containsKey(font)) {
+			if (font.isDisposed())
+				removeFonts();
+		} else if (!fonts.isEmpty())
+			removeFonts();
+	}
+
+	private void removeFonts() {
+		List disposed = new ArrayList();
+		for (Iterator iter = fonts.keySet().iterator(); iter.hasNext();) {
+			Font font = (Font) iter.next();
+			if (font != null && font.isDisposed()) {
+				disposed.add(font);
+				iter.remove();
+			}
+		}
+		if (disposed.isEmpty())
+			return;
+		for (Iterator iter = extents.keySet().iterator(); iter.hasNext();)
+			if (disposed.contains(((Key) iter.next()).font))
+				iter.remove();
+	}
+
+}
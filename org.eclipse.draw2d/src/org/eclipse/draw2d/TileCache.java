@@ -0,0 +1,316 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.draw2d;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.swt.SWTError;
+import org.eclipse.swt.graphics.Color;
+import org.eclipse.swt.graphics.GC;
+import org.eclipse.swt.graphics.Image;
+import org.eclipse.swt.graphics.ImageData;
+import org.eclipse.swt.graphics.RGB;
+
+import org.eclipse.draw2d.geometry.Rectangle;
+
+/**
+ * The images of the client area of a {@link Layer}, rasterized in tiles of a
+ * fixed size in device pixels. Painting the layer draws the tiles intersecting
+ * the clip, rasterizing the missing ones, so that scrolling over an unchanged
+ * layer mostly draws images.
+ * <P>
+ * Tiles are located in the coordinates in which the layer paints, and are
+ * discarded when damage is reported in them. The tiles of each scale and level
+ * of detail at which the layer is painted are kept apart, so that a
+ * {@link org.eclipse.draw2d.parts.Thumbnail} painting the layer at its own
+ * scale does not discard the tiles of the view. The least recently painted
+ * tiles of all levels are disposed when the images exceed the memory budget.
+ * <P>
+ * A tile is rasterized over a key color which is made transparent, so that
+ * the layers below show through. The key color is the background color of the
+ * layer with its lowest blue bit flipped. Pixels which blend the contents of
+ * the layer with the background, as antialiased edges do, are blended with the
+ * key color rather than with the layers below.
+ *
+ * @since 3.12
+ */
+class TileCache {
+
+	/**
+	 * The tiles of a scale and level of detail.
+	 */
+	private static class Level {
+		final double scale;
+		final boolean simplifying;
+		/**
+		 * The width and height of a tile in the coordinates of the layer.
+		 */
+		final int tileSize;
+		int tileCount;
+
+		Level(double scale, boolean simplifying) {
+			this.scale = scale;
+			this.simplifying = simplifying;
+			tileSize = Math.max(1, (int) Math.round(TILE_SIZE / scale));
+		}
+
+		int tile(int coordinate) {
+			return Math.floorDiv(coordinate, tileSize);
+		}
+	}
+
+	/**
+	 * Identifies a tile by its level, column and row.
+	 */
+	private static class Key {
+		final Level level;
+		final int col, row;
+
+		Key(Level level, int col, int row) {
+			this.level = level;
+			this.col = col;
+			this.row = row;
+		}
+
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Key))
+				return false;
+			Key other = (Key) obj;
+			return other.level == level && other.col == col
+					&& other.row == row;
+		}
+
+		public int hashCode() {
+			return (col * 31 + row) * 31 + level.hashCode();
+		}
+	}
+
+	/**
+	 * The width and height of a tile, in device pixels.
+	 */
+	static final int TILE_SIZE = 256;
+
+	private final Layer layer;
+	private final List levels = new ArrayList(2);
+	private final LinkedHashMap tiles = new LinkedHashMap(16, 0.75f, true);
+	private long budget;
+	private long bytes;
+
+	TileCache(Layer layer, long budget) {
+		this.layer = layer;
+		this.budget = budget;
+	}
+
+	/**
+	 * Disposes all of the tiles.
+	 */
+	void clear() {
+		for (Iterator iter = tiles.values().iterator(); iter.hasNext();)
+			((Image) iter.next()).dispose();
+		tiles.clear();
+		levels.clear();
+		bytes = 0;
+	}
+
+	long getBudget() {
+		return budget;
+	}
+
+	private Level getLevel(double scale, boolean simplifying) {
+		for (int i = 0; i < levels.size(); i++) {
+			Level level = (Level) levels.get(i);
+			if (level.scale == scale && level.simplifying == simplifying)
+				return level;
+		}
+		Level level = new Level(scale, simplifying);
+		levels.add(level);
+		return level;
+	}
+
+	/**
+	 * Discards the tiles intersecting the given area, in the coordinates in
+	 * which the layer paints.
+	 */
+	void invalidate(Rectangle area) {
+		if (tiles.isEmpty() || area.isEmpty())
+			return;
+		long count = 0;
+		for (int i = 0; i < levels.size(); i++) {
+			Level level = (Level) levels.get(i);
+			count += (long) (level.tile(area.right() - 1)
+					- level.tile(area.x) + 1)
+					* (level.tile(area.bottom() - 1) - level.tile(area.y) + 1);
+		}
+		if (count > tiles.size()) {
+			for (Iterator iter = tiles.entrySet().iterator(); iter.hasNext();) {
+				Map.Entry entry = (Map.Entry) iter.next();
+				Key key = (Key) entry.getKey();
+				Level level = key.level;
+				if (key.col >= level.tile(area.x)
+						&& key.col <= level.tile(area.right() - 1)
+						&& key.row >= level.tile(area.y)
+						&& key.row <= level.tile(area.bottom() - 1)) {
+					dispose(key, (Image) entry.getValue());
+					iter.remove();
+				}
+			}
+		} else
+			for (int i = 0; i < levels.size(); i++) {
+				Level level = (Level) levels.get(i);
+				int maxCol = level.tile(area.right() - 1);
+				int maxRow = level.tile(area.bottom() - 1);
+				for (int col = level.tile(area.x); col <= maxCol; col++)
+					for (int row = level.tile(area.y); row <= maxRow; row++) {
+						Key key = new Key(level, col, row);
+						Image image = (Image) tiles.remove(key);
+						if (image != null)
+							dispose(key, image);
+					}
+			}
+		removeEmptyLevels();
+	}
+
+	/**
+	 * Paints the tiles intersecting the clip of the given graphics and the
+	 * given area, rasterizing the missing ones, at the scale and level of
+	 * detail of the graphics.
+	 */
+	void paint(Graphics graphics, Rectangle area) {
+		Rectangle clip = graphics.getClip(new Rectangle()).intersect(area);
+		if (clip.isEmpty())
+			return;
+		Level level = getLevel(graphics.getAbsoluteScale(),
+				graphics.isSimplifying());
+		int tileSize = level.tileSize;
+		int pixels = Math.max(1, (int) Math.round(tileSize * level.scale));
+		int maxCol = level.tile(clip.right() - 1);
+		int maxRow = level.tile(clip.bottom() - 1);
+		for (int col = level.tile(clip.x); col <= maxCol; col++)
+			for (int row = level.tile(clip.y); row <= maxRow; row++) {
+				Key key = new Key(level, col, row);
+				Image image = (Image) tiles.get(key);
+				if (image == null) {
+					image = rasterize(graphics, level, col * tileSize, row
+							* tileSize, pixels);
+					if (image == null) {
+						// paint the rest directly
+						removeEmptyLevels();
+						graphics.pushState();
+						graphics.clipRect(area);
+						layer.paintUncached(graphics);
+						graphics.popState();
+						return;
+					}
+					tiles.put(key, image);
+					level.tileCount++;
+					bytes += 4L * pixels * pixels;
+				}
+				graphics.drawImage(image, 0, 0, pixels, pixels, col
+						* tileSize, row * tileSize, tileSize, tileSize);
+			}
+		trim();
+	}
+
+	private Image rasterize(Graphics graphics, Level level, int x, int y,
+			int pixels) {
+		Image image;
+		try {
+			image = new Image(null, pixels, pixels);
+		} catch (SWTError noMoreHandles) {
+			return null;
+		} catch (IllegalArgumentException tooBig) {
+			return null;
+		}
+		Color background = layer.getBackgroundColor();
+		RGB key = background != null ? background.getRGB() : new RGB(255,
+				255, 255);
+		key.blue ^= 1;
+		Color keyColor = new Color(null, key);
+		GC gc = new GC(image);
+		SWTGraphics swtGraphics = new SWTGraphics(gc);
+		Graphics tileGraphics = swtGraphics;
+		try {
+			gc.setBackground(keyColor);
+			gc.fillRectangle(0, 0, pixels, pixels);
+			if (level.scale != 1 || level.simplifying) {
+				ScaledGraphics scaledGraphics = new ScaledGraphics(swtGraphics);
+				scaledGraphics.scale(level.scale);
+				scaledGraphics.setSimplifying(level.simplifying);
+				tileGraphics = scaledGraphics;
+			}
+			tileGraphics.setFont(graphics.getFont());
+			tileGraphics.setForegroundColor(graphics.getForegroundColor());
+			tileGraphics.setBackgroundColor(graphics.getBackgroundColor());
+			tileGraphics.setAntialias(graphics.getAntialias());
+			tileGraphics.setTextAntialias(graphics.getTextAntialias());
+			tileGraphics.translate(-x, -y);
+			tileGraphics.clipRect(new Rectangle(x, y, level.tileSize,
+					level.tileSize));
+			tileGraphics.pushState();
+			layer.paintUncached(tileGraphics);
+			tileGraphics.popState();
+		} finally {
+			tileGraphics.dispose();
+			if (tileGraphics != swtGraphics)
+				swtGraphics.dispose();
+			gc.dispose();
+			keyColor.dispose();
+		}
+		ImageData data = image.getImageData();
+		image.dispose();
+		data.transparentPixel = data.palette.getPixel(key);
+		return new Image(null, data);
+	}
+
+	/**
+	 * Forgets the levels which have no tiles left.
+	 */
+	private void removeEmptyLevels() {
+		for (int i = levels.size() - 1; i >= 0; i--)
+			if (((Level) levels.get(i)).tileCount == 0)
+				levels.remove(i);
+	}
+
+	/**
+	 * Sets the memory budget, disposing tiles if it is exceeded.
+	 */
+	void setBudget(long budget) {
+		this.budget = budget;
+		trim();
+	}
+
+	private void dispose(Key key, Image image) {
+		org.eclipse.swt.graphics.Rectangle size = image.getBounds();
+		bytes -= 4L * size.width * size.height;
+		key.level.tileCount--;
+		image.dispose();
+	}
+
+	/**
+	 * Disposes the least recently painted tiles until the budget is met.
+	 */
+	private void trim() {
+		if (bytes <= budget)
+			return;
+		for (Iterator iter = tiles.entrySet().iterator(); bytes > budget
+				&& iter.hasNext();) {
+			Map.Entry entry = (Map.Entry) iter.next();
+			dispose((Key) entry.getKey(), (Image) entry.getValue());
+			iter.remove();
+		}
+		removeEmptyLevels();
+	}
+
+}
@@ -259,7 +259,7 @@ class BreakCycles extends GraphVisitor {
 	 */
 	public void visit(DirectedGraph g) {
 		// put all nodes in list, initialize index
-		graphNodes.resetFlags();
+		graphNodes.clear();
 		for (int i = 0; i < g.nodes.size(); i++) {
 			Node n = g.nodes.getNode(i);
 			setIncomingCount(n, n.incoming.size());
@@ -270,4 +270,11 @@ class BreakCycles extends GraphVisitor {
 		}
 	}
 
+	/**
+	 * @see GraphVisitor#getName()
+	 */
+	public String getName() {
+		return DirectedGraphLayout.STEP_BREAK_CYCLES;
+	}
+
 }
@@ -483,4 +483,11 @@ class CompoundBreakCycles extends GraphVisitor {
 		invertEdges(g);
 	}
 
+	/**
+	 * @see GraphVisitor#getName()
+	 */
+	public String getName() {
+		return DirectedGraphLayout.STEP_BREAK_CYCLES;
+	}
+
 }
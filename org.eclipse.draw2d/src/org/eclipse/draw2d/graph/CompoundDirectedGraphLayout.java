@@ -39,6 +39,22 @@ package org.eclipse.draw2d.graph;
  */
 public final class CompoundDirectedGraphLayout extends DirectedGraphLayout {
 
+	/**
+	 * The name of the step which converts the subgraphs into nodes and edges
+	 * of the graph.
+	 * 
+	 * @since 3.12
+	 */
+	public static final String STEP_CONVERT_COMPOUND_GRAPH = "convertCompoundGraph"; //$NON-NLS-1$
+
+	/**
+	 * The name of the step which orders the subgraphs and their members within
+	 * the ranks.
+	 * 
+	 * @since 3.12
+	 */
+	public static final String STEP_SORT_SUBGRAPHS = "sortSubgraphs"; //$NON-NLS-1$
+
 	void init() {
 		steps.add(new CompoundTransposeMetrics());
 		steps.add(new CompoundBreakCycles());
@@ -22,7 +22,7 @@ class CompoundVerticalPlacement extends VerticalPlacement {
 	/**
 	 * @see GraphVisitor#visit(DirectedGraph) Extended to set subgraph values.
 	 */
-	void visit(DirectedGraph dg) {
+	public void visit(DirectedGraph dg) {
 		CompoundDirectedGraph g = (CompoundDirectedGraph) dg;
 		super.visit(g);
 		for (int i = 0; i < g.subgraphs.size(); i++) {
@@ -122,7 +122,7 @@ class ConvertCompoundGraph extends GraphVisitor {
 		}
 	}
 
-	void revisit(DirectedGraph g) {
+	public void revisit(DirectedGraph g) {
 		for (int i = 0; i < g.edges.size(); i++) {
 			Edge e = g.edges.getEdge(i);
 			if (e.source instanceof SubgraphBoundary) {
@@ -170,4 +170,11 @@ class ConvertCompoundGraph extends GraphVisitor {
 		replaceSubgraphsWithBoundaries(graph);
 	}
 
+	/**
+	 * @see GraphVisitor#getName()
+	 */
+	public String getName() {
+		return CompoundDirectedGraphLayout.STEP_CONVERT_COMPOUND_GRAPH;
+	}
+
 }
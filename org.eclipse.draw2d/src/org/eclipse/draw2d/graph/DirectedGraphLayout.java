@@ -64,14 +64,109 @@ import java.util.List;
  * </UL>
  * <P>
  * This class is not guaranteed to produce the same results for each invocation.
+ * <P>
+ * The layout is performed by a sequence of {@link GraphVisitor steps}, which
+ * clients may {@link #getSteps() customize} and
+ * {@link #addLayoutStepListener(LayoutStepListener) time}.
+ * <P>
+ * In {@link #setIncremental(boolean) incremental} mode, the layout remembers
+ * the ranks and locations it assigned, and the next graph it lays out starts
+ * from them, provided that only a few nodes and edges have been added or
+ * removed in between.
  * 
  * @author Randy Hudson
  * @since 2.1.2
  */
 public class DirectedGraphLayout {
 
+	/**
+	 * The name of the step which swaps the width and height of the nodes for
+	 * horizontal layouts.
+	 * 
+	 * @since 3.12
+	 */
+	public static final String STEP_TRANSPOSE_METRICS = "transposeMetrics"; //$NON-NLS-1$
+
+	/**
+	 * The name of the step which inverts feedback edges to break cycles.
+	 * 
+	 * @since 3.12
+	 */
+	public static final String STEP_BREAK_CYCLES = "breakCycles"; //$NON-NLS-1$
+
+	/**
+	 * The name of the step which adds virtual nodes to the edges spanning
+	 * several ranks, and bends those edges through them.
+	 * 
+	 * @since 3.12
+	 */
+	public static final String STEP_ROUTE_EDGES = "routeEdges"; //$NON-NLS-1$
+
+	/**
+	 * The name of the step which assigns an initial rank to each node.
+	 * 
+	 * @since 3.12
+	 */
+	public static final String STEP_INITIAL_RANK = "initialRank"; //$NON-NLS-1$
+
+	/**
+	 * The name of the step which builds a tight spanning tree of the graph.
+	 * 
+	 * @since 3.12
+	 */
+	public static final String STEP_TIGHT_SPANNING_TREE = "tightSpanningTree"; //$NON-NLS-1$
+
+	/**
+	 * The name of the step which minimizes the lengths of the edges by network
+	 * simplex over the spanning tree.
+	 * 
+	 * @since 3.12
+	 */
+	public static final String STEP_RANK_ASSIGNMENT = "rankAssignment"; //$NON-NLS-1$
+
+	/**
+	 * The name of the step which places the nodes in their ranks.
+	 * 
+	 * @since 3.12
+	 */
+	public static final String STEP_POPULATE_RANKS = "populateRanks"; //$NON-NLS-1$
+
+	/**
+	 * The name of the step which assigns the y coordinates of the ranks.
+	 * 
+	 * @since 3.12
+	 */
+	public static final String STEP_VERTICAL_PLACEMENT = "verticalPlacement"; //$NON-NLS-1$
+
+	/**
+	 * The name of the {@link MinCross} step.
+	 * 
+	 * @since 3.12
+	 */
+	public static final String STEP_MIN_CROSS = "minCross"; //$NON-NLS-1$
+
+	/**
+	 * The name of the step which swaps adjacent nodes to remove crossings.
+	 * 
+	 * @since 3.12
+	 */
+	public static final String STEP_LOCAL_OPTIMIZER = "localOptimizer"; //$NON-NLS-1$
+
+	/**
+	 * The name of the step which assigns the x coordinates of the nodes.
+	 * 
+	 * @since 3.12
+	 */
+	public static final String STEP_HORIZONTAL_PLACEMENT = "horizontalPlacement"; //$NON-NLS-1$
+
 	List steps = new ArrayList();
 
+	private List listeners = new ArrayList(1);
+	private boolean incremental;
+	private LayoutMemory memory;
+	private GraphVisitor incrementalRankSolver;
+	private GraphVisitor restoreRankOrder;
+
 	/**
 	 * @since 3.1
 	 */
@@ -93,6 +188,125 @@ public class DirectedGraphLayout {
 		steps.add(new HorizontalPlacement());
 	}
 
+	/**
+	 * Adds the given listener, to be notified as each step completes.
+	 * 
+	 * @param listener
+	 *            the listener
+	 * @since 3.12
+	 */
+	public void addLayoutStepListener(LayoutStepListener listener) {
+		listeners.add(listener);
+	}
+
+	/**
+	 * Returns the steps of an incremental layout, i.e. the steps of this
+	 * layout with the rank assignment and the crossing minimization replaced.
+	 */
+	private List getIncrementalSteps() {
+		if (incrementalRankSolver == null) {
+			incrementalRankSolver = new IncrementalRankSolver(memory);
+			restoreRankOrder = new RestoreRankOrder(memory);
+		}
+		List result = new ArrayList(steps.size());
+		for (int i = 0; i < steps.size(); i++) {
+			Object step = steps.get(i);
+			if (step instanceof InitialRankSolver)
+				result.add(incrementalRankSolver);
+			else if (step instanceof MinCross)
+				result.add(restoreRankOrder);
+			else if (!(step instanceof TightSpanningTreeSolver)
+					&& !(step instanceof RankAssignmentSolver))
+				result.add(step);
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the steps of this layout, in the order in which they visit the
+	 * graph. The list is live: steps may be inserted, replaced or removed to
+	 * customize the layout. The default steps are identified by their
+	 * {@link GraphVisitor#getName() names}, which are the <code>STEP_</code>
+	 * constants of this class, see {@link #indexOfStep(String)}.
+	 * 
+	 * @return the list of {@link GraphVisitor} steps
+	 * @since 3.12
+	 */
+	public List getSteps() {
+		return steps;
+	}
+
+	/**
+	 * Returns the index in {@link #getSteps()} of the first step with the
+	 * given name, or -1 if there is none. The step may then be replaced or
+	 * removed, for example:
+	 * 
+	 * <pre>
+	 * layout.getSteps().remove(
+	 * 		layout.indexOfStep(DirectedGraphLayout.STEP_LOCAL_OPTIMIZER));
+	 * </pre>
+	 * 
+	 * @param name
+	 *            the name of the step
+	 * @return the index of the step, or -1
+	 * @see GraphVisitor#getName()
+	 * @since 3.12
+	 */
+	public int indexOfStep(String name) {
+		for (int i = 0; i < steps.size(); i++)
+			if (name.equals(((GraphVisitor) steps.get(i)).getName()))
+				return i;
+		return -1;
+	}
+
+	/**
+	 * Returns <code>true</code> if this layout reuses its previous result.
+	 * 
+	 * @return <code>true</code> if the layout is incremental
+	 * @since 3.12
+	 */
+	public boolean isIncremental() {
+		return incremental;
+	}
+
+	/**
+	 * Sets whether this layout reuses its previous result when laying out a
+	 * graph again. An incremental layout keeps the ranks of the nodes it has
+	 * already laid out, only moving the nodes whose edges require it, and
+	 * keeps their order within their ranks. This saves the rank assignment
+	 * and the crossing minimization, which dominate the layout of large
+	 * graphs, so that a small edit of a large graph can be laid out quickly.
+	 * The result is usually not as compact as a complete layout.
+	 * <P>
+	 * Nodes are identified across layouts by their {@link Node#data data}, so
+	 * the graph may be built again for every layout. A complete layout is
+	 * performed the first time, and whenever more than a tenth of the nodes
+	 * and edges have been added or removed. Compound graphs are always laid
+	 * out completely.
+	 * 
+	 * @param incremental
+	 *            <code>true</code> to reuse the previous layout
+	 * @since 3.12
+	 */
+	public void setIncremental(boolean incremental) {
+		this.incremental = incremental;
+		if (!incremental) {
+			memory = null;
+			incrementalRankSolver = restoreRankOrder = null;
+		}
+	}
+
+	/**
+	 * Removes the given listener.
+	 * 
+	 * @param listener
+	 *            the listener
+	 * @since 3.12
+	 */
+	public void removeLayoutStepListener(LayoutStepListener listener) {
+		listeners.remove(listener);
+	}
+
 	/**
 	 * Lays out the given graph
 	 * 
@@ -102,14 +316,46 @@ public class DirectedGraphLayout {
 	public void visit(DirectedGraph graph) {
 		if (graph.nodes.isEmpty())
 			return;
+		List steps = this.steps;
+		boolean remember = incremental
+				&& !(graph instanceof CompoundDirectedGraph);
+		if (remember) {
+			if (memory == null)
+				memory = new LayoutMemory();
+			if (memory.canReuse(graph))
+				steps = getIncrementalSteps();
+		}
 		for (int i = 0; i < steps.size(); i++) {
 			GraphVisitor visitor = (GraphVisitor) steps.get(i);
+			visitor.setIterationCount(0);
+			long start = System.nanoTime();
 			visitor.visit(graph);
+			if (!listeners.isEmpty())
+				fireStepVisited(visitor, graph, System.nanoTime() - start);
 		}
+		if (remember)
+			memory.visit(graph);
 		for (int i = steps.size() - 1; i >= 0; i--) {
 			GraphVisitor visitor = (GraphVisitor) steps.get(i);
+			long start = System.nanoTime();
 			visitor.revisit(graph);
+			if (!listeners.isEmpty())
+				fireStepRevisited(visitor, graph, System.nanoTime() - start);
 		}
 	}
 
+	private void fireStepRevisited(GraphVisitor step, DirectedGraph graph,
+			long nanos) {
+		for (int i = 0; i < listeners.size(); i++)
+			((LayoutStepListener) listeners.get(i)).stepRevisited(step, graph,
+					nanos);
+	}
+
+	private void fireStepVisited(GraphVisitor step, DirectedGraph graph,
+			long nanos) {
+		for (int i = 0; i < listeners.size(); i++)
+			((LayoutStepListener) listeners.get(i)).stepVisited(step, graph,
+					nanos);
+	}
+
 }
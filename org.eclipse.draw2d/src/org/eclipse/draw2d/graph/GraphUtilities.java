@@ -10,6 +10,8 @@
  *******************************************************************************/
 package org.eclipse.draw2d.graph;
 
+import java.util.Arrays;
+
 /**
  * Some utility methods for graphs.
  * 
@@ -94,33 +96,55 @@ class GraphUtilities {
 	}
 
 	/**
-	 * Counts the number of edge crossings in a Rank
+	 * Counts the number of edge crossings in a Rank. The edges leaving the
+	 * rank are listed in the order of their sources, and the crossings are
+	 * the inversions among their targets, counted while merge sorting them.
 	 * 
 	 * @param rank
 	 *            the rank whose crossed edges are counted
 	 * @return the number of edge crossings in the rank
 	 */
 	public static int numberOfCrossingsInRank(Rank rank) {
-		int crossings = 0;
-		for (int i = 0; i < rank.size() - 1; i++) {
-			Node currentNode = rank.getNode(i);
-			Node nextNode;
-			for (int j = i + 1; j < rank.size(); j++) {
-				nextNode = rank.getNode(j);
-				EdgeList currentOutgoing = currentNode.outgoing;
-				EdgeList nextOutgoing = nextNode.outgoing;
-				for (int k = 0; k < currentOutgoing.size(); k++) {
-					Edge currentEdge = currentOutgoing.getEdge(k);
-					for (int l = 0; l < nextOutgoing.size(); l++) {
-						if (nextOutgoing.getEdge(l).getIndexForRank(
-								currentNode.rank + 1) < currentEdge
-								.getIndexForRank(currentNode.rank + 1))
-							crossings++;
-					}
-				}
-			}
+		int count = 0;
+		for (int i = 0; i < rank.size(); i++)
+			count += rank.getNode(i).outgoing.size();
+		if (count < 2)
+			return 0;
+		int targets[] = new int[count];
+		count = 0;
+		for (int i = 0; i < rank.size(); i++) {
+			Node node = rank.getNode(i);
+			int first = count;
+			for (int j = 0; j < node.outgoing.size(); j++)
+				targets[count++] = node.outgoing.getEdge(j).getIndexForRank(
+						node.rank + 1);
+			// edges leaving the same node never cross each other
+			Arrays.sort(targets, first, count);
 		}
-		return crossings;
+		return countInversions(targets, new int[count], 0, count);
+	}
+
+	private static int countInversions(int values[], int buffer[], int from,
+			int to) {
+		if (to - from < 2)
+			return 0;
+		int middle = (from + to) >>> 1;
+		int inversions = countInversions(values, buffer, from, middle)
+				+ countInversions(values, buffer, middle, to);
+		int left = from, right = middle, i = from;
+		while (left < middle && right < to) {
+			if (values[right] < values[left]) {
+				inversions += middle - left;
+				buffer[i++] = values[right++];
+			} else
+				buffer[i++] = values[left++];
+		}
+		while (left < middle)
+			buffer[i++] = values[left++];
+		while (right < to)
+			buffer[i++] = values[right++];
+		System.arraycopy(buffer, from, values, from, to - from);
+		return inversions;
 	}
 
 	private static NodeList search(Node node, NodeList list) {
@@ -11,12 +11,54 @@
 package org.eclipse.draw2d.graph;
 
 /**
- * Performs some action on a Graph.
+ * Performs some action on a Graph. A {@link DirectedGraphLayout} is a sequence
+ * of visitors, called steps, which are first visited in order, and then
+ * revisited in reverse order. Clients may subclass this class to add their own
+ * steps to a layout.
  * 
  * @author Randy Hudson
  * @since 2.1.2
  */
-abstract class GraphVisitor {
+public abstract class GraphVisitor {
+
+	private int iterationCount;
+
+	/**
+	 * Returns the name of this step. The default steps of a
+	 * {@link DirectedGraphLayout} are named after the <code>STEP_</code>
+	 * constants of the layout, so that they can be found in its
+	 * {@link DirectedGraphLayout#getSteps() steps}. The default name is the
+	 * name of the class of this step.
+	 * 
+	 * @return the name of this step
+	 * @since 3.12
+	 */
+	public String getName() {
+		return getClass().getName();
+	}
+
+	/**
+	 * Returns the number of iterations performed by the last visit of this
+	 * step, such as the number of sweeps or pivots of an iterative algorithm.
+	 * 
+	 * @return the number of iterations, 0 if the step does not iterate
+	 * @since 3.12
+	 */
+	public int getIterationCount() {
+		return iterationCount;
+	}
+
+	/**
+	 * Sets the number of iterations performed by the current visit. The count
+	 * is reset to 0 before each visit.
+	 * 
+	 * @param count
+	 *            the number of iterations
+	 * @since 3.12
+	 */
+	protected void setIterationCount(int count) {
+		iterationCount = count;
+	}
 
 	/**
 	 * Act on the given directed graph.
@@ -24,7 +66,7 @@ abstract class GraphVisitor {
 	 * @param g
 	 *            the graph
 	 */
-	void visit(DirectedGraph g) {
+	public void visit(DirectedGraph g) {
 	}
 
 	/**
@@ -34,7 +76,7 @@ abstract class GraphVisitor {
 	 * @param g
 	 *            the graph to act upon
 	 */
-	void revisit(DirectedGraph g) {
+	public void revisit(DirectedGraph g) {
 	}
 
 }
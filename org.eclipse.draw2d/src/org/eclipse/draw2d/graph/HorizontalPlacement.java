@@ -394,6 +394,9 @@ class HorizontalPlacement extends SpanningTreeVisitor {
 
 	public void visit(DirectedGraph g) {
 		graph = g;
+		map.clear();
+		clusterMap.clear();
+		dirtyClusters.clear();
 		prime = new DirectedGraph();
 		prime.nodes.add(graphLeft = new Node(null));
 		prime.nodes.add(graphRight = new Node(null));
@@ -406,6 +409,7 @@ class HorizontalPlacement extends SpanningTreeVisitor {
 
 		RankAssignmentSolver solver = new RankAssignmentSolver();
 		solver.visit(prime);
+		setIterationCount(solver.getIterationCount());
 		graph.size.width = graphRight.rank;
 		balanceClusters();
 
@@ -414,4 +418,11 @@ class HorizontalPlacement extends SpanningTreeVisitor {
 		calculateCellLocations();
 	}
 
+	/**
+	 * @see GraphVisitor#getName()
+	 */
+	public String getName() {
+		return DirectedGraphLayout.STEP_HORIZONTAL_PLACEMENT;
+	}
+
 }
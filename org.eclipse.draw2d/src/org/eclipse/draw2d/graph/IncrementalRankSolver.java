@@ -0,0 +1,80 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.draw2d.graph;
+
+/**
+ * Assigns a feasible rank to all nodes, keeping the ranks of the last layout
+ * wherever the edges allow it. New nodes are placed next to their ranked
+ * neighbors. Nodes are then visited in topological order and pushed down as
+ * far as needed by their incoming edges, so only the nodes affected by a
+ * change move. This takes linear time, but unlike the network simplex it does
+ * not shorten edges which have become longer than needed.
+ *
+ * @since 3.12
+ */
+class IncrementalRankSolver extends GraphVisitor {
+
+	private final LayoutMemory memory;
+
+	IncrementalRankSolver(LayoutMemory memory) {
+		this.memory = memory;
+	}
+
+	public void visit(DirectedGraph g) {
+		// the forest does not need to be connected
+		g.forestRoot = null;
+		NodeList nodes = g.nodes;
+		NodeList ready = new NodeList();
+		for (int i = 0; i < nodes.size(); i++) {
+			Node node = nodes.getNode(i);
+			node.rank = initialRank(node);
+			node.workingInts[0] = node.incoming.size();
+			if (node.workingInts[0] == 0)
+				ready.add(node);
+		}
+		// visit the nodes in topological order, Kahn's algorithm
+		for (int i = 0; i < ready.size(); i++) {
+			Node node = ready.getNode(i);
+			for (int j = 0; j < node.outgoing.size(); j++) {
+				Edge e = node.outgoing.getEdge(j);
+				Node target = e.target;
+				target.rank = Math.max(target.rank, node.rank + e.delta);
+				if (--target.workingInts[0] == 0)
+					ready.add(target);
+			}
+		}
+		if (ready.size() < nodes.size())
+			throw new RuntimeException("Cycle detected in graph"); //$NON-NLS-1$
+		nodes.normalizeRanks();
+	}
+
+	private int initialRank(Node node) {
+		int rank = memory.getRank(node);
+		if (rank != -1)
+			return rank;
+		rank = Integer.MIN_VALUE;
+		for (int i = 0; i < node.incoming.size(); i++) {
+			Edge e = node.incoming.getEdge(i);
+			if (memory.isKnown(e.source))
+				rank = Math.max(rank, memory.getRank(e.source) + e.delta);
+		}
+		if (rank != Integer.MIN_VALUE)
+			return rank;
+		rank = Integer.MAX_VALUE;
+		for (int i = 0; i < node.outgoing.size(); i++) {
+			Edge e = node.outgoing.getEdge(i);
+			if (memory.isKnown(e.target))
+				rank = Math.min(rank, memory.getRank(e.target) - e.delta);
+		}
+		return rank != Integer.MAX_VALUE ? rank : 0;
+	}
+
+}
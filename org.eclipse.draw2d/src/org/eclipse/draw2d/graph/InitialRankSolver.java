@@ -41,8 +41,9 @@ class InitialRankSolver extends GraphVisitor {
 		NodeList unranked = new NodeList(graph.nodes);
 		NodeList rankMe = new NodeList();
 		Node node;
-		int i;
+		int i, passes = 0;
 		while (!unranked.isEmpty()) {
+			passes++;
 			rankMe.clear();
 			for (i = 0; i < unranked.size();) {
 				node = unranked.getNode(i);
@@ -60,6 +61,7 @@ class InitialRankSolver extends GraphVisitor {
 				node.outgoing.setFlags(true);
 			}
 		}
+		setIterationCount(passes);
 
 		connectForest();
 	}
@@ -115,4 +117,11 @@ class InitialRankSolver extends GraphVisitor {
 		node.rank = rank;
 	}
 
+	/**
+	 * @see GraphVisitor#getName()
+	 */
+	public String getName() {
+		return DirectedGraphLayout.STEP_INITIAL_RANK;
+	}
+
 }
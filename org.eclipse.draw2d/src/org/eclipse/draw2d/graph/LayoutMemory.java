@@ -0,0 +1,142 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.draw2d.graph;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Remembers the ranks and horizontal locations of the nodes of the last graph
+ * laid out, so that the next layout can start from them. Nodes are identified
+ * across layouts by their {@link Node#data data}, or by themselves if they have
+ * no data. Edges are identified by the nodes they connect.
+ * <P>
+ * As a visitor, this records the layout. It must run after the horizontal
+ * placement, before any step is revisited.
+ *
+ * @since 3.12
+ */
+class LayoutMemory extends GraphVisitor {
+
+	private static final class EdgeKey {
+		final Object source, target;
+
+		EdgeKey(Edge edge) {
+			source = keyOf(edge.source);
+			target = keyOf(edge.target);
+		}
+
+		public boolean equals(Object o) {
+			if (!(o instanceof EdgeKey))
+				return false;
+			EdgeKey key = (EdgeKey) o;
+			return key.source.equals(source) && key.target.equals(target);
+		}
+
+		public int hashCode() {
+			return source.hashCode() * 31 + target.hashCode();
+		}
+	}
+
+	/**
+	 * The largest share of the nodes and edges which may have changed for the
+	 * previous layout to be reused.
+	 */
+	static final double MAX_CHANGE = 0.1;
+
+	/**
+	 * node key -> int[] { rank, center x }
+	 */
+	private Map locations;
+	private Set edges;
+	private Set pendingEdges;
+
+	static Object keyOf(Node node) {
+		return node.data != null ? node.data : node;
+	}
+
+	/**
+	 * Compares the given graph with the last one laid out, and returns
+	 * <code>true</code> if few enough nodes and edges have been added or
+	 * removed for the last layout to be reused.
+	 *
+	 * @param g
+	 *            the graph about to be laid out
+	 * @return <code>true</code> if the graph can be laid out incrementally
+	 */
+	boolean canReuse(DirectedGraph g) {
+		pendingEdges = new HashSet();
+		for (int i = 0; i < g.edges.size(); i++)
+			pendingEdges.add(new EdgeKey(g.edges.getEdge(i)));
+		if (locations == null)
+			return false;
+
+		int changes = 0, kept = 0;
+		for (int i = 0; i < g.nodes.size(); i++)
+			if (locations.containsKey(keyOf(g.nodes.getNode(i))))
+				kept++;
+			else
+				changes++;
+		changes += locations.size() - kept;
+		kept = 0;
+		for (Iterator iter = pendingEdges.iterator(); iter.hasNext();)
+			if (edges.contains(iter.next()))
+				kept++;
+			else
+				changes++;
+		changes += edges.size() - kept;
+		return changes <= MAX_CHANGE * (g.nodes.size() + g.edges.size());
+	}
+
+	/**
+	 * Returns the rank of the given node in the last layout.
+	 *
+	 * @param node
+	 *            a node
+	 * @return the last rank, or -1 if the node is new
+	 */
+	int getRank(Node node) {
+		int[] location = (int[]) locations.get(keyOf(node));
+		return location == null ? -1 : location[0];
+	}
+
+	/**
+	 * Returns the horizontal center of the given node in the last layout.
+	 *
+	 * @param node
+	 *            a node
+	 * @return the last center, or {@link Integer#MIN_VALUE} if the node is new
+	 */
+	int getCenter(Node node) {
+		int[] location = (int[]) locations.get(keyOf(node));
+		return location == null ? Integer.MIN_VALUE : location[1];
+	}
+
+	boolean isKnown(Node node) {
+		return locations.containsKey(keyOf(node));
+	}
+
+	public void visit(DirectedGraph g) {
+		locations = new HashMap(g.nodes.size() * 2);
+		for (int i = 0; i < g.nodes.size(); i++) {
+			Node node = g.nodes.getNode(i);
+			if (!(node instanceof VirtualNode))
+				locations.put(keyOf(node), new int[] { node.rank,
+						node.x + node.width / 2 });
+		}
+		edges = pendingEdges;
+		pendingEdges = null;
+	}
+
+}
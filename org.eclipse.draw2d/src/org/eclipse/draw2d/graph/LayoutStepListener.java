@@ -0,0 +1,76 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.draw2d.graph;
+
+/**
+ * Classes which implement this interface are notified as each step of a
+ * {@link DirectedGraphLayout} completes, with the time it took. Instances can
+ * be hooked to a layout by calling
+ * {@link DirectedGraphLayout#addLayoutStepListener(LayoutStepListener)}.
+ *
+ * @since 3.12
+ */
+public interface LayoutStepListener {
+
+	/**
+	 * A stub implementation which implements all of the declared methods.
+	 */
+	class Stub implements LayoutStepListener {
+
+		/**
+		 * Stub which does nothing.
+		 *
+		 * @see LayoutStepListener#stepVisited(GraphVisitor, DirectedGraph,
+		 *      long)
+		 */
+		public void stepVisited(GraphVisitor step, DirectedGraph graph,
+				long nanos) {
+		}
+
+		/**
+		 * Stub which does nothing.
+		 *
+		 * @see LayoutStepListener#stepRevisited(GraphVisitor, DirectedGraph,
+		 *      long)
+		 */
+		public void stepRevisited(GraphVisitor step, DirectedGraph graph,
+				long nanos) {
+		}
+
+	}
+
+	/**
+	 * Called after a step has visited the graph. The number of iterations the
+	 * step performed, if any, is available from
+	 * {@link GraphVisitor#getIterationCount()}.
+	 *
+	 * @param step
+	 *            the step
+	 * @param graph
+	 *            the graph being laid out
+	 * @param nanos
+	 *            the wall time of the visit, in nanoseconds
+	 */
+	void stepVisited(GraphVisitor step, DirectedGraph graph, long nanos);
+
+	/**
+	 * Called after a step has revisited the graph.
+	 *
+	 * @param step
+	 *            the step
+	 * @param graph
+	 *            the graph being laid out
+	 * @param nanos
+	 *            the wall time of the revisit, in nanoseconds
+	 */
+	void stepRevisited(GraphVisitor step, DirectedGraph graph, long nanos);
+
+}
@@ -94,7 +94,9 @@ class LocalOptimizer extends GraphVisitor {
 	 */
 	public void visit(DirectedGraph g) {
 		boolean flag;
+		int passes = 0;
 		do {
+			passes++;
 			flag = false;
 			for (int r = 0; r < g.ranks.size(); r++) {
 				Rank rank = g.ranks.getRank(r);
@@ -109,6 +111,14 @@ class LocalOptimizer extends GraphVisitor {
 				}
 			}
 		} while (flag);
+		setIterationCount(passes);
+	}
+
+	/**
+	 * @see GraphVisitor#getName()
+	 */
+	public String getName() {
+		return DirectedGraphLayout.STEP_LOCAL_OPTIMIZER;
 	}
 
 }
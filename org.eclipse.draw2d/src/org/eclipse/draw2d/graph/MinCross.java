@@ -10,46 +10,336 @@
  *******************************************************************************/
 package org.eclipse.draw2d.graph;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
 /**
  * Sweeps up and down the ranks rearranging them so as to reduce edge crossings.
+ * <P>
+ * By default all {@link #getMaxPasses() passes} are performed. A time limit
+ * and a number of passes without improvement may be set to stop earlier, in
+ * which case the crossings are counted after each pass and the ordering with
+ * the fewest crossings is kept. The connected components of the graph can also
+ * be ordered in parallel. The crossings of the chosen ordering are available
+ * from {@link #getCrossingCount()}. Instances can be configured through
+ * {@link DirectedGraphLayout#getSteps()}.
  * 
  * @author Randy Hudson
  * @since 2.1.2
  */
-class MinCross extends GraphVisitor {
+public class MinCross extends GraphVisitor {
 
 	static final int MAX = 45;
 
 	private DirectedGraph g;
 	private RankSorter sorter = new RankSorter();
 
+	private int maxPasses = MAX;
+	private long timeLimit;
+	private int maxPassesWithoutImprovement;
+	private boolean parallel;
+	private int crossingCount = -1;
+
 	public MinCross() {
 	}
 
 	/**
 	 * @since 3.1
 	 */
-	public MinCross(RankSorter sorter) {
+	MinCross(RankSorter sorter) {
 		setRankSorter(sorter);
 	}
 
-	public void setRankSorter(RankSorter sorter) {
+	void setRankSorter(RankSorter sorter) {
 		this.sorter = sorter;
 	}
 
+	/**
+	 * Returns the number of edge crossings of the ordering chosen by the last
+	 * visit.
+	 * 
+	 * @return the number of crossings, or -1 if no graph has been visited
+	 * @since 3.12
+	 */
+	public int getCrossingCount() {
+		return crossingCount;
+	}
+
+	/**
+	 * Returns the maximum number of passes. Each pass sweeps down and then up
+	 * the ranks.
+	 * 
+	 * @return the maximum number of passes
+	 * @since 3.12
+	 */
+	public int getMaxPasses() {
+		return maxPasses;
+	}
+
+	/**
+	 * Returns the number of consecutive passes which may fail to reduce the
+	 * crossings before the sweeping stops.
+	 * 
+	 * @return the number of passes, or 0 if the passes are not counted
+	 * @since 3.12
+	 */
+	public int getMaxPassesWithoutImprovement() {
+		return maxPassesWithoutImprovement;
+	}
+
+	/**
+	 * Returns the time after which no new pass is started.
+	 * 
+	 * @return the time limit in milliseconds, or 0 if there is none
+	 * @since 3.12
+	 */
+	public long getTimeLimit() {
+		return timeLimit;
+	}
+
+	/**
+	 * Returns whether the connected components of the graph are ordered in
+	 * parallel.
+	 * 
+	 * @return <code>true</code> if the components are ordered in parallel
+	 * @since 3.12
+	 */
+	public boolean isParallel() {
+		return parallel;
+	}
+
+	/**
+	 * Sets the maximum number of passes. The default is 45.
+	 * 
+	 * @param passes
+	 *            the maximum number of passes
+	 * @since 3.12
+	 */
+	public void setMaxPasses(int passes) {
+		if (passes < 1)
+			throw new IllegalArgumentException("At least one pass is needed"); //$NON-NLS-1$
+		maxPasses = passes;
+	}
+
+	/**
+	 * Sets the number of consecutive passes which may fail to reduce the
+	 * crossings before the sweeping stops. The default is 0, which performs all
+	 * passes.
+	 * 
+	 * @param passes
+	 *            the number of passes, or 0
+	 * @since 3.12
+	 */
+	public void setMaxPassesWithoutImprovement(int passes) {
+		maxPassesWithoutImprovement = Math.max(0, passes);
+	}
+
+	/**
+	 * Sets whether the connected components of the graph are ordered in
+	 * parallel. Components are only ordered separately when the default
+	 * {@link RankSorter} is used and the nodes have no row order constraints,
+	 * and the result may differ from the one of ordering the whole graph.
+	 * 
+	 * @param parallel
+	 *            <code>true</code> to order the components in parallel
+	 * @since 3.12
+	 */
+	public void setParallel(boolean parallel) {
+		this.parallel = parallel;
+	}
+
+	/**
+	 * Sets the time after which no new pass is started. The default is 0, which
+	 * performs all passes.
+	 * 
+	 * @param millis
+	 *            the time limit in milliseconds, or 0
+	 * @since 3.12
+	 */
+	public void setTimeLimit(long millis) {
+		timeLimit = Math.max(0, millis);
+	}
+
 	void solve() {
+		setIterationCount(solve(g, sorter));
+	}
+
+	/**
+	 * Sweeps the ranks of the given graph and returns the number of passes
+	 * performed.
+	 */
+	private int solve(DirectedGraph g, RankSorter sorter) {
+		boolean budget = timeLimit > 0 || maxPassesWithoutImprovement > 0;
+		long deadline = System.currentTimeMillis() + timeLimit;
+		Node best[][] = null;
+		int fewest = Integer.MAX_VALUE;
+		int stalled = 0;
+		int passes = 0;
 		Rank rank;
-		for (int loop = 0; loop < MAX; loop++) {
+		while (passes < maxPasses) {
+			double progress = (double) passes / maxPasses;
 			for (int row = 1; row < g.ranks.size(); row++) {
 				rank = g.ranks.getRank(row);
-				sorter.sortRankIncoming(g, rank, row, (double) loop / MAX);
+				sorter.sortRankIncoming(g, rank, row, progress);
 			}
-			if (loop == MAX - 1)
+			if (++passes < maxPasses)
+				for (int row = g.ranks.size() - 2; row >= 0; row--) {
+					rank = g.ranks.getRank(row);
+					sorter.sortRankOutgoing(g, rank, row, progress);
+				}
+			if (!budget)
 				continue;
-			for (int row = g.ranks.size() - 2; row >= 0; row--) {
-				rank = g.ranks.getRank(row);
-				sorter.sortRankOutgoing(g, rank, row, (double) loop / MAX);
+			int crossings = GraphUtilities.numberOfCrossingsInGraph(g);
+			if (crossings < fewest) {
+				fewest = crossings;
+				best = getOrdering(g);
+				stalled = 0;
+			} else
+				stalled++;
+			if (crossings == 0
+					|| (maxPassesWithoutImprovement > 0 && stalled >= maxPassesWithoutImprovement)
+					|| (timeLimit > 0 && System.currentTimeMillis() >= deadline))
+				break;
+		}
+		if (best != null && stalled > 0)
+			setOrdering(g, best, sorter);
+		return passes;
+	}
+
+	private static Node[][] getOrdering(DirectedGraph g) {
+		Node ordering[][] = new Node[g.ranks.size()][];
+		for (int row = 0; row < ordering.length; row++) {
+			Rank rank = g.ranks.getRank(row);
+			ordering[row] = (Node[]) rank.toArray(new Node[rank.size()]);
+		}
+		return ordering;
+	}
+
+	private static void setOrdering(DirectedGraph g, Node ordering[][],
+			RankSorter sorter) {
+		for (int row = 0; row < ordering.length; row++) {
+			Rank rank = g.ranks.getRank(row);
+			rank.clear();
+			rank.addAll(Arrays.asList(ordering[row]));
+			sorter.currentRow = row;
+			sorter.rank = rank;
+			sorter.postSort();
+		}
+	}
+
+	/**
+	 * Splits the ranks of the graph into groups of connected components, each
+	 * in a graph of its own, or returns <code>null</code> if the graph cannot
+	 * be split.
+	 */
+	private static List split(DirectedGraph g) {
+		for (int i = 0; i < g.nodes.size(); i++) {
+			Node node = g.nodes.getNode(i);
+			if (node.rowOrder != -1)
+				return null;
+			node.flag = false;
+		}
+		List components = new ArrayList();
+		NodeList stack = new NodeList();
+		for (int row = 0; row < g.ranks.size(); row++) {
+			Rank rank = g.ranks.getRank(row);
+			for (int i = 0; i < rank.size(); i++) {
+				Node node = rank.getNode(i);
+				if (node.flag)
+					continue;
+				NodeList component = new NodeList();
+				node.flag = true;
+				stack.add(node);
+				while (!stack.isEmpty()) {
+					Node next = (Node) stack.remove(stack.size() - 1);
+					component.add(next);
+					for (int j = 0; j < next.incoming.size(); j++)
+						push(next.incoming.getEdge(j).source, stack);
+					for (int j = 0; j < next.outgoing.size(); j++)
+						push(next.outgoing.getEdge(j).target, stack);
+				}
+				components.add(component);
+			}
+		}
+		if (components.size() < 2)
+			return null;
+
+		// group the components in a few graphs of similar sizes, keeping the
+		// order in which they first appear
+		int groups = Math.min(components.size(), ForkJoinPool
+				.getCommonPoolParallelism() * 4);
+		int groupSize = (g.nodes.size() + groups - 1) / groups;
+		List graphs = new ArrayList();
+		Map graphOf = new HashMap(g.nodes.size() * 2);
+		DirectedGraph graph = null;
+		int size = 0;
+		for (int i = 0; i < components.size(); i++) {
+			NodeList component = (NodeList) components.get(i);
+			if (graph == null || size >= groupSize) {
+				graph = new DirectedGraph();
+				graph.ranks.getRank(g.ranks.size() - 1);
+				graphs.add(graph);
+				size = 0;
+			}
+			for (int j = 0; j < component.size(); j++)
+				graphOf.put(component.get(j), graph);
+			size += component.size();
+		}
+		if (graphs.size() < 2)
+			return null;
+		for (int row = 0; row < g.ranks.size(); row++) {
+			Rank rank = g.ranks.getRank(row);
+			for (int i = 0; i < rank.size(); i++) {
+				Node node = rank.getNode(i);
+				((DirectedGraph) graphOf.get(node)).ranks.getRank(row).add(node);
+			}
+		}
+		return graphs;
+	}
+
+	private static void push(Node node, NodeList stack) {
+		if (!node.flag) {
+			node.flag = true;
+			stack.add(node);
+		}
+	}
+
+	private void solveInParallel(final List graphs) {
+		final int passes[] = new int[graphs.size()];
+		ForkJoinPool.commonPool().invoke(new RecursiveAction() {
+			protected void compute() {
+				List tasks = new ArrayList(graphs.size());
+				for (int i = 0; i < graphs.size(); i++) {
+					final int index = i;
+					tasks.add(new RecursiveAction() {
+						protected void compute() {
+							DirectedGraph graph = (DirectedGraph) graphs
+									.get(index);
+							RankSorter graphSorter = new RankSorter();
+							graphSorter.init(graph);
+							passes[index] = solve(graph, graphSorter);
+						}
+					});
+				}
+				invokeAll(tasks);
 			}
+		});
+
+		int iterations = 0;
+		for (int i = 0; i < passes.length; i++)
+			iterations = Math.max(iterations, passes[i]);
+		setIterationCount(iterations);
+		for (int row = 0; row < g.ranks.size(); row++) {
+			Rank rank = g.ranks.getRank(row);
+			rank.clear();
+			for (int i = 0; i < graphs.size(); i++)
+				rank.addAll(((DirectedGraph) graphs.get(i)).ranks.getRank(row));
+			rank.assignIndices();
 		}
 	}
 
@@ -59,8 +349,22 @@ class MinCross extends GraphVisitor {
 	public void visit(DirectedGraph g) {
 		sorter.init(g);
 		this.g = g;
-		solve();
+		List graphs = null;
+		if (parallel && sorter.getClass() == RankSorter.class)
+			graphs = split(g);
+		if (graphs != null)
+			solveInParallel(graphs);
+		else
+			solve();
 		sorter.optimize(g);
+		crossingCount = GraphUtilities.numberOfCrossingsInGraph(g);
+	}
+
+	/**
+	 * @see GraphVisitor#getName()
+	 */
+	public String getName() {
+		return DirectedGraphLayout.STEP_MIN_CROSS;
 	}
 
 }
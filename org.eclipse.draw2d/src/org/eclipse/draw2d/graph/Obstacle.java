@@ -26,6 +26,7 @@ import org.eclipse.draw2d.geometry.Rectangle;
 class Obstacle extends Rectangle {
 
 	boolean exclude;
+	int order, stamp;
 	Vertex topLeft, topRight, bottomLeft, bottomRight, center;
 	private ShortestPathRouter router;
 
@@ -57,19 +58,23 @@ class Obstacle extends Rectangle {
 		return router.getSpacing();
 	}
 
-	private void growVertex(Vertex vertex) {
-		if (vertex.totalCount > 0)
-			vertex.grow();
+	private int growVertex(Vertex vertex) {
+		if (vertex.totalCount == 0)
+			return 0;
+		vertex.grow();
+		return vertex.getGrowth();
 	}
 
 	/**
 	 * Grows all vertices on this obstacle.
+	 * 
+	 * @return the largest distance a vertex was moved
 	 */
-	void growVertices() {
-		growVertex(topLeft);
-		growVertex(topRight);
-		growVertex(bottomLeft);
-		growVertex(bottomRight);
+	int growVertices() {
+		int growth = growVertex(topLeft);
+		growth = Math.max(growth, growVertex(topRight));
+		growth = Math.max(growth, growVertex(bottomLeft));
+		return Math.max(growth, growVertex(bottomRight));
 	}
 
 	/**
@@ -0,0 +1,295 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.draw2d.graph;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.draw2d.geometry.Point;
+
+/**
+ * The obstacles of a {@link ShortestPathRouter}, in the order in which they
+ * were added, together with a uniform grid over their bounds. Queries visit
+ * only the grid cells involved, and answer in the order of the obstacles, so
+ * that searching the candidates finds the same obstacle first as searching all
+ * of them would.
+ * <P>
+ * Obstacles are immutable, so moving one means removing it and adding a new
+ * one.
+ *
+ * @since 3.12
+ */
+class ObstacleIndex {
+
+	/**
+	 * The width and height of a grid cell.
+	 */
+	static final int CELL_SIZE = 128;
+
+	/**
+	 * Obstacles covering more cells than this are not put into the grid, but
+	 * are checked by every query.
+	 */
+	private static final int MAX_CELLS_PER_OBSTACLE = 64;
+
+	private static final Comparator ORDER = new Comparator() {
+		public int compare(Object o1, Object o2) {
+			return ((Obstacle) o1).order - ((Obstacle) o2).order;
+		}
+	};
+
+	private final Map cells = new HashMap();
+	private final List obstacles = new ArrayList();
+	private final List unbucketed = new ArrayList();
+	private int nextOrder;
+	private int queryStamp;
+
+	/**
+	 * Adds the given obstacle after all others.
+	 *
+	 * @param obs
+	 *            the obstacle
+	 */
+	void add(Obstacle obs) {
+		obs.order = nextOrder++;
+		obstacles.add(obs);
+		if (isGridded(obs))
+			for (int col = cell(obs.x); col <= cell(obs.right() - 1); col++)
+				for (int row = cell(obs.y); row <= cell(obs.bottom() - 1); row++) {
+					Long key = Long.valueOf(key(col, row));
+					List bucket = (List) cells.get(key);
+					if (bucket == null)
+						cells.put(key, bucket = new ArrayList(4));
+					bucket.add(obs);
+				}
+		else
+			unbucketed.add(obs);
+	}
+
+	/**
+	 * Returns the first obstacle, in the order of addition, whose bounds equal
+	 * the given bounds.
+	 *
+	 * @param x
+	 *            the x of the bounds
+	 * @param y
+	 *            the y of the bounds
+	 * @param width
+	 *            the width of the bounds
+	 * @param height
+	 *            the height of the bounds
+	 * @return the obstacle, or <code>null</code>
+	 */
+	Obstacle findEqual(int x, int y, int width, int height) {
+		List candidates = find(x, y, x, y);
+		for (int i = 0; i < candidates.size(); i++) {
+			Obstacle obs = (Obstacle) candidates.get(i);
+			if (obs.x == x && obs.y == y && obs.width == width
+					&& obs.height == height)
+				return obs;
+		}
+		return null;
+	}
+
+	/**
+	 * Returns the obstacles which may touch the area between the given
+	 * coordinates, inclusive. Every obstacle whose extent, from its top-left
+	 * to its bottom-right vertex, overlaps the area is returned, as well as
+	 * every obstacle which is too large or too small to be put in the grid.
+	 * The obstacles are returned in the order in which they were added.
+	 *
+	 * @param x1
+	 *            the left of the area
+	 * @param y1
+	 *            the top of the area
+	 * @param x2
+	 *            the right of the area
+	 * @param y2
+	 *            the bottom of the area
+	 * @return the candidate obstacles, which must not be modified
+	 */
+	List find(int x1, int y1, int x2, int y2) {
+		int minCol = cell(Math.min(x1, x2)), maxCol = cell(Math.max(x1, x2));
+		int minRow = cell(Math.min(y1, y2)), maxRow = cell(Math.max(y1, y2));
+		long area = ((long) maxCol - minCol + 1) * ((long) maxRow - minRow + 1);
+		if (area >= obstacles.size())
+			// visiting the cells would cost more than a plain scan
+			return obstacles;
+		int left = Math.min(x1, x2), right = Math.max(x1, x2);
+		int top = Math.min(y1, y2), bottom = Math.max(y1, y2);
+		int stamp = ++queryStamp;
+		List hits = null;
+		for (int col = minCol; col <= maxCol; col++)
+			for (int row = minRow; row <= maxRow; row++) {
+				List bucket = (List) cells.get(Long.valueOf(key(col, row)));
+				if (bucket == null)
+					continue;
+				for (int i = 0; i < bucket.size(); i++) {
+					Obstacle obs = (Obstacle) bucket.get(i);
+					if (obs.stamp != stamp && obs.x <= right
+							&& obs.right() - 1 >= left && obs.y <= bottom
+							&& obs.bottom() - 1 >= top) {
+						obs.stamp = stamp;
+						if (hits == null)
+							hits = new ArrayList();
+						hits.add(obs);
+					}
+				}
+			}
+		return sort(hits);
+	}
+
+	/**
+	 * Returns the obstacles which may come within the given margin of the
+	 * segment between the given points. Only the grid cells along the segment
+	 * are visited. Every obstacle whose extent, from its top-left to its
+	 * bottom-right vertex, comes within the margin of the segment along both
+	 * axes is returned, as well as every obstacle which is too large or too
+	 * small to be put in the grid. The obstacles are returned in the order in
+	 * which they were added.
+	 *
+	 * @param x1
+	 *            the x of the start of the segment
+	 * @param y1
+	 *            the y of the start of the segment
+	 * @param x2
+	 *            the x of the end of the segment
+	 * @param y2
+	 *            the y of the end of the segment
+	 * @param margin
+	 *            the margin around the segment
+	 * @return the candidate obstacles, which must not be modified
+	 */
+	List findAlong(int x1, int y1, int x2, int y2, int margin) {
+		if (x1 > x2)
+			return findAlong(x2, y2, x1, y1, margin);
+		int top = Math.min(y1, y2) - margin, bottom = Math.max(y1, y2) + margin;
+		int minCol = cell(x1 - margin), maxCol = cell(x2 + margin);
+		if ((long) maxCol - minCol + cell(bottom) - cell(top) + 2 >= obstacles
+				.size())
+			return obstacles;
+		double slope = x1 == x2 ? 0 : (double) (y2 - y1) / (x2 - x1);
+		int stamp = ++queryStamp;
+		List hits = null;
+		for (int col = minCol; col <= maxCol; col++) {
+			// the part of the segment which is within the margin of the column
+			int from = Math.max(x1, col * CELL_SIZE - margin);
+			int to = Math.min(x2, (col + 1) * CELL_SIZE - 1 + margin);
+			int minY = top, maxY = bottom;
+			if (x1 != x2) {
+				double ya = y1 + slope * (from - x1);
+				double yb = y1 + slope * (to - x1);
+				minY = (int) Math.floor(Math.min(ya, yb)) - margin;
+				maxY = (int) Math.ceil(Math.max(ya, yb)) + margin;
+			}
+			for (int row = cell(minY); row <= cell(maxY); row++) {
+				List bucket = (List) cells.get(Long.valueOf(key(col, row)));
+				if (bucket == null)
+					continue;
+				for (int i = 0; i < bucket.size(); i++) {
+					Obstacle obs = (Obstacle) bucket.get(i);
+					if (obs.stamp != stamp && obs.x <= x2 + margin
+							&& obs.right() - 1 >= x1 - margin
+							&& obs.y <= bottom && obs.bottom() - 1 >= top) {
+						obs.stamp = stamp;
+						if (hits == null)
+							hits = new ArrayList();
+						hits.add(obs);
+					}
+				}
+			}
+		}
+		return sort(hits);
+	}
+
+	/**
+	 * Returns the obstacles which contain the given point, in the order in
+	 * which they were added.
+	 *
+	 * @param p
+	 *            the point
+	 * @return a new list of obstacles
+	 */
+	List findContaining(Point p) {
+		List candidates = find(p.x, p.y, p.x, p.y);
+		List hits = new ArrayList(2);
+		for (int i = 0; i < candidates.size(); i++)
+			if (((Obstacle) candidates.get(i)).contains(p))
+				hits.add(candidates.get(i));
+		return hits;
+	}
+
+	/**
+	 * Returns all obstacles in the order in which they were added. The list
+	 * must not be modified.
+	 *
+	 * @return the obstacles
+	 */
+	List getObstacles() {
+		return obstacles;
+	}
+
+	/**
+	 * Removes the given obstacle.
+	 *
+	 * @param obs
+	 *            the obstacle
+	 */
+	void remove(Obstacle obs) {
+		int index = Collections.binarySearch(obstacles, obs, ORDER);
+		obstacles.remove(index);
+		if (isGridded(obs))
+			for (int col = cell(obs.x); col <= cell(obs.right() - 1); col++)
+				for (int row = cell(obs.y); row <= cell(obs.bottom() - 1); row++) {
+					Long key = Long.valueOf(key(col, row));
+					List bucket = (List) cells.get(key);
+					if (bucket != null && bucket.remove(obs)
+							&& bucket.isEmpty())
+						cells.remove(key);
+				}
+		else
+			unbucketed.remove(obs);
+	}
+
+	private List sort(List hits) {
+		if (hits == null)
+			return unbucketed.isEmpty() ? Collections.EMPTY_LIST
+					: new ArrayList(unbucketed);
+		hits.addAll(unbucketed);
+		if (hits.size() > 1)
+			Collections.sort(hits, ORDER);
+		return hits;
+	}
+
+	private static int cell(int coordinate) {
+		return Math.floorDiv(coordinate, CELL_SIZE);
+	}
+
+	private static boolean isGridded(Obstacle obs) {
+		// degenerate obstacles have diagonals outside of their bounds
+		if (obs.width < 1 || obs.height < 1)
+			return false;
+		long area = ((long) cell(obs.right() - 1) - cell(obs.x) + 1)
+				* ((long) cell(obs.bottom() - 1) - cell(obs.y) + 1);
+		return area <= MAX_CELLS_PER_OBSTACLE;
+	}
+
+	private static long key(int col, int row) {
+		// the multiplication by an odd number is a bijection which spreads
+		// the bits, as Long.hashCode() would otherwise collide along diagonals
+		return (((long) col << 32) | (row & 0xFFFFFFFFL)) * 0x9E3779B97F4A7C15L;
+	}
+
+}
@@ -20,6 +20,7 @@ import java.util.Set;
 import org.eclipse.draw2d.PositionConstants;
 import org.eclipse.draw2d.geometry.Point;
 import org.eclipse.draw2d.geometry.PointList;
+import org.eclipse.draw2d.geometry.Rectangle;
 
 /**
  * A Path representation for the ShortestPathRouting. A Path has a start and end
@@ -300,18 +301,20 @@ public class Path {
 	 * @param exclude2
 	 *            another obstacle to exclude from the search
 	 * @param allObstacles
-	 *            the list of all obstacles
+	 *            the index of all obstacles
 	 */
 	private void addSegment(Segment segment, Obstacle exclude1,
-			Obstacle exclude2, List allObstacles) {
+			Obstacle exclude2, ObstacleIndex allObstacles) {
 		if (threshold != 0
 				&& (segment.end.getDistance(end)
 						+ segment.end.getDistance(start) > threshold || segment.start
 						.getDistance(end) + segment.start.getDistance(start) > threshold))
 			return;
 
-		for (int i = 0; i < allObstacles.size(); i++) {
-			Obstacle obs = (Obstacle) allObstacles.get(i);
+		List obstacles = allObstacles.findAlong(segment.start.x,
+				segment.start.y, segment.end.x, segment.end.y, 0);
+		for (int i = 0; i < obstacles.size(); i++) {
+			Obstacle obs = (Obstacle) obstacles.get(i);
 
 			if (obs == exclude1 || obs == exclude2 || obs.exclude)
 				continue;
@@ -526,9 +529,9 @@ public class Path {
 	 * Begins the creation of the visibility graph with the first segment
 	 * 
 	 * @param allObstacles
-	 *            list of all obstacles
+	 *            the index of all obstacles
 	 */
-	private void createVisibilityGraph(List allObstacles) {
+	private void createVisibilityGraph(ObstacleIndex allObstacles) {
 		stack.push(null);
 		stack.push(null);
 		stack.push(new Segment(start, end));
@@ -585,10 +588,10 @@ public class Path {
 	 * could be determined.
 	 * 
 	 * @param allObstacles
-	 *            the list of all obstacles
+	 *            the index of all obstacles
 	 * @return true if a shortest path was found
 	 */
-	boolean generateShortestPath(List allObstacles) {
+	boolean generateShortestPath(ObstacleIndex allObstacles) {
 		createVisibilityGraph(allObstacles);
 
 		if (visibleVertices.size() == 0)
@@ -784,47 +787,49 @@ public class Path {
 	}
 
 	/**
-	 * Refreshes the exclude field on the obstacles in the list. Excludes all
-	 * obstacles that contain the start or end point for this path.
+	 * Refreshes the exclude field on the obstacles in the index. Excludes all
+	 * obstacles that contain the start or end point for this path. The
+	 * exclusions must be reset with {@link #resetExcludedObstacles()} before
+	 * those of another path are refreshed.
 	 * 
 	 * @param allObstacles
-	 *            list of all obstacles
+	 *            the index of all obstacles
 	 */
-	void refreshExcludedObstacles(List allObstacles) {
+	void refreshExcludedObstacles(ObstacleIndex allObstacles) {
 		excludedObstacles.clear();
-
-		for (int i = 0; i < allObstacles.size(); i++) {
-			Obstacle o = (Obstacle) allObstacles.get(i);
-			o.exclude = false;
-
-			if (o.contains(start)) {
-				if (o.containsProper(start))
-					o.exclude = true;
-				else {
-					/*
-					 * $TODO Check for corners. If the path begins exactly at
-					 * the corner of an obstacle, the exclude should also be
-					 * true.
-					 * 
-					 * Or, change segment intersection so that two segments that
-					 * share an endpoint do not intersect.
-					 */
-				}
-			}
-
-			if (o.contains(end)) {
-				if (o.containsProper(end))
-					o.exclude = true;
-				else {
-					// check for corners. See above statement.
-				}
+		excludeObstaclesContaining(start, allObstacles);
+		excludeObstaclesContaining(end, allObstacles);
+	}
+
+	private void excludeObstaclesContaining(Vertex vertex,
+			ObstacleIndex allObstacles) {
+		List obstacles = allObstacles.findContaining(vertex);
+		for (int i = 0; i < obstacles.size(); i++) {
+			Obstacle o = (Obstacle) obstacles.get(i);
+			if (o.containsProper(vertex)) {
+				o.exclude = true;
+				if (!excludedObstacles.contains(o))
+					excludedObstacles.add(o);
+			} else {
+				/*
+				 * $TODO Check for corners. If the path begins exactly at the
+				 * corner of an obstacle, the exclude should also be true.
+				 * 
+				 * Or, change segment intersection so that two segments that
+				 * share an endpoint do not intersect.
+				 */
 			}
-
-			if (o.exclude && !excludedObstacles.contains(o))
-				excludedObstacles.add(o);
 		}
 	}
 
+	/**
+	 * Clears the exclude field on the obstacles excluded by this path.
+	 */
+	void resetExcludedObstacles() {
+		for (int i = 0; i < excludedObstacles.size(); i++)
+			((Obstacle) excludedObstacles.get(i)).exclude = false;
+	}
+
 	/**
 	 * Resets the fields for everything in the solve after the visibility graph
 	 * steps.
@@ -891,6 +896,13 @@ public class Path {
 		// identity
 		if (excludedObstacles.contains(obs))
 			return false;
+		if (points.size() == 0)
+			return false;
+		// the obstacle can only touch the path within the path's bounds
+		Rectangle bounds = points.getBounds();
+		if (obs.x > bounds.right() || obs.right() < bounds.x
+				|| obs.y > bounds.bottom() || obs.bottom() < bounds.y)
+			return false;
 
 		Segment seg1 = new Segment(obs.topLeft, obs.bottomRight);
 		Segment seg2 = new Segment(obs.topRight, obs.bottomLeft);
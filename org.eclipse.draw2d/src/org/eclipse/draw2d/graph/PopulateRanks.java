@@ -74,6 +74,14 @@ class PopulateRanks extends GraphVisitor {
 			RevertableChange change = (RevertableChange) changes.get(i);
 			change.revert();
 		}
+		changes.clear();
+	}
+
+	/**
+	 * @see GraphVisitor#getName()
+	 */
+	public String getName() {
+		return DirectedGraphLayout.STEP_POPULATE_RANKS;
 	}
 
 }
@@ -195,6 +195,7 @@ class RankAssignmentSolver extends SpanningTreeVisitor {
 			updateMinMax(commonAncestor, getTreeMin(commonAncestor));
 			tightenEdge(enter);
 		}
+		setIterationCount(count);
 	}
 
 	void repairCutValues(Edge edge) {
@@ -312,4 +313,11 @@ class RankAssignmentSolver extends SpanningTreeVisitor {
 		}
 	}
 
+	/**
+	 * @see GraphVisitor#getName()
+	 */
+	public String getName() {
+		return DirectedGraphLayout.STEP_RANK_ASSIGNMENT;
+	}
+
 }
@@ -0,0 +1,112 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.draw2d.graph;
+
+/**
+ * Orders the nodes in their ranks as they were ordered by the last layout,
+ * instead of sweeping the ranks as {@link MinCross} does. Nodes of the last
+ * layout are sorted by their last horizontal location, and the virtual nodes
+ * of the edges between them by the location interpolated between the edge's
+ * ends. New nodes are placed under their neighbors on the previous rank, or
+ * above their neighbors on the next rank. The row order constraints are
+ * preserved.
+ *
+ * @since 3.12
+ */
+class RestoreRankOrder extends GraphVisitor {
+
+	private final LayoutMemory memory;
+
+	private final RankSorter sorter = new RankSorter();
+
+	RestoreRankOrder(LayoutMemory memory) {
+		this.memory = memory;
+	}
+
+	public void visit(DirectedGraph g) {
+		// sorts the ranks by their constraints and assigns indices
+		sorter.init(g);
+		RankList ranks = g.ranks;
+		for (int r = 0; r < ranks.size(); r++) {
+			Rank rank = ranks.getRank(r);
+			for (int i = 0; i < rank.size(); i++) {
+				Node node = rank.getNode(i);
+				if (!(node instanceof VirtualNode) && memory.isKnown(node))
+					node.sortValue = memory.getCenter(node);
+				else
+					node.sortValue = Double.NaN;
+			}
+		}
+		for (int i = 0; i < g.nodes.size(); i++) {
+			Node node = g.nodes.getNode(i);
+			if (!(node instanceof VirtualNode) && memory.isKnown(node))
+				for (int j = 0; j < node.outgoing.size(); j++)
+					interpolate(node.outgoing.getEdge(j));
+		}
+		for (int r = 0; r < ranks.size(); r++) {
+			Rank rank = ranks.getRank(r);
+			for (int i = 0; i < rank.size(); i++) {
+				Node node = rank.getNode(i);
+				if (Double.isNaN(node.sortValue))
+					node.sortValue = average(node.incoming, true);
+			}
+		}
+		for (int r = ranks.size() - 1; r >= 0; r--) {
+			Rank rank = ranks.getRank(r);
+			for (int i = 0; i < rank.size(); i++) {
+				Node node = rank.getNode(i);
+				if (Double.isNaN(node.sortValue))
+					node.sortValue = average(node.outgoing, false);
+				// nodes without any located neighbor go last
+				if (Double.isNaN(node.sortValue))
+					node.sortValue = Double.MAX_VALUE;
+			}
+			sorter.rank = rank;
+			sorter.sort();
+			sorter.postSort();
+		}
+	}
+
+	/**
+	 * Places the virtual nodes of a long edge starting with the given edge
+	 * along a straight line between its ends, if both ends are known.
+	 */
+	private void interpolate(Edge first) {
+		Node source = first.source;
+		Node target = first.target;
+		while (target instanceof VirtualNode)
+			target = target.outgoing.getEdge(0).target;
+		if (target == first.target || !memory.isKnown(target))
+			return;
+		double start = memory.getCenter(source);
+		double end = memory.getCenter(target);
+		double length = target.rank - source.rank;
+		for (Node node = first.target; node != target; node = node.outgoing
+				.getEdge(0).target)
+			node.sortValue = start + (end - start) * (node.rank - source.rank)
+					/ length;
+	}
+
+	private static double average(EdgeList edges, boolean sources) {
+		double total = 0;
+		int count = 0;
+		for (int i = 0; i < edges.size(); i++) {
+			Edge e = edges.getEdge(i);
+			double value = sources ? e.source.sortValue : e.target.sortValue;
+			if (!Double.isNaN(value) && value != Double.MAX_VALUE) {
+				total += value;
+				count++;
+			}
+		}
+		return count == 0 ? Double.NaN : total / count;
+	}
+
+}
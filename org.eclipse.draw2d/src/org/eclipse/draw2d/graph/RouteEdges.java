@@ -85,4 +85,11 @@ class RouteEdges extends GraphVisitor {
 		edge.setPoints(path.getPoints());
 	}
 
+	/**
+	 * @see GraphVisitor#getName()
+	 */
+	public String getName() {
+		return DirectedGraphLayout.STEP_ROUTE_EDGES;
+	}
+
 }
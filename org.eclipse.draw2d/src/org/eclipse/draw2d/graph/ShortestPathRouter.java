@@ -34,7 +34,9 @@ import org.eclipse.draw2d.geometry.Rectangle;
  * <P>
  * The worst-case performance of this algorithm is p * s * n^2, where p is the
  * number of paths, n is the number of obstacles, and s is the average number of
- * segments in each path's final solution.
+ * segments in each path's final solution. The obstacles are kept in a spatial
+ * index, so in practice each segment is only tested against the obstacles
+ * near it.
  * <P>
  * This class is not intended to be subclassed.
  * 
@@ -66,6 +68,12 @@ public class ShortestPathRouter {
 
 	private int spacing = 4;
 	private boolean growPassChangedObstacles;
+	/**
+	 * The largest distance a vertex has been grown during the current grow
+	 * pass.
+	 */
+	private int maxGrowth;
+	private ObstacleIndex obstacleIndex;
 	private List orderedPaths;
 	private Map pathsToChildPaths;
 
@@ -83,7 +91,8 @@ public class ShortestPathRouter {
 		userPaths = new ArrayList();
 		workingPaths = new ArrayList();
 		pathsToChildPaths = new HashMap();
-		userObstacles = new ArrayList();
+		obstacleIndex = new ObstacleIndex();
+		userObstacles = obstacleIndex.getObstacles();
 	}
 
 	/**
@@ -161,8 +170,10 @@ public class ShortestPathRouter {
 
 		int xDist, yDist;
 
-		for (int o = 0; o < userObstacles.size(); o++) {
-			Obstacle obs = (Obstacle) userObstacles.get(o);
+		List obstacles = obstacleIndex.find(r.x, r.y, r.right() - 1,
+				r.bottom() - 1);
+		for (int o = 0; o < obstacles.size(); o++) {
+			Obstacle obs = (Obstacle) obstacles.get(o);
 			if (obs != vertex.obs && r.intersects(obs)) {
 				int pos = obs.getPosition(vertex);
 				if (pos == 0)
@@ -329,8 +340,10 @@ public class ShortestPathRouter {
 	 */
 	private void growObstaclesPass() {
 		// grow obstacles
+		maxGrowth = 0;
 		for (int i = 0; i < userObstacles.size(); i++)
-			((Obstacle) userObstacles.get(i)).growVertices();
+			maxGrowth = Math.max(maxGrowth,
+					((Obstacle) userObstacles.get(i)).growVertices());
 
 		// go through paths and test segments
 		for (int i = 0; i < workingPaths.size(); i++) {
@@ -368,7 +381,7 @@ public class ShortestPathRouter {
 	 *            the obstacle
 	 */
 	private boolean internalAddObstacle(Obstacle obs) {
-		userObstacles.add(obs);
+		obstacleIndex.add(obs);
 		return testAndDirtyPaths(obs);
 	}
 
@@ -380,17 +393,11 @@ public class ShortestPathRouter {
 	 * @return the obstacle removed
 	 */
 	private boolean internalRemoveObstacle(Rectangle rect) {
-		Obstacle obs = null;
-		int index = -1;
-		for (int i = 0; i < userObstacles.size(); i++) {
-			obs = (Obstacle) userObstacles.get(i);
-			if (obs.equals(rect)) {
-				index = i;
-				break;
-			}
-		}
-
-		userObstacles.remove(index);
+		Obstacle obs = obstacleIndex.findEqual(rect.x, rect.y, rect.width,
+				rect.height);
+		if (obs == null)
+			return false;
+		obstacleIndex.remove(obs);
 
 		boolean result = false;
 		result |= dirtyPathsOn(obs.bottomLeft);
@@ -661,6 +668,19 @@ public class ShortestPathRouter {
 		}
 	}
 
+	/**
+	 * Resets the vertices which were used to find the given path.
+	 * 
+	 * @param path
+	 *            the path
+	 */
+	private void resetVertices(Path path) {
+		for (Iterator iter = path.visibleVertices.iterator(); iter.hasNext();)
+			((Vertex) iter.next()).fullReset();
+		path.start.fullReset();
+		path.end.fullReset();
+	}
+
 	/**
 	 * Sets the default spacing between paths. The spacing is the minimum
 	 * distance that path should be offset from other paths or obstacles. The
@@ -736,34 +756,37 @@ public class ShortestPathRouter {
 			refreshChildrenEndpoints(path, children);
 		}
 
+		// clears the state left by the last solve, only the vertices used by
+		// each path need to be reset after it is found
+		resetVertices();
+
 		for (int i = 0; i < workingPaths.size(); i++) {
 			Path path = (Path) workingPaths.get(i);
-			path.refreshExcludedObstacles(userObstacles);
+			path.refreshExcludedObstacles(obstacleIndex);
 			if (!path.isDirty) {
 				path.resetPartial();
+				path.resetExcludedObstacles();
 				continue;
 			}
 
 			numSolved++;
 			path.fullReset();
 
-			boolean pathFoundCheck = path.generateShortestPath(userObstacles);
+			boolean pathFoundCheck = path.generateShortestPath(obstacleIndex);
 			if (!pathFoundCheck || path.end.cost > path.threshold) {
 				// path not found, or path found was too long
-				resetVertices();
+				resetVertices(path);
 				path.fullReset();
 				path.threshold = 0;
-				pathFoundCheck = path.generateShortestPath(userObstacles);
+				pathFoundCheck = path.generateShortestPath(obstacleIndex);
 			}
 
-			resetVertices();
+			resetVertices(path);
+			path.resetExcludedObstacles();
 		}
 
 		resetObstacleExclusions();
 
-		if (numSolved == 0)
-			resetVertices();
-
 		return numSolved;
 	}
 
@@ -842,8 +865,12 @@ public class ShortestPathRouter {
 	 */
 	private int testOffsetSegmentForIntersections(Segment segment, int index,
 			Path path) {
-		for (int i = 0; i < userObstacles.size(); i++) {
-			Obstacle obs = (Obstacle) userObstacles.get(i);
+		// the corners of an obstacle may have been grown, and are then offset
+		int reach = maxGrowth + getSpacing();
+		List obstacles = obstacleIndex.findAlong(segment.start.x,
+				segment.start.y, segment.end.x, segment.end.y, reach);
+		for (int i = 0; i < obstacles.size(); i++) {
+			Obstacle obs = (Obstacle) obstacles.get(i);
 
 			if (segment.end.obs == obs || segment.start.obs == obs
 					|| obs.exclude)
@@ -899,6 +926,7 @@ public class ShortestPathRouter {
 				vertex.shrink();
 				checkVertexForIntersections(vertex);
 				vertex.grow();
+				maxGrowth = Math.max(maxGrowth, vertex.getGrowth());
 
 				if (vertex.nearestObstacle != 0)
 					vertex.updateOffset();
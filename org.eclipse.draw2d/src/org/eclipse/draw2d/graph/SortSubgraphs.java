@@ -223,4 +223,11 @@ class SortSubgraphs extends GraphVisitor {
 		repopulateRanks();
 	}
 
+	/**
+	 * @see GraphVisitor#getName()
+	 */
+	public String getName() {
+		return CompoundDirectedGraphLayout.STEP_SORT_SUBGRAPHS;
+	}
+
 }
@@ -159,4 +159,11 @@ class TightSpanningTreeSolver extends SpanningTreeVisitor {
 		graph.nodes.normalizeRanks();
 	}
 
+	/**
+	 * @see GraphVisitor#getName()
+	 */
+	public String getName() {
+		return DirectedGraphLayout.STEP_TIGHT_SPANNING_TREE;
+	}
+
 }
@@ -73,4 +73,11 @@ class TransposeMetrics extends GraphVisitor {
 		g.size.transpose();
 	}
 
+	/**
+	 * @see GraphVisitor#getName()
+	 */
+	public String getName() {
+		return DirectedGraphLayout.STEP_TRANSPOSE_METRICS;
+	}
+
 }
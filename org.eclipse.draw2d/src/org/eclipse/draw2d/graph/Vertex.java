@@ -206,6 +206,16 @@ class Vertex extends Point {
 			x -= modifier;
 	}
 
+	/**
+	 * Returns how far this vertex has been moved away from its obstacle's
+	 * corner by {@link #grow()}.
+	 * 
+	 * @return the distance along each axis
+	 */
+	int getGrowth() {
+		return Math.abs(x - origX);
+	}
+
 	/**
 	 * Shrinks this vertex to its original size.
 	 */
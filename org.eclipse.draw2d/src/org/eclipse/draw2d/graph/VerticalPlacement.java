@@ -21,7 +21,7 @@ import org.eclipse.draw2d.geometry.Insets;
  */
 class VerticalPlacement extends GraphVisitor {
 
-	void visit(DirectedGraph g) {
+	public void visit(DirectedGraph g) {
 		Insets pad;
 		int currentY = g.getMargin().top;
 		int row, rowHeight;
@@ -46,4 +46,11 @@ class VerticalPlacement extends GraphVisitor {
 		g.size.height = currentY;
 	}
 
+	/**
+	 * @see GraphVisitor#getName()
+	 */
+	public String getName() {
+		return DirectedGraphLayout.STEP_VERTICAL_PLACEMENT;
+	}
+
 }
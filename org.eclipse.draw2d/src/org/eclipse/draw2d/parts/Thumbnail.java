@@ -192,6 +192,7 @@ public class Thumbnail extends Figure implements UpdateListener {
 			tileGraphics.translate(-p.x * getScaleX() - sx1, -p.y * getScaleY()
 					- sy1);
 			tileGraphics.scale(getScaleX());
+			tileGraphics.setSimplifying(getScaleX() < detailThreshold);
 			sourceFigure.paint(tileGraphics);
 			tileGraphics.popState();
 
@@ -359,6 +360,7 @@ public class Thumbnail extends Figure implements UpdateListener {
 		}
 	}
 
+	private double detailThreshold;
 	private boolean isDirty;
 	private float scaleX;
 	private float scaleY;
@@ -420,6 +422,17 @@ public class Thumbnail extends Figure implements UpdateListener {
 		updater.deactivate();
 	}
 
+	/**
+	 * Returns the scale below which the source figure is painted simplified.
+	 * 
+	 * @return the detail threshold
+	 * @see #setDetailThreshold(double)
+	 * @since 3.12
+	 */
+	public double getDetailThreshold() {
+		return detailThreshold;
+	}
+
 	/**
 	 * Returns the preferred size of this Thumbnail. The preferred size will be
 	 * calculated in a way that maintains the source Figure's aspect ratio.
@@ -553,6 +566,26 @@ public class Thumbnail extends Figure implements UpdateListener {
 		graphics.drawImage(thumbnail, getClientArea().getLocation());
 	}
 
+	/**
+	 * Sets the scale below which the source figure is painted as a simplified
+	 * representation of itself, by setting the graphics it paints on to
+	 * {@link ScaledGraphics#setSimplifying(boolean) simplify}. Thumbnails are
+	 * usually much smaller than their source, so this makes updating them
+	 * cheap. The default is <code>0</code>, which never simplifies.
+	 * 
+	 * @param threshold
+	 *            the detail threshold
+	 * @see org.eclipse.draw2d.Figure#paintSimplified(Graphics)
+	 * @since 3.12
+	 */
+	public void setDetailThreshold(double threshold) {
+		if (detailThreshold == threshold)
+			return;
+		detailThreshold = threshold;
+		setDirty(true);
+		repaint();
+	}
+
 	/**
 	 * Sets the dirty flag.
 	 * 
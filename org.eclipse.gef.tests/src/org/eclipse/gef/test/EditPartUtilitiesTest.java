@@ -0,0 +1,79 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.gef.test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.eclipse.draw2d.Figure;
+import org.eclipse.draw2d.IFigure;
+import org.eclipse.gef.EditPart;
+import org.eclipse.gef.editparts.AbstractGraphicalEditPart;
+import org.eclipse.gef.util.EditPartUtilities;
+
+public class EditPartUtilitiesTest extends TestCase {
+
+	private static class TestGraphicalEditPart extends
+			AbstractGraphicalEditPart {
+
+		public void addChild(EditPart ep) {
+			addChild(ep, getChildren().size());
+		}
+
+		protected void register() {
+			// do nothing
+		}
+
+		protected IFigure createFigure() {
+			return new Figure();
+		}
+
+		protected void createEditPolicies() {
+			// do nothing
+		}
+	}
+
+	public void testGetAllChildrenOrder() {
+		TestGraphicalEditPart[] parts = new TestGraphicalEditPart[8];
+		for (int i = 0; i < parts.length; i++)
+			parts[i] = new TestGraphicalEditPart();
+		// 0 -> (1 -> (3 -> 6, 4), 2 -> (5 -> 7))
+		parts[0].addChild(parts[1]);
+		parts[0].addChild(parts[2]);
+		parts[1].addChild(parts[3]);
+		parts[1].addChild(parts[4]);
+		parts[2].addChild(parts[5]);
+		parts[3].addChild(parts[6]);
+		parts[5].addChild(parts[7]);
+
+		// the children of a part come before the descendants of any of them
+		List expected = Arrays.asList(new Object[] { parts[1], parts[2],
+				parts[3], parts[4], parts[6], parts[5], parts[7] });
+		assertEquals(expected,
+				new ArrayList(EditPartUtilities.getAllChildren(parts[0])));
+		assertTrue(EditPartUtilities.getAllChildren(parts[7]).isEmpty());
+	}
+
+	public void testGetAllChildrenOfDeepHierarchy() {
+		TestGraphicalEditPart root = new TestGraphicalEditPart();
+		TestGraphicalEditPart parent = root;
+		for (int i = 0; i < 5000; i++) {
+			TestGraphicalEditPart child = new TestGraphicalEditPart();
+			parent.addChild(child);
+			parent = child;
+		}
+		assertEquals(5000, EditPartUtilities.getAllChildren(root).size());
+	}
+
+}
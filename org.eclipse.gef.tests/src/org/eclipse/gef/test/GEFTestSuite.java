@@ -32,6 +32,8 @@ public class GEFTestSuite extends TestSuite {
 		addTest(new TestSuite(ToolUtilitiesTest.class));
 		addTest(new TestSuite(DragEditPartsTrackerTest.class));
 		addTest(new TestSuite(CommandStackTest.class));
+		addTest(new TestSuite(EditPartUtilitiesTest.class));
+		addTest(new TestSuite(RefreshBatchTest.class));
 	}
 
 }
@@ -0,0 +1,156 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.gef.test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.eclipse.swt.widgets.Composite;
+import org.eclipse.swt.widgets.Control;
+
+import org.eclipse.draw2d.Figure;
+import org.eclipse.draw2d.IFigure;
+import org.eclipse.draw2d.geometry.Point;
+
+import org.eclipse.gef.EditPart;
+import org.eclipse.gef.EditPartFactory;
+import org.eclipse.gef.EditPartViewer;
+import org.eclipse.gef.editparts.AbstractGraphicalEditPart;
+import org.eclipse.gef.editparts.SimpleRootEditPart;
+import org.eclipse.gef.ui.parts.AbstractEditPartViewer;
+
+/**
+ * Tests the batches of refreshes of {@link AbstractEditPartViewer}, with a
+ * viewer which has no control.
+ */
+public class RefreshBatchTest extends TestCase {
+
+	/**
+	 * A model object with a list of children.
+	 */
+	private static class Node {
+		final List children = new ArrayList();
+	}
+
+	/**
+	 * Counts how many times its children are updated.
+	 */
+	private static class NodeEditPart extends AbstractGraphicalEditPart {
+		int updates;
+
+		NodeEditPart(Node node) {
+			setModel(node);
+		}
+
+		protected IFigure createFigure() {
+			return new Figure();
+		}
+
+		protected void createEditPolicies() {
+			// do nothing
+		}
+
+		protected List getModelChildren() {
+			updates++;
+			return ((Node) getModel()).children;
+		}
+	}
+
+	private static class TestViewer extends AbstractEditPartViewer {
+		public Control createControl(Composite parent) {
+			return null;
+		}
+
+		public EditPart findObjectAtExcluding(Point location,
+				Collection exclusionSet, Conditional conditional) {
+			return null;
+		}
+	}
+
+	private EditPartViewer viewer;
+	private Node root;
+	private NodeEditPart rootPart;
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		viewer = new TestViewer();
+		viewer.setRootEditPart(new SimpleRootEditPart());
+		viewer.setEditPartFactory(new EditPartFactory() {
+			public EditPart createEditPart(EditPart context, Object model) {
+				return new NodeEditPart((Node) model);
+			}
+		});
+		root = new Node();
+		viewer.setContents(root);
+		rootPart = (NodeEditPart) viewer.getContents();
+	}
+
+	private NodeEditPart getPart(Node node) {
+		return (NodeEditPart) viewer.getEditPartRegistry().get(node);
+	}
+
+	public void testRefreshIsDeferredUntilBatchEnds() {
+		int updates = rootPart.updates;
+		viewer.beginRefreshBatch();
+		root.children.add(new Node());
+		rootPart.refresh();
+		assertEquals(updates, rootPart.updates);
+		assertTrue(rootPart.getChildren().isEmpty());
+
+		viewer.endRefreshBatch();
+		assertEquals(updates + 1, rootPart.updates);
+		assertEquals(1, rootPart.getChildren().size());
+	}
+
+	public void testEachPartIsRefreshedOnce() {
+		int updates = rootPart.updates;
+		viewer.beginRefreshBatch();
+		viewer.beginRefreshBatch();
+		for (int i = 0; i < 10; i++) {
+			root.children.add(new Node());
+			rootPart.refresh();
+		}
+		viewer.endRefreshBatch();
+		// nested batches end with the outermost one
+		assertEquals(updates, rootPart.updates);
+
+		viewer.endRefreshBatch();
+		assertEquals(updates + 1, rootPart.updates);
+		assertEquals(10, rootPart.getChildren().size());
+
+		// unmatched calls are ignored
+		viewer.endRefreshBatch();
+		rootPart.refresh();
+		assertEquals(updates + 2, rootPart.updates);
+	}
+
+	public void testRemovedPartsAreNotRefreshed() {
+		Node child = new Node();
+		root.children.add(child);
+		rootPart.refresh();
+		NodeEditPart childPart = getPart(child);
+		int updates = childPart.updates;
+
+		viewer.beginRefreshBatch();
+		root.children.remove(child);
+		rootPart.refresh();
+		child.children.add(new Node());
+		childPart.refresh();
+		viewer.endRefreshBatch();
+		assertTrue(rootPart.getChildren().isEmpty());
+		assertNull(childPart.getViewer());
+		assertEquals(updates, childPart.updates);
+	}
+
+}
@@ -155,6 +155,23 @@ public interface EditPartViewer extends
 	 */
 	void appendSelection(EditPart editpart);
 
+	/**
+	 * Starts a batch of refreshes. Until the batch ends, the edit parts of
+	 * this viewer do not update their children and connections as soon as
+	 * they are asked to, but {@link #deferRefresh(EditPart) defer} it, so that
+	 * many model notifications cause a single refresh of each edit part when
+	 * the batch ends. Viewers may also suspend the layout and painting of
+	 * their visuals for the duration of the batch.
+	 * <P>
+	 * Batches are meant to wrap bulk changes of the model, such as the
+	 * execution of a large command. Every call must be matched by a call to
+	 * {@link #endRefreshBatch()}, and batches may be nested. During a batch,
+	 * the edit parts for new model objects may not exist yet.
+	 * 
+	 * @since 3.13
+	 */
+	void beginRefreshBatch();
+
 	/**
 	 * Optionally creates the default {@link org.eclipse.swt.widgets.Control
 	 * Control} using the default style. The Control can also be created
@@ -167,6 +184,21 @@ public interface EditPartViewer extends
 	 */
 	Control createControl(Composite composite);
 
+	/**
+	 * Records that the children or connections of the given edit part need to
+	 * be refreshed, if a batch of refreshes is in progress. Edit parts call
+	 * this before updating their children or connections, and skip the update
+	 * if <code>true</code> is returned, as the edit part will be
+	 * {@link EditPart#refresh() refreshed} when the batch ends.
+	 * 
+	 * @param editpart
+	 *            the edit part to be refreshed
+	 * @return <code>true</code> if the refresh has been deferred
+	 * @see #beginRefreshBatch()
+	 * @since 3.13
+	 */
+	boolean deferRefresh(EditPart editpart);
+
 	/**
 	 * Removes the specified <code>EditPart</code> from the current selection.
 	 * If the selection becomes empty, the viewer's {@link #getContents()
@@ -188,6 +220,16 @@ public interface EditPartViewer extends
 	 */
 	void deselectAll();
 
+	/**
+	 * Ends a batch of refreshes started by {@link #beginRefreshBatch()}. When
+	 * the outermost batch ends, every edit part whose refresh was deferred
+	 * during the batch and which still belongs to this viewer is refreshed
+	 * once.
+	 * 
+	 * @since 3.13
+	 */
+	void endRefreshBatch();
+
 	/**
 	 * Returns <code>null</code> or the <code>EditPart</code> associated with
 	 * the specified location. The location is relative to the client area of
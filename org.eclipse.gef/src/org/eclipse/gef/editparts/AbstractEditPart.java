@@ -733,6 +733,9 @@ public abstract class AbstractEditPart
 	 * whose models no longer exist are {@link #removeChild(EditPart) removed}.
 	 * New models have their EditParts {@link #createChild(Object) created}.
 	 * <P>
+	 * During a {@link EditPartViewer#beginRefreshBatch() batch of refreshes},
+	 * the update is deferred until the batch ends.
+	 * <P>
 	 * This method should <em>not</em> be overridden.
 	 * 
 	 * @see #getModelChildren()
@@ -742,16 +745,12 @@ public abstract class AbstractEditPart
 		EditPart editPart;
 		Object model;
 
+		if (deferRefresh())
+			return;
+
 		List<EditPart> children = getChildren();
-		int size = children.size();
-		Map modelToEditPart = Collections.EMPTY_MAP;
-		if (size > 0) {
-			modelToEditPart = new HashMap(size);
-			for (i = 0; i < size; i++) {
-				editPart = children.get(i);
-				modelToEditPart.put(editPart.getModel(), editPart);
-			}
-		}
+		int size;
+		Map modelToEditPart = null;
 
 		List modelObjects = getModelChildren();
 		for (i = 0; i < modelObjects.size(); i++) {
@@ -761,6 +760,16 @@ public abstract class AbstractEditPart
 			if (i < children.size() && children.get(i).getModel() == model)
 				continue;
 
+			// The map is only needed once the children differ
+			if (modelToEditPart == null) {
+				size = children.size();
+				modelToEditPart = new HashMap(size);
+				for (int j = 0; j < size; j++) {
+					editPart = children.get(j);
+					modelToEditPart.put(editPart.getModel(), editPart);
+				}
+			}
+
 			// Look to see if the EditPart is already around but in the
 			// wrong location
 			editPart = (EditPart) modelToEditPart.get(model);
@@ -785,6 +794,17 @@ public abstract class AbstractEditPart
 		}
 	}
 
+	/**
+	 * Returns <code>true</code> if the viewer is in a batch of refreshes, and
+	 * has recorded that this edit part is to be refreshed when it ends.
+	 * 
+	 * @see EditPartViewer#deferRefresh(EditPart)
+	 */
+	boolean deferRefresh() {
+		EditPartViewer viewer = getViewer();
+		return viewer != null && viewer.deferRefresh(this);
+	}
+
 	/**
 	 * Refreshes this EditPart's <i>visuals</i>. This method is called by
 	 * {@link #refresh()}, and may also be called in response to notifications
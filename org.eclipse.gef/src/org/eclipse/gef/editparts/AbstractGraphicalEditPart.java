@@ -663,6 +663,9 @@ public abstract class AbstractGraphicalEditPart extends AbstractEditPart
 	 * {@link #createConnection(Object) created}. Subclasses should override
 	 * <code>getModelSourceChildren()</code>.
 	 * <P>
+	 * During a {@link EditPartViewer#beginRefreshBatch() batch of refreshes},
+	 * the update is deferred until the batch ends.
+	 * <P>
 	 * This method should <em>not</em> be overridden.
 	 */
 	protected void refreshSourceConnections() {
@@ -670,16 +673,12 @@ public abstract class AbstractGraphicalEditPart extends AbstractEditPart
 		ConnectionEditPart editPart;
 		Object model;
 
+		if (deferRefresh())
+			return;
+
 		List sourceConnections = getSourceConnections();
-		int size = sourceConnections.size();
-		Map modelToEditPart = Collections.EMPTY_MAP;
-		if (size > 0) {
-			modelToEditPart = new HashMap(size);
-			for (i = 0; i < size; i++) {
-				editPart = (ConnectionEditPart) sourceConnections.get(i);
-				modelToEditPart.put(editPart.getModel(), editPart);
-			}
-		}
+		int size;
+		Map modelToEditPart = null;
 
 		List modelObjects = getModelSourceConnections();
 		if (modelObjects == null) {
@@ -693,6 +692,15 @@ public abstract class AbstractGraphicalEditPart extends AbstractEditPart
 							.getModel() == model)
 				continue;
 
+			if (modelToEditPart == null) {
+				size = sourceConnections.size();
+				modelToEditPart = new HashMap(size);
+				for (int j = 0; j < size; j++) {
+					editPart = (ConnectionEditPart) sourceConnections.get(j);
+					modelToEditPart.put(editPart.getModel(), editPart);
+				}
+			}
+
 			editPart = (ConnectionEditPart) modelToEditPart.get(model);
 			if (editPart != null)
 				reorderSourceConnection(editPart, i);
@@ -727,6 +735,9 @@ public abstract class AbstractGraphicalEditPart extends AbstractEditPart
 	 * {@link #createConnection(Object) created}. Subclasses should override
 	 * <code>getModelTargetChildren()</code>.
 	 * <P>
+	 * During a {@link EditPartViewer#beginRefreshBatch() batch of refreshes},
+	 * the update is deferred until the batch ends.
+	 * <P>
 	 * This method should <em>not</em> be overridden.
 	 */
 	protected void refreshTargetConnections() {
@@ -734,16 +745,12 @@ public abstract class AbstractGraphicalEditPart extends AbstractEditPart
 		ConnectionEditPart editPart;
 		Object model;
 
+		if (deferRefresh())
+			return;
+
 		List targetConnections = getTargetConnections();
-		int size = targetConnections.size();
-		Map modelToEditPart = Collections.EMPTY_MAP;
-		if (size > 0) {
-			modelToEditPart = new HashMap(size);
-			for (i = 0; i < size; i++) {
-				editPart = (ConnectionEditPart) targetConnections.get(i);
-				modelToEditPart.put(editPart.getModel(), editPart);
-			}
-		}
+		int size;
+		Map modelToEditPart = null;
 
 		List modelObjects = getModelTargetConnections();
 		if (modelObjects == null) {
@@ -757,6 +764,15 @@ public abstract class AbstractGraphicalEditPart extends AbstractEditPart
 							.getModel() == model)
 				continue;
 
+			if (modelToEditPart == null) {
+				size = targetConnections.size();
+				modelToEditPart = new HashMap(size);
+				for (int j = 0; j < size; j++) {
+					editPart = (ConnectionEditPart) targetConnections.get(j);
+					modelToEditPart.put(editPart.getModel(), editPart);
+				}
+			}
+
 			editPart = (ConnectionEditPart) modelToEditPart.get(model);
 			if (editPart != null)
 				reorderTargetConnection(editPart, i);
@@ -0,0 +1,117 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.gef.tools;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.draw2d.FigureIndex;
+import org.eclipse.draw2d.IFigure;
+import org.eclipse.draw2d.geometry.Rectangle;
+
+import org.eclipse.gef.GraphicalEditPart;
+
+/**
+ * A {@link FigureIndex} over the absolute bounds of the figures of some edit
+ * parts, so that the edit parts whose figures intersect a marquee can be found
+ * without translating the bounds of every figure on each update of the
+ * marquee.
+ * <P>
+ * The bounds are those of the time the index was built. An index is only meant
+ * to live for a single marquee gesture, and must be rebuilt if the figures
+ * move, or if the viewer scrolls or zooms.
+ *
+ * @since 3.13
+ */
+class MarqueeCandidateIndex extends FigureIndex {
+
+	/**
+	 * The width and height of a grid cell, in absolute coordinates.
+	 */
+	static final int CELL_SIZE = 128;
+
+	private final Map absoluteBounds = new HashMap();
+	private final Map editParts = new HashMap();
+	private final List emptyFigures = new ArrayList();
+
+	/**
+	 * Creates an index over the figures of the given edit parts.
+	 *
+	 * @param editParts
+	 *            the graphical edit parts
+	 */
+	MarqueeCandidateIndex(Collection editParts) {
+		super(CELL_SIZE);
+		for (Iterator iter = editParts.iterator(); iter.hasNext();) {
+			GraphicalEditPart editPart = (GraphicalEditPart) iter.next();
+			IFigure figure = editPart.getFigure();
+			Rectangle bounds = figure.getBounds().getCopy();
+			figure.translateToAbsolute(bounds);
+			this.editParts.put(figure, editPart);
+			// empty figures may still be contained by a marquee
+			if (bounds.isEmpty())
+				emptyFigures.add(editPart);
+			else {
+				absoluteBounds.put(figure, bounds);
+				add(figure, -1);
+			}
+		}
+	}
+
+	/**
+	 * Returns the edit parts whose figures intersected the given area when the
+	 * index was built, as well as those whose figures had empty bounds.
+	 *
+	 * @param area
+	 *            the area, in absolute coordinates
+	 * @return a new list of edit parts
+	 */
+	List find(Rectangle area) {
+		List hits = findIntersecting(area);
+		for (int i = 0; i < hits.size(); i++)
+			hits.set(i, editParts.get(hits.get(i)));
+		hits.addAll(emptyFigures);
+		return hits;
+	}
+
+	/**
+	 * Returns the absolute bounds of the figure at the time the index was
+	 * built.
+	 *
+	 * @see FigureIndex#getBounds(IFigure)
+	 */
+	protected Rectangle getBounds(IFigure figure) {
+		return (Rectangle) absoluteBounds.get(figure);
+	}
+
+	/**
+	 * Overridden to select by the bounds of the figures alone.
+	 *
+	 * @see FigureIndex#getHitTolerance(IFigure)
+	 */
+	protected int getHitTolerance(IFigure figure) {
+		return 0;
+	}
+
+	/**
+	 * Overridden to grid every figure, as the bounds do not change.
+	 *
+	 * @see FigureIndex#isIndexable(IFigure)
+	 */
+	protected boolean isIndexable(IFigure figure) {
+		return true;
+	}
+
+}
@@ -15,7 +15,6 @@ import java.util.Collection;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
-import java.util.Set;
 
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.events.KeyEvent;
@@ -211,7 +210,9 @@ public class MarqueeSelectionTool extends AbstractTool {
 	 */
 	public static final int DEFAULT_MARQUEE_BEHAVIOR = BEHAVIOR_NODES_CONTAINED;
 
-	private Set allChildren = new HashSet();
+	private MarqueeCandidateIndex candidateIndex;
+	private int candidateBehavior;
+	private Rectangle candidateOrigin;
 	private int marqueeBehavior = DEFAULT_MARQUEE_BEHAVIOR;
 	private IFigure marqueeRectangleFigure;
 	private int mode;
@@ -294,22 +295,10 @@ public class MarqueeSelectionTool extends AbstractTool {
 	 * @since 3.7
 	 */
 	private Collection calculatePrimaryMarqueeSelectedEditParts() {
-		Collection editPartsToProcess = new HashSet();
-		if (marqueeBehavior != BEHAVIOR_CONNECTIONS_CONTAINED
-				&& marqueeBehavior != BEHAVIOR_CONNECTIONS_TOUCHED) {
-			// process nodes
-			editPartsToProcess.addAll(EditPartUtilities.getAllChildren(
-					(GraphicalEditPart) getCurrentViewer().getRootEditPart()));
-		}
-
-		if (marqueeBehavior != BEHAVIOR_NODES_CONTAINED
-				&& marqueeBehavior != BEHAVIOR_NODES_TOUCHED) {
-			// process connections
-			editPartsToProcess
-					.addAll(EditPartUtilities.getAllNestedConnectionEditParts(
-							(GraphicalEditPart) getCurrentViewer()
-									.getRootEditPart()));
-		}
+		// only the edit parts whose figures intersect the marquee can be
+		// affected by it
+		Collection editPartsToProcess = getCandidateIndex()
+				.find(getCurrentMarqueeSelectionRectangle());
 
 		// process all edit parts and determine which are affected by the
 		// current marquee selection
@@ -384,7 +373,8 @@ public class MarqueeSelectionTool extends AbstractTool {
 			eraseTargetFeedback();
 		}
 		super.deactivate();
-		allChildren.clear();
+		candidateIndex = null;
+		candidateOrigin = null;
 		setState(STATE_TERMINAL);
 	}
 
@@ -405,6 +395,48 @@ public class MarqueeSelectionTool extends AbstractTool {
 		}
 	}
 
+	/**
+	 * Returns the index of the edit parts which may be affected by a marquee
+	 * with the current behavior, building it if it has not been built during
+	 * the current gesture, or if the contents have scrolled or zoomed since.
+	 */
+	private MarqueeCandidateIndex getCandidateIndex() {
+		GraphicalEditPart root = (GraphicalEditPart) getCurrentViewer()
+				.getRootEditPart();
+		Rectangle origin = getContentsOrigin(root);
+		if (candidateIndex != null && candidateBehavior == marqueeBehavior
+				&& origin.equals(candidateOrigin))
+			return candidateIndex;
+		Collection editParts = new ArrayList();
+		if (marqueeBehavior != BEHAVIOR_CONNECTIONS_CONTAINED
+				&& marqueeBehavior != BEHAVIOR_CONNECTIONS_TOUCHED) {
+			// process nodes
+			editParts.addAll(EditPartUtilities.getAllChildren(root));
+		}
+
+		if (marqueeBehavior != BEHAVIOR_NODES_CONTAINED
+				&& marqueeBehavior != BEHAVIOR_NODES_TOUCHED) {
+			// process connections
+			editParts.addAll(
+					EditPartUtilities.getAllNestedConnectionEditParts(root));
+		}
+		candidateIndex = new MarqueeCandidateIndex(editParts);
+		candidateBehavior = marqueeBehavior;
+		candidateOrigin = origin;
+		return candidateIndex;
+	}
+
+	/**
+	 * Returns a rectangle in absolute coordinates which moves and scales with
+	 * the contents of the viewer.
+	 */
+	private static Rectangle getContentsOrigin(GraphicalEditPart root) {
+		IFigure figure = root.getContentPane();
+		Rectangle origin = new Rectangle(0, 0, 1000, 1000);
+		figure.translateToAbsolute(origin);
+		return origin;
+	}
+
 	/**
 	 * @see org.eclipse.gef.tools.AbstractTool#getCommandName()
 	 */
@@ -16,8 +16,11 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.eclipse.swt.dnd.DND;
 import org.eclipse.swt.dnd.DragSource;
@@ -110,6 +113,9 @@ public abstract class AbstractEditPartViewer implements EditPartViewer {
 	private KeyHandler keyHandler;
 	private PropertyChangeSupport changeSupport;
 
+	private int refreshBatchDepth;
+	private Set deferredRefreshes = new LinkedHashSet();
+
 	/**
 	 * Constructs the viewer and calls {@link #init()}.
 	 */
@@ -190,11 +196,28 @@ public abstract class AbstractEditPartViewer implements EditPartViewer {
 		selectionModel.appendSelection(editpart);
 	}
 
+	/**
+	 * @see EditPartViewer#beginRefreshBatch()
+	 */
+	public void beginRefreshBatch() {
+		refreshBatchDepth++;
+	}
+
 	/**
 	 * @see EditPartViewer#createControl(Composite)
 	 */
 	public abstract Control createControl(Composite parent);
 
+	/**
+	 * @see EditPartViewer#deferRefresh(EditPart)
+	 */
+	public boolean deferRefresh(EditPart editpart) {
+		if (refreshBatchDepth == 0)
+			return false;
+		deferredRefreshes.add(editpart);
+		return true;
+	}
+
 	/**
 	 * @see EditPartViewer#deselect(EditPart)
 	 */
@@ -209,6 +232,22 @@ public abstract class AbstractEditPartViewer implements EditPartViewer {
 		selectionModel.deselectAll();
 	}
 
+	/**
+	 * @see EditPartViewer#endRefreshBatch()
+	 */
+	public void endRefreshBatch() {
+		if (refreshBatchDepth == 0 || --refreshBatchDepth > 0)
+			return;
+		Set editParts = deferredRefreshes;
+		deferredRefreshes = new LinkedHashSet();
+		for (Iterator iter = editParts.iterator(); iter.hasNext();) {
+			EditPart editPart = (EditPart) iter.next();
+			// parts removed by the refresh of their parent are skipped
+			if (editPart.getViewer() == this)
+				editPart.refresh();
+		}
+	}
+
 	/**
 	 * Called if and when the <code>Control</code> is disposed. Subclasses may
 	 * extend this method to perform additional cleanup.
@@ -34,9 +34,11 @@ import org.eclipse.jface.action.IMenuListener;
 import org.eclipse.jface.action.IMenuManager;
 import org.eclipse.jface.action.MenuManager;
 
+import org.eclipse.draw2d.DeferredUpdateManager;
 import org.eclipse.draw2d.ExclusionSearch;
 import org.eclipse.draw2d.IFigure;
 import org.eclipse.draw2d.LightweightSystem;
+import org.eclipse.draw2d.UpdateManager;
 import org.eclipse.draw2d.geometry.Point;
 
 import org.eclipse.gef.AccessibleEditPart;
@@ -188,6 +190,35 @@ public class GraphicalViewerImpl extends AbstractEditPartViewer implements
 		return part;
 	}
 
+	/**
+	 * Extended to suspend the layout and painting of the figures until the
+	 * batch ends, if the lightweight system defers its updates.
+	 * 
+	 * @see org.eclipse.gef.EditPartViewer#beginRefreshBatch()
+	 */
+	public void beginRefreshBatch() {
+		super.beginRefreshBatch();
+		UpdateManager manager = getLightweightSystem().getUpdateManager();
+		if (manager instanceof DeferredUpdateManager)
+			((DeferredUpdateManager) manager).suspendUpdates();
+	}
+
+	/**
+	 * Extended to resume the layout and painting of the figures once the
+	 * deferred refreshes have been performed.
+	 * 
+	 * @see org.eclipse.gef.EditPartViewer#endRefreshBatch()
+	 */
+	public void endRefreshBatch() {
+		try {
+			super.endRefreshBatch();
+		} finally {
+			UpdateManager manager = getLightweightSystem().getUpdateManager();
+			if (manager instanceof DeferredUpdateManager)
+				((DeferredUpdateManager) manager).resumeUpdates();
+		}
+	}
+
 	/**
 	 * Flushes and pending layouts and paints in the lightweight system.
 	 * 
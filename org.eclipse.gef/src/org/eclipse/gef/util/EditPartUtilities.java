@@ -11,6 +11,7 @@
  */
 package org.eclipse.gef.util;
 
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
@@ -48,12 +49,16 @@ public final class EditPartUtilities {
 	public static LinkedHashSet getAllChildren(
 			GraphicalEditPart parentEditPart) {
 		LinkedHashSet transitiveChildren = new LinkedHashSet();
-		List<EditPart> children = parentEditPart.getChildren();
-		transitiveChildren.addAll(children);
-		for (Iterator<EditPart> iterator = children.iterator(); iterator
-				.hasNext();) {
-			GraphicalEditPart child = (GraphicalEditPart) iterator.next();
-			transitiveChildren.addAll(getAllChildren(child));
+		// the children of a parent are added before the descendants of any of
+		// them, and the descendants of a child before those of its next sibling
+		ArrayList<EditPart> parents = new ArrayList<EditPart>();
+		parents.add(parentEditPart);
+		while (!parents.isEmpty()) {
+			EditPart parent = parents.remove(parents.size() - 1);
+			List<EditPart> children = parent.getChildren();
+			transitiveChildren.addAll(children);
+			for (int i = children.size() - 1; i >= 0; i--)
+				parents.add(children.get(i));
 		}
 		return transitiveChildren;
 	}
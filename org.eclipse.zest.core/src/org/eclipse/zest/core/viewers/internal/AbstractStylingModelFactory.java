@@ -10,11 +10,11 @@
 package org.eclipse.zest.core.viewers.internal;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Map;
+import java.util.Set;
 
 import org.eclipse.draw2d.IFigure;
 import org.eclipse.jface.viewers.IBaseLabelProvider;
@@ -24,8 +24,10 @@ import org.eclipse.jface.viewers.ViewerFilter;
 import org.eclipse.swt.SWT;
 import org.eclipse.zest.core.viewers.IFigureProvider;
 import org.eclipse.zest.core.viewers.INestedContentProvider;
+import org.eclipse.zest.core.widgets.CGraphNode;
 import org.eclipse.zest.core.widgets.Graph;
 import org.eclipse.zest.core.widgets.GraphConnection;
+import org.eclipse.zest.core.widgets.GraphContainer;
 import org.eclipse.zest.core.widgets.GraphItem;
 import org.eclipse.zest.core.widgets.GraphNode;
 import org.eclipse.zest.core.widgets.IContainer;
@@ -44,6 +46,14 @@ public abstract class AbstractStylingModelFactory implements
 	private int connectionStyle;
 	private int nodeStyle;
 	private List /* ConstraintAdapater */constraintAdapters = new ArrayList();
+	/*
+	 * The node and connection elements reached by the build in progress, and
+	 * the top level nodes before it, while the graph is being refreshed.
+	 * Null otherwise.
+	 */
+	private Set reachedNodes;
+	private Set reachedConnections;
+	private Set topLevelNodes;
 
 	/**
 	 * 
@@ -167,23 +177,17 @@ public abstract class AbstractStylingModelFactory implements
 		if (source == null || dest == null) {
 			return null;
 		}
-		GraphConnection oldConnection = viewer.getGraphModelConnection(element);
+		if (reachedConnections != null) {
+			reachedConnections.add(element);
+		}
 		GraphNode sn = viewer.getGraphModelNode(source);
 		GraphNode dn = viewer.getGraphModelNode(dest);
-		if (oldConnection != null) {
-			if (sn != oldConnection.getSource()
-					|| dn != oldConnection.getDestination()) {
-				viewer.removeGraphModelConnection(oldConnection);
-			} else {
-				styleItem(oldConnection);
-				return oldConnection;
-			}
-		}
 		IFigureProvider figureProvider = null;
 		if (getLabelProvider() instanceof IFigureProvider) {
 			figureProvider = (IFigureProvider) getLabelProvider();
 		}
-		if (sn == null) {
+		// nodes left from before a refresh are reconciled like the others
+		if (sn == null || !isNodeBuilt(source)) {
 			IFigure figure = null;
 			if (figureProvider != null) {
 				figure = figureProvider.getFigure(source);
@@ -194,7 +198,7 @@ public abstract class AbstractStylingModelFactory implements
 				sn = createNode(graph, source);
 			}
 		}
-		if (dn == null) {
+		if (dn == null || !isNodeBuilt(dest)) {
 			IFigure figure = null;
 			if (figureProvider != null) {
 				figure = figureProvider.getFigure(dest);
@@ -205,6 +209,16 @@ public abstract class AbstractStylingModelFactory implements
 				dn = createNode(graph, dest);
 			}
 		}
+		GraphConnection oldConnection = viewer.getGraphModelConnection(element);
+		if (oldConnection != null) {
+			if (sn != oldConnection.getSource()
+					|| dn != oldConnection.getDestination()) {
+				viewer.removeGraphModelConnection(element);
+			} else {
+				styleItem(oldConnection);
+				return oldConnection;
+			}
+		}
 		GraphConnection c = viewer.addGraphModelConnection(element, sn, dn);
 		styleItem(c);
 		return c;
@@ -218,6 +232,9 @@ public abstract class AbstractStylingModelFactory implements
 	 * java.lang.Object)
 	 */
 	public GraphNode createNode(Graph graph, Object element, IFigure figure) {
+		if (reachedNodes != null && reachedNodes.add(element)) {
+			reconcileNode(element, figure);
+		}
 		GraphNode node = null;
 		if (getContentProvider() instanceof INestedContentProvider) {
 			boolean isContainer = ((INestedContentProvider) getContentProvider())
@@ -231,7 +248,20 @@ public abstract class AbstractStylingModelFactory implements
 				if (childNodes == null) {
 					return node;
 				}
+				Set containedNodes = null;
+				if (reachedNodes != null) {
+					containedNodes = new HashSet(((IContainer) node).getNodes());
+				}
 				for (int i = 0; i < childNodes.length; i++) {
+					if (containedNodes != null) {
+						reachedNodes.add(childNodes[i]);
+						GraphNode oldNode = viewer
+								.getGraphModelNode(childNodes[i]);
+						if (oldNode != null && !containedNodes.contains(oldNode)) {
+							// the node has moved into this container
+							viewer.removeGraphModelNode(childNodes[i]);
+						}
+					}
 					GraphNode childNode = viewer.addGraphModelNode(
 							(IContainer) node, childNodes[i]);
 					styleItem(childNode);
@@ -298,58 +328,88 @@ public abstract class AbstractStylingModelFactory implements
 		}
 	}
 
-	/*
-	 * (non-Javadoc)
+	/**
+	 * Reconciles the graph with the content. The graph is built again from the
+	 * content, reusing the existing nodes and connections of the elements
+	 * which are still there, and only then are the nodes and connections of
+	 * the elements which are gone removed. The nodes which are kept keep their
+	 * location, size and figure, and are restyled.
+	 * <p>
+	 * A node is recreated if it has to become a container or stop being one,
+	 * if the figure provider returns another figure for it, or if it has to
+	 * move into another container.
 	 * 
 	 * @see org.eclipse.zest.core.internal.graphmodel.IStylingGraphModelFactory#
-	 * refreshGraph(org.eclipse.zest.core.internal.graphmodel.GraphModel)
+	 *      refreshGraph(org.eclipse.zest.core.internal.graphmodel.GraphModel)
 	 */
 	public void refreshGraph(Graph graph) {
-		// with this kind of graph, it is just as easy and cost-effective to
-		// rebuild the whole thing.
-
-		Map oldMap = viewer.getNodesMap();
-		HashMap nodesMap = new HashMap();
-		// have to copy the Map data accross so that it doesn't get overwritten
-		for (Iterator keys = oldMap.keySet().iterator(); keys.hasNext();) {
-			Object key = keys.next();
-			nodesMap.put(key, oldMap.get(key));
-		}
-		clearGraph(graph);
-		doBuildGraph(graph);
-		// update the positions on the new nodes to match the old ones.
-		GraphNode[] nodes = getNodesArray(graph);
-		// save a little time, go with the smallest list as the primary list
-		if (nodes.length < nodesMap.keySet().size()) {
-			for (int i = 0; i < nodes.length; i++) {
-				GraphNode oldNode = (GraphNode) nodesMap
-						.get(nodes[i].getData());
-				if (oldNode != null) {
-					nodes[i].setLocation(oldNode.getLocation().x,
-							oldNode.getLocation().y);
-					if (oldNode.isSizeFixed()) {
-						nodes[i].setSize(oldNode.getSize().width,
-								oldNode.getSize().height);
-					}
+		reachedNodes = new HashSet();
+		reachedConnections = new HashSet();
+		topLevelNodes = new HashSet(graph.getNodes());
+		try {
+			doBuildGraph(graph);
+			// connections first, as they are disposed with their nodes
+			Object[] connectionElements = viewer.getConnectionElements();
+			for (int i = 0; i < connectionElements.length; i++) {
+				if (!reachedConnections.contains(connectionElements[i])) {
+					viewer.removeGraphModelConnection(connectionElements[i]);
 				}
 			}
-		} else {
-			for (Iterator i = nodesMap.keySet().iterator(); i.hasNext();) {
-				Object key = i.next();
-				GraphNode node = viewer.getGraphModelNode(key);
-				if (node != null) {
-					GraphNode oldNode = (GraphNode) nodesMap.get(key);
-					node.setLocation(oldNode.getLocation().x,
-							oldNode.getLocation().y);
-					if (oldNode.isSizeFixed()) {
-						node.setSize(oldNode.getSize().width,
-								oldNode.getSize().height);
-					}
+			Object[] nodeElements = viewer.getNodeElements();
+			for (int i = 0; i < nodeElements.length; i++) {
+				if (!reachedNodes.contains(nodeElements[i])) {
+					viewer.removeGraphModelNode(nodeElements[i]);
 				}
 			}
+		} finally {
+			reachedNodes = null;
+			reachedConnections = null;
+			topLevelNodes = null;
 		}
 	}
 
+	/**
+	 * Removes the node of the given element, which is reached for the first
+	 * time by the refresh in progress, if it cannot be reused.
+	 */
+	private void reconcileNode(Object element, IFigure figure) {
+		GraphNode node = viewer.getGraphModelNode(element);
+		if (node == null) {
+			return;
+		}
+		boolean reusable;
+		if (getContentProvider() instanceof INestedContentProvider
+				&& ((INestedContentProvider) getContentProvider())
+						.hasChildren(element)) {
+			reusable = node instanceof GraphContainer;
+		} else if (figure != null) {
+			reusable = node instanceof CGraphNode
+					&& ((CGraphNode) node).getFigure() == figure;
+		} else {
+			reusable = !(node instanceof GraphContainer)
+					&& !(node instanceof CGraphNode);
+		}
+		if (!reusable || node.isDisposed() || !topLevelNodes.contains(node)) {
+			viewer.removeGraphModelNode(element);
+		}
+	}
+
+	/**
+	 * Returns whether the node of the given element belongs to the graph being
+	 * built. While the graph is being refreshed, it still holds the nodes of
+	 * the elements which are no longer part of the content, until the build
+	 * completes, and the nodes of the elements which have not been reached yet
+	 * may still have to be recreated.
+	 * 
+	 * @param element
+	 *            the node element
+	 * @return <code>true</code> if no refresh is in progress, or if the element
+	 *         has been reached by it
+	 */
+	protected boolean isNodeBuilt(Object element) {
+		return reachedNodes == null || reachedNodes.contains(element);
+	}
+
 	/**
 	 * Convenience method for clearing all the elements in the graph.
 	 * 
@@ -374,7 +434,10 @@ public abstract class AbstractStylingModelFactory implements
 	 * @param graph
 	 */
 	protected void doBuildGraph(Graph model) {
-		clearGraph(model);
+		if (reachedNodes == null) {
+			// otherwise the graph is being reconciled with the content
+			clearGraph(model);
+		}
 		model.setConnectionStyle(getConnectionStyle());
 		model.setNodeStyle(getNodeStyle());
 		model.setConstraintAdapters(getConstraintAdapters());
@@ -84,8 +84,9 @@ public class GraphModelEntityFactory extends AbstractStylingModelFactory {
 		for (int i = 0; i < entities.length; i++) {
 			Object data = entities[i];
 
-			// If this element is filtered, continue to the next one.
-			if (filterElement(inputElement, data)) {
+			// If this element is filtered, or is only left from before a
+			// refresh, continue to the next one.
+			if (filterElement(inputElement, data) || !isNodeBuilt(data)) {
 				continue;
 			}
 			Object[] related = ((IGraphEntityContentProvider) getContentProvider())
@@ -76,14 +76,22 @@ public class GraphModelEntityRelationshipFactory extends
 		GraphNode[] modelNodes = getNodesArray(model);
 		List listOfNodes = new ArrayList();
 		for (int i = 0; i < modelNodes.length; i++) {
-			listOfNodes.add(modelNodes[i]);
+			// skip the nodes only left from before a refresh
+			if (isNodeBuilt(modelNodes[i].getData())) {
+				listOfNodes.add(modelNodes[i]);
+			}
 		}
 
 		for (int i = 0; i < listOfNodes.size(); i++) {
 			GraphNode node = (GraphNode) listOfNodes.get(i);
 			if (node instanceof GraphContainer) {
 				List childNodes = ((GraphContainer) node).getNodes();
-				listOfNodes.addAll(childNodes);
+				for (int j = 0; j < childNodes.size(); j++) {
+					GraphNode childNode = (GraphNode) childNodes.get(j);
+					if (isNodeBuilt(childNode.getData())) {
+						listOfNodes.add(childNode);
+					}
+				}
 			}
 		}
 		modelNodes = (GraphNode[]) listOfNodes
@@ -0,0 +1,404 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.zest.core.widgets;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Platform;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.swt.widgets.Display;
+import org.eclipse.swt.widgets.Widget;
+import org.eclipse.zest.layouts.InvalidLayoutConfiguration;
+import org.eclipse.zest.layouts.LayoutAlgorithm;
+import org.eclipse.zest.layouts.LayoutBendPoint;
+import org.eclipse.zest.layouts.LayoutEntity;
+import org.eclipse.zest.layouts.LayoutRelationship;
+import org.eclipse.zest.layouts.algorithms.AbstractLayoutAlgorithm;
+import org.eclipse.zest.layouts.algorithms.ContinuousLayoutAlgorithm;
+import org.eclipse.zest.layouts.constraints.BasicEdgeConstraints;
+import org.eclipse.zest.layouts.constraints.BasicEntityConstraint;
+import org.eclipse.zest.layouts.constraints.LayoutConstraint;
+import org.eclipse.zest.layouts.progress.ProgressEvent;
+import org.eclipse.zest.layouts.progress.ProgressListener;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.FrameworkUtil;
+
+/**
+ * A layout of a {@link Graph} computed on the thread of an asynchronous layout
+ * algorithm. The algorithm does not see the nodes and connections of the
+ * graph, but snapshots of their locations, sizes and basic constraints, taken
+ * on the display thread when the layout is created. Other kinds of constraints
+ * are not passed on.
+ * <P>
+ * The locations and sizes computed by the algorithm are copied back to the
+ * nodes on the display thread, all at once, when the algorithm ends. The
+ * intermediate locations of continuous algorithms are copied back as well.
+ * When the display thread falls behind, only the latest ones are copied.
+ * <P>
+ * A layout whose algorithm fails discards its results, and reports the failure
+ * to the log of this bundle.
+ * <P>
+ * A layout which is cancelled stops its algorithm and discards its results.
+ * The algorithm may still be running for a while, and must not be used for
+ * another layout until the graph is told that this layout
+ * {@link Graph#backgroundLayoutEnded(BackgroundLayout) ended}.
+ */
+class BackgroundLayout implements ProgressListener {
+
+	private static class SnapshotEntity implements LayoutEntity {
+		final LayoutEntity entity;
+		final Object graphData;
+		final BasicEntityConstraint constraint = new BasicEntityConstraint();
+		double x, y, width, height;
+		boolean resized;
+		Object layoutInformation;
+
+		SnapshotEntity(LayoutEntity entity) {
+			this.entity = entity;
+			graphData = entity.getGraphData();
+			entity.populateLayoutConstraint(constraint);
+			x = entity.getXInLayout();
+			y = entity.getYInLayout();
+			width = entity.getWidthInLayout();
+			height = entity.getHeightInLayout();
+		}
+
+		public int compareTo(Object o) {
+			// as the entities of graph nodes do with one another
+			return 0;
+		}
+
+		public Object getGraphData() {
+			return graphData;
+		}
+
+		public double getHeightInLayout() {
+			return height;
+		}
+
+		public Object getLayoutInformation() {
+			return layoutInformation;
+		}
+
+		public double getWidthInLayout() {
+			return width;
+		}
+
+		public double getXInLayout() {
+			return x;
+		}
+
+		public double getYInLayout() {
+			return y;
+		}
+
+		public void populateLayoutConstraint(LayoutConstraint c) {
+			if (c instanceof BasicEntityConstraint) {
+				BasicEntityConstraint basic = (BasicEntityConstraint) c;
+				basic.hasPreferredLocation = constraint.hasPreferredLocation;
+				basic.preferredX = constraint.preferredX;
+				basic.preferredY = constraint.preferredY;
+				basic.hasPreferredSize = constraint.hasPreferredSize;
+				basic.preferredWidth = constraint.preferredWidth;
+				basic.preferredHeight = constraint.preferredHeight;
+			}
+		}
+
+		public void setGraphData(Object o) {
+			// the graph data is that of the graph node
+		}
+
+		public void setLayoutInformation(Object internalEntity) {
+			layoutInformation = internalEntity;
+		}
+
+		public void setLocationInLayout(double x, double y) {
+			this.x = x;
+			this.y = y;
+		}
+
+		public void setSizeInLayout(double width, double height) {
+			this.width = width;
+			this.height = height;
+			resized = true;
+		}
+	}
+
+	private static class SnapshotRelationship implements LayoutRelationship {
+		final SnapshotEntity source;
+		final SnapshotEntity destination;
+		final Object graphData;
+		final BasicEdgeConstraints constraint = new BasicEdgeConstraints();
+		Object layoutInformation;
+
+		SnapshotRelationship(LayoutRelationship relationship,
+				SnapshotEntity source, SnapshotEntity destination) {
+			this.source = source;
+			this.destination = destination;
+			graphData = relationship.getGraphData();
+			relationship.populateLayoutConstraint(constraint);
+		}
+
+		public void clearBendPoints() {
+			// the connections of a graph have no bend points
+		}
+
+		public LayoutEntity getDestinationInLayout() {
+			return destination;
+		}
+
+		public Object getGraphData() {
+			return graphData;
+		}
+
+		public Object getLayoutInformation() {
+			return layoutInformation;
+		}
+
+		public LayoutEntity getSourceInLayout() {
+			return source;
+		}
+
+		public void populateLayoutConstraint(LayoutConstraint c) {
+			if (c instanceof BasicEdgeConstraints) {
+				BasicEdgeConstraints basic = (BasicEdgeConstraints) c;
+				basic.isBiDirectional = constraint.isBiDirectional;
+				basic.weight = constraint.weight;
+			}
+		}
+
+		public void setBendPoints(LayoutBendPoint[] bendPoints) {
+			// the connections of a graph have no bend points
+		}
+
+		public void setGraphData(Object o) {
+			// the graph data is that of the graph connection
+		}
+
+		public void setLayoutInformation(Object layoutInformation) {
+			this.layoutInformation = layoutInformation;
+		}
+	}
+
+	private final Graph graph;
+	private final Display display;
+	private final LayoutAlgorithm algorithm;
+	private final SnapshotEntity[] entities;
+	private final SnapshotRelationship[] relationships;
+
+	/**
+	 * Set on the display thread only.
+	 */
+	private boolean cancelled;
+
+	/**
+	 * The latest locations and sizes not copied back yet, four values per
+	 * entity, guarded by this layout.
+	 */
+	private double[] frame;
+	private Throwable failure;
+	private boolean frameIsLast;
+	private boolean framePosted;
+
+	private final Runnable applyFrame = new Runnable() {
+		public void run() {
+			applyFrame();
+		}
+	};
+
+	/**
+	 * Takes the snapshots of the given entities and relationships. Must be
+	 * called on the display thread. Relationships between entities which are
+	 * not laid out are left out.
+	 *
+	 * @param graph
+	 *            the graph
+	 * @param algorithm
+	 *            the layout algorithm
+	 * @param entitiesToLayout
+	 *            the entities of the nodes to lay out
+	 * @param relationshipsToConsider
+	 *            the relationships of the connections between them
+	 */
+	BackgroundLayout(Graph graph, LayoutAlgorithm algorithm,
+			LayoutEntity[] entitiesToLayout,
+			LayoutRelationship[] relationshipsToConsider) {
+		this.graph = graph;
+		this.display = graph.getDisplay();
+		this.algorithm = algorithm;
+		entities = new SnapshotEntity[entitiesToLayout.length];
+		Map snapshots = new HashMap(entitiesToLayout.length * 2);
+		for (int i = 0; i < entitiesToLayout.length; i++) {
+			entities[i] = new SnapshotEntity(entitiesToLayout[i]);
+			snapshots.put(entitiesToLayout[i], entities[i]);
+		}
+		SnapshotRelationship[] all = new SnapshotRelationship[relationshipsToConsider.length];
+		int count = 0;
+		for (int i = 0; i < relationshipsToConsider.length; i++) {
+			LayoutRelationship relationship = relationshipsToConsider[i];
+			SnapshotEntity source = (SnapshotEntity) snapshots.get(relationship
+					.getSourceInLayout());
+			SnapshotEntity destination = (SnapshotEntity) snapshots
+					.get(relationship.getDestinationInLayout());
+			if (source != null && destination != null) {
+				all[count++] = new SnapshotRelationship(relationship, source,
+						destination);
+			}
+		}
+		relationships = new SnapshotRelationship[count];
+		System.arraycopy(all, 0, relationships, 0, count);
+	}
+
+	/**
+	 * Starts the algorithm on its own thread.
+	 *
+	 * @throws InvalidLayoutConfiguration
+	 *             if the algorithm cannot run asynchronously, or continuously
+	 *             when asked to, in which case nothing has been started
+	 */
+	void start(double x, double y, double width, double height,
+			boolean continuous) throws InvalidLayoutConfiguration {
+		// the listener is added before the thread starts, and removed after it
+		// ended, so that the thread never sees the listeners change
+		algorithm.addProgressListener(this);
+		try {
+			algorithm.applyLayout(entities, relationships, x, y, width,
+					height, true, continuous);
+		} catch (InvalidLayoutConfiguration e) {
+			algorithm.removeProgressListener(this);
+			throw e;
+		} catch (RuntimeException e) {
+			algorithm.removeProgressListener(this);
+			throw e;
+		}
+	}
+
+	/**
+	 * Stops the algorithm and discards its results. Must be called on the
+	 * display thread.
+	 */
+	void cancel() {
+		if (!cancelled) {
+			cancelled = true;
+			algorithm.stop();
+		}
+	}
+
+	public void progressStarted(ProgressEvent e) {
+		// the first frame is posted by the first update
+	}
+
+	public void progressUpdated(ProgressEvent e) {
+		if (algorithm instanceof ContinuousLayoutAlgorithm
+				&& Thread.currentThread() != display.getThread()) {
+			post(false);
+		}
+	}
+
+	public void progressEnded(ProgressEvent e) {
+		// cancel() stops the algorithm on the display thread as well, but only
+		// the end of the algorithm's own thread is the end of the layout
+		if (Thread.currentThread() != display.getThread()) {
+			// the algorithm's thread ends its progress even when it failed
+			if (algorithm instanceof AbstractLayoutAlgorithm) {
+				Throwable error = ((AbstractLayoutAlgorithm) algorithm)
+						.getLayoutFailure();
+				synchronized (this) {
+					failure = error;
+				}
+			}
+			post(true);
+		}
+	}
+
+	/**
+	 * Called on the algorithm's thread, which is the only one writing to the
+	 * snapshots.
+	 */
+	private void post(boolean last) {
+		double[] values = new double[entities.length * 4];
+		for (int i = 0; i < entities.length; i++) {
+			SnapshotEntity entity = entities[i];
+			values[i * 4] = entity.x;
+			values[i * 4 + 1] = entity.y;
+			values[i * 4 + 2] = entity.width;
+			values[i * 4 + 3] = entity.height;
+		}
+		synchronized (this) {
+			frame = values;
+			frameIsLast |= last;
+			if (framePosted) {
+				return;
+			}
+			framePosted = true;
+		}
+		if (!display.isDisposed()) {
+			display.asyncExec(applyFrame);
+		}
+	}
+
+	private void applyFrame() {
+		double[] values;
+		boolean last;
+		Throwable error;
+		synchronized (this) {
+			error = failure;
+			values = error != null ? null : frame;
+			last = frameIsLast;
+			frame = null;
+			framePosted = false;
+		}
+		if (last) {
+			algorithm.removeProgressListener(this);
+		}
+		if (!cancelled && values != null && !graph.isDisposed()) {
+			graph.applyBackgroundLayout(this, values, last);
+		}
+		if (last && error != null) {
+			log(error);
+		}
+		if (last) {
+			graph.backgroundLayoutEnded(this);
+		}
+	}
+
+	private static void log(Throwable error) {
+		Bundle bundle = FrameworkUtil.getBundle(BackgroundLayout.class);
+		if (bundle != null) {
+			Platform.getLog(bundle).log(
+					new Status(IStatus.ERROR, bundle.getSymbolicName(),
+							"The layout of a graph failed", error)); //$NON-NLS-1$
+		}
+	}
+
+	/**
+	 * Copies the given locations and sizes back to the entities of the nodes
+	 * which still exist. Must be called on the display thread.
+	 */
+	void copyBack(double[] values) {
+		for (int i = 0; i < entities.length; i++) {
+			SnapshotEntity snapshot = entities[i];
+			if (snapshot.graphData instanceof Widget
+					&& ((Widget) snapshot.graphData).isDisposed()) {
+				continue;
+			}
+			snapshot.entity.setLocationInLayout(values[i * 4],
+					values[i * 4 + 1]);
+			if (snapshot.resized) {
+				snapshot.entity.setSizeInLayout(values[i * 4 + 2],
+						values[i * 4 + 3]);
+			}
+		}
+	}
+
+}
@@ -11,9 +11,12 @@ package org.eclipse.zest.core.widgets;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import org.eclipse.draw2d.Animation;
 import org.eclipse.draw2d.ColorConstants;
@@ -112,6 +115,16 @@ public class Graph extends FigureCanvas implements IContainer {
 
 	private boolean hasPendingLayoutRequest;
 
+	private boolean layoutInBackground;
+	private boolean continuousLayout;
+	private BackgroundLayout backgroundLayout;
+	private boolean hasLayoutAfterBackgroundLayout;
+
+	/**
+	 * The cached layout input of the node lists laid out, by identity.
+	 */
+	private final Map layoutInputs = new IdentityHashMap();
+
 	/**
 	 * Constructor for a Graph. This widget represents the root of the graph,
 	 * and can contain graph items such as graph nodes and graph connections.
@@ -416,6 +429,61 @@ public class Graph extends FigureCanvas implements IContainer {
 		this.preferredSize = new Dimension(width, height);
 	}
 
+	/**
+	 * Sets whether layouts are computed on a thread of their own, so that the
+	 * display thread does not wait for the layout algorithm. The algorithm is
+	 * given snapshots of the nodes and connections, and the results are copied
+	 * back to the nodes on the display thread once it ends. An algorithm which
+	 * cannot run asynchronously is run on the display thread as before.
+	 * 
+	 * Continuous layouts run until they are stopped with {@link #stopLayout()}
+	 * or another layout is applied, and copy their intermediate results back
+	 * as they go. They are only supported by some algorithms.
+	 * 
+	 * The layout algorithm must have been created on the display thread, and
+	 * its filter and comparator, if any, are called on the layout thread.
+	 * 
+	 * @param background
+	 *            whether layouts are computed in the background
+	 * @param continuous
+	 *            whether background layouts run continuously
+	 */
+	public void setLayoutInBackground(boolean background, boolean continuous) {
+		this.layoutInBackground = background;
+		this.continuousLayout = background && continuous;
+	}
+
+	/**
+	 * Returns whether layouts are computed on a thread of their own.
+	 * 
+	 * @return whether layouts are computed in the background
+	 * @see #setLayoutInBackground(boolean, boolean)
+	 */
+	public boolean isLayoutInBackground() {
+		return layoutInBackground;
+	}
+
+	/**
+	 * Returns whether background layouts run continuously.
+	 * 
+	 * @return whether background layouts run continuously
+	 * @see #setLayoutInBackground(boolean, boolean)
+	 */
+	public boolean isLayoutContinuous() {
+		return continuousLayout;
+	}
+
+	/**
+	 * Stops the layout running in the background, if any, and discards its
+	 * results. The nodes keep the locations of the latest results copied back.
+	 */
+	public void stopLayout() {
+		hasLayoutAfterBackgroundLayout = false;
+		if (backgroundLayout != null) {
+			backgroundLayout.cancel();
+		}
+	}
+
 	/**
 	 * @param algorithm
 	 */
@@ -761,6 +829,7 @@ public class Graph extends FigureCanvas implements IContainer {
 	}
 
 	private void release() {
+		stopLayout();
 		while (nodes.size() > 0) {
 			GraphNode node = (GraphNode) nodes.get(0);
 			if (node != null) {
@@ -916,58 +985,73 @@ public class Graph extends FigureCanvas implements IContainer {
 	}
 
 	LayoutRelationship[] getConnectionsToLayout(List nodesToLayout) {
-		// @tag zest.bug.156528-Filters.follows : make sure not to layout
-		// filtered connections, if the style says so.
-		LayoutRelationship[] entities;
-		if (ZestStyles.checkStyle(style, ZestStyles.IGNORE_INVISIBLE_LAYOUT)) {
-			LinkedList connectionList = new LinkedList();
-			for (Iterator i = this.getConnections().iterator(); i.hasNext();) {
-				GraphConnection next = (GraphConnection) i.next();
-				if (next.isVisible()
-						&& nodesToLayout.contains(next.getSource())
-						&& nodesToLayout.contains(next.getDestination())) {
-					connectionList.add(next.getLayoutRelationship());
-				}
-			}
-			entities = (LayoutRelationship[]) connectionList
-					.toArray(new LayoutRelationship[] {});
-		} else {
-			LinkedList nodeList = new LinkedList();
-			for (Iterator i = this.getConnections().iterator(); i.hasNext();) {
-				GraphConnection next = (GraphConnection) i.next();
-				if (nodesToLayout.contains(next.getSource())
-						&& nodesToLayout.contains(next.getDestination())) {
-					nodeList.add(next.getLayoutRelationship());
-				}
-			}
-			entities = (LayoutRelationship[]) nodeList
-					.toArray(new LayoutRelationship[] {});
-		}
-		return entities;
+		return (LayoutRelationship[]) getLayoutInput(nodesToLayout).relationships
+				.clone();
 	}
 
 	LayoutEntity[] getNodesToLayout(List nodes) {
-		// @tag zest.bug.156528-Filters.follows : make sure not to layout
-		// filtered nodes, if the style says so.
-		LayoutEntity[] entities;
-		if (ZestStyles.checkStyle(style, ZestStyles.IGNORE_INVISIBLE_LAYOUT)) {
-			LinkedList nodeList = new LinkedList();
-			for (Iterator i = nodes.iterator(); i.hasNext();) {
+		return (LayoutEntity[]) getLayoutInput(nodes).entities.clone();
+	}
+
+	/**
+	 * Returns the entities of the given nodes, and the relationships of the
+	 * connections between them, computing them if they are not cached yet.
+	 */
+	private LayoutInput getLayoutInput(List nodesToLayout) {
+		LayoutInput input = (LayoutInput) layoutInputs.get(nodesToLayout);
+		// the lists may have been changed directly
+		if (input == null || input.nodeCount != nodesToLayout.size()
+				|| input.connectionCount != getConnections().size()) {
+			input = new LayoutInput(nodesToLayout);
+			layoutInputs.put(nodesToLayout, input);
+		}
+		return input;
+	}
+
+	/**
+	 * Discards the cached layout input. Called when nodes or connections are
+	 * added or removed, or change their visibility.
+	 */
+	void invalidateLayoutInput() {
+		layoutInputs.clear();
+	}
+
+	private class LayoutInput {
+		final int nodeCount;
+		final int connectionCount;
+		final LayoutEntity[] entities;
+		final LayoutRelationship[] relationships;
+
+		LayoutInput(List nodesToLayout) {
+			// @tag zest.bug.156528-Filters.follows : make sure not to layout
+			// filtered nodes and connections, if the style says so.
+			boolean ignoreInvisible = ZestStyles.checkStyle(style,
+					ZestStyles.IGNORE_INVISIBLE_LAYOUT);
+			nodeCount = nodesToLayout.size();
+			connectionCount = getConnections().size();
+			Set nodeSet = new HashSet(nodeCount * 2);
+			List entityList = new ArrayList(nodeCount);
+			for (Iterator i = nodesToLayout.iterator(); i.hasNext();) {
 				GraphNode next = (GraphNode) i.next();
-				if (next.isVisible()) {
-					nodeList.add(next.getLayoutEntity());
+				nodeSet.add(next);
+				if (!ignoreInvisible || next.isVisible()) {
+					entityList.add(next.getLayoutEntity());
 				}
 			}
-			entities = (LayoutEntity[]) nodeList.toArray(new LayoutEntity[] {});
-		} else {
-			LinkedList nodeList = new LinkedList();
-			for (Iterator i = nodes.iterator(); i.hasNext();) {
-				GraphNode next = (GraphNode) i.next();
-				nodeList.add(next.getLayoutEntity());
+			List relationshipList = new ArrayList();
+			for (Iterator i = getConnections().iterator(); i.hasNext();) {
+				GraphConnection next = (GraphConnection) i.next();
+				if ((!ignoreInvisible || next.isVisible())
+						&& nodeSet.contains(next.getSource())
+						&& nodeSet.contains(next.getDestination())) {
+					relationshipList.add(next.getLayoutRelationship());
+				}
 			}
-			entities = (LayoutEntity[]) nodeList.toArray(new LayoutEntity[] {});
+			entities = (LayoutEntity[]) entityList
+					.toArray(new LayoutEntity[entityList.size()]);
+			relationships = (LayoutRelationship[]) relationshipList
+					.toArray(new LayoutRelationship[relationshipList.size()]);
 		}
-		return entities;
 	}
 
 	void removeConnection(GraphConnection connection) {
@@ -978,6 +1062,7 @@ public class Graph extends FigureCanvas implements IContainer {
 				.getTargetContainerConnectionFigure();
 		connection.removeFigure();
 		this.getConnections().remove(connection);
+		invalidateLayoutInput();
 		figure2ItemMap.remove(figure);
 		if (sourceContainerConnectionFigure != null) {
 			figure2ItemMap.remove(sourceContainerConnectionFigure);
@@ -997,6 +1082,7 @@ public class Graph extends FigureCanvas implements IContainer {
 			}
 		}
 		this.getNodes().remove(node);
+		invalidateLayoutInput();
 		if (this.getSelection() != null) {
 			this.getSelection().remove(node);
 		}
@@ -1005,6 +1091,7 @@ public class Graph extends FigureCanvas implements IContainer {
 
 	void addConnection(GraphConnection connection, boolean addToEdgeLayer) {
 		this.getConnections().add(connection);
+		invalidateLayoutInput();
 		if (addToEdgeLayer) {
 			zestRootLayer.addConnection(connection.getFigure());
 		}
@@ -1030,11 +1117,13 @@ public class Graph extends FigureCanvas implements IContainer {
 
 	void addNode(GraphNode node) {
 		this.getNodes().add(node);
+		invalidateLayoutInput();
 		zestRootLayer.addNode(node.getFigure());
 	}
 
 	void addNode(GraphContainer graphContainer) {
 		this.getNodes().add(graphContainer);
+		invalidateLayoutInput();
 		zestRootLayer.addNode(graphContainer.getFigure());
 
 	}
@@ -1099,6 +1188,14 @@ public class Graph extends FigureCanvas implements IContainer {
 	private void applyLayoutInternal() {
 		hasPendingLayoutRequest = false;
 
+		if (backgroundLayout != null) {
+			// the algorithm may still be running, and is applied again once
+			// it has stopped
+			backgroundLayout.cancel();
+			hasLayoutAfterBackgroundLayout = true;
+			return;
+		}
+
 		if ((this.getNodes().size() == 0)) {
 			return;
 		}
@@ -1133,6 +1230,18 @@ public class Graph extends FigureCanvas implements IContainer {
 		LayoutRelationship[] connectionsToLayout = getConnectionsToLayout(nodes);
 		LayoutEntity[] nodesToLayout = getNodesToLayout(getNodes());
 
+		if (layoutInBackground) {
+			BackgroundLayout layout = new BackgroundLayout(this,
+					layoutAlgorithm, nodesToLayout, connectionsToLayout);
+			try {
+				layout.start(0, 0, d.width, d.height, continuousLayout);
+				backgroundLayout = layout;
+				return;
+			} catch (InvalidLayoutConfiguration e) {
+				// the algorithm only runs on the display thread
+			}
+		}
+
 		try {
 			if ((nodeStyle & ZestStyles.NODES_NO_LAYOUT_ANIMATION) == 0) {
 				Animation.markBegin();
@@ -1150,6 +1259,39 @@ public class Graph extends FigureCanvas implements IContainer {
 
 	}
 
+	/**
+	 * Copies the results of the given background layout back to the nodes, in
+	 * a single update. The last results are animated.
+	 */
+	void applyBackgroundLayout(BackgroundLayout layout, double[] results,
+			boolean last) {
+		boolean animate = last
+				&& (nodeStyle & ZestStyles.NODES_NO_LAYOUT_ANIMATION) == 0;
+		if (animate) {
+			Animation.markBegin();
+		}
+		layout.copyBack(results);
+		if (animate) {
+			Animation.run(ANIMATION_TIME);
+		}
+		getLightweightSystem().getUpdateManager().performUpdate();
+	}
+
+	/**
+	 * Called once the thread of the given background layout has ended, after
+	 * its last results, if any, have been copied back.
+	 */
+	void backgroundLayoutEnded(BackgroundLayout layout) {
+		if (layout != backgroundLayout) {
+			return;
+		}
+		backgroundLayout = null;
+		if (hasLayoutAfterBackgroundLayout && !isDisposed()) {
+			hasLayoutAfterBackgroundLayout = false;
+			applyLayoutInternal();
+		}
+	}
+
 	interface MyRunnable extends Runnable {
 		public boolean isVisible();
 	}
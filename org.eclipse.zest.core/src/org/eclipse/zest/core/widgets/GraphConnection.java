@@ -532,7 +532,7 @@ public class GraphConnection extends GraphItem {
 			}
 			this.visible = false;
 		}
-
+		graphModel.invalidateLayoutInput();
 	}
 
 	/*
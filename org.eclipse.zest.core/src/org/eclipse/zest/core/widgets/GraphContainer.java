@@ -858,6 +858,7 @@ public class GraphContainer extends GraphNode implements IContainer {
 	void addNode(GraphNode node) {
 		zestLayer.addNode(node.getNodeFigure());
 		this.childNodes.add(node);
+		getGraph().invalidateLayoutInput();
 		// container.add(node.getNodeFigure());
 		// graph.registerItem(node);
 	}
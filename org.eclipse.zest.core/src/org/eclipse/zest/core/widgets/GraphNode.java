@@ -635,6 +635,7 @@ public class GraphNode extends GraphItem {
 	public void setVisible(boolean visible) {
 		// graph.addRemoveFigure(this, visible);
 		this.visible = visible;
+		graph.invalidateLayoutInput();
 		this.getFigure().setVisible(visible);
 		List sConnections = (this).getSourceConnections();
 		List tConnections = (this).getTargetConnections();
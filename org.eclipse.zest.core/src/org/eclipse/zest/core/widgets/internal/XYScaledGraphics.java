@@ -18,6 +18,7 @@ import java.util.Map;
 
 import org.eclipse.draw2d.FigureUtilities;
 import org.eclipse.draw2d.Graphics;
+import org.eclipse.draw2d.ScaledFontCache;
 import org.eclipse.draw2d.ScaledGraphics;
 import org.eclipse.draw2d.geometry.Point;
 import org.eclipse.draw2d.geometry.PointList;
@@ -188,7 +189,7 @@ public class XYScaledGraphics extends ScaledGraphics {
 	}
 
 	Font createFont(FontData data) {
-		return new Font(Display.getCurrent(), data);
+		return ScaledFontCache.getInstance().acquire(data);
 	}
 
 	/** @see Graphics#dispose() */
@@ -198,12 +199,13 @@ public class XYScaledGraphics extends ScaledGraphics {
 			popState();
 		}
 
-		// Dispose fonts
+		// Release fonts
 		Iterator iter = fontCache.values().iterator();
 		while (iter.hasNext()) {
 			Font font = ((Font) iter.next());
-			font.dispose();
+			ScaledFontCache.getInstance().release(font);
 		}
+		fontCache.clear();
 
 	}
 
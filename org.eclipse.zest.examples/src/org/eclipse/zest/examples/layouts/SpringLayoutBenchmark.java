@@ -0,0 +1,77 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.zest.examples.layouts;
+
+import java.util.Random;
+
+import org.eclipse.zest.layouts.InvalidLayoutConfiguration;
+import org.eclipse.zest.layouts.LayoutEntity;
+import org.eclipse.zest.layouts.LayoutRelationship;
+import org.eclipse.zest.layouts.LayoutStyles;
+import org.eclipse.zest.layouts.algorithms.SpringLayoutAlgorithm;
+import org.eclipse.zest.layouts.exampleStructures.SimpleNode;
+import org.eclipse.zest.layouts.exampleStructures.SimpleRelationship;
+
+/**
+ * Measures how the spring layout scales with the number of nodes and of
+ * threads. Random graphs of 1,000, 10,000 and 50,000 nodes are laid out with
+ * the Barnes-Hut approximation, first in the calling thread and then using all
+ * processors. The layout uses a fixed seed, so both runs compute the same
+ * positions.
+ */
+public class SpringLayoutBenchmark {
+
+	private static final int[] SIZES = new int[] { 1000, 10000, 50000 };
+
+	private static final int ITERATIONS = 50;
+
+	private static final double THETA = 0.8;
+
+	public static void main(String[] args) throws InvalidLayoutConfiguration {
+		int processors = Runtime.getRuntime().availableProcessors();
+		for (int s = 0; s < SIZES.length; s++) {
+			long sequential = run(SIZES[s], 1);
+			long parallel = run(SIZES[s], processors);
+			System.out.println(SIZES[s] + " nodes: 1 thread " + sequential
+					+ " ms, " + processors + " threads " + parallel + " ms");
+		}
+	}
+
+	private static long run(int size, int parallelism)
+			throws InvalidLayoutConfiguration {
+		Random random = new Random(0);
+		LayoutEntity[] nodes = new LayoutEntity[size];
+		for (int i = 0; i < size; i++) {
+			nodes[i] = new SimpleNode("node" + i, 0, 0, 10, 10);
+		}
+		// a random tree plus as many random cross edges
+		LayoutRelationship[] relationships = new LayoutRelationship[2 * (size - 1)];
+		for (int i = 1; i < size; i++) {
+			relationships[2 * i - 2] = new SimpleRelationship(
+					nodes[random.nextInt(i)], nodes[i], false);
+			relationships[2 * i - 1] = new SimpleRelationship(
+					nodes[random.nextInt(size)], nodes[random.nextInt(size)],
+					false);
+		}
+
+		SpringLayoutAlgorithm algorithm = new SpringLayoutAlgorithm(
+				LayoutStyles.NO_LAYOUT_NODE_RESIZING);
+		algorithm.setIterations(ITERATIONS);
+		algorithm.setBarnesHutTheta(THETA);
+		algorithm.setParallelism(parallelism);
+		algorithm.setRandomSeed(0);
+		long start = System.currentTimeMillis();
+		algorithm.applyLayout(nodes, relationships, 0, 0, 1000, 1000, false,
+				false);
+		return System.currentTimeMillis() - start;
+	}
+
+}
@@ -15,8 +15,12 @@ import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Collection;
 import java.util.Comparator;
-import java.util.Iterator;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import org.eclipse.zest.layouts.Filter;
 import org.eclipse.zest.layouts.InvalidLayoutConfiguration;
@@ -87,6 +91,10 @@ public abstract class AbstractLayoutAlgorithm implements LayoutAlgorithm, Stoppa
 	 */
 	private InternalNode[] internalNodes;
 	private InternalRelationship[] internalRelationships;
+	/** The index of each internal node, created by the first update. */
+	private Map nodeIndices;
+	/** The index of each internal relationship, created like nodeIndices. */
+	private Map relationshipIndices;
 	private double internalX;
 	private double internalY;
 	private double internalWidth;
@@ -97,21 +105,26 @@ public abstract class AbstractLayoutAlgorithm implements LayoutAlgorithm, Stoppa
 	/*
 	 * A queue of entities and relationships to add or remove.  Each layout 
 	 * algorithm should check these and update their internal lists.
+	 * The queues may be changed while the algorithm runs on another thread,
+	 * and are guarded by updateLock.
 	 */
 
-	/** A list of LayoutEntity objects to be removed from the layout. */
-	private List entitiesToRemove;
-	/** A list of LayoutRelationship objects to be removed. */
-	private List relationshipsToRemove;
-	/** A list of LayoutEntity objects to be added to the layout. */
-	private List entitiesToAdd;
-	/** A list of LayoutRelationship objects to be added. */
-	private List relationshipsToAdd;
+	private final Object updateLock = new Object();
+	/** A set of LayoutEntity objects to be removed from the layout. */
+	private Set entitiesToRemove;
+	/** A set of LayoutRelationship objects to be removed. */
+	private Set relationshipsToRemove;
+	/** A set of LayoutEntity objects to be added to the layout. */
+	private Set entitiesToAdd;
+	/** A set of LayoutRelationship objects to be added. */
+	private Set relationshipsToAdd;
 
 	//protected boolean cancelled = false;
 
 	protected boolean layoutStopped = true;
 
+	private volatile Throwable layoutFailure;
+
 	protected int layout_styles = 0;
 
 	// Child classes can set to false to retain node shapes and sizes
@@ -127,10 +140,10 @@ public abstract class AbstractLayoutAlgorithm implements LayoutAlgorithm, Stoppa
 		this.lastProgressEventFired = Calendar.getInstance();
 		this.widthToHeightRatio = 1.0;
 
-		this.entitiesToRemove = new ArrayList();
-		this.relationshipsToRemove = new ArrayList();
-		this.entitiesToAdd = new ArrayList();
-		this.relationshipsToAdd = new ArrayList();
+		this.entitiesToRemove = new LinkedHashSet();
+		this.relationshipsToRemove = new LinkedHashSet();
+		this.entitiesToAdd = new LinkedHashSet();
+		this.relationshipsToAdd = new LinkedHashSet();
 		this.layout_styles = styles;
 	}
 
@@ -139,8 +152,10 @@ public abstract class AbstractLayoutAlgorithm implements LayoutAlgorithm, Stoppa
 	 * @param entity
 	 */
 	public void addEntity(LayoutEntity entity) {
-		if ((entity != null) && !entitiesToAdd.contains(entity)) {
-			entitiesToAdd.add(entity);
+		if (entity != null) {
+			synchronized (updateLock) {
+				entitiesToAdd.add(entity);
+			}
 		}
 	}
 
@@ -149,8 +164,10 @@ public abstract class AbstractLayoutAlgorithm implements LayoutAlgorithm, Stoppa
 	 * @param relationship
 	 */
 	public void addRelationship(LayoutRelationship relationship) {
-		if ((relationship != null) && !relationshipsToAdd.contains(relationship)) {
-			relationshipsToAdd.add(relationship);
+		if (relationship != null) {
+			synchronized (updateLock) {
+				relationshipsToAdd.add(relationship);
+			}
 		}
 	}
 
@@ -159,8 +176,10 @@ public abstract class AbstractLayoutAlgorithm implements LayoutAlgorithm, Stoppa
 	 * @param entity The entity to remove
 	 */
 	public void removeEntity(LayoutEntity entity) {
-		if ((entity != null) && !entitiesToRemove.contains(entity)) {
-			entitiesToRemove.add(entity);
+		if (entity != null) {
+			synchronized (updateLock) {
+				entitiesToRemove.add(entity);
+			}
 		}
 	}
 
@@ -169,8 +188,10 @@ public abstract class AbstractLayoutAlgorithm implements LayoutAlgorithm, Stoppa
 	 * @param relationship	The relationship to remove.
 	 */
 	public void removeRelationship(LayoutRelationship relationship) {
-		if ((relationship != null) && !relationshipsToRemove.contains(relationship)) {
-			relationshipsToRemove.add(relationship);
+		if (relationship != null) {
+			synchronized (updateLock) {
+				relationshipsToRemove.add(relationship);
+			}
 		}
 	}
 
@@ -179,9 +200,9 @@ public abstract class AbstractLayoutAlgorithm implements LayoutAlgorithm, Stoppa
 	 * @param relationships
 	 */
 	public void removeRelationships(List relationships) {
-		// note we don't check if the relationshipsToRemove contains
-		// any of the objects in relationships.
-		relationshipsToRemove.addAll(relationships);
+		synchronized (updateLock) {
+			relationshipsToRemove.addAll(relationships);
+		}
 	}
 
 	/**
@@ -225,105 +246,159 @@ public abstract class AbstractLayoutAlgorithm implements LayoutAlgorithm, Stoppa
 
 	/**
 	 * Updates the given array of entities checking if any need to be removed or added.
-	 * @param entities the current entities
+	 * A removed entity is replaced by the last one, and the added ones are appended,
+	 * so that the cost of an update depends on the number of entities added or
+	 * removed, save for copying the array once. Subclasses keeping state by index
+	 * are told of the moves through {@link #entitiesUpdated(InternalNode[], int[])}.
+	 * @param entities the current entities, as passed to applyLayoutInternal or
+	 * last returned by this method
 	 * @return the updated entities array
 	 */
 	protected InternalNode[] updateEntities(InternalNode[] entities) {
-		if ((entitiesToRemove.size() > 0) || (entitiesToAdd.size() > 0)) {
-			List internalNodesList = new ArrayList(Arrays.asList(entities));
-
-			// remove nodes
-			for (Iterator iter = entitiesToRemove.iterator(); iter.hasNext();) {
-				LayoutEntity entity = (LayoutEntity) iter.next();
-				if (entity.getLayoutInformation() != null) {
-					internalNodesList.remove(entity.getLayoutInformation());
-				}
+		Object[] removed;
+		LayoutEntity[] added;
+		synchronized (updateLock) {
+			if (entitiesToRemove.isEmpty() && entitiesToAdd.isEmpty()) {
+				return entities;
 			}
-
-			// Also remove from _internalNodes
-			ArrayList updatedEntities = new ArrayList(internalNodes.length - entitiesToRemove.size() + entitiesToAdd.size());
+			removed = entitiesToRemove.toArray();
+			added = (LayoutEntity[]) entitiesToAdd.toArray(new LayoutEntity[entitiesToAdd.size()]);
+			entitiesToRemove.clear();
+			entitiesToAdd.clear();
+		}
+		if (nodeIndices == null) {
+			nodeIndices = new IdentityHashMap(internalNodes.length * 2);
 			for (int i = 0; i < internalNodes.length; i++) {
-				InternalNode node = internalNodes[i];
-				if (entitiesToRemove.contains(node.getLayoutEntity())) {
-					entitiesToRemove.remove(node.getLayoutEntity());
-				} else {
-					updatedEntities.add(node);
-				}
+				nodeIndices.put(internalNodes[i], Integer.valueOf(i));
 			}
-			entitiesToRemove.clear();
+		}
+		int size = internalNodes.length;
+		InternalNode[] nodes = new InternalNode[size + added.length];
+		System.arraycopy(internalNodes, 0, nodes, 0, size);
+		int[] previousIndices = new int[nodes.length];
+		for (int i = 0; i < size; i++) {
+			previousIndices[i] = i;
+		}
 
-			// Add any new nodes
-			LayoutEntity[] entitiesArray = new LayoutEntity[entitiesToAdd.size()];
-			entitiesArray = (LayoutEntity[]) entitiesToAdd.toArray(entitiesArray);
-			InternalNode[] newNodes = createInternalNodes(entitiesArray);
-			for (int i = 0; i < newNodes.length; i++) {
-				internalNodesList.add(newNodes[i]);
-				updatedEntities.add(newNodes[i]);
+		// remove nodes, moving the last one in their place
+		for (int i = 0; i < removed.length; i++) {
+			Integer index = (Integer) nodeIndices.remove(((LayoutEntity) removed[i]).getLayoutInformation());
+			if (index == null) {
+				// not laid out, or already removed
+				continue;
 			}
-			entitiesToAdd.clear();
-
-			entities = new InternalNode[internalNodesList.size()];
-			entities = (InternalNode[]) internalNodesList.toArray(entities);
+			int slot = index.intValue();
+			size--;
+			if (slot != size) {
+				nodes[slot] = nodes[size];
+				previousIndices[slot] = previousIndices[size];
+				nodeIndices.put(nodes[slot], index);
+			}
+			nodes[size] = null;
+		}
 
-			internalNodes = new InternalNode[updatedEntities.size()];
-			internalNodes = (InternalNode[]) updatedEntities.toArray(internalNodes);
+		// Add any new nodes, after the removed ones, which may be the same entities
+		InternalNode[] newNodes = createInternalNodes(added);
+		for (int i = 0; i < newNodes.length; i++) {
+			nodes[size] = newNodes[i];
+			previousIndices[size] = -1;
+			nodeIndices.put(newNodes[i], Integer.valueOf(size));
+			size++;
 		}
 
-		return entities;
+		if (size < nodes.length) {
+			InternalNode[] trimmed = new InternalNode[size];
+			System.arraycopy(nodes, 0, trimmed, 0, size);
+			nodes = trimmed;
+			int[] trimmedIndices = new int[size];
+			System.arraycopy(previousIndices, 0, trimmedIndices, 0, size);
+			previousIndices = trimmedIndices;
+		}
+		internalNodes = nodes;
+		entitiesUpdated(internalNodes, previousIndices);
+		return internalNodes;
 	}
 
 	/**
 	 * Updates the given array of relationships checking if any need to be removed or added.
-	 * Also updates the original array of relationships.
-	 * @param relationships the current relationships
+	 * As with entities, a removed relationship is replaced by the last one and the added
+	 * ones are appended. Subclasses are told of the changes through
+	 * {@link #relationshipsUpdated(InternalRelationship[])}.
+	 * @param relationships the current relationships, as passed to applyLayoutInternal
+	 * or last returned by this method
 	 * @return the update relationships array
 	 */
 	protected InternalRelationship[] updateRelationships(InternalRelationship[] relationships) {
-		if ((relationshipsToRemove.size() > 0) || (relationshipsToAdd.size() > 0)) {
-			List internalRelsList = new ArrayList(Arrays.asList(relationships));
-
-			// remove relationships
-			if (relationshipsToRemove.size() > 0) {
-				for (Iterator iter = relationshipsToRemove.iterator(); iter.hasNext();) {
-					LayoutRelationship relation = (LayoutRelationship) iter.next();
-					if (relation.getLayoutInformation() != null) {
-						internalRelsList.remove(relation.getLayoutInformation());
-					}
-				}
+		Object[] removed;
+		LayoutRelationship[] added;
+		synchronized (updateLock) {
+			if (relationshipsToRemove.isEmpty() && relationshipsToAdd.isEmpty()) {
+				return relationships;
 			}
-
-			// Also remove from _internalRelationships
-			ArrayList updatedRelationships = new ArrayList(internalRelationships.length - relationshipsToRemove.size() + relationshipsToAdd.size());
+			removed = relationshipsToRemove.toArray();
+			added = (LayoutRelationship[]) relationshipsToAdd.toArray(new LayoutRelationship[relationshipsToAdd.size()]);
+			relationshipsToRemove.clear();
+			relationshipsToAdd.clear();
+		}
+		if (relationshipIndices == null) {
+			relationshipIndices = new IdentityHashMap(internalRelationships.length * 2);
 			for (int i = 0; i < internalRelationships.length; i++) {
-				InternalRelationship relation = internalRelationships[i];
-				if (relationshipsToRemove.contains(relation.getLayoutRelationship())) {
-					relationshipsToRemove.remove(relation.getLayoutRelationship());
-				} else {
-					updatedRelationships.add(relation);
-				}
+				relationshipIndices.put(internalRelationships[i], Integer.valueOf(i));
 			}
-			relationshipsToRemove.clear();
-
-			// add relationships
-			if (relationshipsToAdd.size() > 0) {
-				LayoutRelationship[] relsArray = new LayoutRelationship[relationshipsToAdd.size()];
-				relsArray = (LayoutRelationship[]) relationshipsToAdd.toArray(relsArray);
-				InternalRelationship[] newRelationships = createInternalRelationships(relsArray);
-				for (int i = 0; i < newRelationships.length; i++) {
-					internalRelsList.add(newRelationships[i]);
-					updatedRelationships.add(newRelationships[i]);
-				}
+		}
+		int size = internalRelationships.length;
+		InternalRelationship[] rels = new InternalRelationship[size + added.length];
+		System.arraycopy(internalRelationships, 0, rels, 0, size);
+
+		// remove relationships, moving the last one in their place
+		for (int i = 0; i < removed.length; i++) {
+			Integer index = (Integer) relationshipIndices.remove(((LayoutRelationship) removed[i]).getLayoutInformation());
+			if (index == null) {
+				continue;
 			}
-			relationshipsToAdd.clear();
+			int slot = index.intValue();
+			size--;
+			if (slot != size) {
+				rels[slot] = rels[size];
+				relationshipIndices.put(rels[slot], index);
+			}
+			rels[size] = null;
+		}
 
-			relationships = new InternalRelationship[internalRelsList.size()];
-			relationships = (InternalRelationship[]) internalRelsList.toArray(relationships);
+		// add relationships
+		InternalRelationship[] newRelationships = createInternalRelationships(added);
+		for (int i = 0; i < newRelationships.length; i++) {
+			rels[size] = newRelationships[i];
+			relationshipIndices.put(newRelationships[i], Integer.valueOf(size));
+			size++;
+		}
 
-			internalRelationships = new InternalRelationship[updatedRelationships.size()];
-			internalRelationships = (InternalRelationship[]) updatedRelationships.toArray(internalRelationships);
+		if (size < rels.length) {
+			InternalRelationship[] trimmed = new InternalRelationship[size];
+			System.arraycopy(rels, 0, trimmed, 0, size);
+			rels = trimmed;
 		}
+		internalRelationships = rels;
+		relationshipsUpdated(internalRelationships);
+		return internalRelationships;
+	}
 
-		return relationships;
+	/**
+	 * Called by {@link #updateEntities(InternalNode[])} after entities were added
+	 * or removed. Does nothing by default.
+	 * @param entities the updated entities
+	 * @param previousIndices for each entity, its index before the update, or -1
+	 * if it was added
+	 */
+	protected void entitiesUpdated(InternalNode[] entities, int[] previousIndices) {
+	}
+
+	/**
+	 * Called by {@link #updateRelationships(InternalRelationship[])} after
+	 * relationships were added or removed. Does nothing by default.
+	 * @param relationships the updated relationships
+	 */
+	protected void relationshipsUpdated(InternalRelationship[] relationships) {
 	}
 
 	/**
@@ -345,6 +420,17 @@ public abstract class AbstractLayoutAlgorithm implements LayoutAlgorithm, Stoppa
 	 }
 	 */
 
+	/**
+	 * Returns the exception or error which ended the last asynchronous layout,
+	 * or null if it did not fail. A failed layout is not rethrown on its
+	 * thread, but still ends its progress, so this may be called by progress
+	 * listeners when the progress ends.
+	 * @return the failure of the last asynchronous layout, or null
+	 */
+	public Throwable getLayoutFailure() {
+		return layoutFailure;
+	}
+
 	/**
 	 * Returns true if the layout algorithm is running
 	 * @return boolean if the layout algorithm is running
@@ -359,8 +445,11 @@ public abstract class AbstractLayoutAlgorithm implements LayoutAlgorithm, Stoppa
 	 */
 	public synchronized void stop() {
 		layoutStopped = true;
-		postLayoutAlgorithm(internalNodes, internalRelationships);
-		fireProgressEnded(getTotalNumberOfLayoutSteps());
+		try {
+			postLayoutAlgorithm(internalNodes, internalRelationships);
+		} finally {
+			fireProgressEnded(getTotalNumberOfLayoutSteps());
+		}
 	}
 
 	//	/**
@@ -403,6 +492,8 @@ public abstract class AbstractLayoutAlgorithm implements LayoutAlgorithm, Stoppa
 		// Create the internal nodes and relationship
 		internalNodes = createInternalNodes(entitiesToLayout);
 		internalRelationships = createInternalRelationships(relationshipsToConsider);
+		nodeIndices = null;
+		relationshipIndices = null;
 	}
 
 	//	public synchronized Stoppable getLayoutThread(LayoutEntity[] entitiesToLayout, LayoutRelationship[] relationshipsToConsider, double x, double y, double width, double height, boolean continuous) {
@@ -451,6 +542,7 @@ public abstract class AbstractLayoutAlgorithm implements LayoutAlgorithm, Stoppa
 		clearBendPoints(relationshipsToConsider);
 
 		this.layoutStopped = false;
+		this.layoutFailure = null;
 
 		// when an algorithm starts, reset the progress event
 		lastProgressEventFired = Calendar.getInstance();
@@ -459,11 +551,19 @@ public abstract class AbstractLayoutAlgorithm implements LayoutAlgorithm, Stoppa
 			Thread thread = new Thread(new Runnable() {
 
 				public void run() {
-					setupLayout(entitiesToLayout, relationshipsToConsider, x, y, width, height);
-					preLayoutAlgorithm(internalNodes, internalRelationships, internalX, internalY, internalWidth, internalHeight);
-					fireProgressStarted(getTotalNumberOfLayoutSteps());
-
-					applyLayoutInternal(internalNodes, internalRelationships, internalX, internalY, internalWidth, internalHeight);
+					try {
+						setupLayout(entitiesToLayout, relationshipsToConsider, x, y, width, height);
+						preLayoutAlgorithm(internalNodes, internalRelationships, internalX, internalY, internalWidth, internalHeight);
+						fireProgressStarted(getTotalNumberOfLayoutSteps());
+
+						applyLayoutInternal(internalNodes, internalRelationships, internalX, internalY, internalWidth, internalHeight);
+					} catch (RuntimeException e) {
+						layoutFailure = e;
+					} catch (Error e) {
+						layoutFailure = e;
+					}
+					// the progress ends even if the layout failed, so that
+					// listeners waiting for the end are told
 					stop();
 				}
 
@@ -618,23 +718,12 @@ public abstract class AbstractLayoutAlgorithm implements LayoutAlgorithm, Stoppa
 	 */
 	public static boolean verifyInput(LayoutEntity[] entitiesToLayout, LayoutRelationship[] relationshipsToConsider) {
 		boolean stillValid = true;
+		Set entities = new HashSet(Arrays.asList(entitiesToLayout));
 		for (int i = 0; i < relationshipsToConsider.length; i++) {
 			LayoutRelationship relationship = relationshipsToConsider[i];
 			LayoutEntity source = relationship.getSourceInLayout();
 			LayoutEntity destination = relationship.getDestinationInLayout();
-			boolean containsSrc = false;
-			boolean containsDest = false;
-			int j = 0;
-			while (j < entitiesToLayout.length && !(containsSrc && containsDest)) {
-				if (entitiesToLayout[j].equals(source)) {
-					containsSrc = true;
-				}
-				if (entitiesToLayout[j].equals(destination)) {
-					containsDest = true;
-				}
-				j++;
-			}
-			stillValid = containsSrc && containsDest;
+			stillValid = entities.contains(source) && entities.contains(destination);
 		}
 		return stillValid;
 	}
@@ -905,21 +994,49 @@ public abstract class AbstractLayoutAlgorithm implements LayoutAlgorithm, Stoppa
 	private DisplayIndependentDimension getMinimumDistance(InternalNode[] entitiesToLayout) {
 		DisplayIndependentDimension horAndVertdistance = new DisplayIndependentDimension(Double.MAX_VALUE, Double.MAX_VALUE);
 		double minDistance = Double.MAX_VALUE; // the minimum distance between all the nodes
-		//TODO: Very Slow!
-		for (int i = 0; i < entitiesToLayout.length; i++) {
-			InternalNode layoutEntity1 = entitiesToLayout[i];
-			double x1 = layoutEntity1.getInternalX();
-			double y1 = layoutEntity1.getInternalY();
-			for (int j = i + 1; j < entitiesToLayout.length; j++) {
-				InternalNode layoutEntity2 = entitiesToLayout[j];
-				double x2 = layoutEntity2.getInternalX();
-				double y2 = layoutEntity2.getInternalY();
-				double distanceX = Math.abs(x1 - x2);
-				double distanceY = Math.abs(y1 - y2);
+		int n = entitiesToLayout.length;
+		final double[] xs = new double[n];
+		final double[] ys = new double[n];
+		double minX = Double.MAX_VALUE, maxX = -Double.MAX_VALUE, minY = Double.MAX_VALUE, maxY = -Double.MAX_VALUE;
+		for (int i = 0; i < n; i++) {
+			xs[i] = entitiesToLayout[i].getInternalX();
+			ys[i] = entitiesToLayout[i].getInternalY();
+			minX = Math.min(minX, xs[i]);
+			maxX = Math.max(maxX, xs[i]);
+			minY = Math.min(minY, ys[i]);
+			maxY = Math.max(maxY, ys[i]);
+		}
+		// Sweep along the axis with the larger spread: only nodes closer than
+		// the best distance so far along that axis need to be compared
+		final double[] sweep = maxX - minX >= maxY - minY ? xs : ys;
+		Integer[] order = new Integer[n];
+		for (int i = 0; i < n; i++) {
+			order[i] = Integer.valueOf(i);
+		}
+		Arrays.sort(order, new Comparator() {
+			public int compare(Object o1, Object o2) {
+				return Double.compare(sweep[((Integer) o1).intValue()], sweep[((Integer) o2).intValue()]);
+			}
+		});
+		int bestI = -1, bestJ = -1;
+		for (int k = 1; k < n; k++) {
+			int a = order[k].intValue();
+			for (int m = k - 1; m >= 0; m--) {
+				int b = order[m].intValue();
+				if (sweep[a] - sweep[b] > minDistance) {
+					break;
+				}
+				int i = Math.min(a, b);
+				int j = Math.max(a, b);
+				double distanceX = Math.abs(xs[i] - xs[j]);
+				double distanceY = Math.abs(ys[i] - ys[j]);
 				double distance = Math.sqrt(Math.pow(distanceX, 2) + Math.pow(distanceY, 2));
 
-				if (distance < minDistance) {
+				// on ties, keep the pair a scan in index order would find first
+				if (distance < minDistance || (distance == minDistance && (i < bestI || (i == bestI && j < bestJ)))) {
 					minDistance = distance;
+					bestI = i;
+					bestJ = j;
 					horAndVertdistance.width = distanceX;
 					horAndVertdistance.height = distanceY;
 				}
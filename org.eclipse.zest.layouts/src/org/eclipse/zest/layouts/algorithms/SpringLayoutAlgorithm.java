@@ -11,9 +11,14 @@ package org.eclipse.zest.layouts.algorithms;
 
 import java.util.Date;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 
 import org.eclipse.zest.layouts.LayoutStyles;
+import org.eclipse.zest.layouts.algorithms.internal.QuadTree;
 import org.eclipse.zest.layouts.dataStructures.DisplayIndependentRectangle;
 import org.eclipse.zest.layouts.dataStructures.InternalNode;
 import org.eclipse.zest.layouts.dataStructures.InternalRelationship;
@@ -85,6 +90,12 @@ public class SpringLayoutAlgorithm extends ContinuousLayoutAlgorithm {
 	 */
 	public static final double DEFAULT_SPRING_GRAVITATION = 1.0f;
 
+	/**
+	 * The default Barnes-Hut opening criterion, which computes the repulsion
+	 * between all pairs of nodes exactly.
+	 */
+	public static final double DEFAULT_BARNES_HUT_THETA = 0;
+
 	/**
 	 * The variable can be customized to set the number of iterations used.
 	 */
@@ -140,27 +151,76 @@ public class SpringLayoutAlgorithm extends ContinuousLayoutAlgorithm {
 	private double largestMovement = 0;
 
 	/**
-	 * Maps a src and dest object to the number of relations between them. Key
-	 * is src.toString() + dest.toString(), value is an Integer
+	 * Maps a relationship type to a weight. Key is a string, value is a Double
 	 */
-	private Map srcDestToNumRelsMap;
+	private static Map relTypeToWeightMap = new HashMap();
+
+	private int iteration;
 
 	/**
-	 * Maps a src and dest object to the average weight of the relations between
-	 * them. Key is src.toString() + dest.toString(), value is a Double
+	 * The relations between nodes, stored per node as in a sparse matrix. The
+	 * related nodes of node i with a greater index than i are found in
+	 * <code>adjacent</code> from <code>adjacentStart[i]</code> (inclusive) to
+	 * <code>adjacentStart[i + 1]</code> (exclusive), in ascending order.
 	 */
-	private Map srcDestToRelsAvgWeightMap;
+	private int[] adjacentStart;
+
+	private int[] adjacent;
 
 	/**
-	 * Maps a relationship type to a weight. Key is a string, value is a Double
+	 * The number of relations between two related nodes, parallel to
+	 * <code>adjacent</code>.
 	 */
-	private static Map relTypeToWeightMap = new HashMap();
+	private int[] adjacentNumRels;
 
-	private int iteration;
+	/**
+	 * The average weight of the relations between two related nodes, parallel
+	 * to <code>adjacent</code>.
+	 */
+	private double[] adjacentAvgWeight;
+
+	/**
+	 * The Barnes-Hut opening criterion, 0 for exact repulsion.
+	 */
+	private double theta = DEFAULT_BARNES_HUT_THETA;
+
+	private QuadTree quadTree;
+
+	/**
+	 * For each node, the start of the related nodes <i>before</i> it in
+	 * <code>incomingNode</code> and <code>incomingPair</code>.
+	 */
+	private int[] incomingStart;
 
-	private int[][] srcDestToNumRels;
+	/**
+	 * The related nodes with a smaller index, by node.
+	 */
+	private int[] incomingNode;
+
+	/**
+	 * The index in <code>adjacent</code> of the pair with an incoming node.
+	 */
+	private int[] incomingPair;
+
+	/**
+	 * Whether nodes or relationships were added or removed since the relations
+	 * were built.
+	 */
+	private boolean adjacencyOutdated;
+
+	/**
+	 * The number of threads computing an iteration, 1 to compute in the
+	 * calling thread.
+	 */
+	private int parallelism = 1;
+
+	private ForkJoinPool pool;
+
+	private boolean hasRandomSeed;
 
-	private double[][] srcDestToRelsAvgWeight;
+	private long randomSeed;
+
+	private Random random;
 
 	private double[] tempLocationsX;
 
@@ -181,8 +241,6 @@ public class SpringLayoutAlgorithm extends ContinuousLayoutAlgorithm {
 	 */
 	public SpringLayoutAlgorithm(int styles) {
 		super(styles);
-		srcDestToNumRelsMap = new HashMap();
-		srcDestToRelsAvgWeightMap = new HashMap();
 		date = new Date();
 	}
 
@@ -334,6 +392,76 @@ public class SpringLayoutAlgorithm extends ContinuousLayoutAlgorithm {
 		return sprRandom;
 	}
 
+	/**
+	 * Sets the opening criterion of the Barnes-Hut approximation of the
+	 * repulsion between nodes. With a positive value, the nodes are kept in a
+	 * quadtree and a group of nodes whose extent, seen from a node, is smaller
+	 * than <code>theta</code> times its distance repels that node as a whole.
+	 * This reduces each iteration from O(n<sup>2</sup>) to O(n log n). Values
+	 * between 0.5 and 1.0 give a good compromise between speed and accuracy;
+	 * larger values are faster and coarser. 0, the default, computes the
+	 * repulsion between every pair of nodes exactly.
+	 * 
+	 * @param theta
+	 *            the opening criterion, 0 for exact repulsion
+	 */
+	public void setBarnesHutTheta(double theta) {
+		if (theta < 0)
+			throw new IllegalArgumentException("Theta must not be negative");
+		this.theta = theta;
+	}
+
+	/**
+	 * Returns the opening criterion of the Barnes-Hut approximation.
+	 * 
+	 * @return the opening criterion, 0 if the repulsion is computed exactly
+	 */
+	public double getBarnesHutTheta() {
+		return theta;
+	}
+
+	/**
+	 * Sets the number of threads among which the nodes are partitioned to
+	 * compute the forces and positions of an iteration. Every node gathers the
+	 * forces acting on it independently, whatever the number of threads, so
+	 * the results do not depend on it, and a layout with a fixed
+	 * {@link #setRandomSeed(long) seed} is reproducible. Iterations are still
+	 * run one after the other, so progress is reported and the layout may be
+	 * stopped as before.
+	 * 
+	 * @param parallelism
+	 *            the number of threads, 1 (the default) to compute in the
+	 *            calling thread
+	 */
+	public void setParallelism(int parallelism) {
+		if (parallelism < 1)
+			throw new IllegalArgumentException("Parallelism must be positive");
+		this.parallelism = parallelism;
+	}
+
+	/**
+	 * Returns the number of threads computing an iteration.
+	 * 
+	 * @return the number of threads, 1 if computing in the calling thread
+	 */
+	public int getParallelism() {
+		return parallelism;
+	}
+
+	/**
+	 * Sets the seed from which the initial random positions of the nodes are
+	 * drawn, so that running the layout again on the same input gives the
+	 * same result.
+	 * 
+	 * @param seed
+	 *            the seed of the random positions
+	 * @see #setRandom(boolean)
+	 */
+	public void setRandomSeed(long seed) {
+		hasRandomSeed = true;
+		randomSeed = seed;
+	}
+
 	public void setWeight(String relType, double weight) {
 		relTypeToWeightMap.put(relType, new Double(weight));
 	}
@@ -365,9 +493,21 @@ public class SpringLayoutAlgorithm extends ContinuousLayoutAlgorithm {
 		forcesX = null;
 		forcesY = null;
 		anchors = null;
+		adjacentStart = null;
+		adjacent = null;
+		adjacentNumRels = null;
+		adjacentAvgWeight = null;
+		quadTree = null;
+		incomingStart = null;
+		incomingNode = null;
+		incomingPair = null;
+		adjacencyOutdated = false;
+		random = null;
+		if (pool != null) {
+			pool.shutdown();
+			pool = null;
+		}
 		setDefaultConditions();
-		srcDestToNumRelsMap = new HashMap();
-		srcDestToRelsAvgWeightMap = new HashMap();
 		relTypeToWeightMap = new HashMap();
 	}
 
@@ -388,13 +528,12 @@ public class SpringLayoutAlgorithm extends ContinuousLayoutAlgorithm {
 		for (int i = 0; i < entitiesToLayout.length; i++) {
 			anchors[i] = DEFAULT_ANCHOR;
 		}
-		for (int i = 0; i < relationshipsToConsider.length; i++) {
-			InternalRelationship layoutRelationship = relationshipsToConsider[i];
-			addRelation(layoutRelationship);
+		if (parallelism > 1) {
+			pool = new ForkJoinPool(parallelism);
 		}
 
 		// do the calculations
-		preCompute(entitiesToLayout);
+		preCompute(entitiesToLayout, relationshipsToConsider);
 		startTime = date.getTime();
 	}
 
@@ -402,66 +541,174 @@ public class SpringLayoutAlgorithm extends ContinuousLayoutAlgorithm {
 		reset(entitiesToLayout);
 	}
 
+	private void preCompute(InternalNode[] entitiesToLayout, InternalRelationship[] relationshipsToConsider) {
+		buildAdjacency(entitiesToLayout, relationshipsToConsider);
+
+		random = hasRandomSeed ? new Random(randomSeed) : new Random();
+		if (sprRandom)
+			placeRandomly(entitiesToLayout); // put vertices in random places
+		else
+			convertToUnitCoordinates(entitiesToLayout);
+
+		iteration = 1;
+		largestMovement = Double.MAX_VALUE;
+	}
+
 	/**
-	 * Adds a simple relation between two nodes to the relation repository.
-	 * 
-	 * @param layoutRelationship
-	 *            The simple relation to be added
-	 * @throws java.lang.NullPointerExcetption
-	 *             If <code>sr</code> is null
-	 * @see SimpleRelation
-	 */
-	private void addRelation(InternalRelationship layoutRelationship) {
-		if (layoutRelationship == null) {
-			throw new IllegalArgumentException("The arguments can not be null!");
-		} else {
+	 * Builds the relations between the nodes from the given relationships,
+	 * ignoring those with a node which is not laid out.
+	 */
+	private void buildAdjacency(InternalNode[] entitiesToLayout, InternalRelationship[] relationshipsToConsider) {
+		adjacencyOutdated = false;
+		// count number of relationships between all related nodes and the
+		// average weight between them
+		Map nodeIndices = new IdentityHashMap(entitiesToLayout.length * 2);
+		for (int i = 0; i < entitiesToLayout.length; i++) {
+			nodeIndices.put(entitiesToLayout[i], Integer.valueOf(i));
+		}
+		// each relationship as a pair of node indices (low, high), low < high
+		int[] lows = new int[relationshipsToConsider.length];
+		int[] highs = new int[relationshipsToConsider.length];
+		double[] weights = new double[relationshipsToConsider.length];
+		int pairCount = 0;
+		for (int i = 0; i < relationshipsToConsider.length; i++) {
+			InternalRelationship layoutRelationship = relationshipsToConsider[i];
+			if (layoutRelationship == null) {
+				throw new IllegalArgumentException("The arguments can not be null!");
+			}
+			Integer source = (Integer) nodeIndices.get(layoutRelationship.getSource());
+			Integer destination = (Integer) nodeIndices.get(layoutRelationship.getDestination());
+			if (source == null || destination == null || source.equals(destination)) {
+				continue;
+			}
+			lows[pairCount] = Math.min(source.intValue(), destination.intValue());
+			highs[pairCount] = Math.max(source.intValue(), destination.intValue());
 			double weight = layoutRelationship.getWeight();
-			weight = (weight <= 0 ? 0.1 : weight);
-			String key1 = layoutRelationship.getSource().toString() + layoutRelationship.getDestination().toString();
-			String key2 = layoutRelationship.getDestination().toString() + layoutRelationship.getSource().toString();
-			String[] keys = { key1, key2 };
-			for (int i = 0; i < keys.length; i++) {
-				String key = keys[i];
-				Integer count = (Integer) srcDestToNumRelsMap.get(key);
-				Double avgWeight = (Double) srcDestToRelsAvgWeightMap.get(key);
-				if (count == null) {
-					count = new Integer(1);
-					avgWeight = new Double(weight);
-				} else {
-					int newCount = count.intValue() + 1;
-					double newAverage = (avgWeight.doubleValue() * count.doubleValue() + weight) / newCount;
-					avgWeight = new Double(newAverage);
-					count = new Integer(newCount);
-				}
-				srcDestToNumRelsMap.put(key, count);
-				srcDestToRelsAvgWeightMap.put(key, avgWeight);
+			weights[pairCount] = (weight <= 0 ? 0.1 : weight);
+			pairCount++;
+		}
+		// sort the pairs by high, then stably by low, in linear time
+		int[] byHigh = countingSort(highs, null, pairCount, entitiesToLayout.length);
+		int[] sorted = countingSort(lows, byHigh, pairCount, entitiesToLayout.length);
+
+		// merge the relationships between the same nodes, in either direction
+		adjacentStart = new int[entitiesToLayout.length + 1];
+		adjacent = new int[pairCount];
+		adjacentNumRels = new int[pairCount];
+		adjacentAvgWeight = new double[pairCount];
+		int count = 0;
+		for (int k = 0; k < pairCount; k++) {
+			int r = sorted[k];
+			if (count > 0 && adjacent[count - 1] == highs[r] && lows[sorted[k - 1]] == lows[r]) {
+				adjacentNumRels[count - 1]++;
+				adjacentAvgWeight[count - 1] += weights[r];
+				continue;
 			}
+			adjacentStart[lows[r] + 1]++;
+			adjacent[count] = highs[r];
+			adjacentNumRels[count] = 1;
+			adjacentAvgWeight[count] = weights[r];
+			count++;
+		}
+		for (int k = 0; k < count; k++) {
+			adjacentAvgWeight[k] /= adjacentNumRels[k];
+			// each relationship was counted once from either node
+			adjacentNumRels[k] *= 2;
+		}
+		for (int i = 0; i < entitiesToLayout.length; i++) {
+			adjacentStart[i + 1] += adjacentStart[i];
 		}
-	}
 
-	private void preCompute(InternalNode[] entitiesToLayout) {
-		// count number of relationships between all nodes and the average
-		// weight between them
-		srcDestToNumRels = new int[entitiesToLayout.length][entitiesToLayout.length];
-		srcDestToRelsAvgWeight = new double[entitiesToLayout.length][entitiesToLayout.length];
+		// the same pairs seen from their second node
+		incomingStart = new int[entitiesToLayout.length + 1];
+		incomingNode = new int[count];
+		incomingPair = new int[count];
+		for (int k = 0; k < count; k++) {
+			incomingStart[adjacent[k] + 1]++;
+		}
+		for (int i = 0; i < entitiesToLayout.length; i++) {
+			incomingStart[i + 1] += incomingStart[i];
+		}
+		int[] next = new int[entitiesToLayout.length];
+		System.arraycopy(incomingStart, 0, next, 0, next.length);
+		for (int i = 0; i < entitiesToLayout.length; i++) {
+			for (int k = adjacentStart[i]; k < adjacentStart[i + 1]; k++) {
+				int slot = next[adjacent[k]]++;
+				incomingNode[slot] = i;
+				incomingPair[slot] = k;
+			}
+		}
+	}
 
-		for (int i = 0; i < entitiesToLayout.length - 1; i++) {
-			InternalNode layoutEntity1 = entitiesToLayout[i];
-			for (int j = i + 1; j < entitiesToLayout.length; j++) {
-				InternalNode layoutEntity2 = entitiesToLayout[j];
-				srcDestToNumRels[i][j] = numRelations(layoutEntity1, layoutEntity2);
-				srcDestToNumRels[i][j] += numRelations(layoutEntity2, layoutEntity1);
-				srcDestToRelsAvgWeight[i][j] = avgWeight(layoutEntity1, layoutEntity2);
+	/**
+	 * Keeps the locations of the nodes still laid out, and places the added
+	 * ones randomly among them. The relations are rebuilt before the next
+	 * iteration.
+	 */
+	protected void entitiesUpdated(InternalNode[] entities, int[] previousIndices) {
+		if (tempLocationsX == null) {
+			// not running
+			return;
+		}
+		double left = 0, top = 0, right = 1, bottom = 1;
+		if (tempLocationsX.length > 0) {
+			left = right = tempLocationsX[0];
+			top = bottom = tempLocationsY[0];
+			for (int i = 1; i < tempLocationsX.length; i++) {
+				left = Math.min(left, tempLocationsX[i]);
+				right = Math.max(right, tempLocationsX[i]);
+				top = Math.min(top, tempLocationsY[i]);
+				bottom = Math.max(bottom, tempLocationsY[i]);
 			}
 		}
+		double[] locationsX = new double[entities.length];
+		double[] locationsY = new double[entities.length];
+		boolean[] newAnchors = new boolean[entities.length];
+		for (int i = 0; i < entities.length; i++) {
+			int previous = previousIndices[i];
+			if (previous >= 0) {
+				locationsX[i] = tempLocationsX[previous];
+				locationsY[i] = tempLocationsY[previous];
+				newAnchors[i] = anchors[previous];
+			} else {
+				locationsX[i] = left + random.nextDouble() * (right - left);
+				locationsY[i] = top + random.nextDouble() * (bottom - top);
+				newAnchors[i] = DEFAULT_ANCHOR;
+			}
+		}
+		tempLocationsX = locationsX;
+		tempLocationsY = locationsY;
+		anchors = newAnchors;
+		forcesX = new double[entities.length];
+		forcesY = new double[entities.length];
+		adjacencyOutdated = true;
+	}
 
-		if (sprRandom)
-			placeRandomly(entitiesToLayout); // put vertices in random places
-		else
-			convertToUnitCoordinates(entitiesToLayout);
+	protected void relationshipsUpdated(InternalRelationship[] relationships) {
+		adjacencyOutdated = true;
+	}
 
-		iteration = 1;
-		largestMovement = Double.MAX_VALUE;
+	/**
+	 * Returns the indices of the first <code>count</code> keys, ordered by key.
+	 * Keys must be between 0 (inclusive) and <code>range</code> (exclusive).
+	 * Indices with equal keys keep the order in which they are given by
+	 * <code>order</code>, or their natural order if <code>order</code> is
+	 * <code>null</code>.
+	 */
+	private static int[] countingSort(int[] keys, int[] order, int count, int range) {
+		int[] start = new int[range + 1];
+		for (int k = 0; k < count; k++) {
+			start[keys[k] + 1]++;
+		}
+		for (int i = 0; i < range; i++) {
+			start[i + 1] += start[i];
+		}
+		int[] sorted = new int[count];
+		for (int k = 0; k < count; k++) {
+			int index = order == null ? k : order[k];
+			sorted[start[keys[index]]++] = index;
+		}
+		return sorted;
 	}
 
 	// TODO: This is a complete Clone! (and not in a good way)
@@ -559,6 +806,9 @@ public class SpringLayoutAlgorithm extends ContinuousLayoutAlgorithm {
 	protected void computeOneIteration(InternalNode[] entitiesToLayout, InternalRelationship[] relationshipsToConsider, double x, double y, double width, double height) {
 		if (bounds == null)
 			bounds = new DisplayIndependentRectangle(x, y, width, height);
+		if (adjacencyOutdated) {
+			buildAdjacency(entitiesToLayout, relationshipsToConsider);
+		}
 		checkPreferredLocation(entitiesToLayout, bounds);
 		computeForces(entitiesToLayout);
 		largestMovement = Double.MAX_VALUE;
@@ -592,8 +842,8 @@ public class SpringLayoutAlgorithm extends ContinuousLayoutAlgorithm {
 					tempLocationsX[i] = 1.0;
 					tempLocationsY[i] = 1.0;
 				} else {
-					tempLocationsX[i] = Math.random();
-					tempLocationsY[i] = Math.random();
+					tempLocationsX[i] = random.nextDouble();
+					tempLocationsY[i] = random.nextDouble();
 				}
 			}
 		}
@@ -604,91 +854,89 @@ public class SpringLayoutAlgorithm extends ContinuousLayoutAlgorithm {
 	// /////////////////////////////////////////////////////////////////
 
 	/**
-	 * Computes the force for each node in this SpringLayoutAlgorithm. The
-	 * computed force will be stored in the data repository
+	 * Computes the forces by letting every node gather the forces acting on
+	 * it. Every node is first repelled by all others through the quadtree,
+	 * exactly unless the Barnes-Hut approximation is enabled; for related
+	 * nodes, that repulsion is then replaced by the attraction of the spring
+	 * between them. As the nodes are independent, they are partitioned among
+	 * the threads of the pool, if any.
 	 */
 	protected void computeForces(InternalNode[] entitiesToLayout) {
+		if (quadTree == null) {
+			quadTree = new QuadTree();
+		}
+		quadTree.build(tempLocationsX, tempLocationsY, entitiesToLayout.length);
+		if (pool != null) {
+			pool.invoke(new IterationTask(entitiesToLayout, false, 0, entitiesToLayout.length));
+		} else {
+			computeForces(0, entitiesToLayout.length);
+		}
+	}
 
-		// initialize all forces to zero
-		for (int i = 0; i < entitiesToLayout.length; i++) {
-			forcesX[i] = 0.0;
-			forcesY[i] = 0.0;
-		}
-
-		// TODO: Again really really slow!
-
-		for (int i = 0; i < entitiesToLayout.length - 1; i++) {
-			InternalNode sourceEntity = entitiesToLayout[i];
-
-			double srcLocationX = tempLocationsX[i];
-			double srcLocationY = tempLocationsY[i];
-			double fx = forcesX[i]; // force in x direction
-			double fy = forcesY[i]; // force in y direction
-
-			for (int j = i + 1; j < entitiesToLayout.length; j++) {
-				InternalNode destinationEntity = entitiesToLayout[j];
-
-				if (!destinationEntity.equals(sourceEntity)) {
-					double destLocationX = tempLocationsX[j];
-					double destLocationY = tempLocationsY[j];
-					double dx = srcLocationX - destLocationX;
-					double dy = srcLocationY - destLocationY;
-					double distance = Math.sqrt(dx * dx + dy * dy);
-					double distance_sq = distance * distance;
-					// make sure distance and distance squared not too small
-					distance = Math.max(MIN_DISTANCE, distance);
-
-					// If there are relationships between srcObj and destObj
-					// then decrease force on srcObj (a pull) in direction of destObj
-					// If no relation between srcObj and destObj then increase
-					// force on srcObj (a push) from direction of destObj.
-					int numRels = srcDestToNumRels[i][j];
-					double avgWeight = srcDestToRelsAvgWeight[i][j];
-					if (numRels > 0) {
-						// nodes are pulled towards each other
-						double f = sprStrain * Math.log(distance / sprLength) * numRels * avgWeight;
-
-						fx = fx - (f * dx / distance);
-						fy = fy - (f * dy / distance);
-
-					} else {
-						// nodes are repelled from each other
-						//double f = Math.min(100, sprGravitation / (distance*distance));
-						double f = sprGravitation / (distance_sq);
-						fx = fx + (f * dx / distance);
-						fy = fy + (f * dy / distance);
-					}
-
-					// According to Newton, "for every action, there is an equal
-					// and opposite reaction."
-					// so give the dest an opposite force
-					forcesX[j] = forcesX[j] - fx;
-					forcesY[j] = forcesY[j] - fy;
-				}
+	/**
+	 * Gathers the forces acting on the nodes from <code>from</code>
+	 * (inclusive) to <code>to</code> (exclusive). The quadtree must have been
+	 * built.
+	 */
+	private void computeForces(int from, int to) {
+		double[] force = new double[2];
+		for (int i = from; i < to; i++) {
+			force[0] = 0;
+			force[1] = 0;
+			quadTree.accumulateRepulsion(i, sprGravitation, theta, MIN_DISTANCE, force);
+			double fx = force[0];
+			double fy = force[1];
+			for (int k = adjacentStart[i]; k < adjacentStart[i + 1]; k++) {
+				double f = springForce(i, adjacent[k], k);
+				fx -= f * (tempLocationsX[i] - tempLocationsX[adjacent[k]]);
+				fy -= f * (tempLocationsY[i] - tempLocationsY[adjacent[k]]);
+			}
+			for (int k = incomingStart[i]; k < incomingStart[i + 1]; k++) {
+				int j = incomingNode[k];
+				double f = springForce(j, i, incomingPair[k]);
+				fx += f * (tempLocationsX[j] - tempLocationsX[i]);
+				fy += f * (tempLocationsY[j] - tempLocationsY[i]);
 			}
-
-			/*
-			 * //make sure forces aren't too big if (fx > 0 ) fx = Math.min(fx,
-			 * 10*sprMove); else fx = Math.max(fx, -10*sprMove); if (fy > 0) fy =
-			 * Math.min(fy, 10*sprMove); else fy = Math.max(fy, -10*sprMove);
-			 */
 			forcesX[i] = fx;
 			forcesY[i] = fy;
-			// Remove the src object from the list of destinations since
-			// we've already calculated the force from it on all other
-			// objects.
-			// dests.remove(srcObj);
-
 		}
 	}
 
+	/**
+	 * Returns the force of the spring between the related nodes i and j, less
+	 * their repulsion, divided by their distance.
+	 */
+	private double springForce(int i, int j, int pair) {
+		double dx = tempLocationsX[i] - tempLocationsX[j];
+		double dy = tempLocationsY[i] - tempLocationsY[j];
+		double distance = Math.max(MIN_DISTANCE, Math.sqrt(dx * dx + dy * dy));
+		double f = sprStrain * Math.log(distance / sprLength) * adjacentNumRels[pair] * adjacentAvgWeight[pair];
+		f += sprGravitation / (distance * distance);
+		return f / distance;
+	}
+
 	/**
 	 * Computes the position for each node in this SpringLayoutAlgorithm.
 	 * The computed position will be stored in the data repository. position =
 	 * position + sprMove * force
 	 */
 	protected void computePositions(InternalNode[] entitiesToLayout) {
-		for (int i = 0; i < entitiesToLayout.length; i++) {
+		double movement;
+		if (pool != null) {
+			movement = ((Double) pool.invoke(new IterationTask(entitiesToLayout, true, 0, entitiesToLayout.length))).doubleValue();
+		} else {
+			movement = computePositions(entitiesToLayout, 0, entitiesToLayout.length);
+		}
+		largestMovement = Math.max(largestMovement, movement);
+	}
+
+	/**
+	 * Moves the nodes from <code>from</code> (inclusive) to <code>to</code>
+	 * (exclusive) along their forces, and returns the largest movement.
+	 */
+	private double computePositions(InternalNode[] entitiesToLayout, int from, int to) {
+		double movement = 0;
+		for (int i = from; i < to; i++) {
 			if (!anchors[i] || entitiesToLayout[i].hasPreferredLocation()) {
 				double oldX = tempLocationsX[i];
 				double oldY = tempLocationsY[i];
@@ -708,8 +956,8 @@ public class SpringLayoutAlgorithm extends ContinuousLayoutAlgorithm {
 					deltaY = Math.max(deltaY, -maxMovement);
 				}
 
-				largestMovement = Math.max(largestMovement, Math.abs(deltaX));
-				largestMovement = Math.max(largestMovement, Math.abs(deltaY));
+				movement = Math.max(movement, Math.abs(deltaX));
+				movement = Math.max(movement, Math.abs(deltaY));
 
 				double newX = oldX + deltaX;
 				double newY = oldY + deltaY;
@@ -718,7 +966,48 @@ public class SpringLayoutAlgorithm extends ContinuousLayoutAlgorithm {
 			}
 
 		}
+		return movement;
+	}
 
+	/**
+	 * Computes either the forces or the positions of a range of nodes, split
+	 * among the threads of the pool.
+	 */
+	private class IterationTask extends RecursiveTask {
+
+		private static final long serialVersionUID = 1L;
+
+		/**
+		 * Ranges of at most this many nodes are not split further.
+		 */
+		private static final int TASK_SIZE = 512;
+
+		private final InternalNode[] entitiesToLayout;
+		private final boolean positions;
+		private final int from;
+		private final int to;
+
+		IterationTask(InternalNode[] entitiesToLayout, boolean positions, int from, int to) {
+			this.entitiesToLayout = entitiesToLayout;
+			this.positions = positions;
+			this.from = from;
+			this.to = to;
+		}
+
+		protected Object compute() {
+			if (to - from <= TASK_SIZE) {
+				if (positions) {
+					return Double.valueOf(computePositions(entitiesToLayout, from, to));
+				}
+				computeForces(from, to);
+				return Double.valueOf(0);
+			}
+			int middle = (from + to) >>> 1;
+			IterationTask first = new IterationTask(entitiesToLayout, positions, from, middle);
+			first.fork();
+			double second = ((Double) new IterationTask(entitiesToLayout, positions, middle, to).compute()).doubleValue();
+			return Double.valueOf(Math.max(second, ((Double) first.join()).doubleValue()));
+		}
 	}
 
 	/**
@@ -756,38 +1045,6 @@ public class SpringLayoutAlgorithm extends ContinuousLayoutAlgorithm {
 		}
 	}
 
-	/**
-	 * Examines the number of specified relation between the <code>src</code>
-	 * and the <code>dest</code> that exist in this
-	 * SpringLayoutAlgorithm's relation repository.
-	 * 
-	 * @param src
-	 *            The source part of the relaton to be examined.
-	 * @param dest
-	 *            The destination part of the relation to be examined.
-	 * @return The number of relations between src and dest.
-	 */
-	private int numRelations(Object src, Object dest) {
-		String key = src.toString() + dest.toString();
-		Integer count = (Integer) srcDestToNumRelsMap.get(key);
-		int intCount = (count == null) ? 0 : count.intValue();
-		return intCount;
-	}
-
-	/**
-	 * Returns the average weight between a src and dest object.
-	 * 
-	 * @param src
-	 * @param dest
-	 * @return The average weight between the given src and dest nodes
-	 */
-	private double avgWeight(Object src, Object dest) {
-		String key = src.toString() + dest.toString();
-		Double avgWeight = (Double) srcDestToRelsAvgWeightMap.get(key);
-		double doubleWeight = (avgWeight == null) ? 1 : avgWeight.doubleValue();
-		return doubleWeight;
-	}
-
 	protected boolean isValidConfiguration(boolean asynchronous, boolean continueous) {
 		if (asynchronous && continueous)
 			return true;
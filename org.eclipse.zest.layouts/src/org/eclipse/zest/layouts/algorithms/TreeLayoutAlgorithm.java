@@ -11,25 +11,24 @@ package org.eclipse.zest.layouts.algorithms;
 
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collection;
-import java.util.Collections;
 import java.util.Comparator;
-import java.util.HashSet;
-import java.util.Iterator;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Set;
+import java.util.Map;
 
 import org.eclipse.zest.layouts.LayoutStyles;
 import org.eclipse.zest.layouts.dataStructures.DisplayIndependentRectangle;
 import org.eclipse.zest.layouts.dataStructures.InternalNode;
 import org.eclipse.zest.layouts.dataStructures.InternalRelationship;
-import org.eclipse.zest.layouts.exampleStructures.SimpleRelationship;
 
 /**
  * The TreeLayoutAlgorithm class implements a simple algorithm to
  * arrange graph nodes in a layered vertical tree-like layout. 
  * 
- * This is by no means an efficiently coded algorithm.
+ * The nodes are referred to by their index in the entities to lay out, and
+ * the relationships are indexed by node once per layout, so that trees are
+ * laid out in time proportional to their size. The traversals use explicit
+ * stacks, so deep trees do not overflow the stack of the layout thread.
  *
  * @version  2.0
  * @author   Casey Best and Rob Lintern (version 1.0 by Jingwei Wu)
@@ -39,12 +38,6 @@ public class TreeLayoutAlgorithm extends AbstractLayoutAlgorithm {
 	private final static double DEFAULT_WEIGHT = 0;
 	private final static boolean DEFAULT_MARKED = false;
 
-	private final static boolean AS_DESTINATION = false;
-	private final static boolean AS_SOURCE = true;
-
-	private final static int NUM_DESCENDENTS_INDEX = 0;
-	private final static int NUM_LEVELS_INDEX = 1;
-
 	private ArrayList treeRoots;
 
 	private double boundsX;
@@ -53,11 +46,53 @@ public class TreeLayoutAlgorithm extends AbstractLayoutAlgorithm {
 	private double boundsHeight;
 	private DisplayIndependentRectangle layoutBounds = null;
 
-	private List[] parentLists;
-	private List[] childrenLists;
+	/**
+	 * The destinations of the relationships from each node, in the order of
+	 * the relationships.
+	 */
+	private int[][] successors;
+	/**
+	 * The number of relationships to each node.
+	 */
+	private int[] inDegrees;
+	/**
+	 * The source of the first relationship to each node, or -1.
+	 */
+	private int[] firstPredecessors;
+	private int[] rootIndices;
+
+	private int[][] parentLists;
+	private int[][] childrenLists;
 	private double[] weights;
 	private boolean[] markedArr;
 
+	/**
+	 * The number of descendents, number of leaves and level of each node,
+	 * or -1 if they have not been computed yet.
+	 */
+	private int[] numDescendents;
+	private int[] numLeaves;
+	private int[] levels;
+
+	/**
+	 * Stamps marking the nodes seen by the current traversal, one array for
+	 * the traversals which may run while the others are in progress.
+	 */
+	private int[] seen;
+	private int[] counted;
+	private int stamp;
+
+	/**
+	 * The stacks of the traversals, allocated once per layout.
+	 */
+	private int[] nodeStack;
+	private int[] valueStack;
+	private int[] modifiedNodes;
+	private int[] modifiedWeights;
+	private int[] scratchNodes;
+	private int[] scratchIndices;
+	private int[] scratchValues;
+
 	/////////////////////////////////////////////////////////////////////////
 	/////                        Constructors                           /////
 	/////////////////////////////////////////////////////////////////////////
@@ -111,16 +146,17 @@ public class TreeLayoutAlgorithm extends AbstractLayoutAlgorithm {
 		// Filter unwanted entities and relationships
 		//super.applyLayout (entitiesToLayout, relationshipsToConsider, boundsX, boundsY, boundsWidth, boundsHeight);
 
-		parentLists = new List[entitiesToLayout.length];
-		childrenLists = new List[entitiesToLayout.length];
+		parentLists = new int[entitiesToLayout.length][];
+		childrenLists = new int[entitiesToLayout.length][];
 		weights = new double[entitiesToLayout.length];
 		markedArr = new boolean[entitiesToLayout.length];
 		for (int i = 0; i < entitiesToLayout.length; i++) {
-			parentLists[i] = new ArrayList();
-			childrenLists[i] = new ArrayList();
 			weights[i] = DEFAULT_WEIGHT;
 			markedArr[i] = DEFAULT_MARKED;
 		}
+		seen = new int[entitiesToLayout.length];
+		counted = new int[entitiesToLayout.length];
+		stamp = 0;
 
 		this.boundsHeight = height;
 		this.boundsWidth = width;
@@ -140,7 +176,7 @@ public class TreeLayoutAlgorithm extends AbstractLayoutAlgorithm {
 			treeRoots = new ArrayList();
 			buildForest(treeRoots, entitiesToLayout, relationshipsToConsider);
 			fireProgressEvent(2, totalProgress);
-			computePositions(treeRoots, entitiesToLayout);
+			computePositions(entitiesToLayout);
 			fireProgressEvent(3, totalProgress);
 			defaultFitWithinBounds(entitiesToLayout, layoutBounds);
 
@@ -159,268 +195,319 @@ public class TreeLayoutAlgorithm extends AbstractLayoutAlgorithm {
 		return treeRoots;
 	}
 
-	/**
-	 * Finds all the relationships in which the node <code>obj<code>
-	 * plays the specified <code>role</code>.
-	 * @param entity The node that concerns the relations to be found.
-	 * @param role The role played by the <code>obj</code>. Its type
-	 * must be of <code>ACTOR_ROLE</code> or <code>ACTEE_ROLE</code>.
-	 * @see SimpleRelationship
-	 */
-	private Collection findRelationships(Object entity, boolean objectAsSource, InternalRelationship[] relationshipsToConsider) {
-		Collection foundRels = new ArrayList();
-		for (int i = 0; i < relationshipsToConsider.length; i++) {
-			InternalRelationship rel = relationshipsToConsider[i];
-			if (objectAsSource && rel.getSource().equals(entity)) {
-				foundRels.add(rel);
-			} else if (!objectAsSource && rel.getDestination().equals(entity)) {
-				foundRels.add(rel);
-			}
+	/////////////////////////////////////////////////////////////////////////
+	/////                        Private Methods                        /////
+	/////////////////////////////////////////////////////////////////////////
+
+	private int nextStamp() {
+		if (++stamp == 0) {
+			Arrays.fill(seen, 0);
+			Arrays.fill(counted, 0);
+			stamp = 1;
 		}
-		return foundRels;
+		return stamp;
 	}
 
 	/**
-	 * Finds the relation that has the lowest index in the relation
-	 * repository in which the node <code>obj<code> plays the specified
-	 * <code>role</code>.
-	 * @param obj The node that concerns the relations to be found.
-	 * @param role The role played by the <code>obj</code>. Its type must
-	 * be of <code>ACTOR_ROLE</code> or <code>ACTEE_ROLE</code>.
-	 * @see SimpleRelationship
-	 * @see SimpleRelationship#ACTOR_ROLE
-	 * @see SimpleRelationship#ACTEE_ROLE
+	 * Indexes the relationships by node.
 	 */
-	private InternalRelationship findRelationship(Object entity, boolean objectAsSource, InternalRelationship[] relationshipsToConsider) {
-		InternalRelationship relationship = null;
-		for (int i = 0; i < relationshipsToConsider.length && relationship == null; i++) {
-			InternalRelationship possibleRel = relationshipsToConsider[i];
-			if (objectAsSource && possibleRel.getSource().equals(entity)) {
-				relationship = possibleRel;
-			} else if (!objectAsSource && possibleRel.getDestination().equals(entity)) {
-				relationship = possibleRel;
+	private void buildAdjacency(InternalNode[] entities, InternalRelationship[] relationships) {
+		Map indices = new HashMap(entities.length * 2);
+		for (int i = 0; i < entities.length; i++) {
+			indices.put(entities[i], Integer.valueOf(i));
+		}
+		int[] sources = new int[relationships.length];
+		int[] destinations = new int[relationships.length];
+		int[] outDegrees = new int[entities.length];
+		inDegrees = new int[entities.length];
+		firstPredecessors = new int[entities.length];
+		Arrays.fill(firstPredecessors, -1);
+		for (int i = 0; i < relationships.length; i++) {
+			sources[i] = indexOfInternalNode(indices, relationships[i].getSource());
+			destinations[i] = indexOfInternalNode(indices, relationships[i].getDestination());
+			outDegrees[sources[i]]++;
+			inDegrees[destinations[i]]++;
+			if (firstPredecessors[destinations[i]] < 0) {
+				firstPredecessors[destinations[i]] = sources[i];
 			}
 		}
-		return relationship;
+		successors = new int[entities.length][];
+		for (int i = 0; i < entities.length; i++) {
+			successors[i] = new int[outDegrees[i]];
+			outDegrees[i] = 0;
+		}
+		for (int i = 0; i < relationships.length; i++) {
+			successors[sources[i]][outDegrees[sources[i]]++] = destinations[i];
+		}
 	}
 
-	/////////////////////////////////////////////////////////////////////////
-	/////                        Private Methods                        /////
-	/////////////////////////////////////////////////////////////////////////
-
 	/**
 	 * Builds the tree forest that is used to calculate positions
-	 * for each node in this TreeLayoutAlgorithm.
+	 * for each node in this TreeLayoutAlgorithm. All entities
+	 * will be placed somewhere in the forest.
 	 */
-	private void buildForest(List roots, InternalNode[] entities, InternalRelationship[] relationships) {
-		List unplacedEntities = new ArrayList(Arrays.asList(entities));
-		buildForestRecursively(roots, unplacedEntities, entities, relationships);
-	}
+	private void buildForest(List rootList, InternalNode[] entities, InternalRelationship[] relationships) {
+		buildAdjacency(entities, relationships);
+		if (comparator == null) {
+			numDescendents = new int[entities.length];
+			Arrays.fill(numDescendents, -1);
+			int[] postOrder = new int[entities.length];
+			boolean[] trees = findTrees(successors, inDegrees, postOrder);
+			for (int i = 0; i < postOrder.length; i++) {
+				int node = postOrder[i];
+				if (trees[node]) {
+					int count = successors[node].length;
+					for (int j = 0; j < successors[node].length; j++) {
+						count += numDescendents[successors[node][j]];
+					}
+					numDescendents[node] = count;
+				}
+			}
+		}
 
-	/**
-	 * Builds the forest recursively. All entities
-	 * will be placed somewhere in the forest. 
-	 */
-	private void buildForestRecursively(List roots, List unplacedEntities, InternalNode[] entities, InternalRelationship[] relationships) {
-		if (unplacedEntities.size() == 0) {
-			return; // no more entities to place
-		}
-
-		// get the first entity in the list of unplaced entities, find its root, and build this root's tree
-		InternalNode layoutEntity = (InternalNode) unplacedEntities.get(0);
-		InternalNode rootEntity = findRootObjectRecursive(layoutEntity, new HashSet(), relationships);
-		int rootEntityIndex = indexOfInternalNode(entities, rootEntity);
-		buildTreeRecursively(rootEntity, rootEntityIndex, 0, entities, relationships);
-		roots.add(rootEntity);
-
-		// now see which nodes are left to be placed in a tree somewhere
-		List unmarkedCopy = new ArrayList(unplacedEntities);
-		for (Iterator iter = unmarkedCopy.iterator(); iter.hasNext();) {
-			InternalNode tmpEntity = (InternalNode) iter.next();
-			int tmpEntityIndex = indexOfInternalNode(entities, tmpEntity);
-			boolean isMarked = markedArr[tmpEntityIndex];
-			if (isMarked) {
-				unplacedEntities.remove(tmpEntity);
+		// the order in which the nodes are placed, which is that of their parents
+		int[] placed = new int[entities.length];
+		int numPlaced = 0;
+		int[] childStamps = new int[entities.length];
+		nodeStack = new int[relationships.length + 1];
+		valueStack = new int[relationships.length + 1];
+		modifiedNodes = new int[relationships.length + 1];
+		modifiedWeights = new int[relationships.length + 1];
+		scratchNodes = new int[entities.length + 1];
+		scratchIndices = new int[entities.length + 1];
+		scratchValues = new int[entities.length + 1];
+		int[] roots = new int[entities.length];
+		int numRoots = 0;
+		int firstUnplaced = 0;
+		while (true) {
+			// get the first entity which is not placed yet, find its root, and build this root's tree
+			while (firstUnplaced < entities.length && markedArr[firstUnplaced]) {
+				firstUnplaced++;
+			}
+			if (firstUnplaced == entities.length) {
+				break;
+			}
+			int rootEntityIndex = findRootObject(firstUnplaced);
+			numPlaced = buildTree(rootEntityIndex, entities, placed, numPlaced, childStamps);
+			roots[numRoots++] = rootEntityIndex;
+			rootList.add(entities[rootEntityIndex]);
+		}
+		rootIndices = new int[numRoots];
+		System.arraycopy(roots, 0, rootIndices, 0, numRoots);
+
+		// map the children to their parents, in the order in which the parents were placed
+		int[] numParents = new int[entities.length];
+		for (int i = 0; i < numPlaced; i++) {
+			int[] children = childrenLists[placed[i]];
+			for (int j = 0; j < children.length; j++) {
+				numParents[children[j]]++;
+			}
+		}
+		for (int i = 0; i < entities.length; i++) {
+			parentLists[i] = new int[numParents[i]];
+			numParents[i] = 0;
+		}
+		for (int i = 0; i < numPlaced; i++) {
+			int[] children = childrenLists[placed[i]];
+			for (int j = 0; j < children.length; j++) {
+				parentLists[children[j]][numParents[children[j]]++] = placed[i];
 			}
 		}
-		buildForestRecursively(roots, unplacedEntities, entities, relationships);
 	}
 
 	/**
-	 * Finds the root node that can be treated as the root of a tree.
+	 * Finds the root node that can be treated as the root of a tree, by
+	 * following the first relationship to each node until a node without any
+	 * is reached, or a node is reached again.
 	 * The found root node should be one of the unmarked nodes.
 	 */
-	private InternalNode findRootObjectRecursive(InternalNode currentEntity, Set seenAlready, InternalRelationship[] relationshipsToConsider) {
-		InternalNode rootEntity = null;
-		InternalRelationship rel = findRelationship(currentEntity, AS_DESTINATION, relationshipsToConsider);
-		if (rel == null) {
-			rootEntity = currentEntity;
-		} else {
-			InternalNode parentEntity = rel.getSource();
-			if (!seenAlready.contains(parentEntity)) {
-				seenAlready.add(parentEntity);
-				rootEntity = findRootObjectRecursive(parentEntity, seenAlready, relationshipsToConsider);
-			} else {
-				rootEntity = currentEntity;
+	private int findRootObject(int i) {
+		int seenStamp = nextStamp();
+		int current = i;
+		while (firstPredecessors[current] >= 0) {
+			int parent = firstPredecessors[current];
+			if (seen[parent] == seenStamp) {
+				break;
 			}
+			seen[parent] = seenStamp;
+			current = parent;
 		}
-		return rootEntity;
+		return current;
 	}
 
 	/**
 	 * Builds a tree of the passed in entity.
-	 * The entity will pass a weight value to all of its children recursively.
+	 * The entity will pass a weight value to all of its children.
+	 * The entities are visited in the order in which a recursive traversal
+	 * would visit them.
+	 *
+	 * @return the number of placed entities
 	 */
-	private void buildTreeRecursively(InternalNode layoutEntity, int i, double weight, InternalNode[] entities, final InternalRelationship[] relationships) {
-		// No need to do further computation!
-		if (layoutEntity == null) {
-			return;
-		}
-
-		// A marked entity means that it has been added to the
-		// forest, and its weight value needs to be modified.		
-		if (markedArr[i]) {
-			modifyWeightRecursively(layoutEntity, i, weight, new HashSet(), entities, relationships);
-			return; //No need to do further computation.
-		}
+	private int buildTree(int root, InternalNode[] entities, int[] placed, int numPlaced, int[] childStamps) {
+		// the pushed entities never outnumber the relationships from the placed ones
+		int depth = 0;
+		nodeStack[0] = root;
+		valueStack[0] = 0;
+		while (depth >= 0) {
+			int i = nodeStack[depth];
+			int weight = valueStack[depth--];
+
+			// A marked entity means that it has been added to the
+			// forest, and its weight value needs to be modified.
+			if (markedArr[i]) {
+				modifyWeight(i, weight);
+				continue;
+			}
 
-		// Mark this entity, set its weight value and create a new tree node.
-		markedArr[i] = true;
-		weights[i] = weight;
+			// Mark this entity, set its weight value and create a new tree node.
+			markedArr[i] = true;
+			weights[i] = weight;
+			placed[numPlaced++] = i;
+
+			// collect the children of this entity and put them in order
+			int[] children = sortChildren(successors[i], entities);
+
+			// map children to this parent
+			int numChildren = 0;
+			int[] distinctChildren = new int[children.length];
+			for (int j = 0; j < children.length; j++) {
+				if (childStamps[children[j]] != i + 1) {
+					childStamps[children[j]] = i + 1;
+					distinctChildren[numChildren++] = children[j];
+				}
+			}
+			if (numChildren < children.length) {
+				int[] trimmed = new int[numChildren];
+				System.arraycopy(distinctChildren, 0, trimmed, 0, numChildren);
+				distinctChildren = trimmed;
+			}
+			childrenLists[i] = distinctChildren;
 
-		// collect the children of this entity and put them in order
-		Collection rels = findRelationships(layoutEntity, AS_SOURCE, relationships);
-		List children = new ArrayList();
-		for (Iterator iter = rels.iterator(); iter.hasNext();) {
-			InternalRelationship layoutRel = (InternalRelationship) iter.next();
-			InternalNode childEntity = layoutRel.getDestination();
-			children.add(childEntity);
+			for (int j = children.length - 1; j >= 0; j--) {
+				nodeStack[++depth] = children[j];
+				valueStack[depth] = weight + 1;
+			}
 		}
+		return numPlaced;
+	}
 
+	/**
+	 * Returns the given children in the order of the comparator, or by
+	 * number of descendents.
+	 */
+	private int[] sortChildren(int[] children, final InternalNode[] entities) {
+		if (children.length < 2) {
+			return children;
+		}
+		Integer[] sorted = new Integer[children.length];
+		for (int i = 0; i < children.length; i++) {
+			sorted[i] = Integer.valueOf(children[i]);
+		}
 		if (comparator != null) {
-			Collections.sort(children, comparator);
+			Arrays.sort(sorted, new Comparator() {
+				public int compare(Object o1, Object o2) {
+					return comparator.compare(entities[((Integer) o1).intValue()], entities[((Integer) o2).intValue()]);
+				}
+			});
 		} else {
-			// sort the children by level, then by number of descendents, then by number of children
-			// TODO: SLOW
-			Collections.sort(children, new Comparator() {
+			// sort the children by number of descendents
+			Arrays.sort(sorted, new Comparator() {
 				public int compare(Object o1, Object o2) {
-					InternalNode node1 = (InternalNode) o1;
-					InternalNode node2 = (InternalNode) o2;
-					int[] numDescendentsAndLevel1 = new int[2];
-					int[] numDescendentsAndLevel2 = new int[2];
-					int level1 = numDescendentsAndLevel1[NUM_LEVELS_INDEX];
-					int level2 = numDescendentsAndLevel2[NUM_LEVELS_INDEX];
-					if (level1 == level2) {
-						getNumDescendentsAndLevel(node1, relationships, numDescendentsAndLevel1);
-						getNumDescendentsAndLevel(node2, relationships, numDescendentsAndLevel2);
-						int numDescendents1 = numDescendentsAndLevel1[NUM_DESCENDENTS_INDEX];
-						int numDescendents2 = numDescendentsAndLevel2[NUM_DESCENDENTS_INDEX];
-						if (numDescendents1 == numDescendents2) {
-							int numChildren1 = getNumChildren(node1, relationships);
-							int numChildren2 = getNumChildren(node1, relationships);
-							return numChildren2 - numChildren1;
-						} else {
-							return numDescendents2 - numDescendents1;
-						}
-					} else {
-						return level2 - level1;
-					}
-					//return getNumChildren(node2, relationships) - getNumChildren(node1, relationships);
+					return getNumDescendents(((Integer) o2).intValue()) - getNumDescendents(((Integer) o1).intValue());
 				}
 			});
 		}
-
-		// map children to this parent, and vice versa
-		for (Iterator iter = children.iterator(); iter.hasNext();) {
-			InternalNode childEntity = (InternalNode) iter.next();
-			int childEntityIndex = indexOfInternalNode(entities, childEntity);
-			if (!childrenLists[i].contains(childEntity)) {
-				childrenLists[i].add(childEntity);
-			}
-			if (!parentLists[childEntityIndex].contains(layoutEntity)) {
-				parentLists[childEntityIndex].add(layoutEntity);
-			}
-		}
-
-		for (Iterator iter = children.iterator(); iter.hasNext();) {
-			InternalNode childEntity = (InternalNode) iter.next();
-			int childEntityIndex = indexOfInternalNode(entities, childEntity);
-			buildTreeRecursively(childEntity, childEntityIndex, weight + 1, entities, relationships);
+		int[] result = new int[children.length];
+		for (int i = 0; i < children.length; i++) {
+			result[i] = sorted[i].intValue();
 		}
+		return result;
 	}
 
-	private int getNumChildren(InternalNode layoutEntity, InternalRelationship[] relationships) {
-		return findRelationships(layoutEntity, AS_SOURCE, relationships).size();
-	}
-
-	private void getNumDescendentsAndLevel(InternalNode layoutEntity, InternalRelationship[] relationships, int[] numDescendentsAndLevel) {
-		getNumDescendentsAndLevelRecursive(layoutEntity, relationships, new HashSet(), numDescendentsAndLevel, 0);
-	}
-
-	private void getNumDescendentsAndLevelRecursive(InternalNode layoutEntity, InternalRelationship[] relationships, Set seenAlready, int[] numDescendentsAndLevel, int currentLevel) {
-		if (seenAlready.contains(layoutEntity)) {
-			return;
-		}
-		seenAlready.add(layoutEntity);
-		numDescendentsAndLevel[NUM_LEVELS_INDEX] = Math.max(numDescendentsAndLevel[NUM_LEVELS_INDEX], currentLevel);
-		Collection rels = findRelationships(layoutEntity, AS_SOURCE, relationships);
-		for (Iterator iter = rels.iterator(); iter.hasNext();) {
-			InternalRelationship layoutRel = (InternalRelationship) iter.next();
-			InternalNode childEntity = layoutRel.getDestination();
-			numDescendentsAndLevel[NUM_DESCENDENTS_INDEX]++;
-			getNumDescendentsAndLevelRecursive(childEntity, relationships, seenAlready, numDescendentsAndLevel, currentLevel + 1);
-
+	/**
+	 * Returns the number of relationships from the node and from the nodes
+	 * it reaches.
+	 */
+	private int getNumDescendents(int i) {
+		if (numDescendents[i] < 0) {
+			int countedStamp = nextStamp();
+			int[] stack = scratchNodes;
+			int depth = 0;
+			int count = 0;
+			stack[0] = i;
+			counted[i] = countedStamp;
+			while (depth >= 0) {
+				int[] next = successors[stack[depth--]];
+				count += next.length;
+				for (int j = 0; j < next.length; j++) {
+					if (counted[next[j]] != countedStamp) {
+						counted[next[j]] = countedStamp;
+						stack[++depth] = next[j];
+					}
+				}
+			}
+			numDescendents[i] = count;
 		}
+		return numDescendents[i];
 	}
 
 	/**
-	 * Modifies the weight value of the marked node recursively.
+	 * Modifies the weight value of the marked node and of the nodes it
+	 * reaches, in the order in which a recursive traversal would.
 	 */
-	private void modifyWeightRecursively(InternalNode layoutEntity, int i, double weight, Set descendentsSeenSoFar, InternalNode[] entities, InternalRelationship[] relationships) {
-		// No need to do further computation!
-		if (layoutEntity == null) {
-			return;
-		}
-
-		if (descendentsSeenSoFar.contains(layoutEntity)) {
-			return; //No need to do further computation.
-		}
-
-		descendentsSeenSoFar.add(layoutEntity);
-		// No need to do further computation!
-		if (weight < weights[i]) {
-			return;
-		}
-
-		weights[i] = weight;
-		Collection rels = findRelationships(layoutEntity, AS_SOURCE, relationships);
-
-		for (Iterator iter = rels.iterator(); iter.hasNext();) {
-			InternalRelationship tmpRel = (InternalRelationship) iter.next();
-			InternalNode tmpEntity = tmpRel.getDestination();
-			int tmpEntityIndex = indexOfInternalNode(entities, tmpEntity);
-			modifyWeightRecursively(tmpEntity, tmpEntityIndex, weight + 1, descendentsSeenSoFar, entities, relationships);
+	private void modifyWeight(int i, int weight) {
+		// the pushed entities never outnumber the relationships from the visited ones
+		int[] nodes = modifiedNodes;
+		int[] nodeWeights = modifiedWeights;
+		int seenStamp = nextStamp();
+		int depth = 0;
+		nodes[0] = i;
+		nodeWeights[0] = weight;
+		while (depth >= 0) {
+			int node = nodes[depth];
+			int nodeWeight = nodeWeights[depth--];
+			if (seen[node] == seenStamp) {
+				continue; //No need to do further computation.
+			}
+			seen[node] = seenStamp;
+			// No need to do further computation!
+			if (nodeWeight < weights[node]) {
+				continue;
+			}
+			weights[node] = nodeWeight;
+			int[] next = successors[node];
+			for (int j = next.length - 1; j >= 0; j--) {
+				nodes[++depth] = next[j];
+				nodeWeights[depth] = nodeWeight + 1;
+			}
 		}
 	}
 
 	/**
 	 * Gets the maxium weight of a tree in the forest of this TreeLayoutAlgorithm.
 	 */
-	private double getMaxiumWeightRecursive(InternalNode layoutEntity, int i, Set seenAlready, InternalNode[] entities) {
-		double result = 0;
-		if (seenAlready.contains(layoutEntity)) {
-			return result;
+	private double getMaxiumWeight(int root) {
+		if (childrenLists[root].length == 0) {
+			return weights[root];
 		}
-		seenAlready.add(layoutEntity);
-		List children = childrenLists[i];
-		if (children.isEmpty()) {
-			result = weights[i];
-		} else {
-			//TODO: SLOW
-			for (Iterator iter = children.iterator(); iter.hasNext();) {
-				InternalNode childEntity = (InternalNode) iter.next();
-				int childEntityIndex = indexOfInternalNode(entities, childEntity);
-				result = Math.max(result, getMaxiumWeightRecursive(childEntity, childEntityIndex, seenAlready, entities));
+		int seenStamp = nextStamp();
+		int[] stack = scratchNodes;
+		int depth = 0;
+		double result = 0;
+		stack[0] = root;
+		seen[root] = seenStamp;
+		while (depth >= 0) {
+			int[] children = childrenLists[stack[depth--]];
+			for (int j = 0; j < children.length; j++) {
+				int child = children[j];
+				if (seen[child] != seenStamp) {
+					seen[child] = seenStamp;
+					if (childrenLists[child].length == 0) {
+						result = Math.max(result, weights[child]);
+					} else {
+						stack[++depth] = child;
+					}
+				}
 			}
 		}
 		return result;
@@ -430,125 +517,245 @@ public class TreeLayoutAlgorithm extends AbstractLayoutAlgorithm {
 	 * Computes positions for each node in this TreeLayoutAlgorithm by
 	 * referencing the forest that holds those nodes.
 	 */
-	private void computePositions(List roots, InternalNode[] entities) {
+	private void computePositions(InternalNode[] entities) {
 		// No need to do further computation!
-		if (roots.size() == 0) {
+		if (rootIndices.length == 0) {
 			return;
 		}
 
+		numLeaves = new int[entities.length];
+		Arrays.fill(numLeaves, -1);
+		levels = new int[entities.length];
+		Arrays.fill(levels, -1);
+		int[] postOrder = new int[entities.length];
+		int[] numParents = new int[entities.length];
+		for (int i = 0; i < entities.length; i++) {
+			numParents[i] = parentLists[i].length;
+		}
+		boolean[] trees = findTrees(childrenLists, numParents, postOrder);
+		for (int i = 0; i < postOrder.length; i++) {
+			int node = postOrder[i];
+			if (trees[node]) {
+				int[] children = childrenLists[node];
+				int count = children.length == 0 ? 1 : 0;
+				for (int j = 0; j < children.length; j++) {
+					count += numLeaves[children[j]];
+				}
+				numLeaves[node] = count;
+			}
+		}
+		for (int i = 0; i < entities.length; i++) {
+			if (parentLists[i].length == 0) {
+				levels[i] = 0;
+			}
+		}
+		// the levels along chains of single parents up to a node without any,
+		// parents first
+		for (int i = 0; i < postOrder.length; i++) {
+			int node = postOrder[postOrder.length - 1 - i];
+			int[] children = childrenLists[node];
+			if (levels[node] >= 0) {
+				for (int j = 0; j < children.length; j++) {
+					if (parentLists[children[j]].length == 1) {
+						levels[children[j]] = levels[node] + 1;
+					}
+				}
+			}
+		}
+
 		int totalLeafCount = 0;
 		double maxWeight = 0;
-		for (int i = 0; i < roots.size(); i++) {
-			InternalNode rootEntity = (InternalNode) roots.get(i);
-			int rootEntityIndex = indexOfInternalNode(entities, rootEntity);
-			totalLeafCount = totalLeafCount + getNumberOfLeaves(rootEntity, rootEntityIndex, entities);
-			maxWeight = Math.max(maxWeight, getMaxiumWeightRecursive(rootEntity, rootEntityIndex, new HashSet(), entities) + 1.0);
+		for (int i = 0; i < rootIndices.length; i++) {
+			totalLeafCount = totalLeafCount + getNumberOfLeaves(rootIndices[i]);
+			maxWeight = Math.max(maxWeight, getMaxiumWeight(rootIndices[i]) + 1.0);
 		}
 
 		double width = 1.0 / totalLeafCount;
 		double height = 1.0 / maxWeight;
 
 		int leafCountSoFar = 0;
-
-		//TODO: SLOW!
-		for (int i = 0; i < roots.size(); i++) {
-			InternalNode rootEntity = (InternalNode) roots.get(i);
-			int rootEntityIndex = indexOfInternalNode(entities, rootEntity);
-			computePositionRecursively(rootEntity, rootEntityIndex, leafCountSoFar, width, height, new HashSet(), entities);
-			leafCountSoFar = leafCountSoFar + getNumberOfLeaves(rootEntity, rootEntityIndex, entities);
+		for (int i = 0; i < rootIndices.length; i++) {
+			computePositions(rootIndices[i], leafCountSoFar, width, height, entities);
+			leafCountSoFar = leafCountSoFar + getNumberOfLeaves(rootIndices[i]);
 		}
 	}
 
 	/**
-	 * Computes positions recursively until the leaf nodes are reached.
+	 * Computes positions of the nodes of a tree until the leaf nodes are
+	 * reached, in the order in which a recursive traversal would.
 	 */
-	private void computePositionRecursively(InternalNode layoutEntity, int i, int relativePosition, double width, double height, Set seenAlready, InternalNode[] entities) {
-		if (seenAlready.contains(layoutEntity)) {
-			return;
-		}
-		seenAlready.add(layoutEntity);
-		double level = getLevel(layoutEntity, i, entities);
-		int breadth = getNumberOfLeaves(layoutEntity, i, entities);
-		double absHPosition = relativePosition + breadth / 2.0;
-		double absVPosition = (level + 0.5);
-
-		double posx = absHPosition * width;
-		double posy = absVPosition * height;
-		double weight = weights[i];
-		posy = posy + height * (weight - level);
-		layoutEntity.setInternalLocation(posx, posy);
-
-		int relativeCount = 0;
-		List children = childrenLists[i];
-		//TODO: Slow
-		for (Iterator iter = children.iterator(); iter.hasNext();) {
-			InternalNode childEntity = (InternalNode) iter.next();
-			int childEntityIndex = indexOfInternalNode(entities, childEntity);
-			computePositionRecursively(childEntity, childEntityIndex, relativePosition + relativeCount, width, height, seenAlready, entities);
-			relativeCount = relativeCount + getNumberOfLeaves(childEntity, childEntityIndex, entities);
+	private void computePositions(int root, int relativePosition, double width, double height, InternalNode[] entities) {
+		// the pushed nodes never outnumber the children of the visited ones
+		int seenStamp = nextStamp();
+		int depth = 0;
+		nodeStack[0] = root;
+		valueStack[0] = relativePosition;
+		while (depth >= 0) {
+			int i = nodeStack[depth];
+			int position = valueStack[depth--];
+			if (seen[i] == seenStamp) {
+				continue;
+			}
+			seen[i] = seenStamp;
+			double level = getLevel(i);
+			int breadth = getNumberOfLeaves(i);
+			double absHPosition = position + breadth / 2.0;
+			double absVPosition = (level + 0.5);
+
+			double posx = absHPosition * width;
+			double posy = absVPosition * height;
+			double weight = weights[i];
+			posy = posy + height * (weight - level);
+			entities[i].setInternalLocation(posx, posy);
+
+			int[] children = childrenLists[i];
+			int relativeCount = 0;
+			for (int j = 0; j < children.length; j++) {
+				relativeCount = relativeCount + getNumberOfLeaves(children[j]);
+			}
+			for (int j = children.length - 1; j >= 0; j--) {
+				relativeCount = relativeCount - getNumberOfLeaves(children[j]);
+				nodeStack[++depth] = children[j];
+				valueStack[depth] = position + relativeCount;
+			}
 		}
 	}
 
-	private int getNumberOfLeaves(InternalNode layoutEntity, int i, InternalNode[] entities) {
-		return getNumberOfLeavesRecursive(layoutEntity, i, new HashSet(), entities);
-	}
-
-	private int getNumberOfLeavesRecursive(InternalNode layoutEntity, int i, Set seen, InternalNode[] entities) {
-		int numLeaves = 0;
-		List children = childrenLists[i];
-		if (children.size() == 0) {
-			numLeaves = 1;
-		} else {
-			//TODO: SLOW!
-			for (Iterator iter = children.iterator(); iter.hasNext();) {
-				InternalNode childEntity = (InternalNode) iter.next();
-				if (!seen.contains(childEntity)) {
-					seen.add(childEntity);
-					int childEntityIndex = indexOfInternalNode(entities, childEntity);
-					numLeaves += getNumberOfLeavesRecursive(childEntity, childEntityIndex, seen, entities);
-				} else {
-					numLeaves = 1;
+	/**
+	 * Returns the number of leaves below the node. Where the children do not
+	 * form a tree, the leaves are counted as they always have been: a child
+	 * seen before resets the count to one.
+	 */
+	private int getNumberOfLeaves(int i) {
+		if (numLeaves[i] >= 0) {
+			return numLeaves[i];
+		}
+		int countedStamp = nextStamp();
+		int[] nodes = scratchNodes;
+		int[] childIndices = scratchIndices;
+		int[] counts = scratchValues;
+		int depth = 0;
+		nodes[0] = i;
+		int result = 0;
+		while (depth >= 0) {
+			int[] children = childrenLists[nodes[depth]];
+			if (children.length == 0 || childIndices[depth] == children.length) {
+				result = children.length == 0 ? 1 : counts[depth];
+				childIndices[depth] = 0;
+				counts[depth] = 0;
+				if (--depth >= 0) {
+					counts[depth] += result;
 				}
+				continue;
+			}
+			int child = children[childIndices[depth]++];
+			if (counted[child] != countedStamp) {
+				counted[child] = countedStamp;
+				nodes[++depth] = child;
+			} else {
+				counts[depth] = 1;
 			}
 		}
-		return numLeaves;
-	}
-
-	private int getLevel(InternalNode layoutEntity, int i, InternalNode[] entities) {
-		return getLevelRecursive(layoutEntity, i, new HashSet(), entities);
+		numLeaves[i] = result;
+		return result;
 	}
 
-	private int getLevelRecursive(InternalNode layoutEntity, int i, Set seen, InternalNode[] entities) {
-		if (seen.contains(layoutEntity)) {
-			return 0;
+	/**
+	 * Returns the level of the node, which is one more than the highest
+	 * level of its parents. Where the parents do not form chains, a parent
+	 * seen before counts as being at level zero.
+	 */
+	private int getLevel(int i) {
+		if (levels[i] >= 0) {
+			return levels[i];
 		}
-		seen.add(layoutEntity);
-		List parents = parentLists[i];
-		int maxParentLevel = 0;
-		for (Iterator iter = parents.iterator(); iter.hasNext();) {
-			InternalNode parentEntity = (InternalNode) iter.next();
-			int parentEntityIndex = indexOfInternalNode(entities, parentEntity);
-			int parentLevel = getLevelRecursive(parentEntity, parentEntityIndex, seen, entities) + 1;
-			maxParentLevel = Math.max(maxParentLevel, parentLevel);
+		int countedStamp = nextStamp();
+		int[] nodes = scratchNodes;
+		int[] parentIndices = scratchIndices;
+		int[] maxLevels = scratchValues;
+		int depth = 0;
+		nodes[0] = i;
+		counted[i] = countedStamp;
+		int result = 0;
+		while (depth >= 0) {
+			int[] parents = parentLists[nodes[depth]];
+			if (parentIndices[depth] == parents.length) {
+				result = maxLevels[depth];
+				parentIndices[depth] = 0;
+				maxLevels[depth] = 0;
+				if (--depth >= 0) {
+					maxLevels[depth] = Math.max(maxLevels[depth], result + 1);
+				}
+				continue;
+			}
+			int parent = parents[parentIndices[depth]++];
+			if (counted[parent] != countedStamp) {
+				counted[parent] = countedStamp;
+				nodes[++depth] = parent;
+			} else {
+				maxLevels[depth] = Math.max(maxLevels[depth], 1);
+			}
 		}
-		return maxParentLevel;
+		levels[i] = result;
+		return result;
 	}
 
 	/**
-	 * Note: Use this as little as possible!
-	 * TODO limit the use of this method 
-	 * @param nodes
-	 * @param nodeToFind
-	 * @return
+	 * Finds the nodes from which the given edges only reach a tree: nodes
+	 * which are not part of a cycle, and whose successors each have a single
+	 * predecessor and only reach a tree themselves.
+	 *
+	 * @param postOrder filled with the nodes, each after its successors
+	 * unless they are part of a cycle
+	 * @return whether each node only reaches a tree
 	 */
-	private int indexOfInternalNode(InternalNode[] nodes, InternalNode nodeToFind) {
-		for (int i = 0; i < nodes.length; i++) {
-			InternalNode node = nodes[i];
-			if (node.equals(nodeToFind)) {
-				return i;
+	private static boolean[] findTrees(int[][] successors, int[] numPredecessors, int[] postOrder) {
+		boolean[] trees = new boolean[successors.length];
+		byte[] states = new byte[successors.length]; // 0 new, 1 visiting, 2 done
+		int[] stack = new int[successors.length];
+		int[] successorIndices = new int[successors.length];
+		int numDone = 0;
+		for (int i = 0; i < successors.length; i++) {
+			if (states[i] != 0) {
+				continue;
 			}
+			int depth = 0;
+			stack[0] = i;
+			states[i] = 1;
+			trees[i] = true;
+			while (depth >= 0) {
+				int node = stack[depth];
+				int[] next = successors[node];
+				if (successorIndices[node] < next.length) {
+					int successor = next[successorIndices[node]++];
+					if (states[successor] == 0) {
+						states[successor] = 1;
+						trees[successor] = true;
+						stack[++depth] = successor;
+					} else if (states[successor] == 1 || !trees[successor] || numPredecessors[successor] != 1) {
+						trees[node] = false;
+					}
+				} else {
+					states[node] = 2;
+					postOrder[numDone++] = node;
+					if (--depth >= 0 && (!trees[node] || numPredecessors[node] != 1)) {
+						trees[stack[depth]] = false;
+					}
+				}
+			}
+		}
+		return trees;
+	}
+
+	/**
+	 * Returns the index of the given node.
+	 */
+	private int indexOfInternalNode(Map indices, InternalNode nodeToFind) {
+		Integer index = (Integer) indices.get(nodeToFind);
+		if (index == null) {
+			throw new RuntimeException("Couldn't find index of internal node: " + nodeToFind);
 		}
-		throw new RuntimeException("Couldn't find index of internal node: " + nodeToFind);
+		return index.intValue();
 	}
 
 	protected boolean isValidConfiguration(boolean asynchronous, boolean continueous) {
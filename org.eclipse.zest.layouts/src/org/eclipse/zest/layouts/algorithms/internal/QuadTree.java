@@ -0,0 +1,247 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.zest.layouts.algorithms.internal;
+
+/**
+ * A quadtree over a set of points of equal mass, used to approximate the
+ * inverse square repulsion between all pairs of points in O(n log n) (the
+ * Barnes-Hut approximation). A cell whose size seen from a point is smaller
+ * than a given ratio <code>theta</code> is treated as a single point located
+ * at its center of mass.
+ * <p>
+ * The tree is stored in flat arrays which are reused between builds, so that
+ * a layout rebuilding the tree at every iteration does not allocate. Once
+ * built, the tree may be queried from several threads at the same time.
+ */
+public class QuadTree {
+
+	/**
+	 * Cells are split at most this many times. Points closer than the size of
+	 * the smallest cell share a leaf.
+	 */
+	private static final int MAX_DEPTH = 24;
+
+	private int cellCount;
+	private double[] minX = new double[0];
+	private double[] minY = new double[0];
+	private double[] size = new double[0];
+	private double[] mass = new double[0];
+	private double[] massX = new double[0];
+	private double[] massY = new double[0];
+	private int[] depth = new int[0];
+	/** first of the four children of a cell, or -1 for a leaf */
+	private int[] firstChild = new int[0];
+	/** first point of a leaf, or -1 */
+	private int[] firstPoint = new int[0];
+	/** next point in the same leaf, or -1 */
+	private int[] nextPoint = new int[0];
+
+	private double[] xs;
+	private double[] ys;
+
+	/**
+	 * Builds the tree over the given points. The arrays are referenced, not
+	 * copied, and must not change until the tree is rebuilt.
+	 *
+	 * @param x
+	 *            the x coordinates
+	 * @param y
+	 *            the y coordinates
+	 * @param count
+	 *            the number of points
+	 */
+	public void build(double[] x, double[] y, int count) {
+		xs = x;
+		ys = y;
+		cellCount = 0;
+		if (nextPoint.length < count)
+			nextPoint = new int[count];
+		if (count == 0)
+			return;
+
+		double left = Double.MAX_VALUE, top = Double.MAX_VALUE;
+		double right = -Double.MAX_VALUE, bottom = -Double.MAX_VALUE;
+		for (int i = 0; i < count; i++) {
+			left = Math.min(left, x[i]);
+			top = Math.min(top, y[i]);
+			right = Math.max(right, x[i]);
+			bottom = Math.max(bottom, y[i]);
+		}
+		double span = Math.max(Math.max(right - left, bottom - top), 1e-9);
+		newCell(left, top, span * 1.0001, 0);
+		for (int i = 0; i < count; i++)
+			insert(i);
+	}
+
+	/**
+	 * Accumulates the repulsion exerted by all other points on the given point
+	 * into <code>force</code>. Each point repels with
+	 * <code>strength / distance<sup>2</sup></code>.
+	 *
+	 * @param point
+	 *            the index of the point
+	 * @param strength
+	 *            the strength of the repulsion
+	 * @param theta
+	 *            the opening criterion; 0 visits every point
+	 * @param minDistance
+	 *            the smallest distance considered between two points
+	 * @param force
+	 *            array of length 2 receiving the x and y force
+	 */
+	public void accumulateRepulsion(int point, double strength, double theta,
+			double minDistance, double[] force) {
+		if (cellCount == 0)
+			return;
+		double px = xs[point], py = ys[point];
+		double fx = 0, fy = 0;
+		int[] stack = new int[3 * MAX_DEPTH + 4];
+		int top = 0;
+		stack[top++] = 0;
+		while (top > 0) {
+			int cell = stack[--top];
+			if (firstChild[cell] == -1) {
+				for (int j = firstPoint[cell]; j != -1; j = nextPoint[j]) {
+					if (j == point)
+						continue;
+					double dx = px - xs[j];
+					double dy = py - ys[j];
+					double distance = Math.max(minDistance,
+							Math.sqrt(dx * dx + dy * dy));
+					double f = strength / (distance * distance * distance);
+					fx += f * dx;
+					fy += f * dy;
+				}
+				continue;
+			}
+			double dx = px - massX[cell];
+			double dy = py - massY[cell];
+			double distance = Math.sqrt(dx * dx + dy * dy);
+			if (size[cell] < theta * distance && !contains(cell, px, py)) {
+				distance = Math.max(minDistance, distance);
+				double f = strength * mass[cell]
+						/ (distance * distance * distance);
+				fx += f * dx;
+				fy += f * dy;
+			} else {
+				int child = firstChild[cell];
+				for (int i = 0; i < 4; i++)
+					if (mass[child + i] > 0)
+						stack[top++] = child + i;
+			}
+		}
+		force[0] += fx;
+		force[1] += fy;
+	}
+
+	private void insert(int point) {
+		double px = xs[point], py = ys[point];
+		int cell = 0;
+		while (true) {
+			double m = mass[cell] + 1;
+			massX[cell] += (px - massX[cell]) / m;
+			massY[cell] += (py - massY[cell]) / m;
+			mass[cell] = m;
+			if (firstChild[cell] != -1) {
+				cell = childFor(cell, px, py);
+				continue;
+			}
+			if (firstPoint[cell] == -1 || depth[cell] >= MAX_DEPTH) {
+				nextPoint[point] = firstPoint[cell];
+				firstPoint[cell] = point;
+				return;
+			}
+			// split the leaf and push its points one level down
+			split(cell);
+			// a leaf below the maximum depth holds a single point
+			for (int j = firstPoint[cell]; j != -1;) {
+				int next = nextPoint[j];
+				int child = childFor(cell, xs[j], ys[j]);
+				mass[child] = 1;
+				massX[child] = xs[j];
+				massY[child] = ys[j];
+				nextPoint[j] = firstPoint[child];
+				firstPoint[child] = j;
+				j = next;
+			}
+			firstPoint[cell] = -1;
+			cell = childFor(cell, px, py);
+		}
+	}
+
+	private boolean contains(int cell, double px, double py) {
+		return px >= minX[cell] && py >= minY[cell]
+				&& px < minX[cell] + size[cell] && py < minY[cell] + size[cell];
+	}
+
+	private int childFor(int cell, double px, double py) {
+		double half = size[cell] / 2;
+		int index = 0;
+		if (px >= minX[cell] + half)
+			index += 1;
+		if (py >= minY[cell] + half)
+			index += 2;
+		return firstChild[cell] + index;
+	}
+
+	private void split(int cell) {
+		double half = size[cell] / 2;
+		double x = minX[cell], y = minY[cell];
+		int d = depth[cell] + 1;
+		int first = newCell(x, y, half, d);
+		newCell(x + half, y, half, d);
+		newCell(x, y + half, half, d);
+		newCell(x + half, y + half, half, d);
+		firstChild[cell] = first;
+	}
+
+	private int newCell(double x, double y, double cellSize, int cellDepth) {
+		if (cellCount == size.length)
+			grow();
+		int cell = cellCount++;
+		minX[cell] = x;
+		minY[cell] = y;
+		size[cell] = cellSize;
+		depth[cell] = cellDepth;
+		mass[cell] = 0;
+		massX[cell] = 0;
+		massY[cell] = 0;
+		firstChild[cell] = -1;
+		firstPoint[cell] = -1;
+		return cell;
+	}
+
+	private void grow() {
+		int capacity = Math.max(64, size.length * 2);
+		minX = copy(minX, capacity);
+		minY = copy(minY, capacity);
+		size = copy(size, capacity);
+		mass = copy(mass, capacity);
+		massX = copy(massX, capacity);
+		massY = copy(massY, capacity);
+		depth = copy(depth, capacity);
+		firstChild = copy(firstChild, capacity);
+		firstPoint = copy(firstPoint, capacity);
+	}
+
+	private static double[] copy(double[] array, int length) {
+		double[] result = new double[length];
+		System.arraycopy(array, 0, result, 0, array.length);
+		return result;
+	}
+
+	private static int[] copy(int[] array, int length) {
+		int[] result = new int[length];
+		System.arraycopy(array, 0, result, 0, array.length);
+		return result;
+	}
+
+}
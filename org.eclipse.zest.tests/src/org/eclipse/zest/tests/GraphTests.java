@@ -11,13 +11,21 @@ package org.eclipse.zest.tests;
 import junit.framework.TestCase;
 
 import org.eclipse.draw2d.Figure;
+import org.eclipse.draw2d.geometry.Point;
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.widgets.Shell;
 import org.eclipse.zest.core.widgets.Graph;
 import org.eclipse.zest.core.widgets.GraphConnection;
 import org.eclipse.zest.core.widgets.GraphItem;
 import org.eclipse.zest.core.widgets.GraphNode;
+import org.eclipse.zest.core.widgets.ZestStyles;
 import org.eclipse.zest.core.widgets.internal.ZestRootLayer;
+import org.eclipse.zest.layouts.LayoutStyles;
+import org.eclipse.zest.layouts.algorithms.AbstractLayoutAlgorithm;
+import org.eclipse.zest.layouts.dataStructures.InternalNode;
+import org.eclipse.zest.layouts.dataStructures.InternalRelationship;
+import org.eclipse.zest.layouts.progress.ProgressEvent;
+import org.eclipse.zest.layouts.progress.ProgressListener;
 
 /**
  * General tests for the {@link Graph} class.
@@ -29,6 +37,77 @@ public class GraphTests extends TestCase {
 
 	private static final int STYLE = SWT.NONE;
 
+	private static final int LOCATION = 123;
+
+	private static final long TIMEOUT = 10000;
+
+	/**
+	 * Moves every node to the same location, once released.
+	 */
+	private static class FixedLayoutAlgorithm extends AbstractLayoutAlgorithm {
+
+		private final Object gate = new Object();
+
+		private boolean released;
+
+		volatile boolean started;
+
+		FixedLayoutAlgorithm() {
+			super(LayoutStyles.NONE);
+		}
+
+		void release() {
+			synchronized (gate) {
+				released = true;
+				gate.notifyAll();
+			}
+		}
+
+		protected void applyLayoutInternal(InternalNode[] entitiesToLayout,
+				InternalRelationship[] relationshipsToConsider, double x,
+				double y, double width, double height) {
+			started = true;
+			synchronized (gate) {
+				while (!released) {
+					try {
+						gate.wait();
+					} catch (InterruptedException e) {
+						return;
+					}
+				}
+			}
+			for (int i = 0; i < entitiesToLayout.length; i++) {
+				entitiesToLayout[i].setLocation(LOCATION, LOCATION);
+			}
+		}
+
+		protected int getCurrentLayoutStep() {
+			return 0;
+		}
+
+		protected int getTotalNumberOfLayoutSteps() {
+			return 0;
+		}
+
+		protected boolean isValidConfiguration(boolean asynchronous,
+				boolean continuous) {
+			return !continuous;
+		}
+
+		protected void postLayoutAlgorithm(InternalNode[] entitiesToLayout,
+				InternalRelationship[] relationshipsToConsider) {
+		}
+
+		protected void preLayoutAlgorithm(InternalNode[] entitiesToLayout,
+				InternalRelationship[] relationshipsToConsider, double x,
+				double y, double width, double height) {
+		}
+
+		public void setLayoutArea(double x, double y, double width,
+				double height) {
+		}
+	}
+
 	private GraphNode[] nodes;
 
 	private Graph graph;
@@ -45,6 +124,12 @@ public class GraphTests extends TestCase {
 		connection = new GraphConnection(graph, STYLE, nodes[0], nodes[1]);
 	}
 
+	protected void tearDown() throws Exception {
+		if (!shell.isDisposed()) {
+			shell.dispose();
+		}
+	}
+
 	public void testGraphData() {
 		graph.setData("graph data");
 		assertEquals("graph data", graph.getData());
@@ -121,4 +206,76 @@ public class GraphTests extends TestCase {
 
 	}
 
+	public void testBackgroundLayoutIsApplied() throws Exception {
+		FixedLayoutAlgorithm algorithm = new FixedLayoutAlgorithm();
+		algorithm.release();
+		startBackgroundLayout(algorithm);
+		long end = System.currentTimeMillis() + TIMEOUT;
+		while (nodes[1].getLocation().x != LOCATION
+				&& System.currentTimeMillis() < end) {
+			dispatch();
+		}
+		assertEquals(new Point(LOCATION, LOCATION), nodes[0].getLocation());
+		assertEquals(new Point(LOCATION, LOCATION), nodes[1].getLocation());
+	}
+
+	public void testStoppedBackgroundLayoutIsDiscarded() throws Exception {
+		Point location = nodes[0].getLocation();
+		FixedLayoutAlgorithm algorithm = new FixedLayoutAlgorithm();
+		startBackgroundLayout(algorithm);
+		long end = System.currentTimeMillis() + TIMEOUT;
+		while (!algorithm.started && System.currentTimeMillis() < end) {
+			dispatch();
+		}
+		assertTrue("The layout should have started", algorithm.started);
+
+		// added after the listener of the graph, which posts the results
+		final Thread displayThread = Thread.currentThread();
+		final boolean[] ended = new boolean[1];
+		algorithm.addProgressListener(new ProgressListener() {
+			public void progressStarted(ProgressEvent e) {
+			}
+
+			public void progressUpdated(ProgressEvent e) {
+			}
+
+			public void progressEnded(ProgressEvent e) {
+				if (Thread.currentThread() != displayThread) {
+					synchronized (ended) {
+						ended[0] = true;
+					}
+				}
+			}
+		});
+		graph.stopLayout();
+		algorithm.release();
+		boolean done = false;
+		while (!done && System.currentTimeMillis() < end) {
+			dispatch();
+			synchronized (ended) {
+				done = ended[0];
+			}
+		}
+		assertTrue("The layout should have ended", done);
+		while (shell.getDisplay().readAndDispatch()) {
+			// apply the results posted by the graph's listener
+		}
+		assertEquals(location, nodes[0].getLocation());
+	}
+
+	private void startBackgroundLayout(AbstractLayoutAlgorithm algorithm) {
+		graph.setNodeStyle(ZestStyles.NODES_NO_LAYOUT_ANIMATION);
+		graph.setPreferredSize(500, 500);
+		graph.setLayoutInBackground(true, false);
+		shell.setSize(600, 600);
+		shell.open();
+		graph.setLayoutAlgorithm(algorithm, true);
+	}
+
+	private void dispatch() throws InterruptedException {
+		if (!shell.getDisplay().readAndDispatch()) {
+			Thread.sleep(10);
+		}
+	}
+
 }
@@ -16,8 +16,10 @@ import junit.framework.TestCase;
 
 import org.eclipse.jface.util.DelegatingDragAdapter;
 import org.eclipse.jface.viewers.ISelectionChangedListener;
+import org.eclipse.jface.viewers.LabelProvider;
 import org.eclipse.jface.viewers.SelectionChangedEvent;
 import org.eclipse.jface.viewers.StructuredSelection;
+import org.eclipse.jface.viewers.Viewer;
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.dnd.DND;
 import org.eclipse.swt.dnd.DropTarget;
@@ -26,6 +28,7 @@ import org.eclipse.swt.dnd.Transfer;
 import org.eclipse.swt.widgets.Event;
 import org.eclipse.swt.widgets.Shell;
 import org.eclipse.zest.core.viewers.GraphViewer;
+import org.eclipse.zest.core.viewers.IGraphEntityContentProvider;
 import org.eclipse.zest.core.widgets.Graph;
 import org.eclipse.zest.core.widgets.GraphConnection;
 import org.eclipse.zest.core.widgets.GraphItem;
@@ -111,4 +114,57 @@ public class GraphViewerTests extends TestCase {
 		assertFalse("Post selection listeners should be notified",
 				selected.isEmpty());
 	}
+
+	/**
+	 * Assert that refreshing the viewer keeps the nodes and connections of the
+	 * elements which are still in the content, and only adds and removes the
+	 * others.
+	 */
+	public void testRefreshReusesItems() {
+		final List elements = new ArrayList();
+		elements.add("1");
+		elements.add("2");
+		elements.add("3");
+		viewer.setContentProvider(new IGraphEntityContentProvider() {
+			public Object[] getElements(Object input) {
+				return elements.toArray();
+			}
+
+			public Object[] getConnectedTo(Object entity) {
+				int next = elements.indexOf(entity) + 1;
+				return next < elements.size() ? new Object[] { elements
+						.get(next) } : null;
+			}
+
+			public void dispose() {
+			}
+
+			public void inputChanged(Viewer viewer, Object oldInput,
+					Object newInput) {
+			}
+		});
+		viewer.setLabelProvider(new LabelProvider());
+		viewer.setInput(new Object());
+		Graph graph = viewer.getGraphControl();
+		assertEquals(3, graph.getNodes().size());
+		assertEquals(2, graph.getConnections().size());
+		GraphNode first = (GraphNode) viewer.findGraphItem("1");
+		GraphNode second = (GraphNode) viewer.findGraphItem("2");
+		GraphConnection kept = (GraphConnection) first.getSourceConnections()
+				.get(0);
+		first.setLocation(42, 24);
+
+		elements.remove("3");
+		elements.add("4");
+		viewer.refresh();
+		assertEquals(3, graph.getNodes().size());
+		assertEquals(2, graph.getConnections().size());
+		assertSame(first, viewer.findGraphItem("1"));
+		assertSame(second, viewer.findGraphItem("2"));
+		assertNull(viewer.findGraphItem("3"));
+		assertNotNull(viewer.findGraphItem("4"));
+		assertTrue(graph.getConnections().contains(kept));
+		assertFalse(kept.isDisposed());
+		assertEquals(42, first.getLocation().x);
+	}
 }
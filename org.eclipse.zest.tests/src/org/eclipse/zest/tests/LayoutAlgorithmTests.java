@@ -0,0 +1,191 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corporation and others. All rights reserved. This
+ * program and the accompanying materials are made available under the terms of
+ * the Eclipse Public License v1.0 which accompanies this distribution, and is
+ * available at http://www.eclipse.org/legal/epl-v10.html
+ * <p/>
+ * Contributors: IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.zest.tests;
+
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import org.eclipse.zest.layouts.LayoutEntity;
+import org.eclipse.zest.layouts.LayoutRelationship;
+import org.eclipse.zest.layouts.LayoutStyles;
+import org.eclipse.zest.layouts.algorithms.SpringLayoutAlgorithm;
+import org.eclipse.zest.layouts.algorithms.TreeLayoutAlgorithm;
+import org.eclipse.zest.layouts.algorithms.internal.QuadTree;
+import org.eclipse.zest.layouts.exampleStructures.SimpleNode;
+import org.eclipse.zest.layouts.exampleStructures.SimpleRelationship;
+
+/**
+ * Tests for the layout algorithms which do not need a widget.
+ */
+public class LayoutAlgorithmTests extends TestCase {
+
+	private LayoutEntity[] nodes;
+
+	private LayoutRelationship[] relationships;
+
+	protected void setUp() throws Exception {
+		nodes = createTree(200);
+	}
+
+	/**
+	 * Creates a random tree of the given size, and sets its edges as the
+	 * relationships to lay out.
+	 */
+	private LayoutEntity[] createTree(int count) {
+		Random random = new Random(0);
+		LayoutEntity[] tree = new LayoutEntity[count];
+		for (int i = 0; i < tree.length; i++) {
+			tree[i] = new SimpleNode("node" + i, 0, 0, 10, 10);
+		}
+		relationships = new LayoutRelationship[tree.length - 1];
+		for (int i = 1; i < tree.length; i++) {
+			relationships[i - 1] = new SimpleRelationship(
+					tree[random.nextInt(i)], tree[i], false);
+		}
+		return tree;
+	}
+
+	public void testQuadTreeWithoutApproximationIsExact() {
+		Random random = new Random(0);
+		double[] x = new double[100];
+		double[] y = new double[100];
+		for (int i = 0; i < x.length; i++) {
+			x[i] = random.nextDouble();
+			y[i] = random.nextDouble();
+		}
+		QuadTree tree = new QuadTree();
+		tree.build(x, y, x.length);
+		for (int i = 0; i < x.length; i++) {
+			double fx = 0, fy = 0;
+			for (int j = 0; j < x.length; j++) {
+				if (i != j) {
+					double dx = x[i] - x[j];
+					double dy = y[i] - y[j];
+					double d = Math.sqrt(dx * dx + dy * dy);
+					fx += dx / (d * d * d);
+					fy += dy / (d * d * d);
+				}
+			}
+			double[] force = new double[2];
+			tree.accumulateRepulsion(i, 1, 0, 0.001, force);
+			assertEquals(fx, force[0], Math.abs(fx) * 1e-9);
+			assertEquals(fy, force[1], Math.abs(fy) * 1e-9);
+		}
+	}
+
+	public void testApproximateSpringLayoutStaysInBounds() throws Exception {
+		SpringLayoutAlgorithm algorithm = new SpringLayoutAlgorithm(
+				LayoutStyles.NO_LAYOUT_NODE_RESIZING);
+		algorithm.setIterations(50);
+		algorithm.setBarnesHutTheta(0.8);
+		algorithm.applyLayout(nodes, relationships, 0, 0, 500, 500, false,
+				false);
+		for (int i = 0; i < nodes.length; i++) {
+			double x = nodes[i].getXInLayout();
+			double y = nodes[i].getYInLayout();
+			assertFalse(Double.isNaN(x) || Double.isNaN(y));
+			assertTrue(x >= 0 && x <= 500);
+			assertTrue(y >= 0 && y <= 500);
+		}
+	}
+
+	public void testParallelSpringLayoutIsDeterministic() throws Exception {
+		double[] sequential = runSpringLayout(1, 0.8);
+		double[] parallel = runSpringLayout(4, 0.8);
+		for (int i = 0; i < sequential.length; i++) {
+			assertEquals(sequential[i], parallel[i], 0);
+		}
+	}
+
+	public void testExactParallelSpringLayoutIsDeterministic() throws Exception {
+		double[] sequential = runSpringLayout(1, 0);
+		double[] parallel = runSpringLayout(4, 0);
+		for (int i = 0; i < sequential.length; i++) {
+			assertEquals(sequential[i], parallel[i], 0);
+		}
+	}
+
+	private double[] runSpringLayout(int parallelism, double theta) throws Exception {
+		// enough nodes to be split among several tasks
+		LayoutEntity[] tree = createTree(2000);
+		SpringLayoutAlgorithm algorithm = new SpringLayoutAlgorithm(
+				LayoutStyles.NO_LAYOUT_NODE_RESIZING);
+		algorithm.setIterations(20);
+		algorithm.setBarnesHutTheta(theta);
+		algorithm.setParallelism(parallelism);
+		algorithm.setRandomSeed(42);
+		algorithm.applyLayout(tree, relationships, 0, 0, 500, 500, false,
+				false);
+		double[] locations = new double[tree.length * 2];
+		for (int i = 0; i < tree.length; i++) {
+			locations[2 * i] = tree[i].getXInLayout();
+			locations[2 * i + 1] = tree[i].getYInLayout();
+		}
+		return locations;
+	}
+
+	public void testSpringLayoutAppliesQueuedChanges() throws Exception {
+		SpringLayoutAlgorithm algorithm = new SpringLayoutAlgorithm(
+				LayoutStyles.NO_LAYOUT_NODE_RESIZING);
+		algorithm.setIterations(50);
+		algorithm.setRandomSeed(42);
+		// the changes are applied before the first iteration
+		LayoutEntity removed = nodes[5];
+		algorithm.removeEntity(removed);
+		for (int i = 0; i < relationships.length; i++) {
+			if (relationships[i].getSourceInLayout() == removed
+					|| relationships[i].getDestinationInLayout() == removed) {
+				algorithm.removeRelationship(relationships[i]);
+			}
+		}
+		LayoutEntity added = new SimpleNode("added", 0, 0, 10, 10);
+		algorithm.addEntity(added);
+		algorithm.addRelationship(new SimpleRelationship(nodes[0], added,
+				false));
+		algorithm.applyLayout(nodes, relationships, 0, 0, 500, 500, false,
+				false);
+		assertEquals(0, removed.getXInLayout(), 0);
+		assertEquals(0, removed.getYInLayout(), 0);
+		double x = added.getXInLayout();
+		double y = added.getYInLayout();
+		assertTrue(x >= 0 && x <= 500);
+		assertTrue(y >= 0 && y <= 500);
+		assertTrue(x != 0 || y != 0);
+	}
+
+	public void testTreeLayoutPlacesChildrenBelowParents() throws Exception {
+		new TreeLayoutAlgorithm(LayoutStyles.NO_LAYOUT_NODE_RESIZING)
+				.applyLayout(nodes, relationships, 0, 0, 500, 500, false, false);
+		for (int i = 0; i < relationships.length; i++) {
+			LayoutRelationship relationship = relationships[i];
+			assertTrue(relationship.getDestinationInLayout().getYInLayout() > relationship
+					.getSourceInLayout().getYInLayout());
+		}
+	}
+
+	public void testTreeLayoutOfDeepChain() throws Exception {
+		LayoutEntity[] chain = new LayoutEntity[50000];
+		for (int i = 0; i < chain.length; i++) {
+			chain[i] = new SimpleNode("node" + i, 0, 0, 10, 10);
+		}
+		LayoutRelationship[] links = new LayoutRelationship[chain.length - 1];
+		for (int i = 1; i < chain.length; i++) {
+			links[i - 1] = new SimpleRelationship(chain[i - 1], chain[i],
+					false);
+		}
+		new TreeLayoutAlgorithm(LayoutStyles.NO_LAYOUT_NODE_RESIZING)
+				.applyLayout(chain, links, 0, 0, 500, 500, false, false);
+		for (int i = 1; i < chain.length; i++) {
+			assertEquals(chain[0].getXInLayout(), chain[i].getXInLayout(), 0);
+			assertTrue(chain[i].getYInLayout() > chain[i - 1].getYInLayout());
+		}
+	}
+
+}